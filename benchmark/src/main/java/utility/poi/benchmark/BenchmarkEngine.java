@@ -0,0 +1,74 @@
+package utility.poi.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import utility.poi.ExcelPoiDirectGenerator;
+import utility.poi.ExcelPoiGenerator;
+
+/**
+ * ベンチマーク対象の出力方式
+ * @author Takeshi
+ *
+ */
+public enum BenchmarkEngine
+{
+	/** <code>XSSF</code>形式（全行をメモリ上に保持） */
+	XSSF
+	{
+		@Override
+		public <T> long write(Iterator<T> data, Class<T> clazz, OutputStream stream)
+				throws IOException
+		{
+			try (ExcelPoiGenerator<T> writer = new ExcelPoiGenerator<>(true))
+			{
+				long rows = writer.writetoExcel(data, clazz);
+				writer.write(stream);
+				return rows;
+			}
+		}
+	},
+
+	/** <code>SXSSF</code>形式（ストリーミング） */
+	SXSSF
+	{
+		@Override
+		public <T> long write(Iterator<T> data, Class<T> clazz, OutputStream stream)
+				throws IOException
+		{
+			try (ExcelPoiGenerator<T> writer = new ExcelPoiGenerator<>(ExcelPoiGenerator.DEFAULT_ROW_ACCESS_WINDOW, false))
+			{
+				long rows = writer.writetoExcel(data, clazz);
+				writer.write(stream);
+				return rows;
+			}
+		}
+	},
+
+	/** SpreadsheetMLの直接出力 */
+	DIRECT
+	{
+		@Override
+		public <T> long write(Iterator<T> data, Class<T> clazz, OutputStream stream)
+				throws IOException
+		{
+			try (ExcelPoiDirectGenerator<T> writer = new ExcelPoiDirectGenerator<>(stream))
+			{
+				return writer.writetoExcel(data, clazz);
+			}
+		}
+	};
+
+	/**
+	 * データをExcelに出力します。
+	 * @param <T> 描画対象のクラス
+	 * @param data イテレータのデータ
+	 * @param clazz 描画対象のクラス
+	 * @param stream 出力ストリーム
+	 * @return 出力した行数
+	 * @throws IOException 出力に失敗した場合
+	 */
+	public abstract <T> long write(Iterator<T> data, Class<T> clazz, OutputStream stream)
+			throws IOException;
+}
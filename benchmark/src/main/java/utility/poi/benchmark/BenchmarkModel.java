@@ -0,0 +1,37 @@
+package utility.poi.benchmark;
+
+/**
+ * ベンチマーク対象のモデル（項目数）
+ * @author Takeshi
+ *
+ */
+public enum BenchmarkModel
+{
+	/** 5項目 */
+	NARROW(NarrowModel.class),
+
+	/** 20項目 */
+	WIDE(WideModel.class);
+
+	private final Class<?> model_class;
+
+	/**
+	 * コンストラクタ
+	 * @param model_class モデルのクラス
+	 */
+	private BenchmarkModel(Class<?> model_class)
+	{
+		this.model_class = model_class;
+	}
+
+	/**
+	 * モデルのクラスを取得します。<br>
+	 * 出力方式の型パラメータを揃えるため、<code>Object</code>のクラスとして返却します。
+	 * @return モデルのクラス
+	 */
+	@SuppressWarnings("unchecked")
+	public Class<Object> getModelClass()
+	{
+		return (Class<Object>)this.model_class;
+	}
+}
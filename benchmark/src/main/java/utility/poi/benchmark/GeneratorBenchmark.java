@@ -0,0 +1,58 @@
+package utility.poi.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 一覧形式のExcel出力（<code>writetoExcel</code>）の行数、項目数、出力方式ごとの処理時間<br>
+ * 1回の計測でブックの作成から出力ストリームへの書き込みまでを行います。
+ * <code>XSSF</code>の1,000,000行は大きなヒープが必要なため、<code>-p rows=1000,100000</code>等で除外できます。
+ * @author Takeshi
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Xms4g", "-Xmx4g" })
+public class GeneratorBenchmark
+{
+	@Param({ "1000", "100000", "1000000" })
+	int rows;
+
+	@Param({ "NARROW", "WIDE" })
+	BenchmarkModel model;
+
+	@Param({ "XSSF", "SXSSF", "DIRECT" })
+	BenchmarkEngine engine;
+
+	private List<Object> pool;
+
+	@Setup
+	public void setup()
+	{
+		pool = SyntheticData.create(model.getModelClass(), SyntheticData.POOL_SIZE);
+	}
+
+	@Benchmark
+	public long writetoExcel()
+			throws IOException
+	{
+		return engine.write(SyntheticData.cycle(pool, rows), model.getModelClass(), OutputStream.nullOutputStream());
+	}
+}
@@ -0,0 +1,89 @@
+package utility.poi.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+
+import utility.poi.annotation.ExcelCellStyle;
+import utility.poi.annotation.ExcelColumn;
+import utility.poi.annotation.ExcelSheet;
+
+/**
+ * ベンチマーク用の5項目のモデル（文字列、整数、10進数、日付、実数）
+ * @author Takeshi
+ *
+ */
+@ExcelSheet(sheet_name = "Narrow", auto_filter = true, style = @ExcelCellStyle(bold = true))
+public class NarrowModel
+{
+	@ExcelColumn(name = "text", width = 12)
+	@ExcelCellStyle(top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	String text;
+
+	@ExcelColumn(name = "count", width = 12)
+	@ExcelCellStyle(format = "#,##0", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	int count;
+
+	@ExcelColumn(name = "amount", width = 12)
+	@ExcelCellStyle(format = "#,##0.00", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	BigDecimal amount;
+
+	@ExcelColumn(name = "date", width = 12)
+	@ExcelCellStyle(format = "yyyy-mm-dd", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	LocalDate date;
+
+	@ExcelColumn(name = "rate", width = 12)
+	@ExcelCellStyle(format = "0.00%", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	double rate;
+
+	public String getText()
+	{
+		return this.text;
+	}
+
+	public void setText(String text)
+	{
+		this.text = text;
+	}
+
+	public int getCount()
+	{
+		return this.count;
+	}
+
+	public void setCount(int count)
+	{
+		this.count = count;
+	}
+
+	public BigDecimal getAmount()
+	{
+		return this.amount;
+	}
+
+	public void setAmount(BigDecimal amount)
+	{
+		this.amount = amount;
+	}
+
+	public LocalDate getDate()
+	{
+		return this.date;
+	}
+
+	public void setDate(LocalDate date)
+	{
+		this.date = date;
+	}
+
+	public double getRate()
+	{
+		return this.rate;
+	}
+
+	public void setRate(double rate)
+	{
+		this.rate = rate;
+	}
+}
@@ -0,0 +1,59 @@
+package utility.poi.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 1行あたりの処理時間、メモリ割り当て量<br>
+ * 固定の行数を出力し、結果を1行あたりに換算します。<code>-prof gc</code>の<code>gc.alloc.rate.norm</code>は1行あたりのバイト数となります。
+ * @author Takeshi
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@OperationsPerInvocation(RowCostBenchmark.ROWS)
+public class RowCostBenchmark
+{
+	/** 1回の計測で出力する行数 */
+	static final int ROWS = 10000;
+
+	@Param({ "NARROW", "WIDE" })
+	BenchmarkModel model;
+
+	@Param({ "XSSF", "SXSSF", "DIRECT" })
+	BenchmarkEngine engine;
+
+	private List<Object> pool;
+
+	@Setup
+	public void setup()
+	{
+		pool = SyntheticData.create(model.getModelClass(), SyntheticData.POOL_SIZE);
+	}
+
+	@Benchmark
+	public long writeRow()
+			throws IOException
+	{
+		return engine.write(SyntheticData.cycle(pool, ROWS), model.getModelClass(), OutputStream.nullOutputStream());
+	}
+}
@@ -0,0 +1,137 @@
+package utility.poi.benchmark;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import utility.poi.ExcelPoiStyle;
+import utility.poi.ExcelPoiStylePool;
+import utility.poi.annotation.ExcelCellStyle;
+import utility.poi.annotation.ExcelSheet;
+
+/**
+ * セルスタイルの作成、取得にかかる時間<br>
+ * 新しい<code>Workbook</code>オブジェクトでのセルスタイルの作成と、作成済みのセルスタイルの取得を比較します。
+ * @author Takeshi
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StyleBenchmark
+{
+	/**
+	 * 出力対象のセルスタイルの設定値（WideModelの項目、見出し）
+	 */
+	@State(Scope.Benchmark)
+	public static class Styles
+	{
+		List<ExcelPoiStyle> styles;
+
+		@Setup(Level.Trial)
+		public void setup()
+		{
+			styles = Stream.concat(Stream.of(WideModel.class.getDeclaredFields()).map(t -> t.getAnnotation(ExcelCellStyle.class))
+					, Stream.of(WideModel.class.getAnnotation(ExcelSheet.class).style()))
+					.map(ExcelPoiStyle::of)
+					.collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * 計測ごとに作成する<code>Workbook</code>オブジェクト
+	 */
+	@State(Scope.Thread)
+	public static class EmptyPool
+	{
+		Workbook workbook;
+		ExcelPoiStylePool pool;
+
+		@Setup(Level.Invocation)
+		public void setup()
+		{
+			workbook = new SXSSFWorkbook();
+			pool = ExcelPoiStylePool.of(workbook);
+		}
+
+		@TearDown(Level.Invocation)
+		public void tearDown()
+				throws IOException
+		{
+			workbook.close();
+		}
+	}
+
+	/**
+	 * セルスタイルを作成済みの<code>Workbook</code>オブジェクト
+	 */
+	@State(Scope.Thread)
+	public static class FilledPool
+	{
+		Workbook workbook;
+		ExcelPoiStylePool pool;
+
+		@Setup(Level.Trial)
+		public void setup(Styles styles)
+		{
+			workbook = new SXSSFWorkbook();
+			pool = ExcelPoiStylePool.of(workbook);
+			styles.styles.forEach(pool::getCellStyle);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown()
+				throws IOException
+		{
+			workbook.close();
+		}
+	}
+
+	@Benchmark
+	public void createStyles(Styles styles, EmptyPool pool, Blackhole blackhole)
+	{
+		for (ExcelPoiStyle style : styles.styles)
+		{
+			blackhole.consume(pool.pool.getCellStyle(style));
+		}
+	}
+
+	@Benchmark
+	public void cachedStyles(Styles styles, FilledPool pool, Blackhole blackhole)
+	{
+		for (ExcelPoiStyle style : styles.styles)
+		{
+			blackhole.consume(pool.pool.getCellStyle(style));
+		}
+	}
+
+	@Benchmark
+	public void parseAnnotations(Blackhole blackhole)
+	{
+		for (Field field : WideModel.class.getDeclaredFields())
+		{
+			blackhole.consume(ExcelPoiStyle.of(field.getAnnotation(ExcelCellStyle.class)));
+		}
+	}
+}
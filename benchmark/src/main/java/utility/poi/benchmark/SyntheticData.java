@@ -0,0 +1,107 @@
+package utility.poi.benchmark;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * ベンチマーク用のデータを作成するクラス<br>
+ * 出力処理のみを計測するため、一定件数のエンティティを事前に作成し、指定行数まで繰り返し返却します。
+ * @author Takeshi
+ *
+ */
+public final class SyntheticData
+{
+	/** 事前に作成するエンティティの件数 */
+	public static final int POOL_SIZE = 1000;
+
+	/**
+	 * コンストラクタ
+	 */
+	private SyntheticData()
+	{
+	}
+
+	/**
+	 * エンティティを作成します。<br>
+	 * フィールドの型に応じて、行番号と項目番号から決まる値を設定します。
+	 * @param <T> エンティティのクラス
+	 * @param clazz エンティティのクラス
+	 * @param size 件数
+	 * @return エンティティの一覧
+	 */
+	public static <T> List<T> create(Class<T> clazz, int size)
+	{
+		List<T> result = new ArrayList<>(size);
+		try
+		{
+			Field[] fields = clazz.getDeclaredFields();
+			for (int row = 0; row < size; row++)
+			{
+				T entity = clazz.getDeclaredConstructor().newInstance();
+				for (int col = 0; col < fields.length; col++)
+				{
+					fields[col].setAccessible(true);
+					fields[col].set(entity, createValue(fields[col].getType(), row, col));
+				}
+				result.add(entity);
+			}
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new IllegalStateException(e);
+		}
+
+		return result;
+	}
+
+	/**
+	 * エンティティの一覧を指定行数まで繰り返すイテレータを取得します。
+	 * @param <T> エンティティのクラス
+	 * @param pool エンティティの一覧
+	 * @param rows 行数
+	 * @return イテレータ
+	 */
+	public static <T> Iterator<T> cycle(List<T> pool, int rows)
+	{
+		return new Iterator<T>()
+		{
+			private int index = 0;
+
+			@Override
+			public boolean hasNext()
+			{
+				return index < rows;
+			}
+
+			@Override
+			public T next()
+			{
+				if (index >= rows) throw new NoSuchElementException();
+				return pool.get(index++ % pool.size());
+			}
+		};
+	}
+
+	/**
+	 * フィールドの型に応じた値を作成します。
+	 * @param type フィールドの型
+	 * @param row 行番号
+	 * @param col 項目番号
+	 * @return 値
+	 */
+	private static Object createValue(Class<?> type, int row, int col)
+	{
+		if (type == String.class) return String.format("Text %d-%d", row, col);
+		if (type == int.class) return row * 31 + col;
+		if (type == double.class) return (row % 100) / 100.0;
+		if (type == BigDecimal.class) return BigDecimal.valueOf(row * 1000L + col, 2);
+		if (type == LocalDate.class) return LocalDate.of(2020, 1, 1).plusDays(row + col);
+
+		throw new IllegalArgumentException(type.getName());
+	}
+}
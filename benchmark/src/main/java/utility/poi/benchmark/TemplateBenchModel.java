@@ -0,0 +1,57 @@
+package utility.poi.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import utility.poi.annotation.ExcelAddress;
+import utility.poi.annotation.ExcelCellStyle;
+import utility.poi.annotation.ExcelSheet;
+
+/**
+ * ベンチマーク用のテンプレート出力のモデル
+ * @author Takeshi
+ *
+ */
+@ExcelSheet(sheet_name = "Sheet1", style = @ExcelCellStyle())
+public class TemplateBenchModel
+{
+	@ExcelAddress(address = "TITLE")
+	String title;
+
+	@ExcelAddress(address = "ISSUE_DATE")
+	LocalDate issue_date;
+
+	@ExcelAddress(address = "AMOUNT")
+	BigDecimal amount;
+
+	@ExcelAddress(address = "COUNT")
+	int count;
+
+	@ExcelAddress(address = "RATE")
+	double rate;
+
+	public String getTitle()
+	{
+		return this.title;
+	}
+
+	public LocalDate getIssue_date()
+	{
+		return this.issue_date;
+	}
+
+	public BigDecimal getAmount()
+	{
+		return this.amount;
+	}
+
+	public int getCount()
+	{
+		return this.count;
+	}
+
+	public double getRate()
+	{
+		return this.rate;
+	}
+}
@@ -0,0 +1,157 @@
+package utility.poi.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utility.poi.ExcelPoiTemplateRegistry;
+import utility.poi.ExcelPoiTemplateWriter;
+import utility.poi.constant.EnumFormulaEvaluation;
+
+/**
+ * テンプレート出力（<code>writetoExcelTemplate</code>）のテンプレートの大きさごとの処理時間<br>
+ * 解析済みのテンプレート（<code>ExcelPoiTemplateRegistry</code>）と、出力ごとにテンプレートファイルを解析する場合を比較します。
+ * @author Takeshi
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+public class TemplateBenchmark
+{
+	/** テンプレートの登録キー */
+	private static final String KEY = "benchmark";
+
+	/** テンプレートの明細の列数 */
+	private static final int COLUMNS = 10;
+
+	@Param({ "100", "10000", "50000" })
+	int template_rows;
+
+	@Param({ "NONE", "ONLY_TOUCHED", "ALL" })
+	EnumFormulaEvaluation evaluation;
+
+	private byte[] image;
+	private TemplateBenchModel entity;
+
+	@Setup
+	public void setup()
+			throws IOException
+	{
+		image = createTemplate(template_rows);
+		ExcelPoiTemplateRegistry.register(KEY, new ByteArrayInputStream(image));
+
+		entity = new TemplateBenchModel();
+		entity.title = "Benchmark";
+		entity.issue_date = LocalDate.of(2020, 4, 1);
+		entity.amount = new BigDecimal("123456.78");
+		entity.count = 42;
+		entity.rate = 0.1;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		ExcelPoiTemplateRegistry.unregister(KEY);
+	}
+
+	@Benchmark
+	public void registeredTemplate()
+			throws IOException
+	{
+		try (ExcelPoiTemplateWriter<TemplateBenchModel> writer = ExcelPoiTemplateRegistry.newWriter(KEY))
+		{
+			write(writer);
+		}
+	}
+
+	@Benchmark
+	public void parseEachTime()
+			throws IOException
+	{
+		try (ExcelPoiTemplateWriter<TemplateBenchModel> writer = new ExcelPoiTemplateWriter<>(new ByteArrayInputStream(image)))
+		{
+			write(writer);
+		}
+	}
+
+	/**
+	 * エンティティをテンプレートに出力し、出力ストリームに書き込みます。
+	 * @param writer <code>ExcelPoiTemplateWriter</code>オブジェクト
+	 * @throws IOException 出力に失敗した場合
+	 */
+	private void write(ExcelPoiTemplateWriter<TemplateBenchModel> writer)
+			throws IOException
+	{
+		writer.setFormulaEvaluation(evaluation);
+		writer.writetoExcelTemplate(entity, TemplateBenchModel.class);
+		writer.write(OutputStream.nullOutputStream());
+	}
+
+	/**
+	 * テンプレートファイルを作成します。<br>
+	 * 名前付きセルの下に、文字列、数値、数式の明細を指定行数だけ作成します。
+	 * @param rows 明細の行数
+	 * @return テンプレートファイルの内容
+	 * @throws IOException 作成に失敗した場合
+	 */
+	static byte[] createTemplate(int rows)
+			throws IOException
+	{
+		try (XSSFWorkbook workbook = new XSSFWorkbook(); ByteArrayOutputStream stream = new ByteArrayOutputStream())
+		{
+			Sheet sheet = workbook.createSheet("Sheet1");
+			List<String> names = List.of("TITLE", "ISSUE_DATE", "AMOUNT", "COUNT", "RATE");
+			for (int i = 0; i < names.size(); i++)
+			{
+				sheet.createRow(i).createCell(0).setCellValue(names.get(i));
+				Name name = workbook.createName();
+				name.setNameName(names.get(i));
+				name.setRefersToFormula("Sheet1!$B$" + (i + 1));
+			}
+
+			// 合計は名前付きセルを参照する数式
+			sheet.getRow(2).createCell(2).setCellFormula("B3*(1+B5)");
+
+			for (int row = 0; row < rows; row++)
+			{
+				Row detail = sheet.createRow(names.size() + 1 + row);
+				for (int col = 0; col < COLUMNS - 1; col++)
+				{
+					if (col % 2 == 0) detail.createCell(col).setCellValue("Item " + row + "-" + col);
+					else detail.createCell(col).setCellValue(row * col);
+				}
+				detail.createCell(COLUMNS - 1).setCellFormula(String.format("B%1$d+D%1$d", names.size() + 2 + row));
+			}
+
+			workbook.write(stream);
+			return stream.toByteArray();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package utility.poi.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import utility.poi.ExcelPoiTemplateRegistry;
+import utility.poi.ExcelPoiTemplateWriter;
+
+/**
+ * 解析済みのテンプレートから作業用の<code>ExcelPoiTemplateWriter</code>を作成する処理時間<br>
+ * 作業用のブックは出力ごとにテンプレートファイル全体を解析して作成するため、テンプレートの大きさに比例します。
+ * 出力を伴わない作成のみの処理時間、メモリ割り当て量（<code>-prof gc</code>）を計測します。
+ * @author Takeshi
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = { "-Xms2g", "-Xmx2g" })
+public class TemplateCopyBenchmark
+{
+	/** テンプレートの登録キー */
+	private static final String KEY = "copy";
+
+	@Param({ "100", "10000", "50000" })
+	int template_rows;
+
+	@Setup
+	public void setup()
+			throws IOException
+	{
+		ExcelPoiTemplateRegistry.register(KEY, new ByteArrayInputStream(TemplateBenchmark.createTemplate(template_rows)));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+	{
+		ExcelPoiTemplateRegistry.unregister(KEY);
+	}
+
+	@Benchmark
+	public void newWriter(Blackhole blackhole)
+			throws IOException
+	{
+		try (ExcelPoiTemplateWriter<TemplateBenchModel> writer = ExcelPoiTemplateRegistry.newWriter(KEY))
+		{
+			Workbook workbook = writer.getWorkbook();
+			blackhole.consume(workbook.getSheetAt(0).getLastRowNum());
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package utility.poi.benchmark;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import utility.poi.ExcelPoi;
+import utility.poi.ExcelPoiConverters;
+import utility.poi.ExcelPoiValueSink;
+import utility.poi.ExcelPoiValueWriter;
+
+/**
+ * 値の型に応じたセルへの設定処理の選択にかかる時間<br>
+ * 値ごとに型を判定する<code>ExcelPoi.setCellValue</code>と、型に応じて選択済みの出力処理を比較します。
+ * @author Takeshi
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValueDispatchBenchmark
+{
+	/**
+	 * 設定する値の型
+	 */
+	public enum ValueType
+	{
+		STRING(" Text value "),
+		INT(Integer.valueOf(12345)),
+		DECIMAL(new BigDecimal("12345.678")),
+		DATE(LocalDate.of(2020, 4, 1)),
+		OPTIONAL(Optional.of("Optional value")),
+		OPTIONAL_INT(OptionalInt.of(12345));
+
+		private final Object value;
+
+		private ValueType(Object value)
+		{
+			this.value = value;
+		}
+	}
+
+	@Param({ "STRING", "INT", "DECIMAL", "DATE", "OPTIONAL", "OPTIONAL_INT" })
+	ValueType type;
+
+	private final ExcelPoi<Object> excel_poi = new ExcelPoi<Object>() { };
+	private XSSFWorkbook workbook;
+	private Cell cell;
+	private Object value;
+	private ExcelPoiValueWriter writer;
+	private CellSink sink;
+
+	@Setup(Level.Trial)
+	public void setup()
+	{
+		workbook = new XSSFWorkbook();
+		cell = workbook.createSheet().createRow(0).createCell(0);
+		value = type.value;
+		writer = ExcelPoiConverters.getValueWriter(value.getClass(), true);
+		sink = new CellSink(cell);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown()
+			throws IOException
+	{
+		workbook.close();
+	}
+
+	@Benchmark
+	public Cell setCellValue()
+	{
+		excel_poi.setCellValue(cell, value, true);
+		return cell;
+	}
+
+	@Benchmark
+	public Cell compiledWriter()
+	{
+		writer.write(value, sink);
+		return cell;
+	}
+
+	/**
+	 * セルに値を設定する出力先
+	 */
+	private static final class CellSink implements ExcelPoiValueSink
+	{
+		private final Cell cell;
+
+		CellSink(Cell cell)
+		{
+			this.cell = cell;
+		}
+
+		@Override
+		public void setString(String value)
+		{
+			cell.setCellValue(value);
+		}
+
+		@Override
+		public void setNumber(double value)
+		{
+			cell.setCellValue(value);
+		}
+
+		@Override
+		public void setBoolean(boolean value)
+		{
+			cell.setCellValue(value);
+		}
+
+		@Override
+		public void setDate(Date value)
+		{
+			cell.setCellValue(value);
+		}
+
+		@Override
+		public void setCalendar(Calendar value)
+		{
+			cell.setCellValue(value);
+		}
+
+		@Override
+		public void setLocalDate(LocalDate value)
+		{
+			cell.setCellValue(value);
+		}
+
+		@Override
+		public void setLocalDateTime(LocalDateTime value)
+		{
+			cell.setCellValue(value);
+		}
+	}
+}
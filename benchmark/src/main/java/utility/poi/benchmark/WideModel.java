@@ -0,0 +1,299 @@
+package utility.poi.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+
+import utility.poi.annotation.ExcelCellStyle;
+import utility.poi.annotation.ExcelColumn;
+import utility.poi.annotation.ExcelSheet;
+
+/**
+ * ベンチマーク用の20項目のモデル（<code>NarrowModel</code>の項目構成を4回繰り返し）
+ * @author Takeshi
+ *
+ */
+@ExcelSheet(sheet_name = "Wide", auto_filter = true, style = @ExcelCellStyle(bold = true))
+public class WideModel
+{
+	@ExcelColumn(name = "text_1", width = 12)
+	@ExcelCellStyle(top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	String text_1;
+
+	@ExcelColumn(name = "count_1", width = 12)
+	@ExcelCellStyle(format = "#,##0", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	int count_1;
+
+	@ExcelColumn(name = "amount_1", width = 12)
+	@ExcelCellStyle(format = "#,##0.00", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	BigDecimal amount_1;
+
+	@ExcelColumn(name = "date_1", width = 12)
+	@ExcelCellStyle(format = "yyyy-mm-dd", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	LocalDate date_1;
+
+	@ExcelColumn(name = "rate_1", width = 12)
+	@ExcelCellStyle(format = "0.00%", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	double rate_1;
+
+	@ExcelColumn(name = "text_2", width = 12)
+	@ExcelCellStyle(top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	String text_2;
+
+	@ExcelColumn(name = "count_2", width = 12)
+	@ExcelCellStyle(format = "#,##0", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	int count_2;
+
+	@ExcelColumn(name = "amount_2", width = 12)
+	@ExcelCellStyle(format = "#,##0.00", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	BigDecimal amount_2;
+
+	@ExcelColumn(name = "date_2", width = 12)
+	@ExcelCellStyle(format = "yyyy-mm-dd", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	LocalDate date_2;
+
+	@ExcelColumn(name = "rate_2", width = 12)
+	@ExcelCellStyle(format = "0.00%", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	double rate_2;
+
+	@ExcelColumn(name = "text_3", width = 12)
+	@ExcelCellStyle(top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	String text_3;
+
+	@ExcelColumn(name = "count_3", width = 12)
+	@ExcelCellStyle(format = "#,##0", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	int count_3;
+
+	@ExcelColumn(name = "amount_3", width = 12)
+	@ExcelCellStyle(format = "#,##0.00", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	BigDecimal amount_3;
+
+	@ExcelColumn(name = "date_3", width = 12)
+	@ExcelCellStyle(format = "yyyy-mm-dd", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	LocalDate date_3;
+
+	@ExcelColumn(name = "rate_3", width = 12)
+	@ExcelCellStyle(format = "0.00%", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	double rate_3;
+
+	@ExcelColumn(name = "text_4", width = 12)
+	@ExcelCellStyle(top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	String text_4;
+
+	@ExcelColumn(name = "count_4", width = 12)
+	@ExcelCellStyle(format = "#,##0", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	int count_4;
+
+	@ExcelColumn(name = "amount_4", width = 12)
+	@ExcelCellStyle(format = "#,##0.00", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	BigDecimal amount_4;
+
+	@ExcelColumn(name = "date_4", width = 12)
+	@ExcelCellStyle(format = "yyyy-mm-dd", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	LocalDate date_4;
+
+	@ExcelColumn(name = "rate_4", width = 12)
+	@ExcelCellStyle(format = "0.00%", top = BorderStyle.THIN, bottom = BorderStyle.THIN, left = BorderStyle.THIN, right = BorderStyle.THIN)
+	double rate_4;
+
+	public String getText_1()
+	{
+		return this.text_1;
+	}
+
+	public void setText_1(String text_1)
+	{
+		this.text_1 = text_1;
+	}
+
+	public int getCount_1()
+	{
+		return this.count_1;
+	}
+
+	public void setCount_1(int count_1)
+	{
+		this.count_1 = count_1;
+	}
+
+	public BigDecimal getAmount_1()
+	{
+		return this.amount_1;
+	}
+
+	public void setAmount_1(BigDecimal amount_1)
+	{
+		this.amount_1 = amount_1;
+	}
+
+	public LocalDate getDate_1()
+	{
+		return this.date_1;
+	}
+
+	public void setDate_1(LocalDate date_1)
+	{
+		this.date_1 = date_1;
+	}
+
+	public double getRate_1()
+	{
+		return this.rate_1;
+	}
+
+	public void setRate_1(double rate_1)
+	{
+		this.rate_1 = rate_1;
+	}
+
+	public String getText_2()
+	{
+		return this.text_2;
+	}
+
+	public void setText_2(String text_2)
+	{
+		this.text_2 = text_2;
+	}
+
+	public int getCount_2()
+	{
+		return this.count_2;
+	}
+
+	public void setCount_2(int count_2)
+	{
+		this.count_2 = count_2;
+	}
+
+	public BigDecimal getAmount_2()
+	{
+		return this.amount_2;
+	}
+
+	public void setAmount_2(BigDecimal amount_2)
+	{
+		this.amount_2 = amount_2;
+	}
+
+	public LocalDate getDate_2()
+	{
+		return this.date_2;
+	}
+
+	public void setDate_2(LocalDate date_2)
+	{
+		this.date_2 = date_2;
+	}
+
+	public double getRate_2()
+	{
+		return this.rate_2;
+	}
+
+	public void setRate_2(double rate_2)
+	{
+		this.rate_2 = rate_2;
+	}
+
+	public String getText_3()
+	{
+		return this.text_3;
+	}
+
+	public void setText_3(String text_3)
+	{
+		this.text_3 = text_3;
+	}
+
+	public int getCount_3()
+	{
+		return this.count_3;
+	}
+
+	public void setCount_3(int count_3)
+	{
+		this.count_3 = count_3;
+	}
+
+	public BigDecimal getAmount_3()
+	{
+		return this.amount_3;
+	}
+
+	public void setAmount_3(BigDecimal amount_3)
+	{
+		this.amount_3 = amount_3;
+	}
+
+	public LocalDate getDate_3()
+	{
+		return this.date_3;
+	}
+
+	public void setDate_3(LocalDate date_3)
+	{
+		this.date_3 = date_3;
+	}
+
+	public double getRate_3()
+	{
+		return this.rate_3;
+	}
+
+	public void setRate_3(double rate_3)
+	{
+		this.rate_3 = rate_3;
+	}
+
+	public String getText_4()
+	{
+		return this.text_4;
+	}
+
+	public void setText_4(String text_4)
+	{
+		this.text_4 = text_4;
+	}
+
+	public int getCount_4()
+	{
+		return this.count_4;
+	}
+
+	public void setCount_4(int count_4)
+	{
+		this.count_4 = count_4;
+	}
+
+	public BigDecimal getAmount_4()
+	{
+		return this.amount_4;
+	}
+
+	public void setAmount_4(BigDecimal amount_4)
+	{
+		this.amount_4 = amount_4;
+	}
+
+	public LocalDate getDate_4()
+	{
+		return this.date_4;
+	}
+
+	public void setDate_4(LocalDate date_4)
+	{
+		this.date_4 = date_4;
+	}
+
+	public double getRate_4()
+	{
+		return this.rate_4;
+	}
+
+	public void setRate_4(double rate_4)
+	{
+		this.rate_4 = rate_4;
+	}
+}
@@ -0,0 +1,493 @@
+package utility.poi.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * 描画対象のクラスの注釈をコンパイル時に解析し、出力クラス（<code>utility.poi.ExcelPoiRowWriter</code>の実装）を生成するアノテーションプロセッサ<br>
+ * <code>ExcelSheet</code>、<code>ExcelColumn</code>、<code>ExcelCellStyle</code>、<code>ExcelAddress</code>注釈が付いたクラスごとに、
+ * 同じパッケージへ「クラス名 + <code>_ExcelPoiWriter</code>」のクラスを生成します。<br>
+ * 生成クラスはゲッターメソッド（存在しない場合はフィールド）を直接呼び出して型ごとの出力を行い、セルスタイルの設定値は注釈の値から作成済みの定数を返却します。
+ * 実行時にはマッピングの作成時に自動で検出され、リフレクションによるアクセサの生成と型の判定を置き換えます。<br>
+ * 標準で対応していない型（変換処理を登録する型等）の項目は生成せず、実行時に従来どおり処理します。
+ * @author Takeshi
+ *
+ */
+@SupportedAnnotationTypes({ ExcelPoiProcessor.EXCEL_SHEET, ExcelPoiProcessor.EXCEL_COLUMN, ExcelPoiProcessor.EXCEL_CELL_STYLE, ExcelPoiProcessor.EXCEL_ADDRESS, ExcelPoiProcessor.EXCEL_REPEAT })
+public class ExcelPoiProcessor extends AbstractProcessor
+{
+	static final String EXCEL_SHEET = "utility.poi.annotation.ExcelSheet";
+	static final String EXCEL_COLUMN = "utility.poi.annotation.ExcelColumn";
+	static final String EXCEL_CELL_STYLE = "utility.poi.annotation.ExcelCellStyle";
+	static final String EXCEL_ADDRESS = "utility.poi.annotation.ExcelAddress";
+	static final String EXCEL_REPEAT = "utility.poi.annotation.ExcelRepeat";
+
+	/** 生成クラスの名前の接尾辞（<code>ExcelPoiRowWriter.SUFFIX</code>と同じ値） */
+	static final String SUFFIX = "_ExcelPoiWriter";
+
+	/** <code>ExcelCellStyle</code>注釈の要素（<code>ExcelPoiStyle.of</code>の引数の順） */
+	private static final String[] STYLE_MEMBERS = { "backgroundcolor", "horizontal_alignment", "vertical_alignment", "format", "wraptext", "bordercolor"
+			, "top", "bottom", "left", "right", "font", "size", "forecolor", "bold", "italic", "strikeout", "underline" };
+
+	/** 数値として出力するラッパー型 */
+	private static final Set<String> NUMBER_TYPES = Set.of("java.lang.Integer", "java.lang.Long", "java.lang.Short", "java.lang.Byte", "java.lang.Float", "java.lang.Double");
+
+	/** 生成済みのクラス（複数のラウンドで重複して生成しないため） */
+	private final Set<String> generated = new HashSet<>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion()
+	{
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round)
+	{
+		// 注釈が付いたフィールドはそのクラスを対象にする
+		Set<TypeElement> types = new LinkedHashSet<>();
+		for (TypeElement annotation : annotations)
+		{
+			for (Element element : round.getElementsAnnotatedWith(annotation))
+			{
+				if (element.getKind() == ElementKind.CLASS) types.add((TypeElement)element);
+				else if (element.getKind() == ElementKind.FIELD && element.getEnclosingElement().getKind() == ElementKind.CLASS) types.add((TypeElement)element.getEnclosingElement());
+			}
+		}
+
+		for (TypeElement type : types)
+		{
+			String name = processingEnv.getElementUtils().getBinaryName(type) + SUFFIX;
+			if (!generated.add(name)) continue;
+
+			if (!isSupported(type))
+			{
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "出力クラスを生成できないため、実行時に注釈を解析します。", type);
+				continue;
+			}
+
+			try
+			{
+				generate(type, name);
+			}
+			catch (IOException exp)
+			{
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "出力クラスの生成に失敗しました。" + exp, type);
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * 出力クラスを生成できるクラスかを判定します。<br>
+	 * 同じパッケージから参照できない、または型引数を持つクラスは対象外です。
+	 * @param type 描画対象のクラス
+	 * @return 生成できる場合<code>true</code>
+	 */
+	private static boolean isSupported(TypeElement type)
+	{
+		if (!type.getTypeParameters().isEmpty()) return false;
+
+		for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement())
+		{
+			TypeElement current = (TypeElement)element;
+			if (current.getModifiers().contains(Modifier.PRIVATE)) return false;
+			if (current.getNestingKind() == NestingKind.MEMBER && !current.getModifiers().contains(Modifier.STATIC)) return false;
+			if (current.getNestingKind() == NestingKind.LOCAL || current.getNestingKind() == NestingKind.ANONYMOUS) return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * 出力クラスのソースファイルを生成します。
+	 * @param type 描画対象のクラス
+	 * @param name 生成するクラスの完全修飾名
+	 * @throws IOException 生成に失敗した場合
+	 */
+	private void generate(TypeElement type, String name)
+			throws IOException
+	{
+		String package_name = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		String simple_name = package_name.isEmpty() ? name : name.substring(package_name.length() + 1);
+		String entity = type.getQualifiedName().toString();
+
+		// フィールド単位のセルスタイル、出力処理を作成
+		Map<String, String> styles = new LinkedHashMap<>();
+		Map<String, String[]> writers = new LinkedHashMap<>();
+		for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements()))
+		{
+			if (getAnnotation(field, EXCEL_COLUMN) == null && getAnnotation(field, EXCEL_ADDRESS) == null && getAnnotation(field, EXCEL_REPEAT) == null) continue;
+
+			String field_name = field.getSimpleName().toString();
+			AnnotationMirror style = getAnnotation(field, EXCEL_CELL_STYLE);
+			if (style != null) styles.put(field_name, createStyle(style));
+
+			// 計算式の項目は実行時に計算式を出力するため出力処理を生成しない
+			AnnotationMirror column = getAnnotation(field, EXCEL_COLUMN);
+			if (column != null && !getValues(column).get("formula").getValue().toString().trim().isEmpty()) continue;
+
+			String[] writer = createWriter(type, field, entity);
+			if (writer != null) writers.put(field_name, writer);
+		}
+
+		AnnotationMirror sheet = getAnnotation(type, EXCEL_SHEET);
+		String title_style = sheet == null ? null : createStyle((AnnotationMirror)getValues(sheet).get("style").getValue());
+
+		StringBuilder source = new StringBuilder();
+		if (!package_name.isEmpty()) source.append("package ").append(package_name).append(";\n\n");
+		source.append("/**\n")
+			.append(" * {@link ").append(entity).append("}の出力クラス<br>\n")
+			.append(" * <code>").append(getClass().getName()).append("</code>が注釈から生成します。編集しないでください。\n")
+			.append(" */\n");
+		if (processingEnv.getElementUtils().getTypeElement("javax.annotation.processing.Generated") != null)
+		{
+			source.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+		}
+		source.append("public final class ").append(simple_name).append(" implements utility.poi.ExcelPoiRowWriter<").append(entity).append(">\n")
+			.append("{\n");
+
+		// セルスタイルの設定値の定数
+		if (title_style != null) source.append("\tprivate static final utility.poi.ExcelPoiStyle TITLE_STYLE = ").append(title_style).append(";\n");
+		List<String> style_fields = new ArrayList<>(styles.keySet());
+		for (int i = 0; i < style_fields.size(); i++)
+		{
+			source.append("\tprivate static final utility.poi.ExcelPoiStyle STYLE_").append(i).append(" = ").append(styles.get(style_fields.get(i))).append(";\n");
+		}
+		source.append("\n");
+
+		source.append("\t@Override\n")
+			.append("\tpublic Class<").append(entity).append("> getEntityClass()\n")
+			.append("\t{\n")
+			.append("\t\treturn ").append(entity).append(".class;\n")
+			.append("\t}\n\n");
+
+		source.append("\t@Override\n")
+			.append("\tpublic utility.poi.ExcelPoiStyle getTitleStyle()\n")
+			.append("\t{\n")
+			.append("\t\treturn ").append(title_style == null ? "null" : "TITLE_STYLE").append(";\n")
+			.append("\t}\n\n");
+
+		source.append("\t@Override\n")
+			.append("\tpublic utility.poi.ExcelPoiStyle getStyle(String field_name)\n")
+			.append("\t{\n")
+			.append("\t\tswitch (field_name)\n")
+			.append("\t\t{\n");
+		for (int i = 0; i < style_fields.size(); i++)
+		{
+			source.append("\t\tcase \"").append(style_fields.get(i)).append("\":\n")
+				.append("\t\t\treturn STYLE_").append(i).append(";\n");
+		}
+		source.append("\t\tdefault:\n")
+			.append("\t\t\treturn null;\n")
+			.append("\t\t}\n")
+			.append("\t}\n\n");
+
+		source.append("\t@Override\n")
+			.append("\tpublic utility.poi.ExcelPoiValueWriter getWriter(String field_name, boolean trim)\n")
+			.append("\t{\n")
+			.append("\t\tswitch (field_name)\n")
+			.append("\t\t{\n");
+		for (Map.Entry<String, String[]> entry : writers.entrySet())
+		{
+			String[] writer = entry.getValue();
+			source.append("\t\tcase \"").append(entry.getKey()).append("\":\n");
+			if (writer[0].equals(writer[1]))
+			{
+				source.append("\t\t\treturn ").append(writer[0]).append(";\n");
+			}
+			else
+			{
+				source.append("\t\t\tif (trim) return ").append(writer[1]).append(";\n")
+					.append("\t\t\treturn ").append(writer[0]).append(";\n");
+			}
+		}
+		source.append("\t\tdefault:\n")
+			.append("\t\t\treturn null;\n")
+			.append("\t\t}\n")
+			.append("\t}\n\n");
+
+		source.append("\t@Override\n")
+			.append("\tpublic Class<?> getValueType(String field_name)\n")
+			.append("\t{\n")
+			.append("\t\tswitch (field_name)\n")
+			.append("\t\t{\n");
+		for (Map.Entry<String, String[]> entry : writers.entrySet())
+		{
+			source.append("\t\tcase \"").append(entry.getKey()).append("\":\n")
+				.append("\t\t\treturn ").append(entry.getValue()[2]).append(";\n");
+		}
+		source.append("\t\tdefault:\n")
+			.append("\t\t\treturn null;\n")
+			.append("\t\t}\n")
+			.append("\t}\n")
+			.append("}\n");
+
+		try (Writer writer = processingEnv.getFiler().createSourceFile(name, type).openWriter())
+		{
+			writer.write(source.toString());
+		}
+	}
+
+	/**
+	 * フィールドの出力処理のラムダ式を作成します。<br>
+	 * ゲッターメソッドが存在する場合はゲッターメソッド、存在しない場合は<code>private</code>でないフィールドを直接参照します。
+	 * @param type 描画対象のクラス
+	 * @param field フィールド
+	 * @param entity 描画対象のクラスの完全修飾名
+	 * @return 前後の空白を取り除かない場合、取り除く場合のラムダ式と値の型のクラスリテラル（出力処理を生成できない場合は<code>null</code>）
+	 */
+	private String[] createWriter(TypeElement type, VariableElement field, String entity)
+	{
+		String field_name = field.getSimpleName().toString();
+		ExecutableElement getter = getGetterMethod(type, field);
+
+		String access;
+		TypeMirror value_type;
+		if (getter != null)
+		{
+			access = "((" + entity + ")e)." + getter.getSimpleName() + "()";
+			value_type = getter.getReturnType();
+		}
+		else if (!field.getModifiers().contains(Modifier.PRIVATE))
+		{
+			access = "((" + entity + ")e)." + field_name;
+			value_type = field.asType();
+		}
+		else
+		{
+			return null;
+		}
+
+		String plain = createLambda(value_type, access, false);
+		String trim = createLambda(value_type, access, true);
+		return plain == null ? null : new String[] { plain, trim, getClassLiteral(value_type) };
+	}
+
+	/**
+	 * 出力する値の型のクラスリテラルを作成します。<br>
+	 * <code>Optional</code>型の場合は要素型、総称型の場合は型引数を除いた型とします。
+	 * @param type 値の型
+	 * @return クラスリテラル
+	 */
+	private String getClassLiteral(TypeMirror type)
+	{
+		if (type.getKind() == TypeKind.DECLARED)
+		{
+			TypeElement element = (TypeElement)((DeclaredType)type).asElement();
+			List<? extends TypeMirror> arguments = ((DeclaredType)type).getTypeArguments();
+			if (element.getQualifiedName().contentEquals("java.util.Optional") && arguments.size() == 1) return getClassLiteral(arguments.get(0));
+		}
+
+		return processingEnv.getTypeUtils().erasure(type) + ".class";
+	}
+
+	/**
+	 * 値を取得して出力先に書き込むラムダ式を作成します。
+	 * @param type 値の型
+	 * @param access 値を取得する式
+	 * @param trim 文字列の値で前後の空白を取り除く場合<code>true</code>
+	 * @return ラムダ式（標準で対応していない型の場合は<code>null</code>）
+	 */
+	private String createLambda(TypeMirror type, String access, boolean trim)
+	{
+		// プリミティブ型の場合はボクシングせずに出力
+		if (type.getKind().isPrimitive())
+		{
+			String statement = getStatement(type, access, trim);
+			return statement == null ? null : "(e, s) -> " + statement.substring(0, statement.length() - 1);
+		}
+
+		String statement = getStatement(type, "v", trim);
+		if (statement == null) return null;
+
+		return "(e, s) ->\n"
+				+ "\t\t\t{\n"
+				+ "\t\t\t\t" + type + " v = " + access + ";\n"
+				+ "\t\t\t\tif (v != null) " + statement + "\n"
+				+ "\t\t\t}";
+	}
+
+	/**
+	 * 値の型に応じて出力先に書き込む文を作成します。<br>
+	 * 実行時の<code>ExcelPoiConverters</code>が標準で対応している型と同じ型を対象にします。
+	 * @param type 値の型
+	 * @param value 値の式（参照型の場合は<code>null</code>でないこと）
+	 * @param trim 文字列の値で前後の空白を取り除く場合<code>true</code>
+	 * @return 文（対応していない型の場合は<code>null</code>）
+	 */
+	private String getStatement(TypeMirror type, String value, boolean trim)
+	{
+		switch (type.getKind())
+		{
+		case INT:
+		case LONG:
+		case SHORT:
+		case BYTE:
+		case FLOAT:
+		case DOUBLE:
+			return "s.setNumber(" + value + ");";
+		case BOOLEAN:
+			return "s.setBoolean(" + value + ");";
+		case DECLARED:
+			break;
+		default:
+			return null;
+		}
+
+		TypeElement element = (TypeElement)((DeclaredType)type).asElement();
+		String name = element.getQualifiedName().toString();
+
+		// 文字列型、数値型、boolean型の場合
+		if (name.equals("java.lang.String")) return trim ? "s.setString(" + value + ".trim());" : "s.setString(" + value + ");";
+		else if (name.equals("java.math.BigDecimal")) return "s.setDecimal(" + value + ");";
+		else if (name.equals("java.math.BigInteger")) return "s.setNumber(" + value + ".longValue());";
+		else if (NUMBER_TYPES.contains(name)) return "s.setNumber(" + value + ".doubleValue());";
+		else if (name.equals("java.lang.Boolean")) return "s.setBoolean(" + value + ");";
+		else if (name.equals("java.util.OptionalInt")) return "{ if (" + value + ".isPresent()) s.setNumber(" + value + ".getAsInt()); }";
+		else if (name.equals("java.util.OptionalLong")) return "{ if (" + value + ".isPresent()) s.setNumber(" + value + ".getAsLong()); }";
+		else if (name.equals("java.util.OptionalDouble")) return "{ if (" + value + ".isPresent()) s.setNumber(" + value + ".getAsDouble()); }";
+
+		// 日付型の場合
+		else if (isSubtype(type, "java.util.Calendar")) return "s.setCalendar(" + value + ");";
+		else if (isSubtype(type, "java.util.Date")) return "s.setDate(" + value + ");";
+		else if (name.equals("java.time.LocalDate")) return "s.setLocalDate(" + value + ");";
+		else if (name.equals("java.time.LocalDateTime")) return "s.setLocalDateTime(" + value + ");";
+
+		// Optional型の場合は要素型で出力
+		else if (name.equals("java.util.Optional"))
+		{
+			List<? extends TypeMirror> arguments = ((DeclaredType)type).getTypeArguments();
+			if (arguments.size() != 1 || arguments.get(0).getKind() != TypeKind.DECLARED) return null;
+
+			String element_value = value.equals("v") ? "w" : value + "_";
+			String statement = getStatement(arguments.get(0), element_value, trim);
+			return statement == null ? null : "{ if (" + value + ".isPresent()) { " + arguments.get(0) + " " + element_value + " = " + value + ".get(); " + statement + " } }";
+		}
+
+		return null;
+	}
+
+	/**
+	 * 型が指定したクラスの派生型かを判定します。
+	 * @param type 型
+	 * @param class_name クラスの完全修飾名
+	 * @return 派生型（同じ型を含む）の場合<code>true</code>
+	 */
+	private boolean isSubtype(TypeMirror type, String class_name)
+	{
+		TypeElement element = processingEnv.getElementUtils().getTypeElement(class_name);
+		return element != null && processingEnv.getTypeUtils().isAssignable(processingEnv.getTypeUtils().erasure(type), processingEnv.getTypeUtils().erasure(element.asType()));
+	}
+
+	/**
+	 * フィールドの公開されたゲッターメソッドを取得します。<br>
+	 * <code>boolean</code>型の場合は<code>is</code>で始まるメソッドを優先します。
+	 * @param type 描画対象のクラス
+	 * @param field フィールド
+	 * @return ゲッターメソッド（存在しない場合は<code>null</code>）
+	 */
+	private ExecutableElement getGetterMethod(TypeElement type, VariableElement field)
+	{
+		String name = field.getSimpleName().toString();
+		name = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+
+		ExecutableElement is_getter = null;
+		ExecutableElement get_getter = null;
+		for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type)))
+		{
+			if (!method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC) || !method.getParameters().isEmpty()) continue;
+
+			String method_name = method.getSimpleName().toString();
+			if (method_name.equals("is" + name)) is_getter = method;
+			else if (method_name.equals("get" + name)) get_getter = method;
+		}
+
+		return (field.asType().getKind() == TypeKind.BOOLEAN && is_getter != null) ? is_getter : get_getter;
+	}
+
+	/**
+	 * <code>ExcelCellStyle</code>注釈の値から<code>ExcelPoiStyle.of</code>の呼び出し式を作成します。
+	 * @param style <code>ExcelCellStyle</code>注釈
+	 * @return 呼び出し式
+	 */
+	private String createStyle(AnnotationMirror style)
+	{
+		Map<String, AnnotationValue> values = getValues(style);
+
+		StringBuilder builder = new StringBuilder("utility.poi.ExcelPoiStyle.of(");
+		for (int i = 0; i < STYLE_MEMBERS.length; i++)
+		{
+			if (i > 0) builder.append(", ");
+
+			Object value = values.get(STYLE_MEMBERS[i]).getValue();
+			if (value instanceof VariableElement)
+			{
+				// 列挙型の定数
+				VariableElement constant = (VariableElement)value;
+				builder.append(((TypeElement)constant.getEnclosingElement()).getQualifiedName()).append('.').append(constant.getSimpleName());
+			}
+			else
+			{
+				builder.append(processingEnv.getElementUtils().getConstantExpression(value));
+			}
+		}
+
+		return builder.append(')').toString();
+	}
+
+	/**
+	 * 注釈の要素の値を既定値を含めて取得します。
+	 * @param annotation 注釈
+	 * @return 要素名をキーとした値
+	 */
+	private Map<String, AnnotationValue> getValues(AnnotationMirror annotation)
+	{
+		Map<String, AnnotationValue> values = new LinkedHashMap<>();
+		processingEnv.getElementUtils().getElementValuesWithDefaults(annotation).forEach((k, v) -> values.put(k.getSimpleName().toString(), v));
+		return values;
+	}
+
+	/**
+	 * 要素に付いた注釈を取得します。
+	 * @param element 要素
+	 * @param annotation_name 注釈の完全修飾名
+	 * @return 注釈（付いていない場合は<code>null</code>）
+	 */
+	private static AnnotationMirror getAnnotation(Element element, String annotation_name)
+	{
+		for (AnnotationMirror mirror : element.getAnnotationMirrors())
+		{
+			if (((TypeElement)mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotation_name)) return mirror;
+		}
+
+		return null;
+	}
+}
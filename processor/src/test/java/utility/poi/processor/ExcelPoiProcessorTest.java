@@ -0,0 +1,124 @@
+package utility.poi.processor;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+import utility.poi.ExcelPoiColumn;
+import utility.poi.ExcelPoiConverters;
+import utility.poi.ExcelPoiGenerator;
+import utility.poi.ExcelPoiMapping;
+import utility.poi.ExcelPoiRowWriter;
+import utility.poi.ExcelPoiStyle;
+import utility.poi.annotation.ExcelCellStyle;
+
+public class ExcelPoiProcessorTest
+{
+	@Test
+	public void generatedWriter()
+			throws Exception
+	{
+		// 生成クラスがマッピングに利用されること
+		Class<?> writer_class = Class.forName(ProcessorModel.class.getName() + ExcelPoiRowWriter.SUFFIX);
+		assertTrue(ExcelPoiRowWriter.class.isAssignableFrom(writer_class));
+
+		ExcelPoiMapping<ProcessorModel> mapping = ExcelPoiMapping.of(ProcessorModel.class);
+		for (ExcelPoiColumn column : mapping.getColumns()) assertTrue(column.getFieldName(), column.isGenerated());
+
+		// 出力する値の型（Optional型は要素型）
+		ExcelPoiRowWriter<?> writer = (ExcelPoiRowWriter<?>)writer_class.getConstructor().newInstance();
+		assertEquals(int.class, writer.getValueType("count"));
+		assertEquals(OptionalInt.class, writer.getValueType("quantity"));
+		assertEquals(LocalDate.class, writer.getValueType("modified"));
+		assertNull(writer.getValueType("unknown"));
+
+		// 作成済みのセルスタイルの設定値が注釈と一致すること
+		ExcelPoiColumn code = mapping.getColumns().get(0);
+		assertEquals(ExcelPoiStyle.of(ProcessorModel.class.getDeclaredField("code").getAnnotation(ExcelCellStyle.class)), code.getCellStyle());
+		assertEquals(BorderStyle.THIN, code.getCellStyle().getTop());
+		ExcelPoiStyle amount = mapping.getColumns().get(4).getCellStyle();
+		assertEquals("#,##0_", amount.getFormat());
+		assertEquals(HorizontalAlignment.RIGHT, amount.getHorizontalAlignment());
+		assertNull(mapping.getColumns().get(1).getCellStyle());
+		assertTrue(mapping.getTitleStyle().isBold());
+
+		ProcessorModel entity = new ProcessorModel();
+		entity.code = " A001 ";
+		entity.name = " 名称 ";
+		entity.count = 3;
+		entity.quantity = OptionalInt.of(10);
+		entity.amount = new BigDecimal("1234.5");
+		entity.active = true;
+		entity.modified = Optional.of(LocalDate.of(2020, 4, 1));
+		// 生成クラスを利用する項目でも項目値を取得できること（アクセサは初回の取得時に生成）
+		assertEquals(" A001 ", code.getValue(entity));
+		assertEquals(3, mapping.getColumns().get(2).getIntAccessor().applyAsInt(entity));
+		ProcessorModel empty = new ProcessorModel();
+		empty.quantity = OptionalInt.empty();
+		empty.modified = Optional.empty();
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (ExcelPoiGenerator<ProcessorModel> generator = new ExcelPoiGenerator<>(true))
+		{
+			assertEquals(2, generator.writetoExcel(List.of(entity, empty), ProcessorModel.class));
+			generator.write(stream);
+		}
+
+		try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(stream.toByteArray())))
+		{
+			Sheet sheet = workbook.getSheet("生成");
+			Row row = sheet.getRow(1);
+			assertEquals("A001", row.getCell(0).getStringCellValue());
+			assertEquals(" 名称 ", row.getCell(1).getStringCellValue());
+			assertEquals(3, row.getCell(2).getNumericCellValue(), 0);
+			assertEquals(10, row.getCell(3).getNumericCellValue(), 0);
+			assertEquals(1234.5, row.getCell(4).getNumericCellValue(), 0);
+			assertTrue(row.getCell(5).getBooleanCellValue());
+			assertEquals(LocalDate.of(2020, 4, 1), row.getCell(6).getLocalDateTimeCellValue().toLocalDate());
+
+			Row blank = sheet.getRow(2);
+			assertTrue(blank.getCell(0) == null || blank.getCell(0).getStringCellValue().isEmpty());
+			assertTrue(blank.getCell(3) == null || blank.getCell(3).getStringCellValue().isEmpty());
+		}
+
+		// 変換処理を登録した型は実行時の変換処理を優先すること
+		ExcelPoiConverters.register(String.class, String.class, String::toLowerCase);
+		try
+		{
+			ExcelPoiMapping<ProcessorModel> converted = ExcelPoiMapping.of(ProcessorModel.class);
+			assertFalse(converted.getColumns().get(0).isGenerated());
+			assertTrue(converted.getColumns().get(2).isGenerated());
+		}
+		finally
+		{
+			ExcelPoiConverters.unregister(String.class);
+		}
+
+		// Optional型の項目は要素型に登録された変換処理を優先すること
+		ExcelPoiConverters.register(LocalDate.class, String.class, LocalDate::toString);
+		try
+		{
+			ExcelPoiMapping<ProcessorModel> converted = ExcelPoiMapping.of(ProcessorModel.class);
+			assertFalse(converted.getColumns().get(6).isGenerated());
+			assertTrue(converted.getColumns().get(4).isGenerated());
+		}
+		finally
+		{
+			ExcelPoiConverters.unregister(LocalDate.class);
+		}
+	}
+}
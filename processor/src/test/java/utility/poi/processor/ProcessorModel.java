@@ -0,0 +1,76 @@
+package utility.poi.processor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.IndexedColors;
+
+import utility.poi.annotation.ExcelCellStyle;
+import utility.poi.annotation.ExcelColumn;
+import utility.poi.annotation.ExcelSheet;
+
+@ExcelSheet(sheet_name = "生成", style = @ExcelCellStyle(bold = true, backgroundcolor = IndexedColors.GREY_25_PERCENT))
+public class ProcessorModel
+{
+	@ExcelColumn(name = "Code")
+	@ExcelCellStyle(top = BorderStyle.THIN, bottom = BorderStyle.THIN)
+	String code;
+
+	@ExcelColumn(name = "Name", trim = false)
+	String name;
+
+	@ExcelColumn(name = "Count")
+	int count;
+
+	@ExcelColumn(name = "Q'ty")
+	OptionalInt quantity;
+
+	@ExcelColumn(name = "Amount")
+	@ExcelCellStyle(format = " #,##0_ ", horizontal_alignment = HorizontalAlignment.RIGHT)
+	BigDecimal amount;
+
+	@ExcelColumn(name = "Active")
+	boolean active;
+
+	@ExcelColumn(name = "Modify")
+	Optional<LocalDate> modified;
+
+	public String getCode()
+	{
+		return code;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public int getCount()
+	{
+		return count;
+	}
+
+	public OptionalInt getQuantity()
+	{
+		return quantity;
+	}
+
+	public BigDecimal getAmount()
+	{
+		return amount;
+	}
+
+	public boolean isActive()
+	{
+		return active;
+	}
+
+	public Optional<LocalDate> getModified()
+	{
+		return modified;
+	}
+}
@@ -0,0 +1,300 @@
+package utility.poi;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * ゲッターメソッド、セッターメソッド、コンストラクタを直接呼び出すアクセサを生成するクラス<br>
+ * <code>LambdaMetafactory</code>で呼び出す関数を生成し、<code>Method.invoke</code>による反射呼び出しを回避します。<br>
+ * 関数を生成できない場合（クラスローダーから参照できないクラス等）は<code>MethodHandle</code>による呼び出しで代替します。
+ * @author Takeshi
+ *
+ */
+final class ExcelPoiAccessors
+{
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	private ExcelPoiAccessors() { }
+
+	/**
+	 * 値を返却するアクセサを生成します。<br>
+	 * プリミティブ型の値はボクシングして返却します。
+	 * @param getter ゲッターメソッド
+	 * @return アクセサ
+	 */
+	@SuppressWarnings("unchecked")
+	static Function<Object, Object> createAccessor(Method getter)
+	{
+		MethodHandle handle = unreflect(getter);
+		Object accessor = metafactory(getter.getDeclaringClass(), handle, Function.class, "apply", MethodType.methodType(Object.class, Object.class), handle.type().wrap());
+		if (accessor != null) return (Function<Object, Object>)accessor;
+
+		MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+		return entity ->
+		{
+			try
+			{
+				return (Object)generic.invokeExact(entity);
+			}
+			catch (Throwable e)
+			{
+				throw rethrow(e);
+			}
+		};
+	}
+
+	/**
+	 * <code>int</code>型（<code>byte</code>、<code>short</code>を含む）の値を返却するアクセサを生成します。
+	 * @param getter ゲッターメソッド
+	 * @return アクセサ
+	 */
+	@SuppressWarnings("unchecked")
+	static ToIntFunction<Object> createIntAccessor(Method getter)
+	{
+		MethodHandle handle = unreflect(getter);
+		Object accessor = metafactory(getter.getDeclaringClass(), handle, ToIntFunction.class, "applyAsInt", MethodType.methodType(int.class, Object.class), handle.type().changeReturnType(int.class));
+		if (accessor != null) return (ToIntFunction<Object>)accessor;
+
+		MethodHandle generic = handle.asType(MethodType.methodType(int.class, Object.class));
+		return entity ->
+		{
+			try
+			{
+				return (int)generic.invokeExact(entity);
+			}
+			catch (Throwable e)
+			{
+				throw rethrow(e);
+			}
+		};
+	}
+
+	/**
+	 * <code>long</code>型の値を返却するアクセサを生成します。
+	 * @param getter ゲッターメソッド
+	 * @return アクセサ
+	 */
+	@SuppressWarnings("unchecked")
+	static ToLongFunction<Object> createLongAccessor(Method getter)
+	{
+		MethodHandle handle = unreflect(getter);
+		Object accessor = metafactory(getter.getDeclaringClass(), handle, ToLongFunction.class, "applyAsLong", MethodType.methodType(long.class, Object.class), handle.type().changeReturnType(long.class));
+		if (accessor != null) return (ToLongFunction<Object>)accessor;
+
+		MethodHandle generic = handle.asType(MethodType.methodType(long.class, Object.class));
+		return entity ->
+		{
+			try
+			{
+				return (long)generic.invokeExact(entity);
+			}
+			catch (Throwable e)
+			{
+				throw rethrow(e);
+			}
+		};
+	}
+
+	/**
+	 * <code>double</code>型（<code>float</code>を含む）の値を返却するアクセサを生成します。
+	 * @param getter ゲッターメソッド
+	 * @return アクセサ
+	 */
+	@SuppressWarnings("unchecked")
+	static ToDoubleFunction<Object> createDoubleAccessor(Method getter)
+	{
+		MethodHandle handle = unreflect(getter);
+		Object accessor = metafactory(getter.getDeclaringClass(), handle, ToDoubleFunction.class, "applyAsDouble", MethodType.methodType(double.class, Object.class), handle.type().changeReturnType(double.class));
+		if (accessor != null) return (ToDoubleFunction<Object>)accessor;
+
+		MethodHandle generic = handle.asType(MethodType.methodType(double.class, Object.class));
+		return entity ->
+		{
+			try
+			{
+				return (double)generic.invokeExact(entity);
+			}
+			catch (Throwable e)
+			{
+				throw rethrow(e);
+			}
+		};
+	}
+
+	/**
+	 * 値を設定するアクセサを生成します。<br>
+	 * プリミティブ型の引数にはボクシングした値を渡します。
+	 * @param setter セッターメソッド
+	 * @return アクセサ
+	 */
+	@SuppressWarnings("unchecked")
+	static BiConsumer<Object, Object> createMutator(Method setter)
+	{
+		MethodHandle handle = unreflect(setter);
+		Object mutator = metafactory(setter.getDeclaringClass(), handle, BiConsumer.class, "accept", MethodType.methodType(void.class, Object.class, Object.class), handle.type().wrap().changeReturnType(void.class));
+		if (mutator != null) return (BiConsumer<Object, Object>)mutator;
+
+		MethodHandle generic = handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+		return (entity, value) ->
+		{
+			try
+			{
+				generic.invokeExact(entity, value);
+			}
+			catch (Throwable e)
+			{
+				throw rethrow(e);
+			}
+		};
+	}
+
+	/**
+	 * 引数なしのコンストラクタでインスタンスを生成する関数を生成します。
+	 * @param entity_class 生成するクラス
+	 * @return インスタンスを生成する関数
+	 * @throws IllegalArgumentException 引数なしのコンストラクタが存在しない場合
+	 */
+	@SuppressWarnings("unchecked")
+	static Supplier<Object> createConstructor(Class<?> entity_class)
+	{
+		MethodHandle handle;
+		try
+		{
+			handle = MethodHandles.privateLookupIn(entity_class, LOOKUP).unreflectConstructor(entity_class.getConstructor());
+		}
+		catch (NoSuchMethodException | IllegalAccessException exp)
+		{
+			throw new IllegalArgumentException(String.format("%s に公開された引数なしのコンストラクタが存在しません。", entity_class.getName()), exp);
+		}
+
+		Object constructor = metafactory(entity_class, handle, Supplier.class, "get", MethodType.methodType(Object.class), handle.type());
+		if (constructor != null) return (Supplier<Object>)constructor;
+
+		MethodHandle generic = handle.asType(MethodType.methodType(Object.class));
+		return () ->
+		{
+			try
+			{
+				return (Object)generic.invokeExact();
+			}
+			catch (Throwable e)
+			{
+				throw rethrow(e);
+			}
+		};
+	}
+
+	/**
+	 * ゲッターメソッドの<code>MethodHandle</code>を取得します。
+	 * @param getter ゲッターメソッド
+	 * @return <code>MethodHandle</code>
+	 */
+	private static MethodHandle unreflect(Method getter)
+	{
+		try
+		{
+			return LOOKUP.unreflect(getter);
+		}
+		catch (IllegalAccessException exp) { }
+
+		// 公開されていないクラスの場合は対象クラスの権限で取得
+		try
+		{
+			return MethodHandles.privateLookupIn(getter.getDeclaringClass(), LOOKUP).unreflect(getter);
+		}
+		catch (IllegalAccessException exp)
+		{
+			throw new IllegalArgumentException(String.format("%s にアクセスできません。", getter), exp);
+		}
+	}
+
+	/**
+	 * <code>LambdaMetafactory</code>で関数インターフェースの実装を生成します。
+	 * @param declaring_class 呼び出し対象を宣言しているクラス
+	 * @param handle 呼び出し対象の<code>MethodHandle</code>
+	 * @param interface_type 関数インターフェース
+	 * @param name 関数インターフェースのメソッド名
+	 * @param sam_type 関数インターフェースのメソッドの型
+	 * @param instantiated_type 呼び出し時の型
+	 * @return 関数インターフェースの実装（生成できない場合は<code>null</code>）
+	 */
+	private static Object metafactory(Class<?> declaring_class, MethodHandle handle, Class<?> interface_type, String name, MethodType sam_type, MethodType instantiated_type)
+	{
+		for (MethodHandles.Lookup lookup : getLookups(declaring_class))
+		{
+			try
+			{
+				CallSite site = LambdaMetafactory.metafactory(lookup, name, MethodType.methodType(interface_type), sam_type, handle, instantiated_type);
+				return site.getTarget().invoke();
+			}
+			catch (Throwable exp) { }
+		}
+
+		return null;
+	}
+
+	/**
+	 * 関数の生成に利用する<code>Lookup</code>を優先順に取得します。
+	 * @param declaring_class ゲッターメソッドを宣言しているクラス
+	 * @return <code>Lookup</code>のリスト
+	 */
+	private static List<MethodHandles.Lookup> getLookups(Class<?> declaring_class)
+	{
+		List<MethodHandles.Lookup> lookups = new ArrayList<>();
+
+		// 公開クラスで本クラスのクラスローダーから参照できる場合
+		if (Modifier.isPublic(declaring_class.getModifiers()) && isVisible(declaring_class)) lookups.add(LOOKUP);
+
+		// 対象クラスの権限で生成（実行環境によっては生成できない）
+		try
+		{
+			lookups.add(MethodHandles.privateLookupIn(declaring_class, LOOKUP));
+		}
+		catch (IllegalAccessException | SecurityException exp) { }
+
+		return lookups;
+	}
+
+	/**
+	 * 本クラスのクラスローダーからクラスを参照できるか否かを取得します。
+	 * @param type クラス
+	 * @return 参照できる場合<code>true</code>
+	 */
+	private static boolean isVisible(Class<?> type)
+	{
+		try
+		{
+			return Class.forName(type.getName(), false, ExcelPoiAccessors.class.getClassLoader()) == type;
+		}
+		catch (ClassNotFoundException | LinkageError exp)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * ゲッターメソッドで発生した例外を非チェック例外として返却します。
+	 * @param exp 例外
+	 * @return 非チェック例外
+	 */
+	private static RuntimeException rethrow(Throwable exp)
+	{
+		if (exp instanceof RuntimeException) return (RuntimeException)exp;
+		if (exp instanceof Error) throw (Error)exp;
+		return new UndeclaredThrowableException(exp);
+	}
+}
@@ -0,0 +1,266 @@
+package utility.poi;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.AreaReference;
+import org.apache.poi.ss.util.CellReference;
+
+/**
+ * テンプレートの出力アドレスを解決した結果を保持するクラス<br>
+ * <code>ExcelAddress</code>注釈のアドレス（名前付きセル、セル参照）を、項目の並び順にシート番号、行番号、列番号に解決します。
+ * シート名を含む参照（<code>Sheet2!$B$3</code>等）は参照先のシートに出力し、シート名を含まない参照は<code>ExcelSheet</code>注釈のシートに出力します。
+ * <code>ExcelRepeat</code>注釈の行範囲はシート番号、開始行、終了行と、要素のクラスの出力アドレスの解決結果に解決します。<br>
+ * 名前付きセルは出力前のテンプレートから取得した参照先で解決するため、行番号は繰り返し出力で行を挿入、削除する前のテンプレート上の位置です。
+ * 出力先の行番号への変換は<code>ExcelPoiTemplateWriter</code>が行います。<br>
+ * インスタンスは不変であり、同じテンプレートから作成した<code>Workbook</code>オブジェクトの間で共有できます。
+ * @author Takeshi
+ *
+ */
+final class ExcelPoiAddressTable
+{
+	private final int[] sheet_indexes;
+	private final int[] rows;
+	private final int[] cols;
+	private final int[] repeat_sheet_indexes;
+	private final int[] repeat_first_rows;
+	private final int[] repeat_last_rows;
+	private final ExcelPoiAddressTable[] repeat_tables;
+
+	/**
+	 * コンストラクタ
+	 * @param workbook <code>Workbook</code>オブジェクト
+	 * @param names 出力前のテンプレートの名前付きセルの参照先（{@link #getDefinedNames(Workbook)}）
+	 * @param mapping 描画対象のクラスのマッピング
+	 */
+	ExcelPoiAddressTable(Workbook workbook, Map<String, Map<Integer, String>> names, ExcelPoiMapping<?> mapping)
+	{
+		this(workbook, names, mapping, workbook.getSheetIndex(mapping.getSheet().sheet_name()));
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param workbook <code>Workbook</code>オブジェクト
+	 * @param names 出力前のテンプレートの名前付きセルの参照先
+	 * @param mapping 描画対象のクラスのマッピング
+	 * @param default_sheet シート名を含まない参照の出力先のシート番号
+	 */
+	private ExcelPoiAddressTable(Workbook workbook, Map<String, Map<Integer, String>> names, ExcelPoiMapping<?> mapping, int default_sheet)
+	{
+		List<ExcelPoiColumn> addresses = mapping.getAddresses();
+		List<ExcelPoiColumn> repeats = mapping.getRepeats();
+
+		this.sheet_indexes = new int[addresses.size()];
+		this.rows = new int[addresses.size()];
+		this.cols = new int[addresses.size()];
+
+		for (int i = 0; i < addresses.size(); i++)
+		{
+			// 解決できないアドレスは出力対象外
+			this.sheet_indexes[i] = -1;
+
+			try
+			{
+				CellReference reference = createCellReference(workbook, names, addresses.get(i).getAddress().address(), default_sheet);
+				this.sheet_indexes[i] = reference.getSheetName() == null ? default_sheet : workbook.getSheetIndex(reference.getSheetName());
+				this.rows[i] = reference.getRow();
+				this.cols[i] = reference.getCol();
+			}
+			catch (RuntimeException e)
+			{
+				e.printStackTrace();
+			}
+		}
+
+		this.repeat_sheet_indexes = new int[repeats.size()];
+		this.repeat_first_rows = new int[repeats.size()];
+		this.repeat_last_rows = new int[repeats.size()];
+		this.repeat_tables = new ExcelPoiAddressTable[repeats.size()];
+
+		for (int i = 0; i < repeats.size(); i++)
+		{
+			// 解決できない行範囲は出力対象外
+			this.repeat_sheet_indexes[i] = -1;
+
+			try
+			{
+				ExcelPoiColumn repeat = repeats.get(i);
+				AreaReference area = createAreaReference(workbook, names, repeat.getRepeat().address(), default_sheet);
+				String sheet_name = area.getFirstCell().getSheetName();
+				int sheet_index = sheet_name == null ? default_sheet : workbook.getSheetIndex(sheet_name);
+
+				// 要素のクラスのアドレスは行範囲のシートを基準に解決
+				this.repeat_tables[i] = new ExcelPoiAddressTable(workbook, names, ExcelPoiMapping.of(repeat.getElementType()), sheet_index);
+				this.repeat_first_rows[i] = area.getFirstCell().getRow();
+				this.repeat_last_rows[i] = area.getLastCell().getRow();
+				this.repeat_sheet_indexes[i] = sheet_index;
+			}
+			catch (RuntimeException e)
+			{
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * 名前付きセルの参照先を取得します。<br>
+	 * 繰り返し出力で行を移動すると参照先も移動するため、出力前のテンプレートから取得して出力アドレスの解決に使用します。
+	 * 関数名は対象外です。
+	 * @param workbook <code>Workbook</code>オブジェクト
+	 * @return 名前付きセルの参照先（小文字の名前、シート番号（ブック全体の場合は<code>-1</code>）をキー）
+	 */
+	static Map<String, Map<Integer, String>> getDefinedNames(Workbook workbook)
+	{
+		Map<String, Map<Integer, String>> names = new HashMap<>();
+		for (Name name : workbook.getAllNames())
+		{
+			if (name.isFunctionName()) continue;
+			names.computeIfAbsent(name.getNameName().toLowerCase(Locale.ROOT), t -> new HashMap<>()).put(name.getSheetIndex(), name.getRefersToFormula());
+		}
+
+		return Collections.unmodifiableMap(names);
+	}
+
+	/**
+	 * 項目数を取得します。
+	 * @return 項目数
+	 */
+	int size()
+	{
+		return this.rows.length;
+	}
+
+	/**
+	 * 項目の出力先のシート番号を取得します。
+	 * @param index 項目の位置
+	 * @return シート番号（解決できなかった場合は<code>-1</code>）
+	 */
+	int getSheetIndex(int index)
+	{
+		return this.sheet_indexes[index];
+	}
+
+	/**
+	 * 項目の出力先の行番号を取得します。
+	 * @param index 項目の位置
+	 * @return 行番号
+	 */
+	int getRow(int index)
+	{
+		return this.rows[index];
+	}
+
+	/**
+	 * 項目の出力先の列番号を取得します。
+	 * @param index 項目の位置
+	 * @return 列番号
+	 */
+	int getCol(int index)
+	{
+		return this.cols[index];
+	}
+
+	/**
+	 * 繰り返し出力の項目数を取得します。
+	 * @return 項目数
+	 */
+	int getRepeatSize()
+	{
+		return this.repeat_first_rows.length;
+	}
+
+	/**
+	 * 繰り返す行範囲のシート番号を取得します。
+	 * @param index 項目の位置
+	 * @return シート番号（解決できなかった場合は<code>-1</code>）
+	 */
+	int getRepeatSheetIndex(int index)
+	{
+		return this.repeat_sheet_indexes[index];
+	}
+
+	/**
+	 * 繰り返す行範囲の開始行を取得します。
+	 * @param index 項目の位置
+	 * @return 開始行
+	 */
+	int getRepeatFirstRow(int index)
+	{
+		return this.repeat_first_rows[index];
+	}
+
+	/**
+	 * 繰り返す行範囲の終了行を取得します。
+	 * @param index 項目の位置
+	 * @return 終了行
+	 */
+	int getRepeatLastRow(int index)
+	{
+		return this.repeat_last_rows[index];
+	}
+
+	/**
+	 * 繰り返す要素のクラスの出力アドレスの解決結果を取得します。
+	 * @param index 項目の位置
+	 * @return 出力アドレスの解決結果
+	 */
+	ExcelPoiAddressTable getRepeatTable(int index)
+	{
+		return this.repeat_tables[index];
+	}
+
+	/**
+	 * アドレスからセル参照を取得します。<br>
+	 * 範囲を参照する場合は先頭のセルを対象とします。
+	 * @param workbook <code>Workbook</code>オブジェクト
+	 * @param names 名前付きセルの参照先
+	 * @param address アドレス
+	 * @param default_sheet <code>ExcelSheet</code>注釈のシート番号
+	 * @return セル参照
+	 */
+	private static CellReference createCellReference(Workbook workbook, Map<String, Map<Integer, String>> names, String address, int default_sheet)
+	{
+		String reference = resolve(names, address, default_sheet);
+		if (reference.indexOf(':') < 0) return new CellReference(reference);
+		return new AreaReference(reference, workbook.getSpreadsheetVersion()).getFirstCell();
+	}
+
+	/**
+	 * アドレスから範囲参照を取得します。<br>
+	 * 名前付きセルの参照先の解決はセル参照と同じです。
+	 * @param workbook <code>Workbook</code>オブジェクト
+	 * @param names 名前付きセルの参照先
+	 * @param address アドレス
+	 * @param default_sheet <code>ExcelSheet</code>注釈のシート番号
+	 * @return 範囲参照
+	 */
+	private static AreaReference createAreaReference(Workbook workbook, Map<String, Map<Integer, String>> names, String address, int default_sheet)
+	{
+		String reference = resolve(names, address, default_sheet);
+		if (reference.indexOf(':') < 0) return new AreaReference(new CellReference(reference), new CellReference(reference), workbook.getSpreadsheetVersion());
+		return new AreaReference(reference, workbook.getSpreadsheetVersion());
+	}
+
+	/**
+	 * 名前付きセルの参照先を解決します。<br>
+	 * 出力先のシートを範囲とする名前、ブック全体を範囲とする名前の順に解決します。
+	 * @param names 名前付きセルの参照先
+	 * @param address アドレス
+	 * @param default_sheet <code>ExcelSheet</code>注釈のシート番号
+	 * @return 参照先（名前付きセルでない場合はアドレス）
+	 */
+	private static String resolve(Map<String, Map<Integer, String>> names, String address, int default_sheet)
+	{
+		Map<Integer, String> scopes = names.get(address.toLowerCase(Locale.ROOT));
+		if (scopes == null) return address;
+
+		String reference = scopes.get(default_sheet);
+		if (reference == null) reference = scopes.get(-1);
+		return reference == null ? address : reference;
+	}
+}
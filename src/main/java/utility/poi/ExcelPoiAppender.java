@@ -0,0 +1,725 @@
+package utility.poi;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import utility.poi.annotation.ExcelSheet;
+
+/**
+ * 既存のExcel(xlsx)ファイルのシートの末尾に行を追記するユーティリティクラス<br>
+ * ブックをPOIのオブジェクトモデルに読み込まず、追記先のシート以外のエントリー（他のシート、共有文字列、画像等）は圧縮済みのまま複製します。
+ * 追記先のシートのXMLは1回だけ順に読み込みながら書き出し、<code>&lt;/sheetData&gt;</code>の直前に<code>ExcelColumn</code>注釈の項目を
+ * 既存の最終行の次の行から出力します。処理時間は追記する行数と追記先のシートのサイズに比例し、他のシートのサイズには影響されません。<br>
+ * セルスタイルは既存のスタイル定義（<code>styles.xml</code>）に同じ内容の定義があれば再利用し、ない場合のみ追加します。
+ * 文字列はセル内に直接保持（<code>inlineStr</code>）するため、共有文字列は変更しません。
+ * シートの使用範囲（<code>dimension</code>）は追記後の範囲と一致しなくなるため出力しません（Excelでファイルを開いた際に再計算されます）。
+ * 複製元のファイルは変更しないため、出力先には別のファイルを指定してください。
+ * @author Takeshi
+ *
+ * @param <T> 描画対象のクラス
+ */
+public class ExcelPoiAppender<T> implements ExcelPoi<T>
+{
+	/** 書き込みバッファのサイズ */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** 関連付けの名前空間（<code>r:id</code>属性） */
+	private static final String RELATIONSHIPS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+	/** ブックの要素のうち<code>calcPr</code>より後に配置する要素 */
+	private static final List<String> AFTER_CALC_PR = Arrays.asList("oleSize", "customWorkbookViews", "pivotCaches", "smartTagPr", "smartTagTypes", "webPublishing", "fileRecoveryPr", "webPublishObjects", "extLst");
+
+	private final Path source;
+	private String sheet_name = null;
+	private int sheet_row_limit = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+	/**
+	 * コンストラクタ
+	 * @param source 追記元のExcelファイル（変更しません）
+	 */
+	public ExcelPoiAppender(Path source)
+	{
+		if (source == null) throw new IllegalArgumentException("追記元のファイルを指定してください。");
+		this.source = source;
+	}
+
+	/**
+	 * 配列データを追記したExcelを出力ストリームに書き込みます。
+	 * @param data 配列データ
+	 * @param clazz 描画対象のクラス
+	 * @param stream 出力ストリーム（閉じません）
+	 * @return 追記した行数（タイトル行を除く）
+	 * @throws IOException 読み込み、出力に失敗した場合、追記元のファイルの形式に対応していない場合
+	 */
+	public long appendtoExcel(List<T> data, Class<T> clazz, OutputStream stream)
+			throws IOException
+	{
+		return appendtoExcel(data == null ? Collections.emptyIterator() : data.iterator(), clazz, stream);
+	}
+
+	/**
+	 * イテレータのデータを追記したExcelを出力ストリームに書き込みます。<br>
+	 * データは1行ずつ取得して出力するため、すべてのデータをメモリ上に保持する必要はありません。
+	 * @param data イテレータのデータ
+	 * @param clazz 描画対象のクラス
+	 * @param stream 出力ストリーム（閉じません）
+	 * @return 追記した行数（タイトル行を除く）
+	 * @throws IOException 読み込み、出力に失敗した場合、追記元のファイルの形式に対応していない場合
+	 */
+	public long appendtoExcel(Iterator<T> data, Class<T> clazz, OutputStream stream)
+			throws IOException
+	{
+		long rows = append(data, clazz, Channels.newChannel(stream));
+		stream.flush();
+		return rows;
+	}
+
+	/**
+	 * イテレータのデータを追記したExcelをファイルに書き込みます。<br>
+	 * 複製するエントリーはファイル間で直接転送します（OSが対応している場合はメモリへの読み込みを伴いません）。
+	 * @param data イテレータのデータ
+	 * @param clazz 描画対象のクラス
+	 * @param target 出力先のファイル（存在する場合は上書き）
+	 * @return 追記した行数（タイトル行を除く）
+	 * @throws IOException 読み込み、出力に失敗した場合、追記元のファイルの形式に対応していない場合
+	 * @throws IllegalArgumentException 出力先が追記元と同じファイルの場合
+	 */
+	public long appendtoExcel(Iterator<T> data, Class<T> clazz, Path target)
+			throws IOException
+	{
+		if (Files.exists(target) && Files.isSameFile(source, target)) throw new IllegalArgumentException("出力先には追記元と異なるファイルを指定してください。");
+
+		try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			return append(data, clazz, channel);
+		}
+	}
+
+	/**
+	 * 追記先のシート名を取得します。
+	 * @return シート名（<code>null</code>の場合は<code>ExcelSheet</code>注釈のシート名）
+	 */
+	public String getSheetName()
+	{
+		return this.sheet_name;
+	}
+
+	/**
+	 * 追記先のシート名を設定します。<br>
+	 * ロールオーバーで追加したシート（「シート名 (2)」等）に追記する場合に指定します。
+	 * @param sheet_name シート名（<code>null</code>の場合は<code>ExcelSheet</code>注釈のシート名）
+	 */
+	public void setSheetName(String sheet_name)
+	{
+		this.sheet_name = sheet_name;
+	}
+
+	/**
+	 * 1シートの最大行数を取得します。
+	 * @return 最大行数
+	 */
+	public int getSheetRowLimit()
+	{
+		return this.sheet_row_limit;
+	}
+
+	/**
+	 * 1シートの最大行数を設定します。<br>
+	 * 既定値はExcelの最大行数（1,048,576行）です。
+	 * @param sheet_row_limit 最大行数
+	 * @throws IllegalArgumentException 最大行数が1以上、Excelの最大行数以下でない場合
+	 */
+	public void setSheetRowLimit(int sheet_row_limit)
+	{
+		if (sheet_row_limit <= 0 || sheet_row_limit > SpreadsheetVersion.EXCEL2007.getMaxRows())
+		{
+			throw new IllegalArgumentException(String.format("最大行数は1～%dの範囲で指定してください。", SpreadsheetVersion.EXCEL2007.getMaxRows()));
+		}
+		this.sheet_row_limit = sheet_row_limit;
+	}
+
+	/**
+	 * 追記元のエントリーを複製し、追記先のシート、スタイル定義を置き換えて出力します。
+	 * @param data イテレータのデータ
+	 * @param clazz 描画対象のクラス
+	 * @param target 出力先
+	 * @return 追記した行数（タイトル行を除く）
+	 * @throws IOException 読み込み、出力に失敗した場合、追記元のファイルの形式に対応していない場合
+	 */
+	private long append(Iterator<T> data, Class<T> clazz, WritableByteChannel target)
+			throws IOException
+	{
+		// ジェネリクス型のマッピングを取得
+		ExcelPoiMapping<T> mapping = getMapping(clazz);
+		ExcelSheet sheet_info = mapping.getSheet();
+		if (sheet_info == null) throw new IllegalArgumentException(String.format("%s に ExcelSheet 注釈が存在しません。", clazz.getName()));
+
+		try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ);
+				ZipFile zip = new ZipFile(source.toFile()))
+		{
+			// パッケージの関連付けからブック、ブックの関連付けからシート、スタイル定義のエントリー名を取得
+			String workbook_path = resolve("", findTarget(parse(zip, "_rels/.rels"), null, "/officeDocument"));
+			String workbook_dir = workbook_path.substring(0, workbook_path.lastIndexOf('/') + 1);
+			Document workbook = parse(zip, workbook_path);
+			Document workbook_rels = parse(zip, workbook_dir + "_rels/" + workbook_path.substring(workbook_dir.length()) + ".rels");
+
+			String name = (this.sheet_name != null) ? this.sheet_name : sheet_info.sheet_name();
+			String sheet_path = resolve(workbook_dir, findTarget(workbook_rels, findSheetId(workbook, name), null));
+			String styles_path = resolve(workbook_dir, findTarget(workbook_rels, null, "/styles"));
+
+			// 計算式の項目を追記する場合は、Excelでファイルを開いた際に再計算させる
+			boolean formula = mapping.getColumns().stream().anyMatch(t -> t.getFormula() != null);
+			List<String> replaced = formula ? Arrays.asList(sheet_path, styles_path, workbook_path) : Arrays.asList(sheet_path, styles_path);
+
+			// 変更しないエントリーを圧縮済みのまま複製
+			ExcelPoiZipCopier copier = new ExcelPoiZipCopier(channel, target);
+			for (String entry_name : copier.getNames())
+			{
+				if (!replaced.contains(entry_name)) copier.copy(entry_name);
+			}
+
+			// シートの置き換え（追記するセルスタイルをスタイル定義に追加）
+			ExcelPoiXmlStyleMerger styles = new ExcelPoiXmlStyleMerger(parse(zip, styles_path));
+			long rows;
+			try (Reader reader = new InputStreamReader(zip.getInputStream(getEntry(zip, sheet_path)), StandardCharsets.UTF_8);
+					Writer writer = new BufferedWriter(new OutputStreamWriter(copier.replace(sheet_path), StandardCharsets.UTF_8), BUFFER_SIZE))
+			{
+				rows = rewriteSheet(new SheetReader(reader), writer, data, mapping, styles, name);
+			}
+
+			// スタイル定義、ブックの置き換え
+			try (OutputStream stream = copier.replace(styles_path))
+			{
+				write(styles.getDocument(), stream);
+			}
+			if (formula)
+			{
+				setFullCalcOnLoad(workbook);
+				try (OutputStream stream = copier.replace(workbook_path))
+				{
+					write(workbook, stream);
+				}
+			}
+
+			copier.finish();
+			return rows;
+		}
+	}
+
+	/**
+	 * シートのXMLを複製しながら、<code>&lt;/sheetData&gt;</code>の直前に行を追記します。
+	 * @param reader 追記元のシートのXML
+	 * @param writer 出力先
+	 * @param data イテレータのデータ
+	 * @param mapping 描画対象のクラスのマッピング
+	 * @param styles スタイル定義
+	 * @param name シート名
+	 * @return 追記した行数（タイトル行を除く）
+	 * @throws IOException 読み込み、出力に失敗した場合、シートのXMLの形式に対応していない場合
+	 */
+	private long rewriteSheet(SheetReader reader, Writer writer, Iterator<T> data, ExcelPoiMapping<T> mapping, ExcelPoiXmlStyleMerger styles, String name)
+			throws IOException
+	{
+		int last_row = 0;
+		long rows = -1;
+		while (reader.copyText(writer))
+		{
+			reader.readTag();
+
+			// 使用範囲は追記後の範囲と一致しなくなるため出力しない
+			if (reader.isTag("dimension")) continue;
+
+			if (rows < 0 && reader.isTag("row"))
+			{
+				int row = reader.getRowNumber();
+				last_row = (row > 0) ? row : last_row + 1;
+			}
+			else if (rows < 0 && reader.isTag("/sheetData"))
+			{
+				rows = writeRows(writer, data, mapping, styles, name, last_row);
+			}
+			else if (rows < 0 && reader.isTag("sheetData") && reader.isEmptyTag())
+			{
+				writer.write("<sheetData>");
+				rows = writeRows(writer, data, mapping, styles, name, 0);
+				writer.write("</sheetData>");
+				continue;
+			}
+
+			reader.writeTag(writer);
+		}
+		if (rows < 0) throw new IOException(String.format("シート「%s」のXMLに sheetData が存在しません。", name));
+
+		return rows;
+	}
+
+	/**
+	 * 行を出力します。<br>
+	 * 既存の行が存在しない場合は、<code>ExcelSheet</code>注釈の開始行からタイトル行を含めて出力します。
+	 * @param writer 出力先
+	 * @param data イテレータのデータ
+	 * @param mapping 描画対象のクラスのマッピング
+	 * @param styles スタイル定義
+	 * @param name シート名
+	 * @param last_row 既存の最終行の行番号（1始まり、行が存在しない場合は<code>0</code>）
+	 * @return 出力した行数（タイトル行を除く）
+	 * @throws IOException 出力に失敗した場合
+	 * @throws IllegalStateException シートの最大行数を超えた場合
+	 */
+	private long writeRows(Writer writer, Iterator<T> data, ExcelPoiMapping<T> mapping, ExcelPoiXmlStyleMerger styles, String name, int last_row)
+			throws IOException
+	{
+		if (data == null || !data.hasNext()) return 0;
+
+		// 列単位のセル要素の先頭部分、スタイル、出力処理を作成
+		ExcelSheet sheet_info = mapping.getSheet();
+		List<ExcelPoiColumn> columns = mapping.getColumns();
+		char[][] heads = new char[columns.size()][];
+		char[][] column_styles = new char[columns.size()][];
+		ExcelPoiValueWriter[] writers = new ExcelPoiValueWriter[columns.size()];
+		for (int i = 0; i < columns.size(); i++)
+		{
+			heads[i] = ExcelPoiXmlSink.createHead(sheet_info.column_start() + i);
+			column_styles[i] = ExcelPoiXmlSink.createStyle(styles.getStyleIndex(columns.get(i).getCellStyle()));
+			writers[i] = columns.get(i).getWriter(columns.get(i).getColumn().trim());
+		}
+
+		ExcelPoiXmlSink sink = new ExcelPoiXmlSink(writer);
+		int current_row = Math.max(last_row, sheet_info.row_start());
+
+		// 既存の行が存在しない場合はタイトル描画
+		if (last_row == 0 && sheet_info.draw_title())
+		{
+			char[] title_style = ExcelPoiXmlSink.createStyle(styles.getStyleIndex(mapping.getTitleStyle()));
+			sink.startRow(current_row++);
+			for (int i = 0; i < columns.size(); i++)
+			{
+				sink.setCell(heads[i], title_style).setString(columns.get(i).getColumn().name());
+			}
+			sink.endRow();
+		}
+
+		long row_count = 0;
+		while (data.hasNext())
+		{
+			T entity = data.next();
+			if (current_row >= sheet_row_limit) throw new IllegalStateException(String.format("シート「%s」の最大行数（%d行）を超えました。", name, sheet_row_limit));
+
+			// フィールド単位に出力
+			sink.startRow(current_row++);
+			for (int i = 0; i < writers.length; i++)
+			{
+				try
+				{
+					writers[i].write(entity, sink.setCell(heads[i], column_styles[i]));
+					sink.endCell();
+				}
+				catch (UncheckedIOException e)
+				{
+					throw e.getCause();
+				}
+				catch (RuntimeException e)
+				{
+					e.printStackTrace();
+					sink.endCell();
+				}
+			}
+			sink.endRow();
+
+			row_count++;
+		}
+
+		return row_count;
+	}
+
+	/**
+	 * ブックの計算設定（<code>calcPr</code>）に、ファイルを開いた際にすべての計算式を再計算させる指定を追加します。
+	 * @param workbook ブック
+	 */
+	private static void setFullCalcOnLoad(Document workbook)
+	{
+		Element root = workbook.getDocumentElement();
+		Element calc = getChild(root, "calcPr");
+		if (calc == null)
+		{
+			// calcPrより後に配置する要素の手前に追加
+			Node before = null;
+			for (Node child = root.getFirstChild(); child != null && before == null; child = child.getNextSibling())
+			{
+				if (child.getNodeType() == Node.ELEMENT_NODE && AFTER_CALC_PR.contains(child.getLocalName())) before = child;
+			}
+			calc = workbook.createElementNS(ExcelPoiXmlStyleMerger.NAMESPACE, "calcPr");
+			root.insertBefore(calc, before);
+		}
+		calc.setAttribute("fullCalcOnLoad", "1");
+	}
+
+	/**
+	 * シート名からシートの関連付けの<code>Id</code>を取得します（大文字、小文字は区別しません）。
+	 * @param workbook ブック
+	 * @param name シート名
+	 * @return 関連付けの<code>Id</code>
+	 * @throws IllegalArgumentException シートが存在しない場合
+	 */
+	private static String findSheetId(Document workbook, String name)
+	{
+		NodeList sheets = workbook.getElementsByTagNameNS(ExcelPoiXmlStyleMerger.NAMESPACE, "sheet");
+		for (int i = 0; i < sheets.getLength(); i++)
+		{
+			Element sheet = (Element)sheets.item(i);
+			if (name.equalsIgnoreCase(sheet.getAttribute("name"))) return sheet.getAttributeNS(RELATIONSHIPS, "id");
+		}
+
+		throw new IllegalArgumentException(String.format("追記先のシート「%s」が存在しません。", name));
+	}
+
+	/**
+	 * 関連付けの参照先を取得します。
+	 * @param relationships 関連付け
+	 * @param id 関連付けの<code>Id</code>（<code>null</code>の場合は種類で検索）
+	 * @param type_suffix 関連付けの種類の末尾（<code>null</code>の場合は<code>Id</code>で検索）
+	 * @return 参照先
+	 * @throws IOException 関連付けが存在しない場合
+	 */
+	private static String findTarget(Document relationships, String id, String type_suffix)
+			throws IOException
+	{
+		NodeList items = relationships.getDocumentElement().getChildNodes();
+		for (int i = 0; i < items.getLength(); i++)
+		{
+			if (items.item(i).getNodeType() != Node.ELEMENT_NODE) continue;
+
+			Element item = (Element)items.item(i);
+			if (id != null ? id.equals(item.getAttribute("Id")) : item.getAttribute("Type").endsWith(type_suffix)) return item.getAttribute("Target");
+		}
+
+		throw new IOException(String.format("関連付け %s が存在しません。", id != null ? id : type_suffix));
+	}
+
+	/**
+	 * 関連付けの参照先をエントリー名に変換します。
+	 * @param base_dir 関連付けの元のパーツのディレクトリ（末尾に<code>/</code>を含む）
+	 * @param target 参照先
+	 * @return エントリー名
+	 */
+	private static String resolve(String base_dir, String target)
+	{
+		return URI.create("/" + base_dir).resolve(target).getPath().substring(1);
+	}
+
+	/**
+	 * 子要素を取得します。
+	 * @param parent 親要素
+	 * @param name 要素名
+	 * @return 子要素（存在しない場合は<code>null</code>）
+	 */
+	private static Element getChild(Element parent, String name)
+	{
+		for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling())
+		{
+			if (child.getNodeType() == Node.ELEMENT_NODE && name.equals(child.getLocalName())) return (Element)child;
+		}
+
+		return null;
+	}
+
+	/**
+	 * ZIPファイルのエントリーを取得します。
+	 * @param zip ZIPファイル
+	 * @param name エントリー名
+	 * @return エントリー
+	 * @throws IOException エントリーが存在しない場合
+	 */
+	private static ZipEntry getEntry(ZipFile zip, String name)
+			throws IOException
+	{
+		ZipEntry entry = zip.getEntry(name);
+		if (entry == null) throw new IOException(String.format("ZIPファイルにエントリー %s が存在しません。", name));
+		return entry;
+	}
+
+	/**
+	 * ZIPファイルのエントリーをXMLとして読み込みます。
+	 * @param zip ZIPファイル
+	 * @param name エントリー名
+	 * @return XML文書
+	 * @throws IOException 読み込みに失敗した場合
+	 */
+	private static Document parse(ZipFile zip, String name)
+			throws IOException
+	{
+		try (InputStream stream = zip.getInputStream(getEntry(zip, name)))
+		{
+			return newDocumentBuilder().parse(stream);
+		}
+		catch (ParserConfigurationException | SAXException exp)
+		{
+			throw new IOException(exp);
+		}
+	}
+
+	/**
+	 * XML文書を出力します。
+	 * @param document XML文書
+	 * @param stream 出力先
+	 * @throws IOException 出力に失敗した場合
+	 */
+	private static void write(Document document, OutputStream stream)
+			throws IOException
+	{
+		try
+		{
+			document.setXmlStandalone(true);
+			Transformer transformer = TransformerFactory.newInstance().newTransformer();
+			transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+			transformer.transform(new DOMSource(document), new StreamResult(stream));
+		}
+		catch (TransformerException exp)
+		{
+			throw new IOException(exp);
+		}
+	}
+
+	/**
+	 * 外部実体を解決しない、名前空間に対応した<code>DocumentBuilder</code>を作成します。
+	 * @return <code>DocumentBuilder</code>オブジェクト
+	 * @throws ParserConfigurationException 作成に失敗した場合
+	 */
+	static DocumentBuilder newDocumentBuilder()
+			throws ParserConfigurationException
+	{
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+		factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+		factory.setExpandEntityReferences(false);
+		return factory.newDocumentBuilder();
+	}
+
+	/**
+	 * シートのXMLをタグ単位に読み込むクラス<br>
+	 * タグ以外の文字（セルの値等）は解析せずにそのまま出力先へ複製します。
+	 */
+	private static final class SheetReader
+	{
+		private final Reader reader;
+		private final char[] buffer = new char[BUFFER_SIZE];
+		private int position = 0;
+		private int limit = 0;
+		private char[] tag = new char[256];
+		private int tag_length = 0;
+
+		/**
+		 * コンストラクタ
+		 * @param reader シートのXML
+		 */
+		SheetReader(Reader reader)
+		{
+			this.reader = reader;
+		}
+
+		/**
+		 * 次のタグの手前までの文字を出力先に複製します。
+		 * @param writer 出力先
+		 * @return タグが続く場合<code>true</code>、終端に達した場合<code>false</code>
+		 * @throws IOException 読み込み、出力に失敗した場合
+		 */
+		boolean copyText(Writer writer)
+				throws IOException
+		{
+			while (true)
+			{
+				if (position >= limit && !fill()) return false;
+
+				int start = position;
+				while (position < limit && buffer[position] != '<') position++;
+				writer.write(buffer, start, position - start);
+				if (position < limit) return true;
+			}
+		}
+
+		/**
+		 * タグ（<code>&lt;</code>から<code>&gt;</code>まで）を読み込みます。<br>
+		 * 属性値の引用符内、コメント、CDATAセクション内の<code>&gt;</code>はタグの終端としません。
+		 * @throws IOException 読み込みに失敗した場合、タグの途中で終端に達した場合
+		 */
+		void readTag()
+				throws IOException
+		{
+			tag_length = 0;
+			char quote = 0;
+			while (true)
+			{
+				if (position >= limit && !fill()) throw new IOException("シートのXMLが途中で終了しています。");
+
+				char c = buffer[position++];
+				if (tag_length == tag.length) tag = Arrays.copyOf(tag, tag.length * 2);
+				tag[tag_length++] = c;
+
+				if (quote != 0)
+				{
+					if (c == quote) quote = 0;
+				}
+				else if ((c == '"' || c == '\'') && tag[1] != '!')
+				{
+					quote = c;
+				}
+				else if (c == '>' && isComplete())
+				{
+					return;
+				}
+			}
+		}
+
+		/**
+		 * 読み込んだタグを出力先に書き込みます。
+		 * @param writer 出力先
+		 * @throws IOException 出力に失敗した場合
+		 */
+		void writeTag(Writer writer)
+				throws IOException
+		{
+			writer.write(tag, 0, tag_length);
+		}
+
+		/**
+		 * 読み込んだタグの要素名を判定します。
+		 * @param name 要素名（終了タグの場合は先頭に<code>/</code>）
+		 * @return 一致する場合<code>true</code>
+		 */
+		boolean isTag(String name)
+		{
+			if (tag_length < name.length() + 2) return false;
+			for (int i = 0; i < name.length(); i++)
+			{
+				if (tag[i + 1] != name.charAt(i)) return false;
+			}
+
+			char next = tag[name.length() + 1];
+			return next == '>' || next == '/' || Character.isWhitespace(next);
+		}
+
+		/**
+		 * 読み込んだタグが空要素タグ（<code>/&gt;</code>で終わる）かを判定します。
+		 * @return 空要素タグの場合<code>true</code>
+		 */
+		boolean isEmptyTag()
+		{
+			return tag_length >= 2 && tag[tag_length - 2] == '/';
+		}
+
+		/**
+		 * 読み込んだ行のタグから行番号（<code>r</code>属性）を取得します。
+		 * @return 行番号（1始まり、<code>r</code>属性がない場合は<code>-1</code>）
+		 */
+		int getRowNumber()
+		{
+			for (int i = 2; i + 3 < tag_length; i++)
+			{
+				if (!Character.isWhitespace(tag[i - 1]) || tag[i] != 'r' || tag[i + 1] != '=' || (tag[i + 2] != '"' && tag[i + 2] != '\'')) continue;
+
+				int value = 0;
+				for (int j = i + 3; j < tag_length && tag[j] >= '0' && tag[j] <= '9'; j++) value = value * 10 + (tag[j] - '0');
+				return value;
+			}
+
+			return -1;
+		}
+
+		/**
+		 * タグの終端か否かを取得します。コメント、CDATAセクションは終端の文字列まで読み込みます。
+		 * @return 終端の場合<code>true</code>
+		 */
+		private boolean isComplete()
+		{
+			if (startsWith("<!--")) return endsWith("-->");
+			if (startsWith("<![CDATA[")) return endsWith("]]>");
+			return true;
+		}
+
+		/**
+		 * 読み込み中のタグが指定の文字列で始まるかを判定します。
+		 * @param prefix 文字列
+		 * @return 始まる場合<code>true</code>
+		 */
+		private boolean startsWith(String prefix)
+		{
+			if (tag_length < prefix.length()) return false;
+			for (int i = 0; i < prefix.length(); i++)
+			{
+				if (tag[i] != prefix.charAt(i)) return false;
+			}
+			return true;
+		}
+
+		/**
+		 * 読み込み中のタグが指定の文字列で終わるかを判定します。
+		 * @param suffix 文字列
+		 * @return 終わる場合<code>true</code>
+		 */
+		private boolean endsWith(String suffix)
+		{
+			if (tag_length < suffix.length()) return false;
+			for (int i = 0; i < suffix.length(); i++)
+			{
+				if (tag[tag_length - suffix.length() + i] != suffix.charAt(i)) return false;
+			}
+			return true;
+		}
+
+		/**
+		 * バッファに読み込みます。
+		 * @return 読み込んだ場合<code>true</code>、終端に達した場合<code>false</code>
+		 * @throws IOException 読み込みに失敗した場合
+		 */
+		private boolean fill()
+				throws IOException
+		{
+			int length = reader.read(buffer, 0, buffer.length);
+			if (length <= 0) return false;
+
+			position = 0;
+			limit = length;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,523 @@
+package utility.poi;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Excelの出力を非同期に実行するクラス<br>
+ * 出力は<code>SXSSF</code>形式（ストリーミング）の<code>ExcelPoiGenerator</code>で行い、結果を<code>CompletableFuture</code>で返却します。<br>
+ * 同時に実行する出力は推定メモリ使用量の合計で制限し、上限を超える出力は受付順に待機させます。
+ * 1件で上限を超える出力は、他の出力が終了してから単独で実行します。<br>
+ * 返却した<code>CompletableFuture</code>を取り消すと、待機中の出力は実行せず、実行中の出力は次の行の取得前に中止して一時ファイルを削除します。
+ * @author Takeshi
+ *
+ */
+public class ExcelPoiAsyncExporter implements Closeable
+{
+	/** 推定メモリ使用量の上限の既定値（256MB） */
+	public static final long DEFAULT_MEMORY_BUDGET = 256L << 20;
+
+	/** 出力1件あたりの固定の推定メモリ使用量（ブック、スタイル、書き出し用のバッファ） */
+	private static final long BASE_COST = 4L << 20;
+
+	/** セル1件あたりの推定メモリ使用量 */
+	private static final long CELL_COST = 256;
+
+	private final Executor executor;
+	private final boolean owned_executor;
+	private final long memory_budget;
+	private final Deque<Job<?>> queue = new ArrayDeque<>();
+	private long available_memory;
+	private int running_count;
+	private boolean dispatching;
+	private boolean redispatch;
+	private int row_access_window = ExcelPoiGenerator.DEFAULT_ROW_ACCESS_WINDOW;
+	private ExcelPoiListener listener = ExcelPoiListener.NONE;
+
+	/**
+	 * コンストラクタ<br>
+	 * 仮想スレッドを利用できる実行環境（Java 21以降）では出力ごとに仮想スレッドで実行し、それ以外は出力ごとにデーモンスレッドで実行します。
+	 * 推定メモリ使用量の上限は{@link #DEFAULT_MEMORY_BUDGET}です。
+	 */
+	public ExcelPoiAsyncExporter()
+	{
+		this(createDefaultExecutor(), DEFAULT_MEMORY_BUDGET, true);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param executor 出力を実行する<code>Executor</code>（{@link #close()}で終了しません）
+	 * @param memory_budget 同時に実行する出力の推定メモリ使用量の上限（バイト）
+	 */
+	public ExcelPoiAsyncExporter(Executor executor, long memory_budget)
+	{
+		this(executor, memory_budget, false);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param executor 出力を実行する<code>Executor</code>
+	 * @param memory_budget 同時に実行する出力の推定メモリ使用量の上限（バイト）
+	 * @param owned_executor {@link #close()}で<code>Executor</code>を終了する場合<code>true</code>
+	 */
+	private ExcelPoiAsyncExporter(Executor executor, long memory_budget, boolean owned_executor)
+	{
+		if (executor == null) throw new IllegalArgumentException("Executorを指定してください。");
+		if (memory_budget <= 0) throw new IllegalArgumentException("推定メモリ使用量の上限は1以上を指定してください。");
+
+		this.executor = executor;
+		this.owned_executor = owned_executor;
+		this.memory_budget = memory_budget;
+		this.available_memory = memory_budget;
+	}
+
+	/**
+	 * イテレータのデータを非同期にExcelに出力し、出力ストリームに書き込みます。<br>
+	 * 出力ストリームは閉じないため、<code>CompletableFuture</code>の完了後に呼び出し元で閉じてください。
+	 * @param <T> 描画対象のクラス
+	 * @param data イテレータのデータ
+	 * @param clazz 描画対象のクラス
+	 * @param stream 出力ストリーム
+	 * @return 出力した行数（タイトル行を除く）を返却する<code>CompletableFuture</code>
+	 */
+	public <T> CompletableFuture<Long> export(Iterator<T> data, Class<T> clazz, OutputStream stream)
+	{
+		Job<Long> job = new Job<>(estimateCost(clazz));
+		job.task = () -> generate(job, data, clazz, stream);
+		submit(job);
+
+		return job.future;
+	}
+
+	/**
+	 * ストリームのデータを非同期にExcelに出力し、出力ストリームに書き込みます。<br>
+	 * データのストリームは出力の終了時に出力スレッドで閉じます（実行前に取り消した場合は取り消し時に閉じます）。出力ストリームは閉じません。
+	 * @param <T> 描画対象のクラス
+	 * @param data ストリームのデータ
+	 * @param clazz 描画対象のクラス
+	 * @param stream 出力ストリーム
+	 * @return 出力した行数（タイトル行を除く）を返却する<code>CompletableFuture</code>
+	 */
+	public <T> CompletableFuture<Long> export(Stream<T> data, Class<T> clazz, OutputStream stream)
+	{
+		Job<Long> job = new Job<>(estimateCost(clazz));
+		job.task = () -> generate(job, data.iterator(), clazz, stream);
+		job.source = data;
+		submit(job);
+
+		return job.future;
+	}
+
+	/**
+	 * ストリームのデータを非同期にExcelに出力し、ファイルに書き込みます。<br>
+	 * 失敗した場合、取り消した場合は書き込み途中のファイルを削除します。
+	 * データのストリームは出力の終了時に出力スレッドで閉じます（実行前に取り消した場合は取り消し時に閉じます）。
+	 * @param <T> 描画対象のクラス
+	 * @param data ストリームのデータ
+	 * @param clazz 描画対象のクラス
+	 * @param file 出力先のファイル
+	 * @return 出力したファイルを返却する<code>CompletableFuture</code>
+	 */
+	public <T> CompletableFuture<File> exportToFile(Stream<T> data, Class<T> clazz, File file)
+	{
+		Job<File> job = new Job<>(estimateCost(clazz));
+		job.task = () ->
+		{
+			boolean completed = false;
+			try (OutputStream stream = new FileOutputStream(file))
+			{
+				generate(job, data.iterator(), clazz, stream);
+				completed = true;
+				return file;
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+			finally
+			{
+				if (!completed) file.delete();
+			}
+		};
+		job.source = data;
+		submit(job);
+
+		return job.future;
+	}
+
+	/**
+	 * 出力1件の推定メモリ使用量を取得します。<br>
+	 * メモリ上に保持する行数と項目数から推定します。
+	 * @param clazz 描画対象のクラス
+	 * @return 推定メモリ使用量（バイト）
+	 */
+	public long estimateCost(Class<?> clazz)
+	{
+		return BASE_COST + (long)row_access_window * ExcelPoiMapping.of(clazz).getColumns().size() * CELL_COST;
+	}
+
+	/**
+	 * メモリ上に保持する行数を取得します。
+	 * @return メモリ上に保持する行数
+	 */
+	public int getRowAccessWindow()
+	{
+		return this.row_access_window;
+	}
+
+	/**
+	 * メモリ上に保持する行数を設定します。<br>
+	 * 既定値は{@link ExcelPoiGenerator#DEFAULT_ROW_ACCESS_WINDOW}です。推定メモリ使用量の算出にも利用します。
+	 * @param row_access_window メモリ上に保持する行数
+	 */
+	public void setRowAccessWindow(int row_access_window)
+	{
+		if (row_access_window <= 0) throw new IllegalArgumentException("メモリ上に保持する行数は1以上を指定してください。");
+		this.row_access_window = row_access_window;
+	}
+
+	/**
+	 * 計測結果を受け取るリスナーを取得します。
+	 * @return リスナー
+	 */
+	public ExcelPoiListener getListener()
+	{
+		return this.listener;
+	}
+
+	/**
+	 * 計測結果を受け取るリスナーを設定します。<br>
+	 * すべての出力で共有するため、複数のスレッドから同時に通知されても問題のないリスナーを設定してください。
+	 * @param listener リスナー（<code>null</code>の場合は通知しない）
+	 */
+	public void setListener(ExcelPoiListener listener)
+	{
+		this.listener = listener == null ? ExcelPoiListener.NONE : listener;
+	}
+
+	/**
+	 * 同時に実行する出力の推定メモリ使用量の上限を取得します。
+	 * @return 推定メモリ使用量の上限（バイト）
+	 */
+	public long getMemoryBudget()
+	{
+		return this.memory_budget;
+	}
+
+	/**
+	 * 待機中の出力の件数を取得します。
+	 * @return 待機中の件数
+	 */
+	public synchronized int getQueuedCount()
+	{
+		return this.queue.size();
+	}
+
+	/**
+	 * 実行中の出力の件数を取得します。
+	 * @return 実行中の件数
+	 */
+	public synchronized int getRunningCount()
+	{
+		return this.running_count;
+	}
+
+	/**
+	 * 終了処理。待機中の出力を取り消します。<br>
+	 * デフォルトコンストラクタで作成した場合は<code>Executor</code>を終了します（実行中の出力は完了まで継続します）。
+	 */
+	@Override
+	public void close()
+	{
+		List<Job<?>> pending;
+		synchronized (this)
+		{
+			pending = new ArrayList<>(queue);
+			queue.clear();
+		}
+		pending.forEach(t ->
+		{
+			t.future.cancel(false);
+			t.closeSource();
+		});
+
+		if (owned_executor) ((ExecutorService)executor).shutdown();
+	}
+
+	/**
+	 * Excelに出力し、出力ストリームに書き込みます。<br>
+	 * 取り消された場合は次の行の取得前に中止します。一時ファイルは終了時に削除します。
+	 * @param job 出力
+	 * @param data イテレータのデータ
+	 * @param clazz 描画対象のクラス
+	 * @param stream 出力ストリーム
+	 * @return 出力した行数
+	 */
+	private <T> long generate(Job<?> job, Iterator<T> data, Class<T> clazz, OutputStream stream)
+	{
+		try (ExcelPoiGenerator<T> writer = new ExcelPoiGenerator<>(row_access_window, true))
+		{
+			writer.setListener(listener);
+			long rows = writer.writetoExcel(new Iterator<T>()
+			{
+				@Override
+				public boolean hasNext()
+				{
+					if (job.future.isCancelled()) throw new CancellationException();
+					return data.hasNext();
+				}
+
+				@Override
+				public T next()
+				{
+					return data.next();
+				}
+			}, clazz);
+
+			if (job.future.isCancelled()) throw new CancellationException();
+			writer.write(stream);
+			return rows;
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * 出力を受け付けます。
+	 * @param job 出力
+	 */
+	private void submit(Job<?> job)
+	{
+		synchronized (this)
+		{
+			queue.add(job);
+		}
+		job.future.whenComplete((t, e) -> cancel(job));
+		dispatch();
+	}
+
+	/**
+	 * 待機中の出力を受付順に実行します。<br>
+	 * 実行する出力は排他中に待機列から取り出し、<code>Executor</code>への登録は排他を解除してから行います
+	 * （呼び出し元のスレッドで実行する<code>Executor</code>でも、出力中に他の受付、取り消しを妨げないため）。
+	 * 他のスレッドが登録中の場合は、そのスレッドに再度の取り出しを依頼して終了します。
+	 */
+	private void dispatch()
+	{
+		synchronized (this)
+		{
+			if (dispatching)
+			{
+				redispatch = true;
+				return;
+			}
+			dispatching = true;
+		}
+
+		boolean finished = false;
+		try
+		{
+			while (true)
+			{
+				List<Job<?>> jobs;
+				synchronized (this)
+				{
+					jobs = takeRunnable();
+					if (jobs.isEmpty() && !redispatch)
+					{
+						dispatching = false;
+						finished = true;
+						return;
+					}
+					redispatch = false;
+				}
+
+				for (Job<?> job : jobs)
+				{
+					try
+					{
+						executor.execute(job);
+					}
+					catch (RuntimeException e)
+					{
+						// 実行できなかった出力は推定メモリ使用量を戻して異常終了
+						reclaim(job);
+						job.closeSource();
+						job.future.completeExceptionally(e);
+					}
+				}
+			}
+		}
+		finally
+		{
+			if (!finished)
+			{
+				synchronized (this)
+				{
+					dispatching = false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 推定メモリ使用量の上限内で実行できる出力を、待機列から受付順に取り出します。<br>
+	 * 先頭の出力の推定メモリ使用量が残りの上限を超える場合は、後続の出力も待機させます（大きな出力の待機が続かないようにするため）。
+	 * @return 実行する出力
+	 */
+	private synchronized List<Job<?>> takeRunnable()
+	{
+		List<Job<?>> jobs = new ArrayList<>();
+		while (!queue.isEmpty())
+		{
+			Job<?> job = queue.peek();
+			long cost = Math.min(job.cost, memory_budget);
+			if (cost > available_memory) break;
+
+			queue.poll();
+			available_memory -= cost;
+			running_count++;
+			job.reserved = cost;
+			jobs.add(job);
+		}
+
+		return jobs;
+	}
+
+	/**
+	 * 取り消された待機中の出力を取り除きます。<br>
+	 * 実行前に取り除いた出力はデータのストリームを閉じます。
+	 * @param job 出力
+	 */
+	private void cancel(Job<?> job)
+	{
+		boolean removed;
+		synchronized (this)
+		{
+			removed = job.future.isCancelled() && queue.remove(job);
+		}
+		if (!removed) return;
+
+		job.closeSource();
+		dispatch();
+	}
+
+	/**
+	 * 実行を終了した出力の推定メモリ使用量を解放し、待機中の出力を実行します。
+	 * @param job 出力
+	 */
+	private void release(Job<?> job)
+	{
+		reclaim(job);
+		dispatch();
+	}
+
+	/**
+	 * 出力の推定メモリ使用量を解放します。
+	 * @param job 出力
+	 */
+	private synchronized void reclaim(Job<?> job)
+	{
+		available_memory += job.reserved;
+		running_count--;
+		job.reserved = 0;
+	}
+
+	/**
+	 * 既定の<code>Executor</code>を作成します。<br>
+	 * 仮想スレッドを利用できる場合は仮想スレッド、それ以外はデーモンスレッドで出力ごとに実行します。
+	 * @return <code>Executor</code>
+	 */
+	private static ExecutorService createDefaultExecutor()
+	{
+		try
+		{
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (ReflectiveOperationException e)
+		{
+			return Executors.newCachedThreadPool(runnable ->
+			{
+				Thread thread = new Thread(runnable, "ExcelPoiAsyncExporter");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * 受け付けた出力
+	 * @param <R> 出力結果の型
+	 */
+	private final class Job<R> implements Runnable
+	{
+		private final CompletableFuture<R> future = new CompletableFuture<>();
+		private final long cost;
+		private long reserved;
+		private Supplier<R> task;
+		private Stream<?> source;
+
+		/**
+		 * コンストラクタ
+		 * @param cost 推定メモリ使用量
+		 */
+		Job(long cost)
+		{
+			this.cost = cost;
+		}
+
+		@Override
+		public void run()
+		{
+			try
+			{
+				if (!future.isDone()) future.complete(task.get());
+			}
+			catch (Throwable e)
+			{
+				future.completeExceptionally(e);
+			}
+			finally
+			{
+				// データのストリームは反復している出力スレッドで閉じる
+				closeSource();
+				release(this);
+			}
+		}
+
+		/**
+		 * データのストリームを閉じます。閉じる際の例外は出力結果に影響させません。
+		 */
+		void closeSource()
+		{
+			if (source == null) return;
+
+			try
+			{
+				source.close();
+			}
+			catch (RuntimeException e)
+			{
+				e.printStackTrace();
+			}
+		}
+	}
+}
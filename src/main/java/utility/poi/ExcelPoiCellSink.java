@@ -0,0 +1,123 @@
+package utility.poi;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.xssf.usermodel.XSSFCell;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTCell;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTCellFormula;
+
+/**
+ * <code>Cell</code>オブジェクトに値を出力する出力先<br>
+ * 出力対象のセルを切り替えながら再利用します。<br>
+ * <code>XSSF</code>形式の計算式は、計算式ごとに最初の1件のみ<code>setCellFormula</code>で構文を検証し、以降はセルのXMLに直接設定して行ごとの解析を省きます。
+ * @author Takeshi
+ *
+ */
+final class ExcelPoiCellSink implements ExcelPoiValueSink
+{
+	/** スレッド単位に再利用する出力先（{@link #write(Cell, Object, ExcelPoiValueWriter)}用） */
+	private static final ThreadLocal<ExcelPoiCellSink> SHARED = ThreadLocal.withInitial(ExcelPoiCellSink::new);
+
+	private final Set<ExcelPoiFormula> parsed_formulas = Collections.newSetFromMap(new IdentityHashMap<>());
+	private Cell cell;
+
+	/**
+	 * 出力対象のセルを設定します。
+	 * @param cell <code>Cell</code>オブジェクト
+	 * @return 本オブジェクト
+	 */
+	ExcelPoiCellSink setCell(Cell cell)
+	{
+		this.cell = cell;
+		return this;
+	}
+
+	/**
+	 * スレッド単位に再利用する出力先で、値をセルに出力します。<br>
+	 * 出力後はセルへの参照を解除します。
+	 * @param cell <code>Cell</code>オブジェクト
+	 * @param value 値
+	 * @param writer 出力処理
+	 */
+	static void write(Cell cell, Object value, ExcelPoiValueWriter writer)
+	{
+		ExcelPoiCellSink sink = SHARED.get();
+		try
+		{
+			writer.write(value, sink.setCell(cell));
+		}
+		finally
+		{
+			sink.setCell(null);
+		}
+	}
+
+	@Override
+	public void setString(String value)
+	{
+		this.cell.setCellValue(value);
+	}
+
+	@Override
+	public void setNumber(double value)
+	{
+		this.cell.setCellValue(value);
+	}
+
+	@Override
+	public void setBoolean(boolean value)
+	{
+		this.cell.setCellValue(value);
+	}
+
+	@Override
+	public void setDate(Date value)
+	{
+		this.cell.setCellValue(value);
+	}
+
+	@Override
+	public void setCalendar(Calendar value)
+	{
+		this.cell.setCellValue(value);
+	}
+
+	@Override
+	public void setLocalDate(LocalDate value)
+	{
+		this.cell.setCellValue(value);
+	}
+
+	@Override
+	public void setLocalDateTime(LocalDateTime value)
+	{
+		this.cell.setCellValue(value);
+	}
+
+	@Override
+	public void setFormula(ExcelPoiFormula formula)
+	{
+		String text = formula.format(this.cell.getRowIndex() + 1);
+
+		// 検証済みの計算式はXSSFCell#setCellFormulaと同じ内容をXMLに直接設定
+		if (this.cell instanceof XSSFCell && this.parsed_formulas.contains(formula))
+		{
+			CTCell ct_cell = ((XSSFCell)this.cell).getCTCell();
+			CTCellFormula ct_formula = CTCellFormula.Factory.newInstance();
+			ct_formula.setStringValue(text);
+			ct_cell.setF(ct_formula);
+			if (ct_cell.isSetV()) ct_cell.unsetV();
+			return;
+		}
+
+		this.cell.setCellFormula(text);
+		if (this.cell instanceof XSSFCell) this.parsed_formulas.add(formula);
+	}
+}
@@ -0,0 +1,362 @@
+package utility.poi;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import utility.poi.annotation.ExcelAddress;
+import utility.poi.annotation.ExcelCellStyle;
+import utility.poi.annotation.ExcelColumn;
+import utility.poi.annotation.ExcelRepeat;
+
+/**
+ * 描画対象のクラスの1フィールド分の出力情報を保持するクラス<br>
+ * ゲッターメソッドを呼び出すアクセサは、リフレクションによる出力処理を作成する場合、または初回の利用時に生成します。
+ * 生成クラスの出力処理を利用する項目では、項目値を取得しない限り生成しません。<br>
+ * インスタンスは不変であり、スレッド間で共有できます。
+ * @author Takeshi
+ *
+ */
+public final class ExcelPoiColumn
+{
+	private final String field_name;
+	private final Class<?> field_type;
+	private final Method getter;
+	private final Method setter;
+	private final ExcelColumn column;
+	private final ExcelCellStyle style;
+	private final ExcelAddress address;
+	private final ExcelRepeat repeat;
+	private final Class<?> element_type;
+	private final ExcelPoiStyle cell_style;
+	private final ExcelPoiFormula formula;
+	private final ExcelPoiValueWriter writer;
+	private final ExcelPoiValueWriter trim_writer;
+	private final boolean generated;
+	private volatile Accessors accessors;
+	private volatile BiConsumer<Object, Object> mutator;
+
+	/**
+	 * コンストラクタ
+	 * @param field フィールド
+	 * @param getter 項目値を取得するゲッターメソッド（計算式の項目で存在しない場合は<code>null</code>）
+	 * @param setter 項目値を設定するセッターメソッド（存在しない場合は<code>null</code>）
+	 * @param generated アノテーションプロセッサが生成した出力クラス（存在しない場合は<code>null</code>）
+	 */
+	ExcelPoiColumn(Field field, Method getter, Method setter, ExcelPoiRowWriter<?> generated)
+	{
+		this.field_name = field.getName();
+		this.field_type = field.getType();
+		this.getter = getter;
+		this.setter = setter;
+		this.column = field.getAnnotation(ExcelColumn.class);
+		this.style = field.getAnnotation(ExcelCellStyle.class);
+		this.address = field.getAnnotation(ExcelAddress.class);
+		this.repeat = field.getAnnotation(ExcelRepeat.class);
+		this.element_type = getElementType(field);
+		this.cell_style = generated != null ? generated.getStyle(this.field_name) : ExcelPoiStyle.of(this.style);
+		this.formula = (this.column != null) ? ExcelPoiFormula.of(this.column.formula()) : null;
+
+		// 計算式の項目は項目値に関わらず計算式を出力
+		if (this.formula != null)
+		{
+			ExcelPoiFormula current = this.formula;
+			this.writer = (e, s) -> s.setFormula(current);
+			this.trim_writer = this.writer;
+			this.generated = false;
+			return;
+		}
+
+		// 生成済みの出力処理を優先（変換処理が登録された型はマッピング作成時の登録状態に従う）
+		boolean use_generated = generated != null && generated.getWriter(this.field_name, false) != null && !isConverted(generated.getValueType(this.field_name));
+		this.writer = use_generated ? generated.getWriter(this.field_name, false) : createWriter(false);
+		this.trim_writer = use_generated ? generated.getWriter(this.field_name, true) : createWriter(true);
+		this.generated = use_generated;
+	}
+
+	/**
+	 * フィールド名を取得します。
+	 * @return フィールド名
+	 */
+	public String getFieldName()
+	{
+		return this.field_name;
+	}
+
+	/**
+	 * フィールドの宣言型を取得します。
+	 * @return フィールドの型
+	 */
+	public Class<?> getFieldType()
+	{
+		return this.field_type;
+	}
+
+	/**
+	 * 項目値を取得するゲッターメソッドを取得します。
+	 * @return ゲッターメソッド（計算式の項目で存在しない場合は<code>null</code>）
+	 */
+	public Method getGetter()
+	{
+		return this.getter;
+	}
+
+	/**
+	 * 項目値を設定するセッターメソッドを取得します。
+	 * @return セッターメソッド（存在しない場合は<code>null</code>）
+	 */
+	public Method getSetter()
+	{
+		return this.setter;
+	}
+
+	/**
+	 * 項目描画の注釈を取得します。
+	 * @return <code>ExcelColumn</code>注釈（指定されていない場合は<code>null</code>）
+	 */
+	public ExcelColumn getColumn()
+	{
+		return this.column;
+	}
+
+	/**
+	 * セルスタイルの注釈を取得します。
+	 * @return <code>ExcelCellStyle</code>注釈（指定されていない場合は<code>null</code>）
+	 */
+	public ExcelCellStyle getStyle()
+	{
+		return this.style;
+	}
+
+	/**
+	 * セルスタイルの設定値を取得します。
+	 * @return セルスタイルの設定値（<code>ExcelCellStyle</code>注釈が指定されていない場合は<code>null</code>）
+	 */
+	public ExcelPoiStyle getCellStyle()
+	{
+		return this.cell_style;
+	}
+
+	/**
+	 * 計算式を取得します。
+	 * @return 計算式（<code>ExcelColumn.formula</code>が指定されていない場合は<code>null</code>）
+	 */
+	public ExcelPoiFormula getFormula()
+	{
+		return this.formula;
+	}
+
+	/**
+	 * 出力アドレスの注釈を取得します。
+	 * @return <code>ExcelAddress</code>注釈（指定されていない場合は<code>null</code>）
+	 */
+	public ExcelAddress getAddress()
+	{
+		return this.address;
+	}
+
+	/**
+	 * 繰り返し出力の注釈を取得します。
+	 * @return <code>ExcelRepeat</code>注釈（指定されていない場合は<code>null</code>）
+	 */
+	public ExcelRepeat getRepeat()
+	{
+		return this.repeat;
+	}
+
+	/**
+	 * 出力処理にアノテーションプロセッサが生成したクラスを利用しているかを判定します。
+	 * @return 生成クラスの出力処理を利用している場合<code>true</code>
+	 */
+	public boolean isGenerated()
+	{
+		return this.generated;
+	}
+
+	/**
+	 * <code>List</code>型のフィールドの要素型を取得します。
+	 * @return 要素型（<code>List</code>型でない場合は<code>null</code>、要素型を判別できない場合は<code>Object</code>）
+	 */
+	public Class<?> getElementType()
+	{
+		return this.element_type;
+	}
+
+	/**
+	 * エンティティから項目値を取得します。<br>
+	 * プリミティブ型の値はボクシングして返却します。
+	 * @param entity 描画対象のクラスインスタンス
+	 * @return 項目値（ゲッターメソッドが存在しない場合は<code>null</code>）
+	 */
+	public Object getValue(Object entity)
+	{
+		Function<Object, Object> accessor = getAccessors().accessor;
+		return (accessor != null) ? accessor.apply(entity) : null;
+	}
+
+	/**
+	 * エンティティに項目値を設定します。<br>
+	 * セッターメソッドを呼び出す関数は初回の呼び出し時に生成します。
+	 * @param entity 描画対象のクラスインスタンス
+	 * @param value 項目値（プリミティブ型の場合はボクシングした値）
+	 * @throws IllegalStateException セッターメソッドが存在しない場合
+	 */
+	public void setValue(Object entity, Object value)
+	{
+		BiConsumer<Object, Object> current = this.mutator;
+		if (current == null)
+		{
+			if (this.setter == null) throw new IllegalStateException(String.format("%s にセッターメソッドが存在しません。", this.field_name));
+			this.mutator = current = ExcelPoiAccessors.createMutator(this.setter);
+		}
+
+		current.accept(entity, value);
+	}
+
+	/**
+	 * <code>int</code>型（<code>byte</code>、<code>short</code>を含む）の項目値を取得するアクセサを取得します。
+	 * @return アクセサ（ゲッターメソッドの戻り値が該当の型でない場合は<code>null</code>）
+	 */
+	public ToIntFunction<Object> getIntAccessor()
+	{
+		return getAccessors().int_accessor;
+	}
+
+	/**
+	 * <code>long</code>型の項目値を取得するアクセサを取得します。
+	 * @return アクセサ（ゲッターメソッドの戻り値が該当の型でない場合は<code>null</code>）
+	 */
+	public ToLongFunction<Object> getLongAccessor()
+	{
+		return getAccessors().long_accessor;
+	}
+
+	/**
+	 * <code>double</code>型（<code>float</code>を含む）の項目値を取得するアクセサを取得します。
+	 * @return アクセサ（ゲッターメソッドの戻り値が該当の型でない場合は<code>null</code>）
+	 */
+	public ToDoubleFunction<Object> getDoubleAccessor()
+	{
+		return getAccessors().double_accessor;
+	}
+
+	/**
+	 * エンティティから項目値を取得して出力先に書き込む出力処理を取得します。<br>
+	 * 出力処理はゲッターメソッドの戻り値の型に応じてマッピング作成時に選択済みです。計算式の項目は計算式を出力します。
+	 * @param trim 文字列の値で前後の空白を取り除く場合<code>true</code>
+	 * @return 出力処理
+	 */
+	public ExcelPoiValueWriter getWriter(boolean trim)
+	{
+		return trim ? this.trim_writer : this.writer;
+	}
+
+	/**
+	 * ゲッターメソッドの戻り値の型に応じた出力処理を作成します。
+	 * @param trim 文字列の値で前後の空白を取り除く場合<code>true</code>
+	 * @return 出力処理
+	 */
+	private ExcelPoiValueWriter createWriter(boolean trim)
+	{
+		Accessors accessors = getAccessors();
+
+		// プリミティブ型の場合はボクシングせずに出力
+		if (accessors.int_accessor != null)
+		{
+			ToIntFunction<Object> accessor = accessors.int_accessor;
+			return (e, s) -> s.setNumber(accessor.applyAsInt(e));
+		}
+		else if (accessors.long_accessor != null)
+		{
+			ToLongFunction<Object> accessor = accessors.long_accessor;
+			return (e, s) -> s.setNumber(accessor.applyAsLong(e));
+		}
+		else if (accessors.double_accessor != null)
+		{
+			ToDoubleFunction<Object> accessor = accessors.double_accessor;
+			return (e, s) -> s.setNumber(accessor.applyAsDouble(e));
+		}
+
+		Function<Object, Object> accessor = accessors.accessor;
+		ExcelPoiValueWriter value_writer = ExcelPoiConverters.getValueWriter(this.getter.getGenericReturnType(), trim);
+		return (e, s) ->
+		{
+			Object value = accessor.apply(e);
+			if (value != null) value_writer.write(value, s);
+		};
+	}
+
+	/**
+	 * 項目の型に変換処理が登録されているかを判定します。
+	 * @param value_type 生成クラスの出力処理が出力する値の型（不明な場合は<code>null</code>）
+	 * @return 登録されている場合<code>true</code>
+	 */
+	private boolean isConverted(Class<?> value_type)
+	{
+		return ExcelPoiConverters.isRegistered(value_type != null ? value_type : this.getter.getGenericReturnType());
+	}
+
+	/**
+	 * ゲッターメソッドを呼び出すアクセサを取得します。<br>
+	 * 初回の呼び出し時に生成します。
+	 * @return アクセサ
+	 */
+	private Accessors getAccessors()
+	{
+		Accessors current = this.accessors;
+		if (current == null) this.accessors = current = new Accessors(this.getter);
+		return current;
+	}
+
+	/**
+	 * <code>List</code>型のフィールドの要素型を取得します。
+	 * @param field フィールド
+	 * @return 要素型（<code>List</code>型でない場合は<code>null</code>）
+	 */
+	private static Class<?> getElementType(Field field)
+	{
+		if (!List.class.isAssignableFrom(field.getType())) return null;
+
+		Type type = field.getGenericType();
+		if (type instanceof ParameterizedType)
+		{
+			Type element = ((ParameterizedType)type).getActualTypeArguments()[0];
+			if (element instanceof Class) return (Class<?>)element;
+			if (element instanceof ParameterizedType) return (Class<?>)((ParameterizedType)element).getRawType();
+		}
+
+		return Object.class;
+	}
+
+	/**
+	 * ゲッターメソッドを呼び出すアクセサ<br>
+	 * プリミティブ型の場合はボクシングしないアクセサを合わせて保持します。
+	 */
+	private static final class Accessors
+	{
+		private final Function<Object, Object> accessor;
+		private final ToIntFunction<Object> int_accessor;
+		private final ToLongFunction<Object> long_accessor;
+		private final ToDoubleFunction<Object> double_accessor;
+
+		/**
+		 * コンストラクタ
+		 * @param getter ゲッターメソッド（存在しない場合は<code>null</code>）
+		 */
+		Accessors(Method getter)
+		{
+			Class<?> return_type = (getter != null) ? getter.getReturnType() : null;
+			this.accessor = (getter != null) ? ExcelPoiAccessors.createAccessor(getter) : null;
+			this.int_accessor = (return_type == int.class || return_type == short.class || return_type == byte.class) ? ExcelPoiAccessors.createIntAccessor(getter) : null;
+			this.long_accessor = (return_type == long.class) ? ExcelPoiAccessors.createLongAccessor(getter) : null;
+			this.double_accessor = (return_type == double.class || return_type == float.class) ? ExcelPoiAccessors.createDoubleAccessor(getter) : null;
+		}
+	}
+}
@@ -0,0 +1,598 @@
+package utility.poi;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.poi.ss.usermodel.Sheet;
+
+import utility.poi.annotation.ExcelColumn;
+import utility.poi.annotation.ExcelSheet;
+import utility.poi.constant.EnumFontType;
+
+/**
+ * 項目の幅を出力した値から自動で設定するために、表示幅の最大値を記録するクラス<br>
+ * フォントごとの文字幅の表から表示幅を概算するため、<code>Sheet.autoSizeColumn</code>のようにフォントを計測せず、書き出し済みの行も参照しません。
+ * 幅は標準の数字1文字分を1とする文字数で扱います。
+ * @author Takeshi
+ *
+ */
+final class ExcelPoiColumnWidths
+{
+	/** 標準のフォントサイズ */
+	private static final double DEFAULT_FONT_SIZE = 11;
+
+	/** セルの余白（文字数） */
+	private static final double PADDING = 1;
+
+	/** フィルターのボタンの幅（文字数） */
+	private static final double FILTER_BUTTON = 2;
+
+	/** 列の最大幅（文字数） */
+	private static final double MAX_WIDTH = 255;
+
+	/** 太字の幅の補正率 */
+	private static final double BOLD = 1.1;
+
+	/** 標準のフォント（Calibri）の数字の幅（1/1000em）、列の幅の単位 */
+	private static final double DEFAULT_DIGIT = 507;
+
+	/** 全角文字の幅（1/1000em） */
+	private static final double FULL_WIDTH = 1000;
+
+	/** 日付の表示形式が指定されていない場合の表示（シリアル値） */
+	private static final String DATE_SERIAL = "00000";
+
+	/** 日時の表示形式が指定されていない場合の表示（シリアル値） */
+	private static final String DATE_TIME_SERIAL = "00000.000000";
+
+	/** Arial（Helvetica互換）のASCII文字（0x20～0x7E）の幅（1/1000em） */
+	private static final int[] SANS_SERIF = {
+			278, 278, 355, 556, 556, 889, 667, 191, 333, 333, 389, 584, 278, 333, 278, 278,
+			556, 556, 556, 556, 556, 556, 556, 556, 556, 556, 278, 278, 584, 584, 584, 556,
+			1015, 667, 667, 722, 722, 667, 611, 778, 722, 278, 500, 667, 556, 833, 722, 778,
+			667, 778, 722, 667, 611, 722, 667, 944, 667, 667, 611, 278, 278, 278, 469, 556,
+			333, 556, 556, 500, 556, 556, 278, 556, 556, 222, 222, 500, 222, 833, 556, 556,
+			556, 556, 333, 500, 278, 556, 500, 722, 500, 500, 500, 334, 260, 334, 584 };
+
+	/** Times New Roman（Times互換）のASCII文字（0x20～0x7E）の幅（1/1000em） */
+	private static final int[] SERIF = {
+			250, 333, 408, 500, 500, 833, 778, 180, 333, 333, 500, 564, 250, 333, 250, 278,
+			500, 500, 500, 500, 500, 500, 500, 500, 500, 500, 278, 278, 564, 564, 564, 444,
+			921, 722, 667, 667, 722, 611, 556, 722, 722, 333, 389, 722, 611, 889, 722, 722,
+			556, 722, 667, 556, 611, 722, 722, 944, 722, 722, 611, 333, 278, 333, 469, 500,
+			333, 444, 500, 444, 500, 444, 333, 500, 500, 278, 278, 500, 278, 778, 500, 500,
+			500, 500, 333, 389, 278, 500, 500, 722, 500, 500, 444, 480, 200, 480, 541 };
+
+	/** 値を書き込まない出力先（表示幅の計測のみを行う場合に利用） */
+	static final ExcelPoiValueSink DISCARD = new ExcelPoiValueSink()
+	{
+		@Override
+		public void setString(String value) { }
+
+		@Override
+		public void setNumber(double value) { }
+
+		@Override
+		public void setBoolean(boolean value) { }
+
+		@Override
+		public void setDate(Date value) { }
+
+		@Override
+		public void setCalendar(Calendar value) { }
+
+		@Override
+		public void setLocalDate(LocalDate value) { }
+
+		@Override
+		public void setLocalDateTime(LocalDateTime value) { }
+	};
+
+	private final boolean[] auto;
+	private final double[] widths;
+	private final double[] minimums;
+	private final EnumFontType[] fonts;
+	private final double[] scales;
+	private final String[] formats;
+	private final double[] date_widths;
+	private final double[] date_time_widths;
+	private final double[] number_max;
+	private final boolean[] negative;
+	private final boolean enabled;
+	private final int sample_rows;
+	private final MeasuringSink sink = new MeasuringSink();
+
+	/**
+	 * コンストラクタ<br>
+	 * タイトル行を描画する場合は、タイトルの表示幅を記録します。
+	 * @param columns 項目のリスト
+	 * @param sheet_info シート注釈
+	 * @param title_style タイトル行のセルスタイルの設定値（存在しない場合は<code>null</code>）
+	 */
+	ExcelPoiColumnWidths(List<ExcelPoiColumn> columns, ExcelSheet sheet_info, ExcelPoiStyle title_style)
+	{
+		int size = columns.size();
+		this.auto = new boolean[size];
+		this.widths = new double[size];
+		this.minimums = new double[size];
+		this.fonts = new EnumFontType[size];
+		this.scales = new double[size];
+		this.formats = new String[size];
+		this.date_widths = new double[size];
+		this.date_time_widths = new double[size];
+		this.number_max = new double[size];
+		this.negative = new boolean[size];
+		this.sample_rows = Math.max(sheet_info.auto_width_rows(), 0);
+
+		boolean enabled = false;
+		for (int i = 0; i < size; i++)
+		{
+			ExcelColumn column = columns.get(i).getColumn();
+			ExcelPoiStyle style = columns.get(i).getCellStyle();
+
+			this.auto[i] = column.auto_width() || (sheet_info.auto_width() && column.width() == -1);
+			this.minimums[i] = Math.max(column.width(), 0);
+			this.fonts[i] = style == null ? EnumFontType.Calibri : style.getFont();
+			this.scales[i] = style == null ? 1 : style.getSize() / DEFAULT_FONT_SIZE;
+			this.formats[i] = style == null ? "" : style.getFormat();
+			this.date_widths[i] = getTextWidth(formats[i].isEmpty() ? DATE_SERIAL : formatDate(formats[i]), fonts[i]) * scales[i];
+			this.date_time_widths[i] = getTextWidth(formats[i].isEmpty() ? DATE_TIME_SERIAL : formatDate(formats[i]), fonts[i]) * scales[i];
+			this.number_max[i] = -1;
+			enabled |= this.auto[i];
+
+			// タイトルの幅（フィルターのボタンを含む）
+			if (this.auto[i] && sheet_info.draw_title())
+			{
+				EnumFontType title_font = title_style == null ? EnumFontType.Calibri : title_style.getFont();
+				double title_scale = title_style == null ? 1 : title_style.getSize() / DEFAULT_FONT_SIZE;
+				this.widths[i] = getTextWidth(column.name(), title_font) * title_scale * (title_style != null && title_style.isBold() ? BOLD : 1)
+						+ (sheet_info.auto_filter() ? FILTER_BUTTON : 0);
+			}
+		}
+
+		this.enabled = enabled;
+	}
+
+	/**
+	 * 幅を自動で設定する項目が存在するかを判定します。
+	 * @return 存在する場合<code>true</code>
+	 */
+	boolean isEnabled()
+	{
+		return this.enabled;
+	}
+
+	/**
+	 * 幅を自動で設定する項目かを判定します。
+	 * @param index 項目の位置
+	 * @return 自動で設定する場合<code>true</code>
+	 */
+	boolean isAuto(int index)
+	{
+		return this.auto[index];
+	}
+
+	/**
+	 * 表示幅を計測する行かを判定します。
+	 * @param rows 出力済みの行数（タイトル行を除く）
+	 * @return 計測する場合<code>true</code>
+	 */
+	boolean isMeasuring(long rows)
+	{
+		return this.enabled && (this.sample_rows == 0 || rows < this.sample_rows);
+	}
+
+	/**
+	 * 出力先に書き込む値の表示幅を記録する出力先を取得します。<br>
+	 * 取得した出力先は値を元の出力先に書き込みます。出力先は再利用するため、1項目の出力ごとに取得します。
+	 * @param index 項目の位置
+	 * @param target 元の出力先
+	 * @return 表示幅を記録する出力先（幅を自動で設定しない項目の場合は元の出力先）
+	 */
+	ExcelPoiValueSink measure(int index, ExcelPoiValueSink target)
+	{
+		if (!this.auto[index]) return target;
+
+		this.sink.index = index;
+		this.sink.target = target;
+		return this.sink;
+	}
+
+	/**
+	 * 項目の幅を取得します。
+	 * @param index 項目の位置
+	 * @return 幅（文字数、余白を含む）、幅を自動で設定せず<code>width</code>も指定していない場合は<code>-1</code>
+	 */
+	double getWidth(int index)
+	{
+		if (!this.auto[index]) return this.minimums[index] > 0 ? this.minimums[index] : -1;
+
+		return Math.min(Math.ceil(Math.max(this.widths[index] + PADDING, this.minimums[index])), MAX_WIDTH);
+	}
+
+	/**
+	 * 記録した表示幅をシートの列の幅に設定します。
+	 * @param sheet <code>Sheet</code>オブジェクト
+	 * @param column_start 先頭の項目の列番号
+	 */
+	void apply(Sheet sheet, int column_start)
+	{
+		for (int i = 0; i < this.auto.length; i++)
+		{
+			if (this.auto[i]) sheet.setColumnWidth(column_start + i, (int)(getWidth(i) * 256));
+		}
+	}
+
+	/**
+	 * 表示幅を記録します。
+	 * @param index 項目の位置
+	 * @param width 表示幅（文字数）
+	 */
+	private void record(int index, double width)
+	{
+		if (width > this.widths[index]) this.widths[index] = width;
+	}
+
+	/**
+	 * 文字列の表示幅を記録します。改行を含む場合は最も長い行の幅を記録します。
+	 * @param index 項目の位置
+	 * @param text 文字列
+	 */
+	private void recordText(int index, String text)
+	{
+		record(index, getTextWidth(text, this.fonts[index]) * this.scales[index]);
+	}
+
+	/**
+	 * 数値の表示幅を記録します。<br>
+	 * 表示形式が指定されている場合は、桁数が増えない値（記録済みの最大値以下）の表示を作成しません。
+	 * @param index 項目の位置
+	 * @param value 数値
+	 */
+	private void recordNumber(int index, double value)
+	{
+		String format = this.formats[index];
+		double abs = Math.abs(value);
+		if (!format.isEmpty())
+		{
+			if (abs <= this.number_max[index] && (value >= 0 || this.negative[index])) return;
+			if (abs > this.number_max[index]) this.number_max[index] = abs;
+			if (value < 0) this.negative[index] = true;
+		}
+
+		recordText(index, formatNumber(value, format));
+	}
+
+	/**
+	 * 文字列の表示幅を概算します。<br>
+	 * ASCII文字はフォントごとの文字幅の表、全角文字（漢字、かな、全角英数字、ハングル等）は1em、その他の文字は数字と同じ幅とします。
+	 * @param text 文字列
+	 * @param font フォント
+	 * @return 表示幅（標準のフォントの数字の幅を1とする文字数）、改行を含む場合は最も長い行の幅
+	 */
+	static double getTextWidth(CharSequence text, EnumFontType font)
+	{
+		int[] table = getTable(font);
+		double digit = getDigitWidth(font);
+		double max = 0;
+		double width = 0;
+		for (int i = 0; i < text.length(); i++)
+		{
+			char c = text.charAt(i);
+			if (c == '\n')
+			{
+				max = Math.max(max, width);
+				width = 0;
+			}
+			else if (c >= 0x20 && c <= 0x7E)
+			{
+				width += table == null ? digit : table[c - 0x20] * digit / table['0' - 0x20];
+			}
+			else if (Character.isHighSurrogate(c))
+			{
+				// 補助文字（拡張漢字、絵文字等）は全角として1回のみ加算
+				width += FULL_WIDTH;
+			}
+			else if (!Character.isLowSurrogate(c) && c >= 0x20)
+			{
+				width += isFullWidth(c) ? FULL_WIDTH : digit;
+			}
+		}
+
+		return Math.max(max, width) / DEFAULT_DIGIT;
+	}
+
+	/**
+	 * 全角で表示する文字かを判定します。
+	 * @param c 文字
+	 * @return 全角の場合<code>true</code>
+	 */
+	private static boolean isFullWidth(char c)
+	{
+		return (c >= 0x1100 && c <= 0x115F)		// ハングル字母
+				|| (c >= 0x2E80 && c <= 0xA4CF && c != 0x303F)		// CJK部首、記号、かな、漢字、イ文字
+				|| (c >= 0xAC00 && c <= 0xD7A3)		// ハングル
+				|| (c >= 0xF900 && c <= 0xFAFF)		// CJK互換漢字
+				|| (c >= 0xFE30 && c <= 0xFE4F)		// CJK互換形
+				|| (c >= 0xFF00 && c <= 0xFF60)		// 全角英数字、記号
+				|| (c >= 0xFFE0 && c <= 0xFFE6);	// 全角通貨記号等
+	}
+
+	/**
+	 * フォントのASCII文字の幅の表を取得します。
+	 * @param font フォント
+	 * @return 幅の表（等幅フォントの場合は<code>null</code>）
+	 */
+	private static int[] getTable(EnumFontType font)
+	{
+		switch (font)
+		{
+		case MS_Gothic:
+		case MS_Mincho:
+			return null;
+		case Century:
+		case MS_PMincho:
+		case TimesNewRoman:
+			return SERIF;
+		default:
+			return SANS_SERIF;
+		}
+	}
+
+	/**
+	 * フォントの数字の幅を取得します。<br>
+	 * 幅の表の文字はこの幅を基準に拡大、縮小します。
+	 * @param font フォント
+	 * @return 数字の幅（1/1000em）
+	 */
+	private static double getDigitWidth(EnumFontType font)
+	{
+		switch (font)
+		{
+		case Arial:
+		case Arial_Unicode_MS:
+		case Century:
+		case Microsoft_Sans_Serif:
+			return 556;
+		case Arial_Narrow:
+			return 456;
+		case Calibri:
+			return 507;
+		case Segoe_UI:
+			return 559;
+		case Tahoma:
+			return 546;
+		case Meiryo:
+			return 492;
+		default:
+			return 500;
+		}
+	}
+
+	/**
+	 * 数値を表示形式で表示した場合の文字列を概算します。<br>
+	 * 桁区切り、小数点以下の桁数、パーセント、文字列の部分を反映します。条件、色の指定等は無視します。
+	 * @param value 数値
+	 * @param format 表示形式（標準の場合は空文字）
+	 * @return 表示する文字列
+	 */
+	static String formatNumber(double value, String format)
+	{
+		// 標準の表示形式は整数はそのまま、小数は有効桁数10桁
+		if (format.isEmpty() || format.equalsIgnoreCase("General"))
+		{
+			if (value == Math.rint(value) && Math.abs(value) < 1e11) return Long.toString((long)value);
+			if (Double.isNaN(value) || Double.isInfinite(value)) return "#NUM!";
+			return BigDecimal.valueOf(value).round(new MathContext(10)).stripTrailingZeros().toPlainString();
+		}
+
+		// 負の値の書式が指定されている場合は2番目、以外は1番目の書式
+		String[] sections = format.split(";", -1);
+		String section = (value < 0 && sections.length > 1) ? sections[1] : sections[0];
+
+		StringBuilder literal = new StringBuilder();
+		boolean grouping = false;
+		boolean percent = false;
+		int decimals = -1;
+		for (int i = 0; i < section.length(); i++)
+		{
+			char c = section.charAt(i);
+			switch (c)
+			{
+			case '"':
+				int end = section.indexOf('"', i + 1);
+				if (end < 0) end = section.length();
+				literal.append(section, i + 1, end);
+				i = end;
+				break;
+			case '\\':
+			case '_':
+				if (i + 1 < section.length()) literal.append(section.charAt(++i));
+				break;
+			case '[':
+				int close = section.indexOf(']', i);
+				if (close < 0) close = section.length();
+				if (section.startsWith("[$", i))
+				{
+					// 通貨記号（[$記号-ロケール]）
+					String currency = section.substring(i + 2, close);
+					literal.append(currency.indexOf('-') < 0 ? currency : currency.substring(0, currency.indexOf('-')));
+				}
+				i = close;
+				break;
+			case ',':
+				grouping = true;
+				break;
+			case '.':
+				decimals = 0;
+				break;
+			case '%':
+				percent = true;
+				literal.append(c);
+				break;
+			case '0':
+			case '#':
+			case '?':
+				if (decimals >= 0) decimals++;
+				break;
+			case '*':
+				i++;
+				break;
+			default:
+				literal.append(c);
+				break;
+			}
+		}
+
+		double display = Math.abs(percent ? value * 100 : value);
+		String number = String.format(Locale.ROOT, (grouping ? "%,." : "%.") + Math.max(decimals, 0) + "f", display);
+		return (value < 0 && sections.length < 2 ? "-" : "") + number + literal;
+	}
+
+	/**
+	 * 日付を表示形式で表示した場合の代表的な文字列を作成します。<br>
+	 * 年、月、日、時刻は数字、月名、曜日は最も長い名前に置き換えます。
+	 * @param format 表示形式
+	 * @return 表示する文字列
+	 */
+	static String formatDate(String format)
+	{
+		String section = format.split(";", -1)[0];
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < section.length(); i++)
+		{
+			char c = section.charAt(i);
+			if (c == '"')
+			{
+				int end = section.indexOf('"', i + 1);
+				if (end < 0) end = section.length();
+				text.append(section, i + 1, end);
+				i = end;
+			}
+			else if (c == '\\' || c == '_')
+			{
+				if (i + 1 < section.length()) text.append(section.charAt(++i));
+			}
+			else if (c == '[')
+			{
+				int close = section.indexOf(']', i);
+				i = close < 0 ? section.length() : close;
+			}
+			else if (section.regionMatches(true, i, "AM/PM", 0, 5))
+			{
+				text.append("AM");
+				i += 4;
+			}
+			else if (Character.isLetter(c) && c < 0x80)
+			{
+				// 同じ文字の連続を1つの要素として置き換え
+				int end = i;
+				while (end < section.length() && Character.toLowerCase(section.charAt(end)) == Character.toLowerCase(c)) end++;
+				int length = end - i;
+				switch (Character.toLowerCase(c))
+				{
+				case 'm':
+					text.append(length >= 4 ? "September" : length == 3 ? "Sep" : "00");
+					break;
+				case 'd':
+					text.append(length >= 4 ? "Wednesday" : length == 3 ? "Wed" : "00");
+					break;
+				case 'a':
+					text.append(length >= 4 ? "水曜日" : "水");
+					break;
+				case 'g':
+					text.append(length >= 3 ? "令和" : length == 2 ? "令" : "R");
+					break;
+				default:
+					text.append("0".repeat(Math.max(length, 2)));
+					break;
+				}
+				i = end - 1;
+			}
+			else
+			{
+				text.append(c);
+			}
+		}
+
+		return text.toString();
+	}
+
+	/**
+	 * 値を元の出力先に書き込み、表示幅を記録する出力先
+	 */
+	private final class MeasuringSink implements ExcelPoiValueSink
+	{
+		private ExcelPoiValueSink target;
+		private int index;
+
+		@Override
+		public void setString(String value)
+		{
+			target.setString(value);
+			recordText(index, value);
+		}
+
+		@Override
+		public void setNumber(double value)
+		{
+			target.setNumber(value);
+			recordNumber(index, value);
+		}
+
+		@Override
+		public void setDecimal(BigDecimal value)
+		{
+			target.setDecimal(value);
+			recordNumber(index, value.doubleValue());
+		}
+
+		@Override
+		public void setBoolean(boolean value)
+		{
+			target.setBoolean(value);
+			recordText(index, "FALSE");
+		}
+
+		@Override
+		public void setDate(Date value)
+		{
+			target.setDate(value);
+			record(index, date_time_widths[index]);
+		}
+
+		@Override
+		public void setCalendar(Calendar value)
+		{
+			target.setCalendar(value);
+			record(index, date_time_widths[index]);
+		}
+
+		@Override
+		public void setLocalDate(LocalDate value)
+		{
+			target.setLocalDate(value);
+			record(index, date_widths[index]);
+		}
+
+		@Override
+		public void setLocalDateTime(LocalDateTime value)
+		{
+			target.setLocalDateTime(value);
+			record(index, date_time_widths[index]);
+		}
+
+		@Override
+		public void setFormula(ExcelPoiFormula formula)
+		{
+			// 計算結果は出力時点で不明なため計測しない
+			target.setFormula(formula);
+		}
+	}
+}
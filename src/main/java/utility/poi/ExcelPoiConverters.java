@@ -0,0 +1,323 @@
+package utility.poi;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 値の型に応じた出力処理（<code>ExcelPoiValueWriter</code>）を選択するクラス<br>
+ * 標準で対応していない型（金額、区分値等）は{@link #register(Class, Class, Function)}で変換処理を登録できます。<br>
+ * 値の型ごとに選択した出力処理は保持し、同じ型の値では選択を繰り返しません（変換処理の登録、解除の都度破棄します）。
+ * @author Takeshi
+ *
+ */
+public final class ExcelPoiConverters
+{
+	/** 登録された変換処理（型をキー。クラスのアンロードを妨げないよう弱参照で保持） */
+	private static final Map<Class<?>, ExcelPoiValueWriter> CONVERTERS = new WeakHashMap<>();
+
+	/** 変換処理の登録状態の世代（登録、解除の都度加算） */
+	private static final AtomicInteger GENERATION = new AtomicInteger();
+
+	/** 対応していない型の出力処理（保持用） */
+	private static final ExcelPoiValueWriter UNSUPPORTED = (v, s) -> { };
+
+	/** 値の型ごとに選択した出力処理（前後の空白を取り除かない場合。クラスのアンロードを妨げないよう<code>ClassValue</code>を利用） */
+	private static volatile ClassValue<ExcelPoiValueWriter> resolved = createCache(false);
+
+	/** 値の型ごとに選択した出力処理（前後の空白を取り除く場合） */
+	private static volatile ClassValue<ExcelPoiValueWriter> resolved_trim = createCache(true);
+
+	private ExcelPoiConverters() { }
+
+	/**
+	 * 変換処理を登録します。<br>
+	 * 登録した型の値は変換処理で標準の型に変換してから出力します。登録済みの型の場合は上書きします。<br>
+	 * 登録した型のサブクラス、実装クラスの値（<code>Date</code>に対する<code>java.sql.Timestamp</code>等）にも適用し、標準の出力処理より優先します。
+	 * 複数の型が該当する場合は、継承元のクラスを近い順に、次に実装するインターフェースを検索して最初に見つかった変換処理を利用します。
+	 * @param <V> 変換元の型
+	 * @param <R> 変換先の型
+	 * @param type 変換元の型
+	 * @param target_type 変換先の型（<code>String</code>、数値、日付等の標準で対応している型）
+	 * @param converter 変換処理
+	 * @throws IllegalArgumentException 変換先の型に対応していない場合
+	 */
+	@SuppressWarnings("unchecked")
+	public static <V, R> void register(Class<V> type, Class<R> target_type, Function<? super V, ? extends R> converter)
+	{
+		ExcelPoiValueWriter target = getBuiltinWriter(target_type, false);
+		if (target == null) throw new IllegalArgumentException(String.format("%s への変換には対応していません。", target_type.getName()));
+
+		// 弱参照のキーを値から参照しないよう、型は保持せずにキャスト
+		ExcelPoiValueWriter writer = (v, s) ->
+		{
+			R value = converter.apply((V)v);
+			if (value != null) target.write(value, s);
+		};
+		synchronized (CONVERTERS)
+		{
+			CONVERTERS.put(type, writer);
+			invalidate();
+		}
+	}
+
+	/**
+	 * 変換処理の登録を解除します。
+	 * @param type 変換元の型
+	 */
+	public static void unregister(Class<?> type)
+	{
+		synchronized (CONVERTERS)
+		{
+			if (CONVERTERS.remove(type) != null) invalidate();
+		}
+	}
+
+	/**
+	 * 登録状態の世代を更新し、選択済みの出力処理を破棄します。<br>
+	 * 選択中の処理が破棄前の保持先に格納しても、以降の選択には利用されません。
+	 */
+	private static void invalidate()
+	{
+		GENERATION.incrementAndGet();
+		resolved = createCache(false);
+		resolved_trim = createCache(true);
+	}
+
+	/**
+	 * 値の型ごとに選択した出力処理の保持先を生成します。
+	 * @param trim 文字列の値で前後の空白を取り除く場合<code>true</code>
+	 * @return 保持先
+	 */
+	private static ClassValue<ExcelPoiValueWriter> createCache(boolean trim)
+	{
+		return new ClassValue<>()
+		{
+			@Override
+			protected ExcelPoiValueWriter computeValue(Class<?> type)
+			{
+				ExcelPoiValueWriter converter = findConverter(type);
+				if (converter != null) return converter;
+
+				ExcelPoiValueWriter builtin = getBuiltinWriter(type, trim);
+				return builtin != null ? builtin : UNSUPPORTED;
+			}
+		};
+	}
+
+	/**
+	 * 変換処理の登録状態の世代を取得します。<br>
+	 * マッピングのキャッシュが登録状態の変更後も古い出力処理を利用しないために使用します。
+	 * @return 世代
+	 */
+	static int getGeneration()
+	{
+		return GENERATION.get();
+	}
+
+	/**
+	 * 型に変換処理が登録されているかを判定します。<br>
+	 * <code>Optional</code>型の場合は要素型で判定します。登録された変換処理を生成済みの出力処理より優先するために使用します。
+	 * @param type 値の型
+	 * @return 登録されている場合<code>true</code>
+	 */
+	static boolean isRegistered(Type type)
+	{
+		if (getRawType(type) == Optional.class)
+		{
+			return (type instanceof ParameterizedType) && isRegistered(((ParameterizedType)type).getActualTypeArguments()[0]);
+		}
+
+		return findConverter(getRawType(type)) != null;
+	}
+
+	/**
+	 * 型に応じた出力処理を取得します。<br>
+	 * 型から出力処理を確定できない場合（<code>Object</code>型等）は、値の実際の型で都度出力処理を選択します。
+	 * @param type 値の型（総称型の場合は<code>Optional</code>の要素型も考慮します）
+	 * @param trim 文字列の値で前後の空白を取り除く場合<code>true</code>
+	 * @return 出力処理
+	 */
+	public static ExcelPoiValueWriter getValueWriter(Type type, boolean trim)
+	{
+		// Optional型の場合は要素型の出力処理で出力
+		if (getRawType(type) == Optional.class)
+		{
+			Type element_type = (type instanceof ParameterizedType) ? ((ParameterizedType)type).getActualTypeArguments()[0] : Object.class;
+			ExcelPoiValueWriter element = getValueWriter(element_type, trim);
+			return (v, s) ->
+			{
+				Optional<?> value = (Optional<?>)v;
+				if (value.isPresent()) element.write(value.get(), s);
+			};
+		}
+
+		ExcelPoiValueWriter writer = resolve(getRawType(type), trim);
+		if (writer != null) return writer;
+
+		// 型を確定できない場合は値の実際の型で選択
+		return (v, s) ->
+		{
+			ExcelPoiValueWriter actual = (v instanceof Optional) ? getValueWriter(Optional.class, trim) : resolve(v.getClass(), trim);
+			if (actual != null) actual.write(v, s);
+		};
+	}
+
+	/**
+	 * 型に応じた出力処理を取得します。登録された変換処理を優先します。<br>
+	 * 選択した出力処理は型ごとに保持し、2回目以降は保持した出力処理を返却します。
+	 * @param type 値の型
+	 * @param trim 文字列の値で前後の空白を取り除く場合<code>true</code>
+	 * @return 出力処理（対応していない型の場合は<code>null</code>）
+	 */
+	private static ExcelPoiValueWriter resolve(Class<?> type, boolean trim)
+	{
+		ExcelPoiValueWriter writer = (trim ? resolved_trim : resolved).get(type);
+		return writer != UNSUPPORTED ? writer : null;
+	}
+
+	/**
+	 * 型に適用する変換処理を取得します。<br>
+	 * 型自身、継承元のクラスを近い順に検索し、見つからない場合は実装するインターフェースを検索します。
+	 * @param type 値の型
+	 * @return 変換処理（登録されていない場合は<code>null</code>）
+	 */
+	private static ExcelPoiValueWriter findConverter(Class<?> type)
+	{
+		synchronized (CONVERTERS)
+		{
+			if (CONVERTERS.isEmpty()) return null;
+
+			for (Class<?> current = type; current != null; current = current.getSuperclass())
+			{
+				ExcelPoiValueWriter converter = CONVERTERS.get(current);
+				if (converter != null) return converter;
+			}
+
+			Deque<Class<?>> interfaces = new ArrayDeque<>();
+			for (Class<?> current = type; current != null; current = current.getSuperclass())
+			{
+				interfaces.addAll(Arrays.asList(current.getInterfaces()));
+			}
+			while (!interfaces.isEmpty())
+			{
+				Class<?> current = interfaces.poll();
+				ExcelPoiValueWriter converter = CONVERTERS.get(current);
+				if (converter != null) return converter;
+
+				interfaces.addAll(Arrays.asList(current.getInterfaces()));
+			}
+
+			return null;
+		}
+	}
+
+	/**
+	 * 標準で対応している型の出力処理を取得します。
+	 * @param type 値の型
+	 * @param trim 文字列の値で前後の空白を取り除く場合<code>true</code>
+	 * @return 出力処理（対応していない型の場合は<code>null</code>）
+	 */
+	private static ExcelPoiValueWriter getBuiltinWriter(Class<?> type, boolean trim)
+	{
+		// 文字列型の場合
+		if (type == String.class)
+		{
+			return trim ? (v, s) -> s.setString(((String)v).trim()) : (v, s) -> s.setString((String)v);
+		}
+
+		// 数値型の場合
+		else if (type == BigDecimal.class)
+		{
+			return (v, s) -> s.setDecimal((BigDecimal)v);
+		}
+		else if (type == BigInteger.class)
+		{
+			return (v, s) -> s.setNumber(((BigInteger)v).longValue());
+		}
+		else if (type == Integer.class || type == int.class || type == Long.class || type == long.class
+				|| type == Short.class || type == short.class || type == Byte.class || type == byte.class
+				|| type == Float.class || type == float.class || type == Double.class || type == double.class)
+		{
+			return (v, s) -> s.setNumber(((Number)v).doubleValue());
+		}
+		else if (type == OptionalInt.class)
+		{
+			return (v, s) ->
+			{
+				OptionalInt value = (OptionalInt)v;
+				if (value.isPresent()) s.setNumber(value.getAsInt());
+			};
+		}
+		else if (type == OptionalLong.class)
+		{
+			return (v, s) ->
+			{
+				OptionalLong value = (OptionalLong)v;
+				if (value.isPresent()) s.setNumber(value.getAsLong());
+			};
+		}
+		else if (type == OptionalDouble.class)
+		{
+			return (v, s) ->
+			{
+				OptionalDouble value = (OptionalDouble)v;
+				if (value.isPresent()) s.setNumber(value.getAsDouble());
+			};
+		}
+
+		// boolean型の場合
+		else if (type == Boolean.class || type == boolean.class)
+		{
+			return (v, s) -> s.setBoolean((Boolean)v);
+		}
+
+		// 日付型の場合
+		else if (Calendar.class.isAssignableFrom(type))
+		{
+			return (v, s) -> s.setCalendar((Calendar)v);
+		}
+		else if (Date.class.isAssignableFrom(type))
+		{
+			return (v, s) -> s.setDate((Date)v);
+		}
+		else if (type == LocalDate.class)
+		{
+			return (v, s) -> s.setLocalDate((LocalDate)v);
+		}
+		else if (type == LocalDateTime.class)
+		{
+			return (v, s) -> s.setLocalDateTime((LocalDateTime)v);
+		}
+
+		return null;
+	}
+
+	/**
+	 * 型の<code>Class</code>オブジェクトを取得します。
+	 * @param type 型
+	 * @return <code>Class</code>オブジェクト（判別できない場合は<code>Object</code>）
+	 */
+	private static Class<?> getRawType(Type type)
+	{
+		if (type instanceof Class) return (Class<?>)type;
+		if (type instanceof ParameterizedType) return getRawType(((ParameterizedType)type).getRawType());
+		return Object.class;
+	}
+}
@@ -0,0 +1,57 @@
+package utility.poi;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 書き込んだバイト数を数える出力ストリーム<br>
+ * {@link #close()}で元の出力ストリームは閉じません。
+ * @author Takeshi
+ *
+ */
+final class ExcelPoiCountingStream extends FilterOutputStream
+{
+	private long count;
+
+	/**
+	 * コンストラクタ
+	 * @param stream 出力ストリーム
+	 */
+	ExcelPoiCountingStream(OutputStream stream)
+	{
+		super(stream);
+	}
+
+	@Override
+	public void write(int b)
+			throws IOException
+	{
+		out.write(b);
+		count++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len)
+			throws IOException
+	{
+		out.write(b, off, len);
+		count += len;
+	}
+
+	@Override
+	public void close()
+			throws IOException
+	{
+		flush();
+	}
+
+	/**
+	 * 書き込んだバイト数を取得します。
+	 * @return バイト数
+	 */
+	long getCount()
+	{
+		return this.count;
+	}
+}
@@ -0,0 +1,212 @@
+package utility.poi;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import utility.poi.annotation.ExcelSheet;
+
+/**
+ * 区切り文字形式（CSV、TSV）のテキストを出力するユーティリティクラス<br>
+ * <code>ExcelColumn</code>注釈のマッピング（項目の並び順、見出し、前後の空白の除去）と値の変換処理を<code>ExcelPoiGenerator</code>と共有し、
+ * 1つのクラスでExcelとテキストの両方を出力できます。<br>
+ * 行は出力先に順に書き込むため、データ件数によらずメモリの使用量は一定です。
+ * <code>ExcelSheet</code>注釈の<code>draw_title</code>が<code>false</code>の場合は見出し行を出力しません。
+ * @author Takeshi
+ *
+ */
+public class ExcelPoiCsvGenerator<T> implements Closeable, ExcelPoi<T>
+{
+	/** 区切り文字（カンマ） */
+	public static final char CSV = ',';
+
+	/** 区切り文字（タブ） */
+	public static final char TSV = '\t';
+
+	/** 書き込みバッファのサイズ */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final Writer writer;
+	private final ExcelPoiCsvSink sink;
+	private Class<?> title_class = null;
+	private boolean closed = false;
+
+	/**
+	 * コンストラクタ<br>
+	 * カンマ区切り（CSV）で出力します。
+	 * @param writer 出力先
+	 */
+	public ExcelPoiCsvGenerator(Writer writer)
+	{
+		this(writer, CSV);
+	}
+
+	/**
+	 * コンストラクタ<br>
+	 * 出力先は{@link #close()}で閉じないため、呼び出し元で閉じてください。
+	 * @param writer 出力先
+	 * @param delimiter 区切り文字（{@link #CSV}、{@link #TSV}等）
+	 */
+	public ExcelPoiCsvGenerator(Writer writer, char delimiter)
+	{
+		this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer, BUFFER_SIZE);
+		this.sink = new ExcelPoiCsvSink(this.writer, delimiter);
+	}
+
+	/**
+	 * コンストラクタ<br>
+	 * 文字列は再利用するバッファで文字コードに変換し、チャネルに書き込みます。
+	 * チャネルは{@link #close()}で閉じないため、呼び出し元で閉じてください。
+	 * @param channel 出力先のチャネル
+	 * @param charset 文字コード
+	 * @param delimiter 区切り文字（{@link #CSV}、{@link #TSV}等）
+	 */
+	public ExcelPoiCsvGenerator(WritableByteChannel channel, Charset charset, char delimiter)
+	{
+		this(new BufferedWriter(Channels.newWriter(channel, charset.newEncoder(), BUFFER_SIZE), BUFFER_SIZE), delimiter);
+	}
+
+	/**
+	 * 配列データを出力します。
+	 * @param data 配列データ
+	 * @param clazz 描画対象のクラス
+	 * @return 出力した行数（見出し行を除く）
+	 * @throws IOException 出力に失敗した場合
+	 */
+	public long writetoCsv(List<T> data, Class<T> clazz)
+			throws IOException
+	{
+		// データが存在しない場合は処理しない
+		if (data == null || data.size() == 0) return 0;
+
+		return writetoCsv(data.iterator(), clazz);
+	}
+
+	/**
+	 * 反復可能なデータを出力します。
+	 * @param data 反復可能なデータ
+	 * @param clazz 描画対象のクラス
+	 * @return 出力した行数（見出し行を除く）
+	 * @throws IOException 出力に失敗した場合
+	 */
+	public long writetoCsv(Iterable<T> data, Class<T> clazz)
+			throws IOException
+	{
+		// データが存在しない場合は処理しない
+		if (data == null) return 0;
+
+		return writetoCsv(data.iterator(), clazz);
+	}
+
+	/**
+	 * ストリームのデータを出力します。<br>
+	 * ストリームは閉じないため、呼び出し元で閉じてください。
+	 * @param data ストリームのデータ
+	 * @param clazz 描画対象のクラス
+	 * @return 出力した行数（見出し行を除く）
+	 * @throws IOException 出力に失敗した場合
+	 */
+	public long writetoCsv(Stream<T> data, Class<T> clazz)
+			throws IOException
+	{
+		// データが存在しない場合は処理しない
+		if (data == null) return 0;
+
+		return writetoCsv(data.iterator(), clazz);
+	}
+
+	/**
+	 * イテレータのデータを出力します。<br>
+	 * 見出し行は描画対象のクラスが前回の出力と異なる場合のみ出力し、同じクラスの出力を続けて追記できます。
+	 * @param data イテレータのデータ
+	 * @param clazz 描画対象のクラス
+	 * @return 出力した行数（見出し行を除く）
+	 * @throws IOException 出力に失敗した場合
+	 * @throws IllegalStateException 出力を終了している場合
+	 */
+	public synchronized long writetoCsv(Iterator<T> data, Class<T> clazz)
+			throws IOException
+	{
+		if (closed) throw new IllegalStateException("出力は終了しています。");
+
+		// データが存在しない場合は処理しない
+		if (data == null || !data.hasNext()) return 0;
+
+		// ジェネリクス型のマッピングを取得
+		ExcelPoiMapping<T> mapping = getMapping(clazz);
+		ExcelSheet sheet_info = mapping.getSheet();
+		List<ExcelPoiColumn> columns = mapping.getColumns();
+		ExcelPoiValueWriter[] writers = columns.stream().map(t -> t.getWriter(t.getColumn().trim())).toArray(ExcelPoiValueWriter[]::new);
+
+		// 見出し行
+		if ((sheet_info == null || sheet_info.draw_title()) && title_class != clazz)
+		{
+			for (int i = 0; i < columns.size(); i++)
+			{
+				sink.setField(i).setString(columns.get(i).getColumn().name());
+			}
+			sink.endRow();
+		}
+		title_class = clazz;
+
+		long row_count = 0;
+		while (data.hasNext())
+		{
+			T entity = data.next();
+
+			// フィールド単位に出力
+			for (int i = 0; i < writers.length; i++)
+			{
+				try
+				{
+					writers[i].write(entity, sink.setField(i));
+				}
+				catch (UncheckedIOException e)
+				{
+					throw e.getCause();
+				}
+				catch (RuntimeException e)
+				{
+					e.printStackTrace();
+				}
+			}
+			sink.endRow();
+
+			row_count++;
+		}
+
+		return row_count;
+	}
+
+	/**
+	 * 書き込みバッファの内容を出力先に送出します。
+	 * @throws IOException 出力に失敗した場合
+	 */
+	public synchronized void flush()
+			throws IOException
+	{
+		writer.flush();
+	}
+
+	/**
+	 * 終了処理。書き込みバッファの内容を出力先に送出します。<br>
+	 * 出力先は閉じません。
+	 */
+	@Override
+	public synchronized void close()
+			throws IOException
+	{
+		if (closed) return;
+		closed = true;
+
+		writer.flush();
+	}
+}
@@ -0,0 +1,234 @@
+package utility.poi;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * 値を区切り文字形式（CSV、TSV）の項目として直接書き込む出力先<br>
+ * 区切り文字、引用符、改行を含む値は引用符で囲み、値の中の引用符は2つ重ねます（RFC 4180）。
+ * 数値は作業用の文字配列で文字列に変換し、項目1件ごとのオブジェクトの生成を抑えます。<br>
+ * 計算式は先頭に<code>=</code>を付けた文字列として出力し、行番号にはファイルの行番号（見出し行を含めて1始まり）を埋め込みます。
+ * @author Takeshi
+ *
+ */
+final class ExcelPoiCsvSink implements ExcelPoiValueSink
+{
+	/** 整数として出力する数値の上限（有効桁数15桁） */
+	private static final double MAX_INTEGER = 1e15;
+
+	/** 日付の書式 */
+	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("uuuu-MM-dd");
+
+	/** 日時の書式 */
+	private static final DateTimeFormatter DATETIME_FORMAT = DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ss");
+
+	private final Writer writer;
+	private final char delimiter;
+	private final char[] digits = new char[20];
+	private int row = 1;
+
+	/**
+	 * コンストラクタ
+	 * @param writer 出力先
+	 * @param delimiter 区切り文字
+	 */
+	ExcelPoiCsvSink(Writer writer, char delimiter)
+	{
+		this.writer = writer;
+		this.delimiter = delimiter;
+	}
+
+	/**
+	 * 項目を開始します。先頭以外の項目は区切り文字を出力します。
+	 * @param index 項目の位置
+	 * @return 本オブジェクト
+	 * @throws IOException 出力に失敗した場合
+	 */
+	ExcelPoiCsvSink setField(int index)
+			throws IOException
+	{
+		if (index > 0) writer.write(delimiter);
+		return this;
+	}
+
+	/**
+	 * 行を終了します。改行（CRLF）を出力します。
+	 * @throws IOException 出力に失敗した場合
+	 */
+	void endRow()
+			throws IOException
+	{
+		writer.write("\r\n");
+		row++;
+	}
+
+	@Override
+	public void setString(String value)
+	{
+		try
+		{
+			if (!needsQuote(value))
+			{
+				writer.write(value);
+				return;
+			}
+
+			// 引用符で囲み、値の中の引用符は2つ重ねる
+			writer.write('"');
+			int start = 0;
+			for (int i = value.indexOf('"'); i >= 0; i = value.indexOf('"', start))
+			{
+				writer.write(value, start, i + 1 - start);
+				writer.write('"');
+				start = i + 1;
+			}
+			writer.write(value, start, value.length() - start);
+			writer.write('"');
+		}
+		catch (IOException exp)
+		{
+			throw new UncheckedIOException(exp);
+		}
+	}
+
+	@Override
+	public void setNumber(double value)
+	{
+		try
+		{
+			if (value == Math.rint(value) && Math.abs(value) < MAX_INTEGER) writeLong((long)value);
+			else if (Double.isNaN(value) || Double.isInfinite(value)) writer.write(Double.toString(value));
+			else writer.write(BigDecimal.valueOf(value).toPlainString());
+		}
+		catch (IOException exp)
+		{
+			throw new UncheckedIOException(exp);
+		}
+	}
+
+	@Override
+	public void setDecimal(BigDecimal value)
+	{
+		try
+		{
+			writer.write(value.toPlainString());
+		}
+		catch (IOException exp)
+		{
+			throw new UncheckedIOException(exp);
+		}
+	}
+
+	@Override
+	public void setBoolean(boolean value)
+	{
+		try
+		{
+			writer.write(value ? "TRUE" : "FALSE");
+		}
+		catch (IOException exp)
+		{
+			throw new UncheckedIOException(exp);
+		}
+	}
+
+	@Override
+	public void setDate(Date value)
+	{
+		setLocalDateTime(LocalDateTime.ofInstant(value.toInstant(), ZoneId.systemDefault()));
+	}
+
+	@Override
+	public void setCalendar(Calendar value)
+	{
+		setLocalDateTime(LocalDateTime.ofInstant(value.toInstant(), value.getTimeZone().toZoneId()));
+	}
+
+	@Override
+	public void setLocalDate(LocalDate value)
+	{
+		try
+		{
+			DATE_FORMAT.formatTo(value, writer);
+		}
+		catch (RuntimeException exp)
+		{
+			throw unwrap(exp);
+		}
+	}
+
+	@Override
+	public void setLocalDateTime(LocalDateTime value)
+	{
+		try
+		{
+			DATETIME_FORMAT.formatTo(value, writer);
+		}
+		catch (RuntimeException exp)
+		{
+			throw unwrap(exp);
+		}
+	}
+
+	@Override
+	public void setFormula(ExcelPoiFormula formula)
+	{
+		setString("=" + formula.format(row));
+	}
+
+	/**
+	 * 整数を出力します。
+	 * @param value 整数
+	 * @throws IOException 出力に失敗した場合
+	 */
+	private void writeLong(long value)
+			throws IOException
+	{
+		boolean negative = value < 0;
+		long current = Math.abs(value);
+		int position = digits.length;
+		do
+		{
+			digits[--position] = (char)('0' + current % 10);
+			current /= 10;
+		}
+		while (current > 0);
+		if (negative) digits[--position] = '-';
+
+		writer.write(digits, position, digits.length - position);
+	}
+
+	/**
+	 * 引用符で囲む必要があるか否かを取得します。
+	 * @param value 文字列
+	 * @return 必要な場合<code>true</code>
+	 */
+	private boolean needsQuote(String value)
+	{
+		for (int i = 0; i < value.length(); i++)
+		{
+			char c = value.charAt(i);
+			if (c == delimiter || c == '"' || c == '\r' || c == '\n') return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * 書式設定の出力時の例外から入出力の例外を取り出します。
+	 * @param exp 書式設定の出力時の例外
+	 * @return 入出力の例外の場合は<code>UncheckedIOException</code>
+	 */
+	private static RuntimeException unwrap(RuntimeException exp)
+	{
+		return exp.getCause() instanceof IOException ? new UncheckedIOException((IOException)exp.getCause()) : exp;
+	}
+}
@@ -0,0 +1,650 @@
+package utility.poi;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.WorkbookUtil;
+
+import utility.poi.annotation.ExcelSheet;
+
+/**
+ * POIのオブジェクトモデルを経由せずにExcel(xlsx)を出力するユーティリティクラス<br>
+ * 行、セルのオブジェクトを作成せず、マッピングから選択済みの出力処理でシートのXMLを出力ストリームに直接書き込みます。<br>
+ * <code>ExcelSheet</code>注釈、<code>ExcelColumn</code>注釈、<code>ExcelCellStyle</code>注釈の設定は<code>ExcelPoiGenerator</code>と同様に出力します。
+ * 出力済みの行は変更できないため、1回だけ順に出力する一覧形式のExcelに利用します。<br>
+ * {@link #setFlushInterval(int)}を設定すると、指定行数ごとに圧縮済みのデータを出力ストリームに送出します。
+ * HTTPレスポンス等に出力する場合、ブックの作成が終わる前にダウンロードを開始できます。<br>
+ * 列幅はシートの行より前に出力するため、幅を自動で設定する項目は先頭の行（既定では1000行）を先読みして計測した幅を設定します。<br>
+ * 計算式の項目は計算結果を出力しないため、Excelでファイルを開いた際に再計算させます。
+ * @author Takeshi
+ *
+ */
+public class ExcelPoiDirectGenerator<T> implements Closeable, ExcelPoi<T>
+{
+	/** 書き込みバッファのサイズ */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** シート名の最大文字数 */
+	private static final int MAX_SHEET_NAME_LENGTH = 31;
+
+	/** 幅を自動で設定する項目の表示幅を計測する行数（<code>ExcelSheet.auto_width_rows</code>が0の場合） */
+	private static final int DEFAULT_AUTO_WIDTH_ROWS = 1000;
+
+	private final FlushableZipOutputStream zip;
+	private final Writer writer;
+	private final ExcelPoiXmlSink sink;
+	private final ExcelPoiXmlStyles styles = new ExcelPoiXmlStyles();
+	private final List<String> sheet_names = new ArrayList<>();
+	private final Map<Integer, String> filters = new HashMap<>();
+	private boolean sheet_rollover = false;
+	private int sheet_row_limit = SpreadsheetVersion.EXCEL2007.getMaxRows();
+	private int flush_interval = 0;
+	private boolean formula_written = false;
+	private boolean finished = false;
+
+	/**
+	 * コンストラクタ<br>
+	 * 出力ストリームは{@link #close()}で閉じないため、呼び出し元で閉じてください。
+	 * @param stream 出力ストリーム
+	 */
+	public ExcelPoiDirectGenerator(OutputStream stream)
+	{
+		this.zip = new FlushableZipOutputStream(stream);
+		this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), BUFFER_SIZE);
+		this.sink = new ExcelPoiXmlSink(this.writer);
+	}
+
+	/**
+	 * 配列データをExcelに出力します。
+	 * @param data 配列データ
+	 * @param clazz 描画対象のクラス
+	 * @return 出力した行数（タイトル行を除く）
+	 * @throws IOException 出力に失敗した場合
+	 */
+	public long writetoExcel(List<T> data, Class<T> clazz)
+			throws IOException
+	{
+		// データが存在しない場合は処理しない
+		if (data == null || data.size() == 0) return 0;
+
+		return writetoExcel(data.iterator(), clazz);
+	}
+
+	/**
+	 * 反復可能なデータをExcelに出力します。
+	 * @param data 反復可能なデータ
+	 * @param clazz 描画対象のクラス
+	 * @return 出力した行数（タイトル行を除く）
+	 * @throws IOException 出力に失敗した場合
+	 */
+	public long writetoExcel(Iterable<T> data, Class<T> clazz)
+			throws IOException
+	{
+		// データが存在しない場合は処理しない
+		if (data == null) return 0;
+
+		return writetoExcel(data.iterator(), clazz);
+	}
+
+	/**
+	 * ストリームのデータをExcelに出力します。<br>
+	 * ストリームは閉じないため、呼び出し元で閉じてください。
+	 * @param data ストリームのデータ
+	 * @param clazz 描画対象のクラス
+	 * @return 出力した行数（タイトル行を除く）
+	 * @throws IOException 出力に失敗した場合
+	 */
+	public long writetoExcel(Stream<T> data, Class<T> clazz)
+			throws IOException
+	{
+		// データが存在しない場合は処理しない
+		if (data == null) return 0;
+
+		return writetoExcel(data.iterator(), clazz);
+	}
+
+	/**
+	 * イテレータのデータをExcelに出力します。<br>
+	 * シートは呼び出しごとに追加し、出力ストリームに順に書き込みます。
+	 * @param data イテレータのデータ
+	 * @param clazz 描画対象のクラス
+	 * @return 出力した行数（タイトル行を除く）
+	 * @throws IOException 出力に失敗した場合
+	 * @throws IllegalStateException シートの最大行数を超え、ロールオーバーしない場合、または出力を終了している場合
+	 */
+	public synchronized long writetoExcel(Iterator<T> data, Class<T> clazz)
+			throws IOException
+	{
+		if (finished) throw new IllegalStateException("出力は終了しています。");
+
+		// データが存在しない場合は処理しない
+		if (data == null || !data.hasNext()) return 0;
+
+		// ジェネリクス型のマッピングを取得
+		ExcelPoiMapping<T> mapping = getMapping(clazz);
+		ExcelSheet sheet_info = mapping.getSheet();
+
+		// ExcelSheet注釈が付いていない場合は処理対象外
+		if (sheet_info == null) return 0;
+
+		// 列単位のセル要素の先頭部分、スタイル、出力処理を作成
+		List<ExcelPoiColumn> columns = mapping.getColumns();
+		char[][] heads = new char[columns.size()][];
+		char[][] column_styles = new char[columns.size()][];
+		ExcelPoiValueWriter[] writers = new ExcelPoiValueWriter[columns.size()];
+		for (int i = 0; i < columns.size(); i++)
+		{
+			heads[i] = ExcelPoiXmlSink.createHead(sheet_info.column_start() + i);
+			column_styles[i] = ExcelPoiXmlSink.createStyle(styles.getStyleIndex(columns.get(i).getCellStyle()));
+			writers[i] = columns.get(i).getWriter(columns.get(i).getColumn().trim());
+			if (columns.get(i).getFormula() != null) formula_written = true;
+		}
+		char[] title_style = ExcelPoiXmlSink.createStyle(styles.getStyleIndex(mapping.getTitleStyle()));
+
+		// 幅を自動で設定する項目は、列幅をシートの行より前に出力するため先頭の行を先読みして表示幅を計測
+		ExcelPoiColumnWidths widths = new ExcelPoiColumnWidths(columns, sheet_info, mapping.getTitleStyle());
+		Iterator<T> rows = widths.isEnabled() ? measure(data, writers, widths, sheet_info.auto_width_rows() > 0 ? sheet_info.auto_width_rows() : DEFAULT_AUTO_WIDTH_ROWS) : data;
+
+		long row_count = 0;
+		int current_row = startSheet(mapping, heads, title_style, widths, false);
+		try
+		{
+			while (rows.hasNext())
+			{
+				T entity = rows.next();
+
+				// 最大行数に達した場合は次のシートを作成
+				if (current_row >= sheet_row_limit)
+				{
+					if (!sheet_rollover) throw new IllegalStateException(String.format("シート「%s」の最大行数（%d行）を超えました。", sheet_names.get(sheet_names.size() - 1), sheet_row_limit));
+					endSheet(mapping);
+					current_row = startSheet(mapping, heads, title_style, widths, true);
+				}
+
+				// フィールド単位に出力
+				sink.startRow(current_row++);
+				for (int i = 0; i < writers.length; i++)
+				{
+					try
+					{
+						writers[i].write(entity, sink.setCell(heads[i], column_styles[i]));
+						sink.endCell();
+					}
+					catch (UncheckedIOException e)
+					{
+						throw e.getCause();
+					}
+					catch (RuntimeException e)
+					{
+						e.printStackTrace();
+						sink.endCell();
+					}
+				}
+				sink.endRow();
+
+				row_count++;
+
+				// 指定行数ごとに出力ストリームに送出
+				if (flush_interval > 0 && row_count % flush_interval == 0) flush();
+			}
+		}
+		finally
+		{
+			endSheet(mapping);
+		}
+
+		return row_count;
+	}
+
+	/**
+	 * シートの最大行数に達した場合にシートを追加して出力を継続するか否かを取得します。
+	 * @return シートを追加する場合<code>true</code>
+	 */
+	public boolean isSheetRollover()
+	{
+		return this.sheet_rollover;
+	}
+
+	/**
+	 * シートの最大行数に達した場合にシートを追加して出力を継続するか否かを設定します。<br>
+	 * 追加するシートの名前は「<code>ExcelSheet</code>注釈のシート名 (連番)」となり、タイトル行、フィルター、ウィンドウ枠の固定も設定します。
+	 * @param sheet_rollover シートを追加する場合<code>true</code>
+	 */
+	public void setSheetRollover(boolean sheet_rollover)
+	{
+		this.sheet_rollover = sheet_rollover;
+	}
+
+	/**
+	 * 1シートの最大行数（タイトル行を含む）を取得します。
+	 * @return 最大行数
+	 */
+	public int getSheetRowLimit()
+	{
+		return this.sheet_row_limit;
+	}
+
+	/**
+	 * 1シートの最大行数（タイトル行を含む）を設定します。<br>
+	 * 既定値はExcelの最大行数（1,048,576行）です。
+	 * @param sheet_row_limit 最大行数
+	 */
+	public void setSheetRowLimit(int sheet_row_limit)
+	{
+		if (sheet_row_limit <= 0 || sheet_row_limit > SpreadsheetVersion.EXCEL2007.getMaxRows())
+		{
+			throw new IllegalArgumentException(String.format("最大行数は1～%d行の範囲で指定してください。", SpreadsheetVersion.EXCEL2007.getMaxRows()));
+		}
+		this.sheet_row_limit = sheet_row_limit;
+	}
+
+	/**
+	 * 出力ストリームに送出する間隔（行数）を取得します。
+	 * @return 送出する間隔（<code>0</code>の場合は書き込みバッファが一杯になった時点のみ）
+	 */
+	public int getFlushInterval()
+	{
+		return this.flush_interval;
+	}
+
+	/**
+	 * 出力ストリームに送出する間隔（行数）を設定します。<br>
+	 * 指定行数を出力するごとに書き込みバッファと圧縮中のデータを出力ストリームに送出し、出力ストリームの<code>flush</code>を呼び出します。
+	 * シートの開始時にも送出するため、最初の行の出力前にファイルの先頭部分がクライアントに届きます。<br>
+	 * 送出ごとに圧縮の区切りが入るため、間隔を短くするとファイルサイズが大きくなります。
+	 * @param flush_interval 送出する間隔（<code>0</code>の場合は送出しない）
+	 */
+	public void setFlushInterval(int flush_interval)
+	{
+		if (flush_interval < 0) throw new IllegalArgumentException("送出する間隔は0以上を指定してください。");
+		this.flush_interval = flush_interval;
+	}
+
+	/**
+	 * 書き込みバッファと圧縮中のデータを出力ストリームに送出します。<br>
+	 * シートの出力中に呼び出した場合も、出力済みの行までを送出します。
+	 * @throws IOException 出力に失敗した場合
+	 */
+	public synchronized void flush()
+			throws IOException
+	{
+		if (finished) return;
+
+		writer.flush();
+		zip.flush();
+	}
+
+	/**
+	 * 終了処理。ブック、スタイル定義等を出力し、Excelファイルを完成させます。<br>
+	 * 出力ストリームは閉じません。
+	 */
+	@Override
+	public synchronized void close()
+			throws IOException
+	{
+		if (finished) return;
+		finished = true;
+
+		// シートが存在しない場合は空のシートを作成
+		if (sheet_names.isEmpty())
+		{
+			sheet_names.add("Sheet1");
+			putEntry("xl/worksheets/sheet1.xml");
+			writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+			writer.write("<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData/></worksheet>");
+			closeEntry();
+		}
+
+		writeWorkbook();
+		writePackage();
+
+		putEntry("xl/styles.xml");
+		styles.write(writer);
+		closeEntry();
+
+		zip.finish();
+		zip.flush();
+	}
+
+	/**
+	 * 先頭の行を先読みし、幅を自動で設定する項目の表示幅を計測します。
+	 * @param data イテレータのデータ
+	 * @param writers 項目単位の出力処理
+	 * @param widths 項目の幅
+	 * @param sample_rows 先読みする行数
+	 * @return 先読みした行に続けて残りの行を返却するイテレータ
+	 */
+	private static <T> Iterator<T> measure(Iterator<T> data, ExcelPoiValueWriter[] writers, ExcelPoiColumnWidths widths, int sample_rows)
+	{
+		List<T> buffer = new ArrayList<>();
+		while (buffer.size() < sample_rows && data.hasNext())
+		{
+			T entity = data.next();
+			buffer.add(entity);
+			for (int i = 0; i < writers.length; i++)
+			{
+				if (!widths.isAuto(i)) continue;
+
+				// 出力時に同じ例外が発生するため、計測時は無視
+				try
+				{
+					writers[i].write(entity, widths.measure(i, ExcelPoiColumnWidths.DISCARD));
+				}
+				catch (RuntimeException e) { }
+			}
+		}
+
+		Iterator<T> head = buffer.iterator();
+		return new Iterator<T>()
+		{
+			@Override
+			public boolean hasNext()
+			{
+				return head.hasNext() || data.hasNext();
+			}
+
+			@Override
+			public T next()
+			{
+				return head.hasNext() ? head.next() : data.next();
+			}
+		};
+	}
+
+	/**
+	 * シートを開始し、タイトル行を出力します。
+	 * @param mapping 描画対象のクラスのマッピング
+	 * @param heads 列単位のセル要素の先頭部分
+	 * @param title_style タイトル行のスタイル部分
+	 * @param widths 項目の幅
+	 * @param rollover ロールオーバーで追加するシートの場合<code>true</code>
+	 * @return 次に出力する行番号
+	 * @throws IOException 出力に失敗した場合
+	 * @throws IllegalArgumentException ロールオーバー以外で同名のシートが存在する場合
+	 */
+	private int startSheet(ExcelPoiMapping<T> mapping, char[][] heads, char[] title_style, ExcelPoiColumnWidths widths, boolean rollover)
+			throws IOException
+	{
+		ExcelSheet sheet_info = mapping.getSheet();
+		List<ExcelPoiColumn> columns = mapping.getColumns();
+		int current_row = sheet_info.row_start();
+
+		sheet_names.add(getSheetName(sheet_info.sheet_name(), rollover));
+		putEntry("xl/worksheets/sheet" + sheet_names.size() + ".xml");
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+		writer.write("<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">");
+
+		// 固定行の設定
+		writer.write(sheet_names.size() == 1 ? "<sheetViews><sheetView tabSelected=\"1\" workbookViewId=\"0\">" : "<sheetViews><sheetView workbookViewId=\"0\">");
+		if (sheet_info.draw_title() && sheet_info.freeze_pane())
+		{
+			int col_split = sheet_info.column_start();
+			int row_split = sheet_info.row_start() + 1;
+			writer.write("<pane");
+			if (col_split > 0) writer.write(" xSplit=\"" + col_split + "\"");
+			writer.write(" ySplit=\"" + row_split + "\" topLeftCell=\"" + new CellReference(row_split, col_split).formatAsString()
+					+ "\" activePane=\"" + (col_split > 0 ? "bottomRight" : "bottomLeft") + "\" state=\"frozen\"/>");
+		}
+		writer.write("</sheetView></sheetViews>");
+
+		// 列幅の設定（幅を自動で設定する項目は先読みした行で計測した幅）
+		int[] column_widths = new int[columns.size()];
+		for (int i = 0; i < columns.size(); i++)
+		{
+			column_widths[i] = (sheet_info.draw_title() || widths.isAuto(i)) ? (int)widths.getWidth(i) : -1;
+		}
+		if (Arrays.stream(column_widths).anyMatch(t -> t > 0))
+		{
+			writer.write("<cols>");
+			for (int i = 0; i < columns.size(); i++)
+			{
+				int col = sheet_info.column_start() + i + 1;
+				if (column_widths[i] > 0) writer.write("<col min=\"" + col + "\" max=\"" + col + "\" width=\"" + column_widths[i] + "\" customWidth=\"1\"/>");
+			}
+			writer.write("</cols>");
+		}
+
+		writer.write("<sheetData>");
+
+		// タイトル描画
+		if (sheet_info.draw_title())
+		{
+			sink.startRow(current_row++);
+			for (int i = 0; i < columns.size(); i++)
+			{
+				sink.setCell(heads[i], title_style).setString(columns.get(i).getColumn().name());
+			}
+			sink.endRow();
+		}
+
+		if (flush_interval > 0) flush();
+
+		return current_row;
+	}
+
+	/**
+	 * シートを終了します。フィルターを設定します。
+	 * @param mapping 描画対象のクラスのマッピング
+	 * @throws IOException 出力に失敗した場合
+	 */
+	private void endSheet(ExcelPoiMapping<T> mapping)
+			throws IOException
+	{
+		ExcelSheet sheet_info = mapping.getSheet();
+		writer.write("</sheetData>");
+
+		// フィルターの設定
+		if (sheet_info.draw_title() && sheet_info.auto_filter())
+		{
+			String first = new CellReference(sheet_info.row_start(), sheet_info.column_start()).formatAsString();
+			String last = new CellReference(sheet_info.row_start(), sheet_info.column_start() + mapping.getColumns().size() - 1).formatAsString();
+			writer.write("<autoFilter ref=\"" + first + ":" + last + "\"/>");
+			filters.put(sheet_names.size() - 1, new CellReference(sheet_names.get(sheet_names.size() - 1), sheet_info.row_start(), sheet_info.column_start(), true, true).formatAsString()
+					+ ":" + new CellReference(sheet_info.row_start(), sheet_info.column_start() + mapping.getColumns().size() - 1, true, true).formatAsString());
+		}
+
+		writer.write("</worksheet>");
+		closeEntry();
+	}
+
+	/**
+	 * ブック（<code>workbook.xml</code>）と関連付けを出力します。
+	 * @throws IOException 出力に失敗した場合
+	 */
+	private void writeWorkbook()
+			throws IOException
+	{
+		putEntry("xl/workbook.xml");
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+		writer.write("<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">");
+		writer.write("<bookViews><workbookView activeTab=\"0\"/></bookViews><sheets>");
+		for (int i = 0; i < sheet_names.size(); i++)
+		{
+			writer.write("<sheet name=\"" + ExcelPoiXmlSink.escape(sheet_names.get(i)) + "\" sheetId=\"" + (i + 1) + "\" r:id=\"rId" + (i + 1) + "\"/>");
+		}
+		writer.write("</sheets>");
+		if (!filters.isEmpty())
+		{
+			writer.write("<definedNames>");
+			for (Map.Entry<Integer, String> filter : filters.entrySet())
+			{
+				writer.write("<definedName name=\"_xlnm._FilterDatabase\" localSheetId=\"" + filter.getKey() + "\" hidden=\"1\">" + ExcelPoiXmlSink.escape(filter.getValue()) + "</definedName>");
+			}
+			writer.write("</definedNames>");
+		}
+		if (formula_written) writer.write("<calcPr fullCalcOnLoad=\"1\"/>");
+		writer.write("</workbook>");
+		closeEntry();
+
+		putEntry("xl/_rels/workbook.xml.rels");
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+		writer.write("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+		for (int i = 0; i < sheet_names.size(); i++)
+		{
+			writer.write("<Relationship Id=\"rId" + (i + 1) + "\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet" + (i + 1) + ".xml\"/>");
+		}
+		writer.write("<Relationship Id=\"rId" + (sheet_names.size() + 1) + "\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>");
+		writer.write("</Relationships>");
+		closeEntry();
+	}
+
+	/**
+	 * パッケージの関連付け（<code>.rels</code>）とコンテンツタイプを出力します。
+	 * @throws IOException 出力に失敗した場合
+	 */
+	private void writePackage()
+			throws IOException
+	{
+		putEntry("_rels/.rels");
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+		writer.write("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+		writer.write("<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>");
+		writer.write("</Relationships>");
+		closeEntry();
+
+		putEntry("[Content_Types].xml");
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+		writer.write("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">");
+		writer.write("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>");
+		writer.write("<Default Extension=\"xml\" ContentType=\"application/xml\"/>");
+		writer.write("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>");
+		for (int i = 0; i < sheet_names.size(); i++)
+		{
+			writer.write("<Override PartName=\"/xl/worksheets/sheet" + (i + 1) + ".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+		}
+		writer.write("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+		writer.write("</Types>");
+		closeEntry();
+	}
+
+	/**
+	 * 作成するシートのシート名を取得します。<br>
+	 * <code>Workbook.createSheet</code>と同様に、31文字を超える場合は切り詰め、シート名に使用できない文字を含む場合は例外とします。<br>
+	 * ロールオーバーで追加するシートは「シート名 (連番)」とし、同名のシートが存在する場合は次の連番とします。
+	 * @param name <code>ExcelSheet</code>注釈のシート名
+	 * @param rollover ロールオーバーで追加するシートの場合<code>true</code>
+	 * @return シート名
+	 * @throws IllegalArgumentException シート名が不正な場合、ロールオーバー以外で同名のシートが存在する場合
+	 */
+	private String getSheetName(String name, boolean rollover)
+	{
+		if (name.length() > MAX_SHEET_NAME_LENGTH) name = name.substring(0, MAX_SHEET_NAME_LENGTH);
+		WorkbookUtil.validateSheetName(name);
+
+		if (!rollover)
+		{
+			if (containsSheetName(name)) throw new IllegalArgumentException(String.format("シート「%s」は既に存在します。", name));
+			return name;
+		}
+
+		// 同名のシートが存在しない連番を付与
+		for (int number = 2; ; number++)
+		{
+			String suffix = String.format(" (%d)", number);
+			String candidate = (name.length() + suffix.length() > MAX_SHEET_NAME_LENGTH ? name.substring(0, MAX_SHEET_NAME_LENGTH - suffix.length()) : name) + suffix;
+			if (!containsSheetName(candidate)) return candidate;
+		}
+	}
+
+	/**
+	 * 同名のシートが存在するか否かを取得します（大文字、小文字は区別しません）。
+	 * @param name シート名
+	 * @return 存在する場合<code>true</code>
+	 */
+	private boolean containsSheetName(String name)
+	{
+		return sheet_names.stream().anyMatch(name::equalsIgnoreCase);
+	}
+
+	/**
+	 * ZIPのエントリーを開始します。
+	 * @param name エントリー名
+	 * @throws IOException 出力に失敗した場合
+	 */
+	private void putEntry(String name)
+			throws IOException
+	{
+		zip.putNextEntry(new ZipEntry(name));
+	}
+
+	/**
+	 * ZIPのエントリーを終了します。書き込みバッファの内容を出力します。
+	 * @throws IOException 出力に失敗した場合
+	 */
+	private void closeEntry()
+			throws IOException
+	{
+		writer.flush();
+		zip.closeEntry();
+	}
+
+	/**
+	 * 圧縮中のデータを送出できる<code>ZipOutputStream</code><br>
+	 * <code>ZipOutputStream</code>の<code>flush</code>は圧縮前のデータを保持したままのため、
+	 * エントリーの出力中は同期フラッシュ（<code>Deflater.SYNC_FLUSH</code>）で圧縮済みのデータを送出します。
+	 * 送出したデータは<code>Deflater</code>の出力サイズに計上されるため、エントリーの圧縮後サイズと整合します。
+	 */
+	private static class FlushableZipOutputStream extends ZipOutputStream
+	{
+		private boolean entry_open = false;
+
+		/**
+		 * コンストラクタ
+		 * @param stream 出力ストリーム
+		 */
+		FlushableZipOutputStream(OutputStream stream)
+		{
+			super(stream);
+		}
+
+		@Override
+		public void putNextEntry(ZipEntry entry)
+				throws IOException
+		{
+			super.putNextEntry(entry);
+			entry_open = true;
+		}
+
+		@Override
+		public void closeEntry()
+				throws IOException
+		{
+			super.closeEntry();
+			entry_open = false;
+		}
+
+		@Override
+		public void flush()
+				throws IOException
+		{
+			if (entry_open)
+			{
+				int length;
+				while ((length = def.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH)) > 0)
+				{
+					out.write(buf, 0, length);
+					if (length < buf.length) break;
+				}
+			}
+			out.flush();
+		}
+	}
+}
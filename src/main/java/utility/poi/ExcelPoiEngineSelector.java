@@ -0,0 +1,262 @@
+package utility.poi;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+
+import utility.poi.constant.EnumEngine;
+
+/**
+ * 推定メモリ使用量からExcelの出力方式を選択して出力するクラス<br>
+ * 行数（または行数の見込み）と、マッピングの項目数、項目の型からブックをメモリ上に保持した場合の使用量を推定し、
+ * 上限以内であれば<code>XSSF</code>形式、超える場合は直接出力（<code>ExcelPoiDirectGenerator</code>）を選択します。
+ * リスナーを設定した場合は、計測結果を通知するため直接出力の代わりに<code>SXSSF</code>形式を選択します。<br>
+ * <code>XSSF</code>形式を選択した場合も上限を設定して出力するため、行数の見込みを超えて上限に達した時点で<code>SXSSF</code>形式に切り替えます。
+ * 推定値はPOIのオブジェクトモデルの一般的な使用量からの概算です。
+ * @author Takeshi
+ *
+ */
+public class ExcelPoiEngineSelector
+{
+	/** 1ブックあたりの固定の推定メモリ使用量（パッケージ、スタイル、書き出し用のバッファ） */
+	static final long WORKBOOK_BYTES = 4L << 20;
+
+	/** 直接出力の推定メモリ使用量（書き込み、圧縮用のバッファ） */
+	private static final long DIRECT_BYTES = 1L << 20;
+
+	/** 1行あたりの推定メモリ使用量（<code>XSSFRow</code>、<code>CTRow</code>） */
+	private static final long ROW_BYTES = 512;
+
+	/** 文字列のセル1件あたりの推定メモリ使用量（共有文字列を含む） */
+	private static final long STRING_CELL_BYTES = 1024;
+
+	/** 数値、日付のセル1件あたりの推定メモリ使用量 */
+	private static final long NUMBER_CELL_BYTES = 640;
+
+	/** 真偽値のセル1件あたりの推定メモリ使用量 */
+	private static final long BOOLEAN_CELL_BYTES = 512;
+
+	private final long memory_budget;
+	private int row_access_window = ExcelPoiGenerator.DEFAULT_ROW_ACCESS_WINDOW;
+	private boolean sheet_rollover = false;
+	private ExcelPoiListener listener = ExcelPoiListener.NONE;
+
+	/**
+	 * コンストラクタ<br>
+	 * 推定メモリ使用量の上限は最大ヒープサイズの1/4です。
+	 */
+	public ExcelPoiEngineSelector()
+	{
+		this(Runtime.getRuntime().maxMemory() / 4);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param memory_budget 1件の出力の推定メモリ使用量の上限（バイト）
+	 * @throws IllegalArgumentException 上限が1以上でない場合
+	 */
+	public ExcelPoiEngineSelector(long memory_budget)
+	{
+		if (memory_budget <= 0) throw new IllegalArgumentException("推定メモリ使用量の上限は1以上を指定してください。");
+		this.memory_budget = memory_budget;
+	}
+
+	/**
+	 * 出力方式を選択します。
+	 * @param clazz 描画対象のクラス
+	 * @param rows 行数の見込み（不明な場合は負の値）
+	 * @return 出力方式（行数が不明な場合は<code>XSSF</code>形式、出力中に上限に達した時点で<code>SXSSF</code>形式に切り替えます）
+	 */
+	public EnumEngine select(Class<?> clazz, long rows)
+	{
+		if (rows < 0 || estimateMemory(clazz, rows, EnumEngine.XSSF) <= memory_budget) return EnumEngine.XSSF;
+
+		// 直接出力はリスナーに通知しないため、リスナーを設定した場合はストリーミング形式
+		return (listener == ExcelPoiListener.NONE) ? EnumEngine.DIRECT : EnumEngine.SXSSF;
+	}
+
+	/**
+	 * 出力方式ごとの推定メモリ使用量を取得します。
+	 * @param clazz 描画対象のクラス
+	 * @param rows 行数
+	 * @param engine 出力方式
+	 * @return 推定メモリ使用量（バイト）
+	 */
+	public long estimateMemory(Class<?> clazz, long rows, EnumEngine engine)
+	{
+		switch (engine)
+		{
+		case XSSF:
+			return WORKBOOK_BYTES + Math.max(rows, 0) * estimateRowBytes(ExcelPoiMapping.of(clazz));
+		case SXSSF:
+			return WORKBOOK_BYTES + Math.min(Math.max(rows, 0), row_access_window) * estimateRowBytes(ExcelPoiMapping.of(clazz));
+		default:
+			return DIRECT_BYTES;
+		}
+	}
+
+	/**
+	 * 配列データを選択した出力方式でExcelに出力し、出力ストリームに書き込みます。
+	 * @param <T> 描画対象のクラス
+	 * @param data 配列データ
+	 * @param clazz 描画対象のクラス
+	 * @param stream 出力ストリーム（閉じません）
+	 * @return 出力した行数（タイトル行を除く）
+	 * @throws IOException 出力に失敗した場合
+	 */
+	public <T> long export(List<T> data, Class<T> clazz, OutputStream stream)
+			throws IOException
+	{
+		// データが存在しない場合は処理しない
+		if (data == null || data.size() == 0) return 0;
+
+		return export(data.iterator(), clazz, data.size(), stream);
+	}
+
+	/**
+	 * イテレータのデータを選択した出力方式でExcelに出力し、出力ストリームに書き込みます。
+	 * @param <T> 描画対象のクラス
+	 * @param data イテレータのデータ
+	 * @param clazz 描画対象のクラス
+	 * @param size_hint 行数の見込み（不明な場合は負の値）
+	 * @param stream 出力ストリーム（閉じません）
+	 * @return 出力した行数（タイトル行を除く）
+	 * @throws IOException 出力に失敗した場合
+	 */
+	public <T> long export(Iterator<T> data, Class<T> clazz, long size_hint, OutputStream stream)
+			throws IOException
+	{
+		EnumEngine engine = select(clazz, size_hint);
+		if (engine == EnumEngine.DIRECT)
+		{
+			try (ExcelPoiDirectGenerator<T> writer = new ExcelPoiDirectGenerator<>(stream))
+			{
+				writer.setSheetRollover(sheet_rollover);
+				return writer.writetoExcel(data, clazz);
+			}
+		}
+
+		try (ExcelPoiGenerator<T> writer = (engine == EnumEngine.SXSSF) ? new ExcelPoiGenerator<>(row_access_window, false) : new ExcelPoiGenerator<>(true))
+		{
+			writer.setSheetRollover(sheet_rollover);
+			writer.setListener(listener);
+			writer.setMemoryBudget(memory_budget, row_access_window);
+
+			long rows = writer.writetoExcel(data, clazz);
+			writer.write(stream);
+			return rows;
+		}
+	}
+
+	/**
+	 * 推定メモリ使用量の上限を取得します。
+	 * @return 上限（バイト）
+	 */
+	public long getMemoryBudget()
+	{
+		return this.memory_budget;
+	}
+
+	/**
+	 * <code>SXSSF</code>形式でメモリ上に保持する行数を取得します。
+	 * @return 行数
+	 */
+	public int getRowAccessWindow()
+	{
+		return this.row_access_window;
+	}
+
+	/**
+	 * <code>SXSSF</code>形式でメモリ上に保持する行数を設定します。
+	 * @param row_access_window 行数
+	 * @throws IllegalArgumentException 行数が1以上でない場合
+	 */
+	public void setRowAccessWindow(int row_access_window)
+	{
+		if (row_access_window <= 0) throw new IllegalArgumentException("メモリ上に保持する行数は1以上を指定してください。");
+		this.row_access_window = row_access_window;
+	}
+
+	/**
+	 * シートの最大行数に達した場合にシートを追加して出力を継続するか否かを取得します。
+	 * @return シートを追加する場合<code>true</code>
+	 */
+	public boolean isSheetRollover()
+	{
+		return this.sheet_rollover;
+	}
+
+	/**
+	 * シートの最大行数に達した場合にシートを追加して出力を継続するか否かを設定します。
+	 * @param sheet_rollover シートを追加する場合<code>true</code>
+	 */
+	public void setSheetRollover(boolean sheet_rollover)
+	{
+		this.sheet_rollover = sheet_rollover;
+	}
+
+	/**
+	 * 計測結果を受け取るリスナーを取得します。
+	 * @return リスナー
+	 */
+	public ExcelPoiListener getListener()
+	{
+		return this.listener;
+	}
+
+	/**
+	 * 計測結果を受け取るリスナーを設定します。<br>
+	 * 直接出力は通知しないため、設定した場合は<code>XSSF</code>形式、<code>SXSSF</code>形式から選択します。
+	 * @param listener リスナー（<code>null</code>の場合は通知しない）
+	 */
+	public void setListener(ExcelPoiListener listener)
+	{
+		this.listener = listener == null ? ExcelPoiListener.NONE : listener;
+	}
+
+	/**
+	 * ブックをメモリ上に保持した場合の1行あたりの推定メモリ使用量を取得します。<br>
+	 * 項目の型（ゲッターメソッドの戻り値の型）ごとのセルの使用量の合計です。変換処理を登録した型等、判別できない型は文字列とします。
+	 * 計算式の項目は数値とします。
+	 * @param mapping 描画対象のクラスのマッピング
+	 * @return 推定メモリ使用量（バイト）
+	 */
+	static long estimateRowBytes(ExcelPoiMapping<?> mapping)
+	{
+		long bytes = ROW_BYTES;
+		for (ExcelPoiColumn column : mapping.getColumns())
+		{
+			bytes += (column.getFormula() != null) ? NUMBER_CELL_BYTES : estimateCellBytes(column.getGetter().getReturnType());
+		}
+
+		return bytes;
+	}
+
+	/**
+	 * セル1件あたりの推定メモリ使用量を取得します。
+	 * @param type 値の型
+	 * @return 推定メモリ使用量（バイト）
+	 */
+	private static long estimateCellBytes(Class<?> type)
+	{
+		if (type == boolean.class || type == Boolean.class) return BOOLEAN_CELL_BYTES;
+
+		if ((type.isPrimitive() && type != char.class) || Number.class.isAssignableFrom(type)
+				|| type == OptionalInt.class || type == OptionalLong.class || type == OptionalDouble.class
+				|| Date.class.isAssignableFrom(type) || Calendar.class.isAssignableFrom(type)
+				|| type == LocalDate.class || type == LocalDateTime.class)
+		{
+			return NUMBER_CELL_BYTES;
+		}
+
+		return STRING_CELL_BYTES;
+	}
+}
@@ -0,0 +1,127 @@
+package utility.poi;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+
+/**
+ * 行番号のプレースホルダーを含む計算式（<code>ExcelColumn.formula</code>）を保持するクラス<br>
+ * 計算式はマッピング作成時に一度だけ解析し、プレースホルダーの前後の文字列と行番号の差分に分割して保持します。
+ * 出力時は行番号を埋め込むのみで計算式を組み立てるため、行ごとに計算式を解析しません。<br>
+ * プレースホルダーは<code>{row}</code>（出力する行の行番号）、<code>{row-1}</code>、<code>{row+1}</code>（前後の行の行番号）の形式で指定します。
+ * 埋め込む行番号がシートの範囲（1～1048576）外になる場合は例外とします。
+ * インスタンスは不変であり、スレッド間で共有できます。
+ * @author Takeshi
+ *
+ */
+public final class ExcelPoiFormula
+{
+	/** 行番号のプレースホルダー（<code>{row}</code>、<code>{row+n}</code>、<code>{row-n}</code>） */
+	private static final Pattern PLACEHOLDER = Pattern.compile("\\{row(?:([+-])(\\d+))?\\}");
+
+	private final String template;
+	private final String[] segments;
+	private final int[] offsets;
+	private final int length;
+	private final int min_offset;
+	private final int max_offset;
+
+	/**
+	 * コンストラクタ
+	 * @param template 計算式
+	 * @param segments プレースホルダーの前後の文字列
+	 * @param offsets プレースホルダーの行番号の差分
+	 */
+	private ExcelPoiFormula(String template, String[] segments, int[] offsets)
+	{
+		this.template = template;
+		this.segments = segments;
+		this.offsets = offsets;
+
+		int length = 0;
+		for (String segment : segments) length += segment.length();
+		this.length = length + offsets.length * 7;
+		this.min_offset = Arrays.stream(offsets).min().orElse(0);
+		this.max_offset = Arrays.stream(offsets).max().orElse(0);
+	}
+
+	/**
+	 * 計算式を解析します。
+	 * @param template 計算式（先頭の<code>=</code>は取り除きます）
+	 * @return 計算式（<code>null</code>、空文字の場合は<code>null</code>）
+	 * @throws IllegalArgumentException 行番号の差分が不正な場合
+	 */
+	public static ExcelPoiFormula of(String template)
+	{
+		if (template == null) return null;
+
+		String formula = template.trim();
+		if (formula.startsWith("=")) formula = formula.substring(1).trim();
+		if (formula.isEmpty()) return null;
+
+		List<String> segments = new ArrayList<>();
+		List<Integer> offsets = new ArrayList<>();
+		Matcher matcher = PLACEHOLDER.matcher(formula);
+		int start = 0;
+		while (matcher.find())
+		{
+			segments.add(formula.substring(start, matcher.start()));
+			try
+			{
+				int offset = matcher.group(2) == null ? 0 : Integer.parseInt(matcher.group(2));
+				offsets.add("-".equals(matcher.group(1)) ? -offset : offset);
+			}
+			catch (NumberFormatException exp)
+			{
+				throw new IllegalArgumentException(String.format("計算式「%s」の行番号の差分が不正です。", template), exp);
+			}
+			start = matcher.end();
+		}
+		segments.add(formula.substring(start));
+
+		return new ExcelPoiFormula(formula, segments.toArray(new String[0]), offsets.stream().mapToInt(Integer::intValue).toArray());
+	}
+
+	/**
+	 * 行番号を埋め込んだ計算式を取得します。
+	 * @param row 行番号（1始まり）
+	 * @return 計算式（先頭の<code>=</code>を除く）
+	 * @throws IllegalArgumentException 埋め込む行番号がシートの範囲外になる場合
+	 */
+	public String format(int row)
+	{
+		if (offsets.length == 0) return template;
+		if (row + min_offset < 1 || row + max_offset > SpreadsheetVersion.EXCEL2007.getMaxRows())
+		{
+			throw new IllegalArgumentException(String.format("計算式「%s」の%d行目の行番号がシートの範囲外です。", template, row));
+		}
+
+		StringBuilder builder = new StringBuilder(length);
+		builder.append(segments[0]);
+		for (int i = 0; i < offsets.length; i++)
+		{
+			builder.append(row + offsets[i]).append(segments[i + 1]);
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * 計算式を取得します。
+	 * @return プレースホルダーを含む計算式（先頭の<code>=</code>を除く）
+	 */
+	public String getTemplate()
+	{
+		return this.template;
+	}
+
+	@Override
+	public String toString()
+	{
+		return this.template;
+	}
+}
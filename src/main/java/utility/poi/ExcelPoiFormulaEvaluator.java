@@ -0,0 +1,116 @@
+package utility.poi;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import utility.poi.constant.EnumFormulaEvaluation;
+
+/**
+ * 出力後の計算式の再計算を行うクラス<br>
+ * <code>FormulaEvaluator</code>オブジェクトは<code>Workbook</code>単位に一度だけ作成して再利用します。
+ * @author Takeshi
+ *
+ */
+final class ExcelPoiFormulaEvaluator
+{
+	private final Workbook workbook;
+	private final Set<Sheet> touched_sheets = Collections.newSetFromMap(new IdentityHashMap<>());
+	private EnumFormulaEvaluation evaluation = EnumFormulaEvaluation.ALL;
+	private FormulaEvaluator evaluator;
+
+	/**
+	 * コンストラクタ
+	 * @param workbook <code>Workbook</code>オブジェクト
+	 */
+	ExcelPoiFormulaEvaluator(Workbook workbook)
+	{
+		this.workbook = workbook;
+	}
+
+	/**
+	 * 再計算方法を取得します。
+	 * @return 再計算方法
+	 */
+	EnumFormulaEvaluation getEvaluation()
+	{
+		return this.evaluation;
+	}
+
+	/**
+	 * 再計算方法を設定します。
+	 * @param evaluation 再計算方法
+	 */
+	void setEvaluation(EnumFormulaEvaluation evaluation)
+	{
+		this.evaluation = evaluation == null ? EnumFormulaEvaluation.ALL : evaluation;
+	}
+
+	/**
+	 * 値を出力したシートを記録します。
+	 * @param sheet <code>Sheet</code>オブジェクト
+	 */
+	void touch(Sheet sheet)
+	{
+		if (sheet != null) this.touched_sheets.add(sheet);
+	}
+
+	/**
+	 * 再計算方法に従って計算式を再計算します。<br>
+	 * ストリーミング形式の場合、書き出し済みの行は参照できないため再計算せず、Excelでファイルを開いた際に再計算させます。
+	 */
+	void evaluate()
+	{
+		EnumFormulaEvaluation current = (workbook instanceof SXSSFWorkbook) ? EnumFormulaEvaluation.NONE : this.evaluation;
+
+		switch (current)
+		{
+			case NONE:
+				workbook.setForceFormulaRecalculation(true);
+				break;
+
+			case ONLY_TOUCHED:
+				FormulaEvaluator touched_evaluator = getEvaluator();
+				touched_evaluator.clearAllCachedResultValues();
+				for (Sheet sheet : touched_sheets)
+				{
+					for (Row row : sheet)
+					{
+						for (Cell cell : row)
+						{
+							if (cell.getCellType() == CellType.FORMULA) touched_evaluator.evaluateFormulaCell(cell);
+						}
+					}
+				}
+				// 出力していないシートはExcelでファイルを開いた際に再計算させる
+				workbook.setForceFormulaRecalculation(true);
+				break;
+
+			case ALL:
+				FormulaEvaluator all_evaluator = getEvaluator();
+				all_evaluator.clearAllCachedResultValues();
+				all_evaluator.evaluateAll();
+				break;
+		}
+
+		this.touched_sheets.clear();
+	}
+
+	/**
+	 * <code>FormulaEvaluator</code>オブジェクトを取得します。
+	 * @return <code>FormulaEvaluator</code>オブジェクト
+	 */
+	private FormulaEvaluator getEvaluator()
+	{
+		if (this.evaluator == null) this.evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+		return this.evaluator;
+	}
+}
@@ -1,315 +1,508 @@
-package utility.poi;
-
-import java.io.Closeable;
-import java.io.IOException;
-import java.io.OutputStream;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.OptionalInt;
-import java.util.OptionalLong;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
-import org.apache.poi.ss.usermodel.BorderStyle;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.CellType;
-import org.apache.poi.ss.usermodel.DataFormat;
-import org.apache.poi.ss.usermodel.FillPatternType;
-import org.apache.poi.ss.usermodel.Font;
-import org.apache.poi.ss.usermodel.IndexedColors;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
-import org.apache.poi.ss.util.CellRangeAddress;
-
-import utility.poi.annotation.ExcelCellStyle;
-import utility.poi.annotation.ExcelColumn;
-import utility.poi.annotation.ExcelSheet;
-
-/**
- * Apache POIを利用してExcelを出力するユーティリティクラス<br>
- * リスト形式のデータをExcelに出力する場合に利用します。
- * @author Takeshi
- *
- */
-public class ExcelPoiGenerator<T> implements Closeable, ExcelPoi<T>
-{
-	private Workbook workbook;
-	private boolean closeable = true;
-
-	/**
-	 * コンストラクタ
-	 * <code>XSSF</code>形式のExcelを作成します。
-	 * @throws IOException
-	 */
-	public ExcelPoiGenerator()
-			throws IOException
-	{
-		this(true);
-	}
-
-	/**
-	 * コンストラクタ
-	 * @param xssf <code>XSSF</code>形式のExcelを作成する場合<code>true</code>
-	 * @throws IOException
-	 */
-	public ExcelPoiGenerator(boolean xssf)
-			throws IOException
-	{
-		this.workbook = WorkbookFactory.create(xssf);
-	}
-
-	/**
-	 * コンストラクタ
-	 * @param workbook <code>Workbook</code>オブジェクト
-	 */
-	public ExcelPoiGenerator(Workbook workbook)
-	{
-		this.workbook = workbook;
-	}
-
-	/**
-	 * 配列データをExcelに出力します。
-	 * @param data 配列データ
-	 * @param clazz 描画対象のクラス
-	 */
-	public void writetoExcel(List<T> data, Class<T> clazz)
-	{
-		// データが存在しない場合は処理しない
-		if (data == null || data.size() == 0) return;
-
-		synchronized (workbook)
-		{
-			// ジェネリクス型に指定されている注釈を取得
-			ExcelSheet sheet_info = getClassAnnotation(clazz, ExcelSheet.class);
-			Map<String, CellStyle> column_styles = getFieldCellStyle(workbook, clazz);
-			Map<String, ExcelColumn> column_infos = getFieldAnnotation(clazz, ExcelColumn.class);
-			Map<String, Method> column_getters = getFieldGetterMethod(clazz);
-
-			// ExcelSheet注釈が付いていない場合は処理対象外
-			if (sheet_info == null) return;
-
-			// シート作成
-			Sheet sheet = workbook.createSheet(sheet_info.sheet_name());
-
-			int current_row = sheet_info.row_start();
-			int current_col = sheet_info.column_start();
-			int column_num  = column_infos.size();
-
-			// タイトル描画
-			if (sheet_info.draw_title())
-			{
-				// セルスタイル、テキストの設定
-				CellStyle title_style = createCellStyle(workbook, sheet_info.style());
-				Row title_row = sheet.createRow(current_row++);
-				for (String field_name : column_infos.keySet())
-				{
-					int width = column_infos.get(field_name).width();
-					if (width != -1) sheet.setColumnWidth(current_col, width * 256);
-					setCellTitle(sheet, column_infos.get(field_name).name(), title_row, current_col++, title_style);
-				}
-
-				// フィルターの設定
-				if (sheet_info.auto_filter())
-				{
-					sheet.setAutoFilter(new CellRangeAddress(sheet_info.row_start(), sheet_info.row_start(), sheet_info.column_start(), sheet_info.column_start() + column_num - 1));
-				}
-
-				// 固定行の設定
-				if (sheet_info.freeze_pane())
-				{
-					sheet.createFreezePane(sheet_info.column_start(), sheet_info.row_start() + 1);
-				}
-			}
-
-			// 値の描画
-			for (T entity : data)
-			{
-				// 行の作成
-				Row row = sheet.createRow(current_row++);
-				current_col = sheet_info.column_start();
-
-				// フィールド単位に出力
-				for (String field_name : column_infos.keySet())
-				{
-					try
-					{
-						setCell(sheet, entity, row, current_col++, column_getters.get(field_name), column_styles.get(field_name), column_infos.get(field_name));
-					}
-					catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e)
-					{
-						e.printStackTrace();
-					}
-				}
-			}
-
-			workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
-		}
-	}
-
-	/**
-	 * <code>Workbook</code>オブジェクトを取得します。
-	 * @return <code>Workbook</code>オブジェクト
-	 */
-	public Workbook getWorkbook()
-	{
-		this.closeable = false;
-		return this.workbook;
-	}
-
-	/**
-	 * ストリームに出力します。
-	 * @param stream 出力ストリーム
-	 * @throws IOException
-	 */
-	public void write(OutputStream stream)
-			throws IOException
-	{
-		workbook.write(stream);
-	}
-
-	/**
-	 * 終了処理。<code>Workbook</code>オブジェクトを閉じます。
-	 */
-	@Override
-	public void close()
-			throws IOException
-	{
-		// Springで利用する場合、閉じてしまうと出力できないため
-		if (this.closeable) this.workbook.close();
-	}
-
-	/**
-	 * タイトルを設定します。
-	 * @param sheet <code>Sheet</code>オブジェクト
-	 * @param title タイトル
-	 * @param row <code>Row</code>オブジェクト
-	 * @param col 列番号
-	 * @param style セルスタイル
-	 */
-	private void setCellTitle(Sheet sheet, String title, Row row, int col, CellStyle style)
-	{
-		// セルの作成
-		Cell cell = row.createCell(col, CellType.STRING);
-		if (style != null) cell.setCellStyle(style);
-		cell.setCellValue(title);
-	}
-
-	/**
-	 * フィールドに設定されているセルスタイルを注釈より取得します。
-	 * @param workbook <code>Workbook</code>オブジェクト
-	 * @param entity_class 描画対象のクラス
-	 * @return
-	 */
-	private Map<String, CellStyle> getFieldCellStyle(Workbook workbook, Class<T> entity_class)
-	{
-		return Stream.of(entity_class.getDeclaredFields())
-				.collect(Collectors.toMap(t -> t.getName(), t -> createCellStyle(workbook, t.getAnnotation(ExcelCellStyle.class))));
-	}
-
-	/**
-	 * セルスタイルを注釈より作成します。
-	 * @param workbook <code>Workbook</code>オブジェクト
-	 * @param annotation_style セルスタイル注釈
-	 * @return <code>CellStyle</code>オブジェクト
-	 */
-	private CellStyle createCellStyle(Workbook workbook, ExcelCellStyle annotation_style)
-	{
-		CellStyle style = workbook.createCellStyle();
-		if (annotation_style != null)
-		{
-			if (annotation_style.backgroundcolor() != IndexedColors.AUTOMATIC)
-			{
-				style.setFillForegroundColor(annotation_style.backgroundcolor().getIndex());							// 背景色
-				style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-			}
-			style.setAlignment(annotation_style.horizontal_alignment());												// 横位置
-			style.setVerticalAlignment(annotation_style.vertical_alignment());											// 縦位置
-			if (annotation_style.format() != null && !annotation_style.format().trim().equals(""))
-			{
-				DataFormat format = workbook.createDataFormat();														// 表示書式
-				style.setDataFormat(format.getFormat(annotation_style.format()));
-			}
-			style.setWrapText(annotation_style.wraptext());																// 改行の有無
-			if (annotation_style.top() != BorderStyle.NONE)
-			{
-				style.setTopBorderColor(annotation_style.bordercolor().getIndex());										// 上部分の枠線
-				style.setBorderTop(annotation_style.top());
-			}
-			if (annotation_style.bottom() != BorderStyle.NONE)
-			{
-				style.setBottomBorderColor(annotation_style.bordercolor().getIndex());									// 下部分の枠線
-				style.setBorderBottom(annotation_style.bottom());
-			}
-			if (annotation_style.left() != BorderStyle.NONE)
-			{
-				style.setLeftBorderColor(annotation_style.bordercolor().getIndex());									// 左部分の枠線
-				style.setBorderLeft(annotation_style.left());
-			}
-			if (annotation_style.right() != BorderStyle.NONE)
-			{
-				style.setRightBorderColor(annotation_style.bordercolor().getIndex());									// 右部分の枠線
-				style.setBorderRight(annotation_style.right());
-			}
-			Font font = workbook.createFont();
-			font.setFontName(annotation_style.font().getFontname());													// フォント名
-			font.setFontHeightInPoints((short)annotation_style.size());													// フォントサイズ
-			font.setColor(annotation_style.forecolor().getIndex());														// フォントの色
-			font.setBold(annotation_style.bold());																		// 太字
-			font.setItalic(annotation_style.italic());																	// 斜体
-			font.setStrikeout(annotation_style.strikeout());															// 取消線
-			font.setUnderline(annotation_style.underline().getUnderline());												// 下線
-			style.setFont(font);
-		}
-
-		return style;
-	}
-
-	/**
-	 * セルを設定します。
-	 * @param sheet <code>Sheet</code>オブジェクト
-	 * @param entity 描画対象のクラスインスタンス
-	 * @param row <code>Row</code>オブジェクト
-	 * @param col 列番号
-	 * @param getter 項目値を取得するゲッターメソッド
-	 * @param style <code>CellStyle</code>オブジェクト
-	 * @param column_info 項目描画の注釈
-	 * @throws IllegalAccessException
-	 * @throws IllegalArgumentException
-	 * @throws InvocationTargetException
-	 */
-	private void setCell(Sheet sheet, T entity, Row row, int col, Method getter, CellStyle style, ExcelColumn column_info)
-			throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
-	{
-		// セルの作成
-		Cell cell = (column_info.type() == CellType._NONE) ? row.createCell(col) : row.createCell(col, column_info.type());
-		if (style != null) cell.setCellStyle(style);
-
-		Object value = getter.invoke(entity, (Object[])null);
-		if (value == null)
-		{
-			return;
-		}
-		else if (value.getClass() == Optional.class)
-		{
-			setCellOptionalValue(cell, (Optional<?>)value);
-		}
-		else if (value.getClass() == OptionalInt.class)
-		{
-			setCellOptionalIntValue(cell, (OptionalInt)value);
-		}
-		else if (value.getClass() == OptionalLong.class)
-		{
-			setCellOptionalLongValue(cell, (OptionalLong)value);
-		}
-		else
-		{
-			setCellValue(cell, value, column_info.trim());
-		}
-	}
-}
+package utility.poi;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import utility.poi.annotation.ExcelSheet;
+import utility.poi.constant.EnumFormulaEvaluation;
+import utility.poi.constant.EnumPhase;
+
+/**
+ * Apache POIを利用してExcelを出力するユーティリティクラス<br>
+ * リスト形式のデータをExcelに出力する場合に利用します。
+ * @author Takeshi
+ *
+ */
+public class ExcelPoiGenerator<T> implements Closeable, ExcelPoi<T>
+{
+	/** ストリーミング形式でメモリ上に保持する行数の既定値 */
+	public static final int DEFAULT_ROW_ACCESS_WINDOW = SXSSFWorkbook.DEFAULT_WINDOW_SIZE;
+
+	/** 出力を排他するオブジェクト（同じブックに出力するすべての出力処理で共有。ストリーミング形式へ切り替えても同じオブジェクト） */
+	private final Object lock;
+
+	private Workbook workbook;
+	private final boolean owned;
+	private ExcelPoiStylePool style_pool;
+	private ExcelPoiFormulaEvaluator formula_evaluator;
+	private boolean sheet_rollover = false;
+	private int sheet_row_limit = Integer.MAX_VALUE;
+	private ExcelPoiListener listener = ExcelPoiListener.NONE;
+	private long memory_budget = 0;
+	private int switch_row_access_window = DEFAULT_ROW_ACCESS_WINDOW;
+	private long estimated_memory = ExcelPoiEngineSelector.WORKBOOK_BYTES;
+	private boolean closeable = true;
+	private boolean written = false;
+
+	/**
+	 * コンストラクタ
+	 * <code>XSSF</code>形式のExcelを作成します。
+	 * @throws IOException
+	 */
+	public ExcelPoiGenerator()
+			throws IOException
+	{
+		this(true);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param xssf <code>XSSF</code>形式のExcelを作成する場合<code>true</code>
+	 * @throws IOException
+	 */
+	public ExcelPoiGenerator(boolean xssf)
+			throws IOException
+	{
+		this(WorkbookFactory.create(xssf), true);
+	}
+
+	/**
+	 * コンストラクタ
+	 * <code>SXSSF</code>形式（ストリーミング）のExcelを作成します。<br>
+	 * メモリ上には直近の<code>row_access_window</code>行のみを保持し、それ以前の行は一時ファイルに書き出します。<br>
+	 * 一時ファイルは{@link #close()}で削除されます。
+	 * @param row_access_window メモリ上に保持する行数
+	 * @param compress_tmp_files 一時ファイルを圧縮する場合<code>true</code>
+	 */
+	public ExcelPoiGenerator(int row_access_window, boolean compress_tmp_files)
+	{
+		this(new SXSSFWorkbook(null, row_access_window, compress_tmp_files), true);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param workbook <code>Workbook</code>オブジェクト
+	 */
+	public ExcelPoiGenerator(Workbook workbook)
+	{
+		this(workbook, false);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param workbook <code>Workbook</code>オブジェクト
+	 * @param owned 本オブジェクトで作成した<code>Workbook</code>オブジェクトの場合<code>true</code>
+	 */
+	private ExcelPoiGenerator(Workbook workbook, boolean owned)
+	{
+		this.workbook = workbook;
+		this.owned = owned;
+		this.lock = ExcelPoiSheetWriter.getLock(this.workbook);
+		this.style_pool = ExcelPoiStylePool.of(this.workbook);
+		this.formula_evaluator = new ExcelPoiFormulaEvaluator(this.workbook);
+	}
+
+	/**
+	 * 配列データをExcelに出力します。
+	 * @param data 配列データ
+	 * @param clazz 描画対象のクラス
+	 * @return 出力した行数（タイトル行を除く）
+	 */
+	public long writetoExcel(List<T> data, Class<T> clazz)
+	{
+		// データが存在しない場合は処理しない
+		if (data == null || data.size() == 0) return 0;
+
+		// ロールオーバーしない場合、シートの最大行数を超えるデータは出力前に検出
+		ExcelSheet sheet_info = getMapping(clazz).getSheet();
+		if (!sheet_rollover && sheet_info != null && (long)sheet_info.row_start() + (sheet_info.draw_title() ? 1 : 0) + data.size() > getSheetRowLimit())
+		{
+			throw new IllegalStateException(String.format("シート「%s」の最大行数（%d行）を超えるため出力できません。", sheet_info.sheet_name(), getSheetRowLimit()));
+		}
+
+		return writetoExcel(data.iterator(), clazz);
+	}
+
+	/**
+	 * 反復可能なデータをExcelに出力します。<br>
+	 * データは1行ずつ取得して出力するため、すべてのデータをメモリ上に保持する必要はありません。
+	 * @param data 反復可能なデータ
+	 * @param clazz 描画対象のクラス
+	 * @return 出力した行数（タイトル行を除く）
+	 */
+	public long writetoExcel(Iterable<T> data, Class<T> clazz)
+	{
+		// データが存在しない場合は処理しない
+		if (data == null) return 0;
+
+		return writetoExcel(data.iterator(), clazz);
+	}
+
+	/**
+	 * ストリームのデータをExcelに出力します。<br>
+	 * データは1行ずつ取得して出力するため、すべてのデータをメモリ上に保持する必要はありません。
+	 * ストリームは閉じないため、呼び出し元で閉じてください。
+	 * @param data ストリームのデータ
+	 * @param clazz 描画対象のクラス
+	 * @return 出力した行数（タイトル行を除く）
+	 */
+	public long writetoExcel(Stream<T> data, Class<T> clazz)
+	{
+		// データが存在しない場合は処理しない
+		if (data == null) return 0;
+
+		return writetoExcel(data.iterator(), clazz);
+	}
+
+	/**
+	 * イテレータのデータをExcelに出力します。<br>
+	 * データは1行ずつ取得して出力するため、すべてのデータをメモリ上に保持する必要はありません。
+	 * @param data イテレータのデータ
+	 * @param clazz 描画対象のクラス
+	 * @return 出力した行数（タイトル行を除く）
+	 */
+	public long writetoExcel(Iterator<T> data, Class<T> clazz)
+	{
+		// データが存在しない場合は処理しない
+		if (data == null || !data.hasNext()) return 0;
+
+		synchronized (lock)
+		{
+			// ExcelSheet注釈が付いていない場合は処理対象外
+			Session session = openSession(clazz);
+			if (session == null) return 0;
+
+			try
+			{
+				while (data.hasNext())
+				{
+					session.write(data.next());
+				}
+			}
+			catch (RuntimeException | Error e)
+			{
+				session.abort();
+				throw e;
+			}
+
+			return session.finish();
+		}
+	}
+
+	/**
+	 * 1件ずつデータを受け取って出力する処理を開始します。<br>
+	 * 受け取る側が出力を進める場合（<code>ExcelPoiSubscriber</code>）に使用します。呼び出し元で同じブックへの他の出力と同時に実行しないでください。
+	 * @param clazz 描画対象のクラス
+	 * @return 出力処理（<code>ExcelSheet</code>注釈が付いていない場合は<code>null</code>）
+	 */
+	Session openSession(Class<T> clazz)
+	{
+		long start = System.nanoTime();
+
+		// ジェネリクス型のマッピングを取得
+		ExcelPoiMapping<T> mapping = getMapping(clazz);
+		if (mapping.getSheet() == null) return null;
+
+		Session session = new Session(clazz, mapping);
+		listener.onPhase(EnumPhase.PLAN, clazz, System.nanoTime() - start);
+
+		return session;
+	}
+
+	/**
+	 * シートの最大行数に達した場合にシートを追加して出力を継続するか否かを取得します。
+	 * @return シートを追加する場合<code>true</code>
+	 */
+	public boolean isSheetRollover()
+	{
+		return this.sheet_rollover;
+	}
+
+	/**
+	 * シートの最大行数に達した場合にシートを追加して出力を継続するか否かを設定します。<br>
+	 * 追加するシートの名前は「<code>ExcelSheet</code>注釈のシート名 (連番)」となり、タイトル行、フィルター、ウィンドウ枠の固定も設定します。
+	 * @param sheet_rollover シートを追加する場合<code>true</code>
+	 */
+	public void setSheetRollover(boolean sheet_rollover)
+	{
+		this.sheet_rollover = sheet_rollover;
+	}
+
+	/**
+	 * 1シートの最大行数（タイトル行を含む）を取得します。
+	 * @return 最大行数
+	 */
+	public int getSheetRowLimit()
+	{
+		return Math.min(this.sheet_row_limit, workbook.getSpreadsheetVersion().getMaxRows());
+	}
+
+	/**
+	 * 1シートの最大行数（タイトル行を含む）を設定します。<br>
+	 * 既定値はExcelの形式の最大行数（<code>XSSF</code>形式は1,048,576行、<code>HSSF</code>形式は65,536行）です。
+	 * Excelの形式の最大行数を超える値は指定できません。
+	 * @param sheet_row_limit 最大行数
+	 */
+	public void setSheetRowLimit(int sheet_row_limit)
+	{
+		if (sheet_row_limit <= 0 || sheet_row_limit > workbook.getSpreadsheetVersion().getMaxRows())
+		{
+			throw new IllegalArgumentException(String.format("最大行数は1～%d行の範囲で指定してください。", workbook.getSpreadsheetVersion().getMaxRows()));
+		}
+		this.sheet_row_limit = sheet_row_limit;
+	}
+
+	/**
+	 * 出力後の計算式の再計算方法を取得します。
+	 * @return 再計算方法
+	 */
+	public EnumFormulaEvaluation getFormulaEvaluation()
+	{
+		return this.formula_evaluator.getEvaluation();
+	}
+
+	/**
+	 * 出力後の計算式の再計算方法を設定します。<br>
+	 * 既定値は{@link EnumFormulaEvaluation#ALL}です。
+	 * @param evaluation 再計算方法
+	 */
+	public void setFormulaEvaluation(EnumFormulaEvaluation evaluation)
+	{
+		this.formula_evaluator.setEvaluation(evaluation);
+	}
+
+	/**
+	 * 計測結果を受け取るリスナーを取得します。
+	 * @return リスナー
+	 */
+	public ExcelPoiListener getListener()
+	{
+		return this.listener;
+	}
+
+	/**
+	 * 計測結果を受け取るリスナーを設定します。<br>
+	 * 工程（出力準備、タイトル行、データ行、計算式の再計算、ファイルへの書き出し）ごとの処理時間等を通知します。
+	 * @param listener リスナー（<code>null</code>の場合は通知しない）
+	 */
+	public void setListener(ExcelPoiListener listener)
+	{
+		this.listener = listener == null ? ExcelPoiListener.NONE : listener;
+	}
+
+	/**
+	 * 推定メモリ使用量の上限を取得します。
+	 * @return 上限（バイト）、0の場合は切り替えない
+	 */
+	public long getMemoryBudget()
+	{
+		return this.memory_budget;
+	}
+
+	/**
+	 * 推定メモリ使用量の上限を設定します。<br>
+	 * <code>XSSF</code>形式で出力中に、出力した行数から推定したメモリ使用量が上限を超えた場合、
+	 * 出力済みの行をメモリ上に残したままストリーミング形式（<code>SXSSF</code>）に切り替え、以降の行は一時ファイルに書き出します。
+	 * 切り替え後は出力後の計算式の再計算を行いません。<br>
+	 * 切り替え後の行は呼び出し元が保持する<code>XSSF</code>形式のブックには含まれないため、
+	 * 呼び出し元が指定した<code>Workbook</code>オブジェクトに出力する場合は設定できません。
+	 * @param memory_budget 上限（バイト）、0の場合は切り替えない
+	 * @param row_access_window 切り替え後にメモリ上に保持する行数
+	 * @throws IllegalArgumentException 上限が負の値の場合、または行数が1以上でない場合
+	 * @throws IllegalStateException 呼び出し元が指定した<code>Workbook</code>オブジェクトに上限を設定する場合
+	 */
+	public void setMemoryBudget(long memory_budget, int row_access_window)
+	{
+		if (memory_budget < 0) throw new IllegalArgumentException("推定メモリ使用量の上限は0以上を指定してください。");
+		if (row_access_window <= 0) throw new IllegalArgumentException("メモリ上に保持する行数は1以上を指定してください。");
+		if (memory_budget > 0 && !owned) throw new IllegalStateException("指定されたWorkbookオブジェクトはストリーミング形式に切り替えられません。");
+		this.memory_budget = memory_budget;
+		this.switch_row_access_window = row_access_window;
+	}
+
+	/**
+	 * <code>XSSF</code>形式で出力した行の推定メモリ使用量を取得します。
+	 * @return 推定メモリ使用量（バイト）、上限を設定していない場合は固定の使用量のみ
+	 */
+	public long getEstimatedMemory()
+	{
+		return this.estimated_memory;
+	}
+
+	/**
+	 * セルスタイルのプールを取得します。<br>
+	 * 同じ<code>Workbook</code>オブジェクトに出力する処理の間で共有されます。
+	 * @return セルスタイルのプール
+	 */
+	public ExcelPoiStylePool getStylePool()
+	{
+		return this.style_pool;
+	}
+
+	/**
+	 * ストリーミング形式（<code>SXSSF</code>）のExcelを作成しているか否かを取得します。
+	 * @return ストリーミング形式の場合<code>true</code>
+	 */
+	public boolean isStreaming()
+	{
+		return this.workbook instanceof SXSSFWorkbook;
+	}
+
+	/**
+	 * <code>Workbook</code>オブジェクトを取得します。<br>
+	 * 取得した場合、{@link #close()}では<code>Workbook</code>オブジェクトを閉じません（出力済みでない場合、ストリーミング形式の一時ファイルも削除しません）。
+	 * @return <code>Workbook</code>オブジェクト
+	 */
+	public Workbook getWorkbook()
+	{
+		this.closeable = false;
+		return this.workbook;
+	}
+
+	/**
+	 * ストリームに出力します。
+	 * @param stream 出力ストリーム
+	 * @throws IOException
+	 */
+	public void write(OutputStream stream)
+			throws IOException
+	{
+		long start = System.nanoTime();
+		ExcelPoiCountingStream counting_stream = new ExcelPoiCountingStream(stream);
+		workbook.write(counting_stream);
+		this.written = true;
+
+		listener.onPhase(EnumPhase.SERIALIZATION, null, System.nanoTime() - start);
+		listener.onWritten(counting_stream.getCount(), workbook.getNumCellStyles());
+	}
+
+	/**
+	 * <code>XSSF</code>形式のブックを元にストリーミング形式のブックを作成し、出力先を切り替えます。<br>
+	 * セルスタイルは元のブックと共有するため、セルスタイルのプールは引き続き利用します。
+	 * @param sheet_writer 出力中のシート
+	 */
+	private void switchToStreaming(ExcelPoiSheetWriter<T> sheet_writer)
+	{
+		SXSSFWorkbook streaming = new SXSSFWorkbook((XSSFWorkbook)this.workbook, this.switch_row_access_window);
+		sheet_writer.switchWorkbook(streaming);
+
+		EnumFormulaEvaluation evaluation = this.formula_evaluator.getEvaluation();
+		this.workbook = streaming;
+		this.formula_evaluator = new ExcelPoiFormulaEvaluator(streaming);
+		this.formula_evaluator.setEvaluation(evaluation);
+	}
+
+	/**
+	 * 1件ずつ受け取ったデータを1つのシート（ロールオーバーした場合は後続のシートを含む）に出力する処理
+	 */
+	final class Session
+	{
+		private final Class<T> clazz;
+		private final ExcelPoiSheetWriter<T> sheet_writer;
+		private final long start;
+		private long row_bytes;
+
+		/**
+		 * コンストラクタ
+		 * @param clazz 描画対象のクラス
+		 * @param mapping 描画対象のクラスのマッピング
+		 */
+		private Session(Class<T> clazz, ExcelPoiMapping<T> mapping)
+		{
+			this.clazz = clazz;
+			this.sheet_writer = new ExcelPoiSheetWriter<>(workbook, lock, mapping, style_pool, sheet_row_limit, sheet_rollover, listener);
+
+			// 推定メモリ使用量の上限を設定した場合は1行ごとに加算（XSSF形式の場合のみ）
+			this.row_bytes = (memory_budget > 0 && workbook instanceof XSSFWorkbook) ? ExcelPoiEngineSelector.estimateRowBytes(mapping) : 0;
+			this.start = System.nanoTime();
+		}
+
+		/**
+		 * 1行を出力します。
+		 * @param entity 描画対象のデータ
+		 * @throws IllegalStateException ロールオーバーせずにシートの最大行数を超えた場合
+		 */
+		void write(T entity)
+		{
+			sheet_writer.write(entity);
+
+			// 上限に達した場合はストリーミング形式に切り替え
+			if (row_bytes > 0 && (estimated_memory += row_bytes) > memory_budget)
+			{
+				switchToStreaming(sheet_writer);
+				row_bytes = 0;
+			}
+		}
+
+		/**
+		 * 出力を終了します。項目幅の設定、計算式の再計算を行います。
+		 * @return 出力した行数（タイトル行を除く）
+		 */
+		long finish()
+		{
+			try
+			{
+				sheet_writer.applyColumnWidths();
+			}
+			finally
+			{
+				reportRows();
+			}
+
+			// 計算式の再計算（ストリーミング形式の場合、書き出し済みの行は参照できないため再計算しない）
+			long evaluation_start = System.nanoTime();
+			sheet_writer.getSheets().forEach(formula_evaluator::touch);
+			formula_evaluator.evaluate();
+			listener.onPhase(EnumPhase.FORMULA_EVALUATION, clazz, System.nanoTime() - evaluation_start);
+
+			return sheet_writer.getRowCount();
+		}
+
+		/**
+		 * 出力を中断します。出力済みの行は残したまま、計測結果のみ通知します。
+		 */
+		void abort()
+		{
+			reportRows();
+		}
+
+		/**
+		 * 値の描画の計測結果を通知します。
+		 */
+		private void reportRows()
+		{
+			// 値の描画（シートの作成、タイトル行の描画は別に通知）
+			listener.onPhase(EnumPhase.TITLE, clazz, sheet_writer.getTitleNanos());
+			listener.onPhase(EnumPhase.ROWS, clazz, System.nanoTime() - start - sheet_writer.getTitleNanos());
+			listener.onRows(clazz, sheet_writer.getRowCount(), sheet_writer.getCellCount());
+		}
+
+		/**
+		 * 出力した行数を取得します。
+		 * @return 出力した行数（タイトル行を除く）
+		 */
+		long getRowCount()
+		{
+			return sheet_writer.getRowCount();
+		}
+	}
+
+	/**
+	 * 終了処理。<code>Workbook</code>オブジェクトを閉じます。<br>
+	 * ストリーミング形式の場合、出力済みであれば<code>Workbook</code>オブジェクトを取得していても一時ファイルを削除します。
+	 */
+	@Override
+	public void close()
+			throws IOException
+	{
+		try
+		{
+			// Springで利用する場合、閉じてしまうと出力できないため
+			if (this.closeable) this.workbook.close();
+		}
+		finally
+		{
+			// 一時ファイルの削除
+			if (isStreaming() && (this.closeable || this.written)) ((SXSSFWorkbook)this.workbook).dispose();
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package utility.poi;
+
+import utility.poi.constant.EnumPhase;
+
+/**
+ * 出力処理の計測結果を受け取るリスナーのインターフェース<br>
+ * 工程ごとの処理時間、出力した行数、セル数、値の変換に失敗した項目、書き出したバイト数を通知します。
+ * 必要な通知のみ実装してください。通知は出力処理のスレッドで呼び出されるため、時間のかかる処理は行わないでください。
+ * @author Takeshi
+ *
+ */
+public interface ExcelPoiListener
+{
+	/** 何もしないリスナー（既定値） */
+	ExcelPoiListener NONE = new ExcelPoiListener() { };
+
+	/**
+	 * 工程の処理時間を通知します。
+	 * @param phase 工程
+	 * @param entity_class 描画対象のクラス（ファイルへの書き出しの場合は<code>null</code>）
+	 * @param nanos 処理時間（ナノ秒）
+	 */
+	default void onPhase(EnumPhase phase, Class<?> entity_class, long nanos)
+	{
+	}
+
+	/**
+	 * 出力した行数、セル数を通知します。
+	 * @param entity_class 描画対象のクラス
+	 * @param rows 出力した行数（タイトル行を除く。テンプレートの場合は繰り返し領域の要素数）
+	 * @param cells 出力したセル数
+	 */
+	default void onRows(Class<?> entity_class, long rows, long cells)
+	{
+	}
+
+	/**
+	 * 値の取得、変換、セルへの設定に失敗した項目を通知します。<br>
+	 * 失敗した項目は出力されず、処理は継続します。
+	 * @param entity_class 描画対象のクラス
+	 * @param field_name フィールド名
+	 * @param exception 発生した例外
+	 */
+	default void onConversionFailure(Class<?> entity_class, String field_name, RuntimeException exception)
+	{
+	}
+
+	/**
+	 * ファイルへの書き出し結果を通知します。
+	 * @param bytes 書き出したバイト数
+	 * @param style_count ブックのセルスタイル数
+	 */
+	default void onWritten(long bytes, int style_count)
+	{
+	}
+}
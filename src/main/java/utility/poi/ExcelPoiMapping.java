@@ -0,0 +1,255 @@
+package utility.poi;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import utility.poi.annotation.ExcelAddress;
+import utility.poi.annotation.ExcelColumn;
+import utility.poi.annotation.ExcelRepeat;
+import utility.poi.annotation.ExcelSheet;
+
+/**
+ * 描画対象のクラスの注釈、ゲッターメソッドを解析した出力情報（マッピング）を保持するクラス<br>
+ * クラス単位に一度だけ作成してキャッシュします。インスタンスは不変であり、スレッド間で共有できます。
+ * @author Takeshi
+ *
+ * @param <T> 描画対象のクラス
+ */
+public final class ExcelPoiMapping<T>
+{
+	/** クラス単位のキャッシュ（クラスのアンロードを妨げないよう<code>ClassValue</code>を利用） */
+	private static final ClassValue<ExcelPoiMapping<?>> CACHE = new ClassValue<>()
+	{
+		@Override
+		protected ExcelPoiMapping<?> computeValue(Class<?> type)
+		{
+			return new ExcelPoiMapping<>(type);
+		}
+	};
+
+	private final Class<T> entity_class;
+	private final ExcelSheet sheet;
+	private final ExcelPoiStyle title_style;
+	private final List<ExcelPoiColumn> columns;
+	private final List<ExcelPoiColumn> addresses;
+	private final List<ExcelPoiColumn> repeats;
+	private final int generation;
+	private volatile Supplier<Object> constructor;
+
+	/**
+	 * コンストラクタ
+	 * @param entity_class 描画対象のクラス
+	 */
+	private ExcelPoiMapping(Class<T> entity_class)
+	{
+		int generation = ExcelPoiConverters.getGeneration();
+		List<ExcelPoiColumn> columns = new ArrayList<>();
+		List<ExcelPoiColumn> addresses = new ArrayList<>();
+		List<ExcelPoiColumn> repeats = new ArrayList<>();
+		ExcelPoiRowWriter<?> generated = findGeneratedWriter(entity_class);
+
+		for (Field field : entity_class.getDeclaredFields())
+		{
+			// 注釈の付いていないフィールドは対象外
+			if (field.getAnnotation(ExcelColumn.class) == null && field.getAnnotation(ExcelAddress.class) == null && field.getAnnotation(ExcelRepeat.class) == null) continue;
+
+			ExcelPoiColumn column = new ExcelPoiColumn(field, getGetterMethod(entity_class, field, !isFormulaOnly(field)), getSetterMethod(entity_class, field), generated);
+			if (column.getColumn() != null) columns.add(column);
+			if (column.getAddress() != null) addresses.add(column);
+			if (column.getRepeat() != null) repeats.add(column);
+		}
+
+		this.entity_class = entity_class;
+		this.sheet = entity_class.getAnnotation(ExcelSheet.class);
+		this.title_style = generated != null ? generated.getTitleStyle() : this.sheet == null ? null : ExcelPoiStyle.of(this.sheet.style());
+		this.columns = Collections.unmodifiableList(columns);
+		this.addresses = Collections.unmodifiableList(addresses);
+		this.repeats = Collections.unmodifiableList(repeats);
+		this.generation = generation;
+	}
+
+	/**
+	 * 描画対象のクラスのマッピングを取得します。<br>
+	 * 初回のみ注釈を解析し、以降はキャッシュを返却します。<br>
+	 * 変換処理の登録状態が変更されている場合は再作成します。
+	 * @param <T> 描画対象のクラス
+	 * @param entity_class 描画対象のクラス
+	 * @return マッピング
+	 * @throws IllegalArgumentException 注釈が付いたフィールドにゲッターメソッドが存在しない場合（計算式のみを出力する項目を除く）
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> ExcelPoiMapping<T> of(Class<T> entity_class)
+	{
+		ExcelPoiMapping<?> mapping = CACHE.get(entity_class);
+		if (mapping.generation != ExcelPoiConverters.getGeneration())
+		{
+			CACHE.remove(entity_class);
+			mapping = CACHE.get(entity_class);
+		}
+
+		return (ExcelPoiMapping<T>)mapping;
+	}
+
+	/**
+	 * 描画対象のクラスを取得します。
+	 * @return 描画対象のクラス
+	 */
+	public Class<T> getEntityClass()
+	{
+		return this.entity_class;
+	}
+
+	/**
+	 * クラスに指定されているシート注釈を取得します。
+	 * @return <code>ExcelSheet</code>注釈（指定されていない場合は<code>null</code>）
+	 */
+	public ExcelSheet getSheet()
+	{
+		return this.sheet;
+	}
+
+	/**
+	 * タイトル行のセルスタイルの設定値を取得します。
+	 * @return セルスタイルの設定値（<code>ExcelSheet</code>注釈が指定されていない場合は<code>null</code>）
+	 */
+	public ExcelPoiStyle getTitleStyle()
+	{
+		return this.title_style;
+	}
+
+	/**
+	 * <code>ExcelColumn</code>注釈が付いた項目を宣言順に取得します。
+	 * @return 項目のリスト
+	 */
+	public List<ExcelPoiColumn> getColumns()
+	{
+		return this.columns;
+	}
+
+	/**
+	 * <code>ExcelAddress</code>注釈が付いた項目を宣言順に取得します。
+	 * @return 項目のリスト
+	 */
+	public List<ExcelPoiColumn> getAddresses()
+	{
+		return this.addresses;
+	}
+
+	/**
+	 * <code>ExcelRepeat</code>注釈が付いた項目を宣言順に取得します。
+	 * @return 項目のリスト
+	 */
+	public List<ExcelPoiColumn> getRepeats()
+	{
+		return this.repeats;
+	}
+
+	/**
+	 * 引数なしのコンストラクタでインスタンスを生成します。<br>
+	 * Excelから読み込んだ値を設定するインスタンスの生成に利用します。
+	 * @return 描画対象のクラスのインスタンス
+	 * @throws IllegalArgumentException 公開された引数なしのコンストラクタが存在しない場合
+	 */
+	public T newInstance()
+	{
+		Supplier<Object> current = this.constructor;
+		if (current == null) this.constructor = current = ExcelPoiAccessors.createConstructor(entity_class);
+		return entity_class.cast(current.get());
+	}
+
+	/**
+	 * アノテーションプロセッサが生成した出力クラスを取得します。<br>
+	 * 描画対象のクラスと同じクラスローダーから「クラス名 + <code>_ExcelPoiWriter</code>」のクラスを検索します。
+	 * @param entity_class 描画対象のクラス
+	 * @return 出力クラスのインスタンス（生成されていない場合は<code>null</code>）
+	 */
+	private static ExcelPoiRowWriter<?> findGeneratedWriter(Class<?> entity_class)
+	{
+		try
+		{
+			Class<?> writer_class = Class.forName(entity_class.getName() + ExcelPoiRowWriter.SUFFIX, true, entity_class.getClassLoader());
+			if (!ExcelPoiRowWriter.class.isAssignableFrom(writer_class)) return null;
+
+			ExcelPoiRowWriter<?> writer = (ExcelPoiRowWriter<?>)writer_class.getConstructor().newInstance();
+			return writer.getEntityClass() == entity_class ? writer : null;
+		}
+		catch (ClassNotFoundException | LinkageError exp)
+		{
+			return null;
+		}
+		catch (ReflectiveOperationException | RuntimeException exp)
+		{
+			exp.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * フィールドが計算式のみを出力する項目（<code>ExcelColumn.formula</code>を指定し、他の出力注釈がない）かを判定します。<br>
+	 * 項目値を参照しないため、ゲッターメソッドは必須としません。
+	 * @param field フィールド
+	 * @return 計算式のみを出力する項目の場合<code>true</code>
+	 */
+	private static boolean isFormulaOnly(Field field)
+	{
+		ExcelColumn column = field.getAnnotation(ExcelColumn.class);
+		return column != null && ExcelPoiFormula.of(column.formula()) != null && field.getAnnotation(ExcelAddress.class) == null && field.getAnnotation(ExcelRepeat.class) == null;
+	}
+
+	/**
+	 * フィールドのゲッターメソッドを取得します。<br>
+	 * <code>boolean</code>型の場合は<code>is</code>で始まるメソッドを優先します。
+	 * @param entity_class 描画対象のクラス
+	 * @param field フィールド
+	 * @param required ゲッターメソッドが必須の場合<code>true</code>
+	 * @return ゲッターメソッド（必須でなく、存在しない場合は<code>null</code>）
+	 * @throws IllegalArgumentException 必須のゲッターメソッドが存在しない場合
+	 */
+	private static Method getGetterMethod(Class<?> entity_class, Field field, boolean required)
+	{
+		String name = Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+
+		if (field.getType() == boolean.class)
+		{
+			try
+			{
+				return entity_class.getMethod("is" + name);
+			}
+			catch (NoSuchMethodException exp) { }
+		}
+
+		try
+		{
+			return entity_class.getMethod("get" + name);
+		}
+		catch (NoSuchMethodException exp)
+		{
+			if (!required) return null;
+			throw new IllegalArgumentException(String.format("%s.%s にゲッターメソッドが存在しません。", entity_class.getName(), field.getName()), exp);
+		}
+	}
+
+	/**
+	 * フィールドのセッターメソッドを取得します。
+	 * @param entity_class 描画対象のクラス
+	 * @param field フィールド
+	 * @return セッターメソッド（存在しない場合は<code>null</code>）
+	 */
+	private static Method getSetterMethod(Class<?> entity_class, Field field)
+	{
+		String name = Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+
+		try
+		{
+			return entity_class.getMethod("set" + name, field.getType());
+		}
+		catch (NoSuchMethodException exp)
+		{
+			return null;
+		}
+	}
+}
@@ -0,0 +1,314 @@
+package utility.poi;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * 複数のシートを並列に出力するユーティリティクラス<br>
+ * {@link #addSheet(Iterable, Class)}で登録したシートを、シート単位にスレッドを割り当てて出力します。<br>
+ * <code>SXSSF</code>形式ではシートごとに独立した一時ファイルへ行を書き出し、文字列はセルに直接保持するため、
+ * シート間で共有するのはセルスタイル（スタイルプール）のみです。
+ * <code>SXSSF</code>形式以外の<code>Workbook</code>オブジェクトは共有文字列テーブルを排他できないため、呼び出し元のスレッドで順に出力します。
+ * @author Takeshi
+ *
+ */
+public class ExcelPoiParallelGenerator implements Closeable
+{
+	/** シートの作成、並べ替え等のブック単位の処理を排他するオブジェクト（同じブックに出力するすべての出力処理で共有） */
+	private final Object lock;
+
+	private final Workbook workbook;
+	private final ExcelPoiStylePool style_pool;
+	private final List<SheetTask<?>> tasks = new ArrayList<>();
+	private Executor executor = ForkJoinPool.commonPool();
+	private boolean sheet_rollover = false;
+	private int sheet_row_limit = Integer.MAX_VALUE;
+	private boolean closeable = true;
+	private boolean written = false;
+
+	/**
+	 * コンストラクタ
+	 * <code>SXSSF</code>形式（ストリーミング）のExcelを作成します。
+	 * @param row_access_window メモリ上に保持する行数（シート単位）
+	 * @param compress_tmp_files 一時ファイルを圧縮する場合<code>true</code>
+	 */
+	public ExcelPoiParallelGenerator(int row_access_window, boolean compress_tmp_files)
+	{
+		this(new SXSSFWorkbook(null, row_access_window, compress_tmp_files));
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param workbook <code>Workbook</code>オブジェクト
+	 */
+	public ExcelPoiParallelGenerator(Workbook workbook)
+	{
+		this.workbook = workbook;
+		this.lock = ExcelPoiSheetWriter.getLock(this.workbook);
+		this.style_pool = ExcelPoiStylePool.of(this.workbook);
+	}
+
+	/**
+	 * 出力するシートを登録します。<br>
+	 * シートは登録順に作成します。
+	 * @param <E> 描画対象のクラス
+	 * @param data 反復可能なデータ
+	 * @param clazz 描画対象のクラス（<code>ExcelSheet</code>注釈が必要です）
+	 * @return 本オブジェクト
+	 * @throws IllegalArgumentException <code>ExcelSheet</code>注釈が指定されていない場合
+	 */
+	public <E> ExcelPoiParallelGenerator addSheet(Iterable<E> data, Class<E> clazz)
+	{
+		ExcelPoiMapping<E> mapping = ExcelPoiMapping.of(clazz);
+		if (mapping.getSheet() == null) throw new IllegalArgumentException(String.format("%s に ExcelSheet 注釈が存在しません。", clazz.getName()));
+
+		this.tasks.add(new SheetTask<>(data, mapping));
+		return this;
+	}
+
+	/**
+	 * 出力するシートを登録します。<br>
+	 * ストリームは出力時に1回だけ反復します。ストリームは閉じないため、呼び出し元で閉じてください。
+	 * @param <E> 描画対象のクラス
+	 * @param data ストリームのデータ
+	 * @param clazz 描画対象のクラス（<code>ExcelSheet</code>注釈が必要です）
+	 * @return 本オブジェクト
+	 * @throws IllegalArgumentException <code>ExcelSheet</code>注釈が指定されていない場合
+	 */
+	public <E> ExcelPoiParallelGenerator addSheet(Stream<E> data, Class<E> clazz)
+	{
+		return addSheet(data::iterator, clazz);
+	}
+
+	/**
+	 * 登録したシートを出力します。<br>
+	 * シートを登録順に作成してから各シートの行を並列に出力し、すべてのシートの出力完了を待ち合わせます。
+	 * ロールオーバーで追加したシートは元のシートの直後に並べ替えます。出力後、登録したシートは解除します。
+	 * @return 出力した行数の合計（タイトル行を除く）
+	 * @throws IllegalStateException シートの最大行数を超え、ロールオーバーしない場合
+	 */
+	public long writetoExcel()
+	{
+		// シートが登録されていない場合は処理しない
+		if (this.tasks.isEmpty()) return 0;
+
+		List<SheetTask<?>> current = new ArrayList<>(this.tasks);
+		this.tasks.clear();
+
+		// シートの順序を確定するため、最初のシートを登録順に作成
+		for (SheetTask<?> task : current) task.open();
+
+		// シート単位に並列に出力
+		if (isStreaming())
+		{
+			List<CompletableFuture<Void>> futures = new ArrayList<>();
+			for (SheetTask<?> task : current) futures.add(CompletableFuture.runAsync(task::write, executor));
+
+			try
+			{
+				CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+			}
+			catch (CompletionException exp)
+			{
+				if (exp.getCause() instanceof RuntimeException) throw (RuntimeException)exp.getCause();
+				if (exp.getCause() instanceof Error) throw (Error)exp.getCause();
+				throw exp;
+			}
+		}
+		else
+		{
+			current.forEach(SheetTask::write);
+		}
+
+		// ロールオーバーしたシートを元のシートの直後に並べ替え
+		synchronized (lock)
+		{
+			int position = workbook.getSheetIndex(current.get(0).writer.getSheets().get(0));
+			for (SheetTask<?> task : current)
+			{
+				for (Sheet sheet : task.writer.getSheets()) workbook.setSheetOrder(sheet.getSheetName(), position++);
+			}
+		}
+
+		return current.stream().mapToLong(t -> t.writer.getRowCount()).sum();
+	}
+
+	/**
+	 * シートを出力するスレッドの実行環境を取得します。
+	 * @return 実行環境
+	 */
+	public Executor getExecutor()
+	{
+		return this.executor;
+	}
+
+	/**
+	 * シートを出力するスレッドの実行環境を設定します。<br>
+	 * 既定値は<code>ForkJoinPool.commonPool()</code>です。シートの数がCPUのコア数を超える場合は、コア数に合わせたスレッドプールを指定してください。
+	 * @param executor 実行環境
+	 */
+	public void setExecutor(Executor executor)
+	{
+		if (executor == null) throw new IllegalArgumentException("実行環境を指定してください。");
+		this.executor = executor;
+	}
+
+	/**
+	 * シートの最大行数に達した場合にシートを追加して出力を継続するか否かを取得します。
+	 * @return シートを追加する場合<code>true</code>
+	 */
+	public boolean isSheetRollover()
+	{
+		return this.sheet_rollover;
+	}
+
+	/**
+	 * シートの最大行数に達した場合にシートを追加して出力を継続するか否かを設定します。
+	 * @param sheet_rollover シートを追加する場合<code>true</code>
+	 */
+	public void setSheetRollover(boolean sheet_rollover)
+	{
+		this.sheet_rollover = sheet_rollover;
+	}
+
+	/**
+	 * 1シートの最大行数（タイトル行を含む）を取得します。
+	 * @return 最大行数
+	 */
+	public int getSheetRowLimit()
+	{
+		return Math.min(this.sheet_row_limit, workbook.getSpreadsheetVersion().getMaxRows());
+	}
+
+	/**
+	 * 1シートの最大行数（タイトル行を含む）を設定します。
+	 * @param sheet_row_limit 最大行数
+	 */
+	public void setSheetRowLimit(int sheet_row_limit)
+	{
+		if (sheet_row_limit <= 0 || sheet_row_limit > workbook.getSpreadsheetVersion().getMaxRows())
+		{
+			throw new IllegalArgumentException(String.format("最大行数は1～%d行の範囲で指定してください。", workbook.getSpreadsheetVersion().getMaxRows()));
+		}
+		this.sheet_row_limit = sheet_row_limit;
+	}
+
+	/**
+	 * セルスタイルのプールを取得します。
+	 * @return セルスタイルのプール
+	 */
+	public ExcelPoiStylePool getStylePool()
+	{
+		return this.style_pool;
+	}
+
+	/**
+	 * ストリーミング形式（<code>SXSSF</code>）のExcelを作成しているか否かを取得します。<br>
+	 * ストリーミング形式の場合のみ並列に出力します。
+	 * @return ストリーミング形式の場合<code>true</code>
+	 */
+	public boolean isStreaming()
+	{
+		return this.workbook instanceof SXSSFWorkbook;
+	}
+
+	/**
+	 * <code>Workbook</code>オブジェクトを取得します。
+	 * @return <code>Workbook</code>オブジェクト
+	 */
+	public Workbook getWorkbook()
+	{
+		this.closeable = false;
+		return this.workbook;
+	}
+
+	/**
+	 * ストリームに出力します。
+	 * @param stream 出力ストリーム
+	 * @throws IOException
+	 */
+	public void write(OutputStream stream)
+			throws IOException
+	{
+		workbook.write(stream);
+		this.written = true;
+	}
+
+	/**
+	 * 終了処理。<code>Workbook</code>オブジェクトを閉じます。<br>
+	 * ストリーミング形式の場合、出力済みであれば<code>Workbook</code>オブジェクトを取得していても一時ファイルを削除します。
+	 */
+	@Override
+	public void close()
+			throws IOException
+	{
+		try
+		{
+			if (this.closeable) this.workbook.close();
+		}
+		finally
+		{
+			// 一時ファイルの削除
+			if (isStreaming() && (this.closeable || this.written)) ((SXSSFWorkbook)this.workbook).dispose();
+		}
+	}
+
+	/**
+	 * 1シート分の出力処理
+	 * @param <E> 描画対象のクラス
+	 */
+	private final class SheetTask<E>
+	{
+		private final Iterable<E> data;
+		private final ExcelPoiMapping<E> mapping;
+		private ExcelPoiSheetWriter<E> writer;
+
+		/**
+		 * コンストラクタ
+		 * @param data 反復可能なデータ
+		 * @param mapping 描画対象のクラスのマッピング
+		 */
+		SheetTask(Iterable<E> data, ExcelPoiMapping<E> mapping)
+		{
+			this.data = data;
+			this.mapping = mapping;
+		}
+
+		/**
+		 * 最初のシートを作成します。
+		 */
+		void open()
+		{
+			this.writer = new ExcelPoiSheetWriter<>(workbook, lock, mapping, style_pool, sheet_row_limit, sheet_rollover, ExcelPoiListener.NONE);
+			this.writer.open();
+		}
+
+		/**
+		 * 行を出力します。
+		 */
+		void write()
+		{
+			if (data == null) return;
+
+			Iterator<E> iterator = data.iterator();
+			while (iterator.hasNext())
+			{
+				writer.write(iterator.next());
+			}
+			writer.applyColumnWidths();
+		}
+	}
+}
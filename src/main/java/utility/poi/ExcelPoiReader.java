@@ -0,0 +1,619 @@
+package utility.poi;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.SAXException;
+
+import utility.poi.annotation.ExcelSheet;
+
+/**
+ * Excel(xlsx)のシートを1行ずつ読み込み、クラスインスタンスに変換するクラス<br>
+ * <code>ExcelSheet</code>注釈のシート名、開始位置、<code>ExcelColumn</code>注釈の項目名（タイトル行がない場合は位置）で項目を対応付けます。<br>
+ * シートのXMLを先頭から順に解析し、共有文字列は読み込み専用のテーブルで参照するため、ワークブック全体をメモリに展開しません。
+ * @author Takeshi
+ *
+ * @param <T> 読み込み対象のクラス
+ */
+public class ExcelPoiReader<T> implements Closeable
+{
+	private final ExcelPoiMapping<T> mapping;
+	private final OPCPackage pkg;
+	private final Path temporary;
+	private final XSSFReader reader;
+	private final ReadOnlySharedStringsTable shared_strings;
+	private final StylesTable styles;
+	private final boolean date1904;
+	private final Map<Integer, Boolean> date_styles = new HashMap<>();
+	private final Function<Object, Object>[] value_readers;
+
+	/**
+	 * コンストラクタ
+	 * @param entity_class 読み込み対象のクラス
+	 * @param file Excelファイル
+	 * @throws IOException ファイルの読み込みに失敗した場合
+	 * @throws IllegalArgumentException <code>ExcelSheet</code>注釈が指定されていない場合
+	 */
+	public ExcelPoiReader(Class<T> entity_class, File file) throws IOException
+	{
+		this(entity_class, file.toPath(), false);
+	}
+
+	/**
+	 * コンストラクタ<br>
+	 * 入力ストリームの内容は一時ファイルに複製し、{@link #close()}で削除します。
+	 * @param entity_class 読み込み対象のクラス
+	 * @param stream Excelファイルの入力ストリーム
+	 * @throws IOException ファイルの読み込みに失敗した場合
+	 * @throws IllegalArgumentException <code>ExcelSheet</code>注釈が指定されていない場合
+	 */
+	public ExcelPoiReader(Class<T> entity_class, InputStream stream) throws IOException
+	{
+		this(entity_class, copyToTemporary(stream), true);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param entity_class 読み込み対象のクラス
+	 * @param path Excelファイル
+	 * @param temporary 一時ファイルの場合<code>true</code>
+	 * @throws IOException ファイルの読み込みに失敗した場合
+	 */
+	private ExcelPoiReader(Class<T> entity_class, Path path, boolean temporary) throws IOException
+	{
+		this.temporary = temporary ? path : null;
+		this.mapping = ExcelPoiMapping.of(entity_class);
+
+		try
+		{
+			if (mapping.getSheet() == null) throw new IllegalArgumentException(String.format("%s に ExcelSheet 注釈が存在しません。", entity_class.getName()));
+
+			// 項目の型に応じた変換処理を選択
+			List<ExcelPoiColumn> columns = mapping.getColumns();
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			Function<Object, Object>[] value_readers = new Function[columns.size()];
+			this.value_readers = value_readers;
+			for (int i = 0; i < columns.size(); i++)
+			{
+				ExcelPoiColumn column = columns.get(i);
+
+				// ゲッターメソッドが存在しない項目（計算式のみを出力する項目）は読み込まない
+				if (column.getGetter() == null) continue;
+
+				Function<Object, Object> value_reader = ExcelPoiValueReaders.getValueReader(column.getGetter().getGenericReturnType());
+				if (value_reader != null && column.getColumn().trim()) value_reader = trimText(value_reader);
+				this.value_readers[i] = (column.getSetter() == null) ? null : value_reader;
+			}
+
+			this.pkg = OPCPackage.open(path.toFile(), PackageAccess.READ);
+		}
+		catch (InvalidFormatException | RuntimeException exp)
+		{
+			deleteTemporary();
+			if (exp instanceof RuntimeException) throw (RuntimeException)exp;
+			throw new IOException(exp);
+		}
+
+		try
+		{
+			this.reader = new XSSFReader(pkg);
+			this.shared_strings = new ReadOnlySharedStringsTable(pkg, false);
+			this.styles = reader.getStylesTable();
+			this.date1904 = isDate1904();
+		}
+		catch (OpenXML4JException | SAXException | RuntimeException exp)
+		{
+			close();
+			if (exp instanceof RuntimeException) throw (RuntimeException)exp;
+			throw new IOException(exp);
+		}
+	}
+
+	/**
+	 * シートの行を順次読み込むストリームを取得します。<br>
+	 * 行はストリームの要素を取得する都度読み込みます。読み込み終了後はストリームを閉じてください。
+	 * @return 読み込んだインスタンスのストリーム
+	 * @throws IOException シートの読み込みに失敗した場合
+	 * @throws IllegalArgumentException 対象のシートが存在しない場合
+	 */
+	public Stream<T> stream() throws IOException
+	{
+		RowIterator iterator = new RowIterator(openSheet());
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(iterator::close);
+	}
+
+	/**
+	 * シートの行を順次読み込み、1行ずつ処理します。
+	 * @param action 読み込んだインスタンスの処理
+	 * @return 読み込んだ行数
+	 * @throws IOException シートの読み込みに失敗した場合
+	 * @throws IllegalArgumentException 対象のシートが存在しない場合
+	 */
+	public long read(Consumer<? super T> action) throws IOException
+	{
+		long count = 0;
+		try (RowIterator iterator = new RowIterator(openSheet()))
+		{
+			while (iterator.hasNext())
+			{
+				action.accept(iterator.next());
+				count++;
+			}
+		}
+		catch (UncheckedIOException exp)
+		{
+			throw exp.getCause();
+		}
+
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			pkg.revert();
+		}
+		finally
+		{
+			deleteTemporary();
+		}
+	}
+
+	/**
+	 * <code>ExcelSheet</code>注釈のシート名のシートを開きます。
+	 * @return シートのXMLの入力ストリーム
+	 * @throws IOException シートの読み込みに失敗した場合
+	 * @throws IllegalArgumentException 対象のシートが存在しない場合
+	 */
+	private InputStream openSheet() throws IOException
+	{
+		String sheet_name = mapping.getSheet().sheet_name();
+
+		try
+		{
+			XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator)reader.getSheetsData();
+			while (sheets.hasNext())
+			{
+				InputStream stream = sheets.next();
+				if (sheet_name.equals(sheets.getSheetName())) return stream;
+				stream.close();
+			}
+		}
+		catch (InvalidFormatException exp)
+		{
+			throw new IOException(exp);
+		}
+
+		throw new IllegalArgumentException(String.format("シート「%s」が存在しません。", sheet_name));
+	}
+
+	/**
+	 * 1904年起点の日付システムか否かを取得します。
+	 * @return 1904年起点の場合<code>true</code>
+	 * @throws IOException ワークブックの読み込みに失敗した場合
+	 * @throws InvalidFormatException ワークブックの形式が不正な場合
+	 */
+	private boolean isDate1904() throws IOException, InvalidFormatException
+	{
+		try (InputStream stream = reader.getWorkbookData())
+		{
+			XMLStreamReader xml = createXMLInputFactory().createXMLStreamReader(stream);
+			try
+			{
+				while (xml.hasNext())
+				{
+					if (xml.next() != XMLStreamConstants.START_ELEMENT) continue;
+					if ("sheets".equals(xml.getLocalName())) return false;
+					if ("workbookPr".equals(xml.getLocalName()))
+					{
+						String value = xml.getAttributeValue(null, "date1904");
+						return "1".equals(value) || "true".equals(value);
+					}
+				}
+			}
+			finally
+			{
+				xml.close();
+			}
+		}
+		catch (XMLStreamException exp)
+		{
+			throw new IOException(exp);
+		}
+
+		return false;
+	}
+
+	/**
+	 * セルスタイルが日付の表示形式か否かを取得します。
+	 * @param style_index セルスタイルの番号
+	 * @return 日付の表示形式の場合<code>true</code>
+	 */
+	private boolean isDateStyle(int style_index)
+	{
+		Boolean date = date_styles.get(style_index);
+		if (date == null)
+		{
+			XSSFCellStyle style = (styles == null || style_index >= styles.getNumCellStyles()) ? null : styles.getStyleAt(style_index);
+			date = style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+			date_styles.put(style_index, date);
+		}
+
+		return date;
+	}
+
+	/**
+	 * 一時ファイルを削除します。
+	 */
+	private void deleteTemporary()
+	{
+		if (temporary == null) return;
+
+		try
+		{
+			Files.deleteIfExists(temporary);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * 入力ストリームの内容を一時ファイルに複製します。
+	 * @param stream 入力ストリーム
+	 * @return 一時ファイル
+	 * @throws IOException 複製に失敗した場合
+	 */
+	private static Path copyToTemporary(InputStream stream) throws IOException
+	{
+		Path path = Files.createTempFile("poi-reader", ".xlsx");
+		try
+		{
+			Files.copy(stream, path, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException exp)
+		{
+			Files.deleteIfExists(path);
+			throw exp;
+		}
+
+		return path;
+	}
+
+	/**
+	 * 文字列の値の前後の空白を取り除く変換処理を作成します。
+	 * @param value_reader 変換処理
+	 * @return 変換処理
+	 */
+	private static Function<Object, Object> trimText(Function<Object, Object> value_reader)
+	{
+		return v -> value_reader.apply((v instanceof String) ? ((String)v).trim() : v);
+	}
+
+	/**
+	 * 外部エンティティを解決しない<code>XMLInputFactory</code>を作成します。
+	 * @return <code>XMLInputFactory</code>
+	 */
+	private static XMLInputFactory createXMLInputFactory()
+	{
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory;
+	}
+
+	/**
+	 * セル参照（A1形式）から列番号を取得します。
+	 * @param reference セル参照
+	 * @return 列番号
+	 */
+	private static int getColumnIndex(String reference)
+	{
+		int col = 0;
+		for (int i = 0; i < reference.length(); i++)
+		{
+			char c = reference.charAt(i);
+			if (c < 'A' || c > 'Z') break;
+			col = col * 26 + (c - 'A' + 1);
+		}
+
+		return col - 1;
+	}
+
+	/**
+	 * シートのXMLを1行ずつ解析し、インスタンスに変換するイテレータ
+	 */
+	private final class RowIterator implements Iterator<T>, Closeable
+	{
+		private final InputStream stream;
+		private final XMLStreamReader xml;
+		private final ExcelSheet sheet_info = mapping.getSheet();
+		private final List<ExcelPoiColumn> columns = mapping.getColumns();
+		private final int[] positions = new int[columns.size()];
+		private Object[] values = new Object[16];
+		private int current_row = -1;
+		private boolean mapped;
+		private T next;
+
+		/**
+		 * コンストラクタ
+		 * @param stream シートのXMLの入力ストリーム
+		 * @throws IOException XMLの解析に失敗した場合
+		 */
+		RowIterator(InputStream stream) throws IOException
+		{
+			this.stream = stream;
+
+			try
+			{
+				this.xml = createXMLInputFactory().createXMLStreamReader(stream);
+			}
+			catch (XMLStreamException exp)
+			{
+				stream.close();
+				throw new IOException(exp);
+			}
+
+			// タイトル行がない場合は位置で対応付け
+			if (!sheet_info.draw_title()) mapPositions();
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			if (next == null) next = readEntity();
+			return next != null;
+		}
+
+		@Override
+		public T next()
+		{
+			if (!hasNext()) throw new NoSuchElementException();
+
+			T entity = next;
+			next = null;
+			return entity;
+		}
+
+		@Override
+		public void close()
+		{
+			try
+			{
+				xml.close();
+				stream.close();
+			}
+			catch (XMLStreamException | IOException e)
+			{
+				e.printStackTrace();
+			}
+		}
+
+		/**
+		 * 次のデータ行を読み込み、インスタンスに変換します。
+		 * @return インスタンス（シートの終端の場合は<code>null</code>）
+		 */
+		private T readEntity()
+		{
+			while (readRow())
+			{
+				// 開始行より前の行を読み飛ばし
+				if (current_row < sheet_info.row_start()) continue;
+
+				// タイトル行の項目名で対応付け
+				if (!mapped)
+				{
+					mapTitles();
+					continue;
+				}
+
+				T entity = null;
+				for (int i = 0; i < columns.size(); i++)
+				{
+					Object value = positions[i] < values.length ? values[positions[i]] : null;
+					if (value == null || value_readers[i] == null) continue;
+
+					if (entity == null) entity = mapping.newInstance();
+					try
+					{
+						Object converted = value_readers[i].apply(value);
+						if (converted != null) columns.get(i).setValue(entity, converted);
+					}
+					catch (RuntimeException e)
+					{
+						e.printStackTrace();
+					}
+				}
+
+				// 空行の場合は読み飛ばし
+				if (entity == null) continue;
+
+				// 値のないOptional型の項目を設定
+				for (int i = 0; i < columns.size(); i++)
+				{
+					Object value = positions[i] < values.length ? values[positions[i]] : null;
+					if (value != null || value_readers[i] == null) continue;
+
+					Object empty = value_readers[i].apply(null);
+					if (empty != null) columns.get(i).setValue(entity, empty);
+				}
+
+				return entity;
+			}
+
+			return null;
+		}
+
+		/**
+		 * 項目を開始列からの位置で対応付けます。
+		 */
+		private void mapPositions()
+		{
+			for (int i = 0; i < positions.length; i++) positions[i] = sheet_info.column_start() + i;
+			mapped = true;
+		}
+
+		/**
+		 * 読み込んだタイトル行の項目名で項目を対応付けます。<br>
+		 * 項目名が見つからない項目は開始列からの位置で対応付けます。
+		 */
+		private void mapTitles()
+		{
+			mapPositions();
+
+			Map<String, Integer> titles = new HashMap<>();
+			for (int col = values.length - 1; col >= 0; col--)
+			{
+				if (values[col] != null) titles.put(values[col].toString().trim(), col);
+			}
+
+			for (int i = 0; i < columns.size(); i++)
+			{
+				Integer col = titles.get(columns.get(i).getColumn().name().trim());
+				if (col != null) positions[i] = col;
+			}
+		}
+
+		/**
+		 * 次の行を読み込みます。
+		 * @return 行が存在する場合<code>true</code>
+		 */
+		private boolean readRow()
+		{
+			try
+			{
+				while (xml.hasNext())
+				{
+					if (xml.next() != XMLStreamConstants.START_ELEMENT || !"row".equals(xml.getLocalName())) continue;
+
+					String reference = xml.getAttributeValue(null, "r");
+					current_row = (reference == null) ? current_row + 1 : Integer.parseInt(reference) - 1;
+					Arrays.fill(values, null);
+
+					// セル単位に読み込み
+					int current_col = -1;
+					while (xml.hasNext())
+					{
+						int event = xml.next();
+						if (event == XMLStreamConstants.END_ELEMENT && "row".equals(xml.getLocalName())) break;
+						if (event != XMLStreamConstants.START_ELEMENT || !"c".equals(xml.getLocalName())) continue;
+
+						String cell_reference = xml.getAttributeValue(null, "r");
+						current_col = (cell_reference == null) ? current_col + 1 : getColumnIndex(cell_reference);
+						Object value = readCell();
+
+						if (value == null) continue;
+						if (current_col >= values.length) values = Arrays.copyOf(values, Math.max(current_col + 1, values.length * 2));
+						values[current_col] = value;
+					}
+
+					return true;
+				}
+			}
+			catch (XMLStreamException exp)
+			{
+				throw new UncheckedIOException(new IOException(exp));
+			}
+
+			return false;
+		}
+
+		/**
+		 * セルの値を読み込みます。<br>
+		 * 読み込み位置はセルの開始要素であり、セルの終了要素まで読み進めます。
+		 * @return セルの値（値がない場合は<code>null</code>）
+		 * @throws XMLStreamException XMLの解析に失敗した場合
+		 */
+		private Object readCell() throws XMLStreamException
+		{
+			String type = xml.getAttributeValue(null, "t");
+			String style = xml.getAttributeValue(null, "s");
+			String value = null;
+			StringBuilder inline = null;
+			int depth = 0;
+
+			while (xml.hasNext())
+			{
+				int event = xml.next();
+				if (event == XMLStreamConstants.START_ELEMENT)
+				{
+					String name = xml.getLocalName();
+					if ("v".equals(name)) value = xml.getElementText();
+					else if ("rPh".equals(name)) depth++;
+					else if ("t".equals(name) && depth == 0)
+					{
+						if (inline == null) inline = new StringBuilder();
+						inline.append(xml.getElementText());
+					}
+				}
+				else if (event == XMLStreamConstants.END_ELEMENT)
+				{
+					String name = xml.getLocalName();
+					if ("rPh".equals(name)) depth--;
+					else if ("c".equals(name)) break;
+				}
+			}
+
+			// 型に応じて変換
+			if ("inlineStr".equals(type)) return inline == null ? null : inline.toString();
+			if (value == null) return null;
+
+			switch (type == null ? "n" : type)
+			{
+				case "s":
+					return shared_strings.getItemAt(Integer.parseInt(value)).getString();
+				case "str":
+					return value;
+				case "b":
+					return "1".equals(value) || "true".equals(value);
+				case "e":
+					return null;
+				case "d":
+					return (value.indexOf('T') < 0) ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+				default:
+					if (value.isEmpty()) return null;
+					double number = Double.parseDouble(value);
+					if (style != null && isDateStyle(Integer.parseInt(style))) return DateUtil.getLocalDateTime(number, date1904);
+					return number;
+			}
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package utility.poi;
+
+/**
+ * 描画対象のクラスごとにアノテーションプロセッサ（<code>poi-processor</code>）が生成する出力クラスのインターフェース<br>
+ * 生成クラスはゲッターメソッドを直接呼び出す出力処理と、注釈から作成済みのセルスタイルの設定値を返却します。
+ * 描画対象のクラスと同じパッケージに「クラス名 + {@link #SUFFIX}」の名前で生成され、マッピングの作成時に自動で利用されます。
+ * @author Takeshi
+ *
+ * @param <T> 描画対象のクラス
+ */
+public interface ExcelPoiRowWriter<T>
+{
+	/** 生成クラスの名前の接尾辞 */
+	String SUFFIX = "_ExcelPoiWriter";
+
+	/**
+	 * 描画対象のクラスを取得します。
+	 * @return 描画対象のクラス
+	 */
+	Class<T> getEntityClass();
+
+	/**
+	 * タイトル行のセルスタイルの設定値を取得します。
+	 * @return セルスタイルの設定値（<code>ExcelSheet</code>注釈が指定されていない場合は<code>null</code>）
+	 */
+	ExcelPoiStyle getTitleStyle();
+
+	/**
+	 * フィールドのセルスタイルの設定値を取得します。
+	 * @param field_name フィールド名
+	 * @return セルスタイルの設定値（<code>ExcelCellStyle</code>注釈が指定されていない場合は<code>null</code>）
+	 */
+	ExcelPoiStyle getStyle(String field_name);
+
+	/**
+	 * エンティティから項目値を取得して出力先に書き込む出力処理を取得します。
+	 * @param field_name フィールド名
+	 * @param trim 文字列の値で前後の空白を取り除く場合<code>true</code>
+	 * @return 出力処理（コンパイル時に出力処理を生成できなかったフィールドの場合は<code>null</code>）
+	 */
+	ExcelPoiValueWriter getWriter(String field_name, boolean trim);
+
+	/**
+	 * 出力処理が出力する値の型を取得します。<br>
+	 * <code>Optional</code>型の場合は要素型です。変換処理が登録された型の判定に使用します。
+	 * 既定では<code>null</code>を返却し、ゲッターメソッドの戻り値の型で判定します。
+	 * @param field_name フィールド名
+	 * @return 値の型（出力処理を生成できなかったフィールドの場合は<code>null</code>）
+	 */
+	default Class<?> getValueType(String field_name)
+	{
+		return null;
+	}
+}
@@ -0,0 +1,319 @@
+package utility.poi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import utility.poi.annotation.ExcelColumn;
+import utility.poi.annotation.ExcelSheet;
+
+/**
+ * 1クラス分のデータをシートに1行ずつ出力するクラス<br>
+ * シートの行数が上限に達した場合、シートを追加して出力を継続（ロールオーバー）できます。
+ * @author Takeshi
+ *
+ * @param <T> 描画対象のクラス
+ */
+final class ExcelPoiSheetWriter<T>
+{
+	/** シート名の最大文字数 */
+	private static final int MAX_SHEET_NAME_LENGTH = 31;
+
+	/** <code>Workbook</code>単位の排他オブジェクト（<code>Workbook</code>オブジェクトが解放された場合は解放） */
+	private static final Map<Workbook, Object> LOCKS = new WeakHashMap<>();
+
+	private Workbook workbook;
+	private final Object lock;
+	private final Class<T> entity_class;
+	private final ExcelSheet sheet_info;
+	private final List<ExcelPoiColumn> columns;
+	private final ExcelPoiValueWriter[] writers;
+	private final CellStyle[] column_styles;
+	private final CellStyle title_style;
+	private final int row_limit;
+	private final boolean rollover;
+	private final ExcelPoiListener listener;
+	private final ExcelPoiCellSink sink = new ExcelPoiCellSink();
+	private final ExcelPoiColumnWidths widths;
+	private final List<Sheet> sheets = new ArrayList<>();
+	private Sheet sheet;
+	private int current_row;
+	private long row_count;
+	private long cell_count;
+	private long title_nanos;
+
+	/**
+	 * <code>Workbook</code>オブジェクトのシートの作成、並べ替え等を排他するオブジェクトを取得します。<br>
+	 * 同じ<code>Workbook</code>オブジェクトに出力するすべての出力処理で同じオブジェクトを返却します。
+	 * ストリーミング形式（<code>SXSSF</code>）のブックは元の<code>XSSF</code>形式のブックと同じオブジェクトを利用します。
+	 * @param workbook <code>Workbook</code>オブジェクト
+	 * @return 排他オブジェクト
+	 */
+	static Object getLock(Workbook workbook)
+	{
+		Workbook key = (workbook instanceof SXSSFWorkbook) ? ((SXSSFWorkbook)workbook).getXSSFWorkbook() : workbook;
+
+		synchronized (LOCKS)
+		{
+			return LOCKS.computeIfAbsent(key, t -> new Object());
+		}
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param workbook <code>Workbook</code>オブジェクト
+	 * @param lock ブック単位の処理を排他するオブジェクト（{@link #getLock(Workbook)}）
+	 * @param mapping 描画対象のクラスのマッピング
+	 * @param style_pool セルスタイルのプール
+	 * @param row_limit 1シートの最大行数
+	 * @param rollover 最大行数に達した場合にシートを追加する場合<code>true</code>
+	 * @param listener 計測結果を受け取るリスナー
+	 */
+	ExcelPoiSheetWriter(Workbook workbook, Object lock, ExcelPoiMapping<T> mapping, ExcelPoiStylePool style_pool, int row_limit, boolean rollover, ExcelPoiListener listener)
+	{
+		this.workbook = workbook;
+		this.lock = lock;
+		this.entity_class = mapping.getEntityClass();
+		this.sheet_info = mapping.getSheet();
+		this.columns = mapping.getColumns();
+		this.writers = columns.stream().map(t -> t.getWriter(t.getColumn().trim())).toArray(ExcelPoiValueWriter[]::new);
+		this.column_styles = columns.stream().map(t -> style_pool.getCellStyle(t.getCellStyle())).toArray(CellStyle[]::new);
+		this.title_style = style_pool.getCellStyle(mapping.getTitleStyle());
+		this.row_limit = Math.min(row_limit, workbook.getSpreadsheetVersion().getMaxRows());
+		this.rollover = rollover;
+		this.listener = listener;
+		this.widths = new ExcelPoiColumnWidths(columns, sheet_info, mapping.getTitleStyle());
+	}
+
+	/**
+	 * 1行分のデータを出力します。<br>
+	 * 初回の出力時にシートを作成します。
+	 * @param entity 描画対象のクラスインスタンス
+	 * @throws IllegalStateException シートの最大行数を超え、ロールオーバーしない場合
+	 */
+	void write(T entity)
+	{
+		// シート作成、最大行数に達した場合は次のシートを作成
+		if (this.sheet == null)
+		{
+			createSheet();
+		}
+		else if (this.current_row >= this.row_limit)
+		{
+			if (!this.rollover) throw new IllegalStateException(String.format("シート「%s」の最大行数（%d行）を超えました。", this.sheet.getSheetName(), this.row_limit));
+			createSheet();
+		}
+
+		// 行の作成
+		Row row = this.sheet.createRow(this.current_row++);
+		int current_col = sheet_info.column_start();
+
+		// フィールド単位に出力
+		for (int i = 0; i < writers.length; i++)
+		{
+			try
+			{
+				setCell(entity, row, current_col++, i);
+				this.cell_count++;
+			}
+			catch (RuntimeException e)
+			{
+				e.printStackTrace();
+				listener.onConversionFailure(entity_class, columns.get(i).getFieldName(), e);
+			}
+		}
+
+		this.row_count++;
+	}
+
+	/**
+	 * 最初のシートを作成します。<br>
+	 * 複数のシートを並列に出力する場合、シートの順序を確定するために出力前に呼び出します。
+	 */
+	void open()
+	{
+		if (this.sheet == null) createSheet();
+	}
+
+	/**
+	 * 幅を自動で設定する項目に、出力中に記録した表示幅を設定します。<br>
+	 * 作成したすべてのシートに設定します。出力の終了時に一度だけ呼び出します。
+	 */
+	void applyColumnWidths()
+	{
+		if (!widths.isEnabled()) return;
+
+		for (Sheet sheet : this.sheets) widths.apply(sheet, sheet_info.column_start());
+	}
+
+	/**
+	 * 出力先を<code>XSSF</code>形式のブックから、そのブックを元に作成したストリーミング形式のブックに切り替えます。<br>
+	 * 作成済みのシートは切り替え後のブックのシートに置き換え、以降の行はストリーミング形式で出力します。
+	 * @param streaming 切り替え後のブック
+	 */
+	void switchWorkbook(SXSSFWorkbook streaming)
+	{
+		this.workbook = streaming;
+		this.sheets.replaceAll(t -> streaming.getSheetAt(streaming.getXSSFWorkbook().getSheetIndex(t)));
+		if (this.sheet != null) this.sheet = this.sheets.get(this.sheets.size() - 1);
+	}
+
+	/**
+	 * 出力した行数を取得します。
+	 * @return 出力した行数（タイトル行を除く）
+	 */
+	long getRowCount()
+	{
+		return this.row_count;
+	}
+
+	/**
+	 * 出力したセル数を取得します。
+	 * @return 出力したセル数（タイトル行を除く）
+	 */
+	long getCellCount()
+	{
+		return this.cell_count;
+	}
+
+	/**
+	 * シートの作成、タイトル行の描画にかかった時間を取得します。
+	 * @return 処理時間（ナノ秒）
+	 */
+	long getTitleNanos()
+	{
+		return this.title_nanos;
+	}
+
+	/**
+	 * 作成したシートを取得します。
+	 * @return 作成したシートのリスト
+	 */
+	List<Sheet> getSheets()
+	{
+		return Collections.unmodifiableList(this.sheets);
+	}
+
+	/**
+	 * シートを作成し、タイトル行を描画します。<br>
+	 * 2シート目以降はシート名に連番を付与します。<br>
+	 * シートの作成、タイトル行の描画、フィルター（ブック単位の名前定義を作成）、固定行の設定はブック全体に影響するため、
+	 * 他のシートの出力と並列に作成する場合に備えてすべて排他して行います。
+	 */
+	private void createSheet()
+	{
+		long start = System.nanoTime();
+
+		synchronized (lock)
+		{
+			initSheet();
+		}
+
+		this.title_nanos += System.nanoTime() - start;
+	}
+
+	/**
+	 * シートを作成し、タイトル行を描画します（排他中に呼び出します）。
+	 */
+	private void initSheet()
+	{
+		this.sheet = workbook.createSheet(getSheetName());
+		this.sheets.add(this.sheet);
+		this.current_row = sheet_info.row_start();
+
+		int current_col = sheet_info.column_start();
+		int column_num  = columns.size();
+
+		// タイトル描画
+		if (sheet_info.draw_title())
+		{
+			// セルスタイル、テキストの設定
+			Row title_row = sheet.createRow(current_row++);
+			for (ExcelPoiColumn column : columns)
+			{
+				int width = column.getColumn().width();
+				if (width != -1) sheet.setColumnWidth(current_col, width * 256);
+				setCellTitle(column.getColumn().name(), title_row, current_col++);
+			}
+
+			// フィルターの設定
+			if (sheet_info.auto_filter())
+			{
+				sheet.setAutoFilter(new CellRangeAddress(sheet_info.row_start(), sheet_info.row_start(), sheet_info.column_start(), sheet_info.column_start() + column_num - 1));
+			}
+
+			// 固定行の設定
+			if (sheet_info.freeze_pane())
+			{
+				sheet.createFreezePane(sheet_info.column_start(), sheet_info.row_start() + 1);
+			}
+		}
+	}
+
+	/**
+	 * 作成するシートのシート名を取得します。<br>
+	 * 最初のシートは注釈のシート名とします（同名のシートが存在する場合は<code>createSheet</code>で例外となります）。
+	 * ロールオーバーで追加する2シート目以降は「シート名 (連番)」とし、同名のシートが存在する場合は次の連番とします。
+	 * @return シート名
+	 */
+	private String getSheetName()
+	{
+		String name = sheet_info.sheet_name();
+		if (this.sheets.size() == 0) return name;
+
+		// 同名のシートが存在しない連番を付与
+		for (int number = Math.max(this.sheets.size() + 1, 2); ; number++)
+		{
+			String suffix = String.format(" (%d)", number);
+			String candidate = (name.length() + suffix.length() > MAX_SHEET_NAME_LENGTH ? name.substring(0, MAX_SHEET_NAME_LENGTH - suffix.length()) : name) + suffix;
+			if (workbook.getSheet(candidate) == null) return candidate;
+		}
+	}
+
+	/**
+	 * タイトルを設定します。
+	 * @param title タイトル
+	 * @param row <code>Row</code>オブジェクト
+	 * @param col 列番号
+	 */
+	private void setCellTitle(String title, Row row, int col)
+	{
+		// セルの作成
+		Cell cell = row.createCell(col, CellType.STRING);
+		if (title_style != null) cell.setCellStyle(title_style);
+		cell.setCellValue(title);
+	}
+
+	/**
+	 * セルを設定します。
+	 * @param entity 描画対象のクラスインスタンス
+	 * @param row <code>Row</code>オブジェクト
+	 * @param col 列番号
+	 * @param index 項目の位置
+	 */
+	private void setCell(T entity, Row row, int col, int index)
+	{
+		ExcelColumn column_info = columns.get(index).getColumn();
+
+		// セルの作成
+		Cell cell = (column_info.type() == CellType._NONE) ? row.createCell(col) : row.createCell(col, column_info.type());
+		if (column_styles[index] != null) cell.setCellStyle(column_styles[index]);
+
+		// 幅を自動で設定する項目は表示幅を記録
+		ExcelPoiValueSink target = sink.setCell(cell);
+		if (widths.isMeasuring(this.row_count)) target = widths.measure(index, target);
+
+		writers[index].write(entity, target);
+	}
+}
@@ -0,0 +1,163 @@
+package utility.poi;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import utility.poi.constant.EnumPhase;
+
+/**
+ * 出力処理の計測結果を集計するリスナー<br>
+ * 外部のライブラリに依存せず、工程ごとの処理時間、回数と、行数、セル数、変換の失敗数、書き出したバイト数を累計します。
+ * 複数の出力処理から同時に通知されても正しく集計できるため、1つのインスタンスを共有して監視等に利用できます。
+ * @author Takeshi
+ *
+ */
+public class ExcelPoiStatistics implements ExcelPoiListener
+{
+	private final Map<EnumPhase, LongAdder> phase_nanos = new EnumMap<>(EnumPhase.class);
+	private final Map<EnumPhase, LongAdder> phase_counts = new EnumMap<>(EnumPhase.class);
+	private final LongAdder rows = new LongAdder();
+	private final LongAdder cells = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private final LongAdder bytes = new LongAdder();
+	private volatile int style_count;
+
+	/**
+	 * コンストラクタ
+	 */
+	public ExcelPoiStatistics()
+	{
+		for (EnumPhase phase : EnumPhase.values())
+		{
+			phase_nanos.put(phase, new LongAdder());
+			phase_counts.put(phase, new LongAdder());
+		}
+	}
+
+	@Override
+	public void onPhase(EnumPhase phase, Class<?> entity_class, long nanos)
+	{
+		phase_nanos.get(phase).add(nanos);
+		phase_counts.get(phase).increment();
+	}
+
+	@Override
+	public void onRows(Class<?> entity_class, long rows, long cells)
+	{
+		this.rows.add(rows);
+		this.cells.add(cells);
+	}
+
+	@Override
+	public void onConversionFailure(Class<?> entity_class, String field_name, RuntimeException exception)
+	{
+		this.failures.increment();
+	}
+
+	@Override
+	public void onWritten(long bytes, int style_count)
+	{
+		this.bytes.add(bytes);
+		this.style_count = style_count;
+	}
+
+	/**
+	 * 工程の処理時間の累計を取得します。
+	 * @param phase 工程
+	 * @param unit 時間の単位
+	 * @return 処理時間の累計
+	 */
+	public long getTime(EnumPhase phase, TimeUnit unit)
+	{
+		return unit.convert(phase_nanos.get(phase).sum(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * 工程の実行回数を取得します。
+	 * @param phase 工程
+	 * @return 実行回数
+	 */
+	public long getCount(EnumPhase phase)
+	{
+		return phase_counts.get(phase).sum();
+	}
+
+	/**
+	 * 出力した行数の累計を取得します。
+	 * @return 行数
+	 */
+	public long getRows()
+	{
+		return this.rows.sum();
+	}
+
+	/**
+	 * 出力したセル数の累計を取得します。
+	 * @return セル数
+	 */
+	public long getCells()
+	{
+		return this.cells.sum();
+	}
+
+	/**
+	 * 値の変換に失敗した項目数の累計を取得します。
+	 * @return 失敗した項目数
+	 */
+	public long getFailures()
+	{
+		return this.failures.sum();
+	}
+
+	/**
+	 * 書き出したバイト数の累計を取得します。
+	 * @return バイト数
+	 */
+	public long getBytes()
+	{
+		return this.bytes.sum();
+	}
+
+	/**
+	 * 直近に書き出したブックのセルスタイル数を取得します。
+	 * @return セルスタイル数
+	 */
+	public int getStyleCount()
+	{
+		return this.style_count;
+	}
+
+	/**
+	 * 集計結果を初期化します。
+	 */
+	public void reset()
+	{
+		phase_nanos.values().forEach(LongAdder::reset);
+		phase_counts.values().forEach(LongAdder::reset);
+		rows.reset();
+		cells.reset();
+		failures.reset();
+		bytes.reset();
+		style_count = 0;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder("ExcelPoiStatistics [");
+		for (EnumPhase phase : EnumPhase.values())
+		{
+			builder.append(phase).append('=').append(getTime(phase, TimeUnit.MILLISECONDS)).append("ms/").append(getCount(phase)).append(", ");
+		}
+		builder.append("rows=").append(getRows())
+			.append(", cells=").append(getCells())
+			.append(", failures=").append(getFailures())
+			.append(", bytes=").append(getBytes())
+			.append(", styles=").append(getStyleCount())
+			.append(']');
+
+		return builder.toString();
+	}
+}
@@ -0,0 +1,327 @@
+package utility.poi;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+
+import utility.poi.annotation.ExcelCellStyle;
+import utility.poi.constant.EnumFontType;
+import utility.poi.constant.EnumUnderline;
+
+/**
+ * セルスタイルの設定値を保持するクラス<br>
+ * <code>ExcelCellStyle</code>注釈の値を保持し、同じ設定値のスタイルを判定するキーとして利用します。インスタンスは不変です。
+ * @author Takeshi
+ *
+ */
+public final class ExcelPoiStyle
+{
+	private final IndexedColors backgroundcolor;
+	private final HorizontalAlignment horizontal_alignment;
+	private final VerticalAlignment vertical_alignment;
+	private final String format;
+	private final boolean wraptext;
+	private final IndexedColors bordercolor;
+	private final BorderStyle top;
+	private final BorderStyle bottom;
+	private final BorderStyle left;
+	private final BorderStyle right;
+	private final EnumFontType font;
+	private final int size;
+	private final IndexedColors forecolor;
+	private final boolean bold;
+	private final boolean italic;
+	private final boolean strikeout;
+	private final EnumUnderline underline;
+	private final int hash;
+
+	/**
+	 * コンストラクタ
+	 * @param backgroundcolor 背景色
+	 * @param horizontal_alignment 水平方向の配置
+	 * @param vertical_alignment 垂直方向の配置
+	 * @param format 表示形式
+	 * @param wraptext 折り返して全体を表示する場合<code>true</code>
+	 * @param bordercolor 罫線の色
+	 * @param top 上罫線
+	 * @param bottom 下罫線
+	 * @param left 左罫線
+	 * @param right 右罫線
+	 * @param font フォント
+	 * @param size フォントサイズ
+	 * @param forecolor 文字色
+	 * @param bold 太字の場合<code>true</code>
+	 * @param italic 斜体の場合<code>true</code>
+	 * @param strikeout 取り消し線を付ける場合<code>true</code>
+	 * @param underline 下線
+	 */
+	private ExcelPoiStyle(IndexedColors backgroundcolor, HorizontalAlignment horizontal_alignment, VerticalAlignment vertical_alignment
+			, String format, boolean wraptext, IndexedColors bordercolor, BorderStyle top, BorderStyle bottom, BorderStyle left, BorderStyle right
+			, EnumFontType font, int size, IndexedColors forecolor, boolean bold, boolean italic, boolean strikeout, EnumUnderline underline)
+	{
+		this.backgroundcolor = backgroundcolor;
+		this.horizontal_alignment = horizontal_alignment;
+		this.vertical_alignment = vertical_alignment;
+		this.format = format == null ? "" : format.trim();
+		this.wraptext = wraptext;
+		this.bordercolor = bordercolor;
+		this.top = top;
+		this.bottom = bottom;
+		this.left = left;
+		this.right = right;
+		this.font = font;
+		this.size = size;
+		this.forecolor = forecolor;
+		this.bold = bold;
+		this.italic = italic;
+		this.strikeout = strikeout;
+		this.underline = underline;
+		this.hash = Objects.hash(backgroundcolor, horizontal_alignment, vertical_alignment, this.format, wraptext, bordercolor
+				, top, bottom, left, right, getFontKey());
+	}
+
+	/**
+	 * セルスタイル注釈から設定値を作成します。
+	 * @param style セルスタイル注釈
+	 * @return セルスタイルの設定値（注釈が<code>null</code>の場合は<code>null</code>）
+	 */
+	public static ExcelPoiStyle of(ExcelCellStyle style)
+	{
+		if (style == null) return null;
+
+		return new ExcelPoiStyle(style.backgroundcolor(), style.horizontal_alignment(), style.vertical_alignment(), style.format(), style.wraptext()
+				, style.bordercolor(), style.top(), style.bottom(), style.left(), style.right()
+				, style.font(), style.size(), style.forecolor(), style.bold(), style.italic(), style.strikeout(), style.underline());
+	}
+
+	/**
+	 * 設定値を指定してセルスタイルの設定値を作成します。<br>
+	 * 引数は<code>ExcelCellStyle</code>注釈の要素の宣言順です。アノテーションプロセッサが生成する出力クラスから、注釈を解析せずに設定値を作成するために利用します。
+	 * @param backgroundcolor 背景色
+	 * @param horizontal_alignment 水平方向の配置
+	 * @param vertical_alignment 垂直方向の配置
+	 * @param format 表示形式
+	 * @param wraptext 折り返して全体を表示する場合<code>true</code>
+	 * @param bordercolor 罫線の色
+	 * @param top 上罫線
+	 * @param bottom 下罫線
+	 * @param left 左罫線
+	 * @param right 右罫線
+	 * @param font フォント
+	 * @param size フォントサイズ
+	 * @param forecolor 文字色
+	 * @param bold 太字の場合<code>true</code>
+	 * @param italic 斜体の場合<code>true</code>
+	 * @param strikeout 取り消し線を付ける場合<code>true</code>
+	 * @param underline 下線
+	 * @return セルスタイルの設定値
+	 */
+	public static ExcelPoiStyle of(IndexedColors backgroundcolor, HorizontalAlignment horizontal_alignment, VerticalAlignment vertical_alignment
+			, String format, boolean wraptext, IndexedColors bordercolor, BorderStyle top, BorderStyle bottom, BorderStyle left, BorderStyle right
+			, EnumFontType font, int size, IndexedColors forecolor, boolean bold, boolean italic, boolean strikeout, EnumUnderline underline)
+	{
+		return new ExcelPoiStyle(backgroundcolor, horizontal_alignment, vertical_alignment, format, wraptext, bordercolor, top, bottom, left, right
+				, font, size, forecolor, bold, italic, strikeout, underline);
+	}
+
+	/**
+	 * 背景色を取得します。
+	 * @return 背景色
+	 */
+	public IndexedColors getBackgroundcolor()
+	{
+		return this.backgroundcolor;
+	}
+
+	/**
+	 * 文字の横位置を取得します。
+	 * @return 文字の横位置
+	 */
+	public HorizontalAlignment getHorizontalAlignment()
+	{
+		return this.horizontal_alignment;
+	}
+
+	/**
+	 * 文字の縦位置を取得します。
+	 * @return 文字の縦位置
+	 */
+	public VerticalAlignment getVerticalAlignment()
+	{
+		return this.vertical_alignment;
+	}
+
+	/**
+	 * 表示形式を取得します。
+	 * @return 表示形式（指定されていない場合は空文字）
+	 */
+	public String getFormat()
+	{
+		return this.format;
+	}
+
+	/**
+	 * 改行の有無を取得します。
+	 * @return 改行の有無
+	 */
+	public boolean isWraptext()
+	{
+		return this.wraptext;
+	}
+
+	/**
+	 * 枠線の色を取得します。
+	 * @return 枠線の色
+	 */
+	public IndexedColors getBordercolor()
+	{
+		return this.bordercolor;
+	}
+
+	/**
+	 * 上部分の枠線のスタイルを取得します。
+	 * @return 上部分の枠線のスタイル
+	 */
+	public BorderStyle getTop()
+	{
+		return this.top;
+	}
+
+	/**
+	 * 下部分の枠線のスタイルを取得します。
+	 * @return 下部分の枠線のスタイル
+	 */
+	public BorderStyle getBottom()
+	{
+		return this.bottom;
+	}
+
+	/**
+	 * 左部分の枠線のスタイルを取得します。
+	 * @return 左部分の枠線のスタイル
+	 */
+	public BorderStyle getLeft()
+	{
+		return this.left;
+	}
+
+	/**
+	 * 右部分の枠線のスタイルを取得します。
+	 * @return 右部分の枠線のスタイル
+	 */
+	public BorderStyle getRight()
+	{
+		return this.right;
+	}
+
+	/**
+	 * フォントを取得します。
+	 * @return フォント
+	 */
+	public EnumFontType getFont()
+	{
+		return this.font;
+	}
+
+	/**
+	 * フォントサイズを取得します。
+	 * @return フォントサイズ
+	 */
+	public int getSize()
+	{
+		return this.size;
+	}
+
+	/**
+	 * フォントの色を取得します。
+	 * @return フォントの色
+	 */
+	public IndexedColors getForecolor()
+	{
+		return this.forecolor;
+	}
+
+	/**
+	 * 太字の有無を取得します。
+	 * @return 太字
+	 */
+	public boolean isBold()
+	{
+		return this.bold;
+	}
+
+	/**
+	 * イタリックの有無を取得します。
+	 * @return イタリック
+	 */
+	public boolean isItalic()
+	{
+		return this.italic;
+	}
+
+	/**
+	 * 取消線の有無を取得します。
+	 * @return 取消線
+	 */
+	public boolean isStrikeout()
+	{
+		return this.strikeout;
+	}
+
+	/**
+	 * 下線を取得します。
+	 * @return 下線
+	 */
+	public EnumUnderline getUnderline()
+	{
+		return this.underline;
+	}
+
+	/**
+	 * フォントに関する設定値のみのキーを取得します。<br>
+	 * 同じフォントを複数のスタイルで共有するために利用します。
+	 * @return フォントのキー
+	 */
+	public List<Object> getFontKey()
+	{
+		return Arrays.asList(font, size, forecolor, bold, italic, strikeout, underline);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return this.hash;
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj) return true;
+		if (!(obj instanceof ExcelPoiStyle)) return false;
+
+		ExcelPoiStyle other = (ExcelPoiStyle)obj;
+		return this.hash == other.hash
+				&& this.backgroundcolor == other.backgroundcolor
+				&& this.horizontal_alignment == other.horizontal_alignment
+				&& this.vertical_alignment == other.vertical_alignment
+				&& this.format.equals(other.format)
+				&& this.wraptext == other.wraptext
+				&& this.bordercolor == other.bordercolor
+				&& this.top == other.top
+				&& this.bottom == other.bottom
+				&& this.left == other.left
+				&& this.right == other.right
+				&& this.font == other.font
+				&& this.size == other.size
+				&& this.forecolor == other.forecolor
+				&& this.bold == other.bold
+				&& this.italic == other.italic
+				&& this.strikeout == other.strikeout
+				&& this.underline == other.underline;
+	}
+}
@@ -0,0 +1,206 @@
+package utility.poi;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * <code>Workbook</code>単位に<code>CellStyle</code>、<code>Font</code>を共有するプール<br>
+ * 同じ設定値のセルスタイル注釈には同じセルスタイルを返却し、シートや出力処理をまたいで再利用します。<br>
+ * プールは<code>Workbook</code>オブジェクトが解放されるまで保持し、同じ<code>Workbook</code>オブジェクトに対してプールを作り直しません
+ * （作り直すと同じ設定値のセルスタイルが重複して作成され、セルスタイル数の上限に達するため）。
+ * プールからは<code>Workbook</code>オブジェクトを弱参照し、作成したセルスタイル、フォントは番号で保持するため、プールが<code>Workbook</code>オブジェクトの解放を妨げることはありません。
+ * ストリーミング形式（<code>SXSSF</code>）のブックは元の<code>XSSF</code>形式のブックと同じプールを利用します。
+ * @author Takeshi
+ *
+ */
+public final class ExcelPoiStylePool
+{
+	/** <code>Workbook</code>単位のプール（<code>Workbook</code>オブジェクトが解放された場合は解放） */
+	private static final Map<Workbook, ExcelPoiStylePool> POOLS = new WeakHashMap<>();
+
+	private final WeakReference<Workbook> workbook;
+	private final Map<ExcelPoiStyle, Short> styles = new HashMap<>();
+	private final Map<List<Object>, Integer> fonts = new HashMap<>();
+	private long hit_count;
+	private long miss_count;
+
+	/**
+	 * コンストラクタ
+	 * @param workbook <code>Workbook</code>オブジェクト
+	 */
+	private ExcelPoiStylePool(Workbook workbook)
+	{
+		this.workbook = new WeakReference<>(workbook);
+	}
+
+	/**
+	 * <code>Workbook</code>オブジェクトのプールを取得します。
+	 * @param workbook <code>Workbook</code>オブジェクト
+	 * @return プール
+	 */
+	public static ExcelPoiStylePool of(Workbook workbook)
+	{
+		// ストリーミング形式の場合はセルスタイルを保持する元のブックのプールを利用
+		Workbook key = (workbook instanceof SXSSFWorkbook) ? ((SXSSFWorkbook)workbook).getXSSFWorkbook() : workbook;
+
+		synchronized (POOLS)
+		{
+			return POOLS.computeIfAbsent(key, ExcelPoiStylePool::new);
+		}
+	}
+
+	/**
+	 * セルスタイルを取得します。<br>
+	 * 同じ設定値のセルスタイルが作成済みの場合は作成済みのオブジェクトを返却します。
+	 * @param style セルスタイルの設定値
+	 * @return <code>CellStyle</code>オブジェクト（設定値が<code>null</code>の場合は<code>null</code>）
+	 */
+	public synchronized CellStyle getCellStyle(ExcelPoiStyle style)
+	{
+		if (style == null) return null;
+
+		Workbook workbook = getWorkbook();
+		Short index = this.styles.get(style);
+		if (index != null)
+		{
+			this.hit_count++;
+			return workbook.getCellStyleAt(index);
+		}
+
+		this.miss_count++;
+		CellStyle cell_style = createCellStyle(workbook, style);
+		this.styles.put(style, cell_style.getIndex());
+		return cell_style;
+	}
+
+	/**
+	 * 作成済みのセルスタイルを取得できた回数を取得します。
+	 * @return ヒット数
+	 */
+	public synchronized long getHitCount()
+	{
+		return this.hit_count;
+	}
+
+	/**
+	 * セルスタイルを新たに作成した回数を取得します。
+	 * @return ミス数
+	 */
+	public synchronized long getMissCount()
+	{
+		return this.miss_count;
+	}
+
+	/**
+	 * プールで作成したセルスタイルの数を取得します。
+	 * @return セルスタイルの数
+	 */
+	public synchronized int getStyleCount()
+	{
+		return this.styles.size();
+	}
+
+	/**
+	 * プールで作成したフォントの数を取得します。
+	 * @return フォントの数
+	 */
+	public synchronized int getFontCount()
+	{
+		return this.fonts.size();
+	}
+
+	/**
+	 * プールの<code>Workbook</code>オブジェクトを取得します。
+	 * @return <code>Workbook</code>オブジェクト
+	 * @throws IllegalStateException <code>Workbook</code>オブジェクトが解放済みの場合
+	 */
+	private Workbook getWorkbook()
+	{
+		Workbook workbook = this.workbook.get();
+		if (workbook == null) throw new IllegalStateException("プールの Workbook オブジェクトは解放済みです。");
+		return workbook;
+	}
+
+	/**
+	 * セルスタイルを設定値より作成します。
+	 * @param workbook <code>Workbook</code>オブジェクト
+	 * @param annotation_style セルスタイルの設定値
+	 * @return <code>CellStyle</code>オブジェクト
+	 */
+	private CellStyle createCellStyle(Workbook workbook, ExcelPoiStyle annotation_style)
+	{
+		CellStyle style = workbook.createCellStyle();
+		if (annotation_style.getBackgroundcolor() != IndexedColors.AUTOMATIC)
+		{
+			style.setFillForegroundColor(annotation_style.getBackgroundcolor().getIndex());							// 背景色
+			style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+		}
+		style.setAlignment(annotation_style.getHorizontalAlignment());												// 横位置
+		style.setVerticalAlignment(annotation_style.getVerticalAlignment());										// 縦位置
+		if (!annotation_style.getFormat().equals(""))
+		{
+			DataFormat data_format = workbook.createDataFormat();													// 表示書式
+			style.setDataFormat(data_format.getFormat(annotation_style.getFormat()));
+		}
+		style.setWrapText(annotation_style.isWraptext());															// 改行の有無
+		if (annotation_style.getTop() != BorderStyle.NONE)
+		{
+			style.setTopBorderColor(annotation_style.getBordercolor().getIndex());									// 上部分の枠線
+			style.setBorderTop(annotation_style.getTop());
+		}
+		if (annotation_style.getBottom() != BorderStyle.NONE)
+		{
+			style.setBottomBorderColor(annotation_style.getBordercolor().getIndex());								// 下部分の枠線
+			style.setBorderBottom(annotation_style.getBottom());
+		}
+		if (annotation_style.getLeft() != BorderStyle.NONE)
+		{
+			style.setLeftBorderColor(annotation_style.getBordercolor().getIndex());									// 左部分の枠線
+			style.setBorderLeft(annotation_style.getLeft());
+		}
+		if (annotation_style.getRight() != BorderStyle.NONE)
+		{
+			style.setRightBorderColor(annotation_style.getBordercolor().getIndex());								// 右部分の枠線
+			style.setBorderRight(annotation_style.getRight());
+		}
+		style.setFont(getFont(workbook, annotation_style));
+
+		return style;
+	}
+
+	/**
+	 * フォントを取得します。<br>
+	 * 同じ設定値のフォントが作成済みの場合は作成済みのフォントを返却します。
+	 * @param workbook <code>Workbook</code>オブジェクト
+	 * @param annotation_style セルスタイルの設定値
+	 * @return <code>Font</code>オブジェクト
+	 */
+	private Font getFont(Workbook workbook, ExcelPoiStyle annotation_style)
+	{
+		Integer index = this.fonts.get(annotation_style.getFontKey());
+		if (index != null) return workbook.getFontAt(index);
+
+		Font font = workbook.createFont();
+		font.setFontName(annotation_style.getFont().getFontname());											// フォント名
+		font.setFontHeightInPoints((short)annotation_style.getSize());										// フォントサイズ
+		font.setColor(annotation_style.getForecolor().getIndex());											// フォントの色
+		font.setBold(annotation_style.isBold());															// 太字
+		font.setItalic(annotation_style.isItalic());														// 斜体
+		font.setStrikeout(annotation_style.isStrikeout());													// 取消線
+		font.setUnderline(annotation_style.getUnderline().getUnderline());									// 下線
+		this.fonts.put(annotation_style.getFontKey(), font.getIndexAsInt());
+		return font;
+	}
+}
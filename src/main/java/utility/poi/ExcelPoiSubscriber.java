@@ -0,0 +1,257 @@
+package utility.poi;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * <code>Flow.Publisher</code>から受け取ったデータをExcelに出力するクラス<br>
+ * データは受け取った時点で<code>ExcelPoiGenerator</code>のシートに1行ずつ出力し、出力を終えた分だけ次のデータを要求します。
+ * 要求は{@link #getBatchSize()}件単位で、未出力の要求が半分を下回った時点で補充するため、発行元が速い場合もメモリ上に保持するデータは要求した件数までです。
+ * <code>SXSSF</code>形式の場合、メモリ上に保持する行数を超えた行は出力の都度一時ファイルに書き出します。<br>
+ * 発行元が正常に終了した場合は出力を終了し（出力ストリームを指定した場合は書き込み）、{@link #getResult()}に出力した行数を返却します。
+ * 異常終了した場合は出力済みの行を残したまま、{@link #getResult()}を同じ例外で異常終了します。
+ * <code>getResult()</code>を取り消した場合は購読を解除し、出力済みの行を残したまま出力を中断します（計測結果はリスナーに通知します）。<br>
+ * Reactive Streams（<code>org.reactivestreams.Publisher</code>）の発行元の場合は、<code>reactive-streams</code>ライブラリの
+ * <code>FlowAdapters.toSubscriber(subscriber)</code>で変換して購読してください。
+ * 出力中は同じ<code>ExcelPoiGenerator</code>で他の出力を行わないでください。
+ * @author Takeshi
+ *
+ * @param <T> 描画対象のクラス
+ */
+public class ExcelPoiSubscriber<T> implements Flow.Subscriber<T>
+{
+	/** 一度に要求する件数の既定値 */
+	public static final int DEFAULT_BATCH_SIZE = ExcelPoiGenerator.DEFAULT_ROW_ACCESS_WINDOW;
+
+	private final ExcelPoiGenerator<T> generator;
+	private final Class<T> clazz;
+	private final OutputStream stream;
+	private final int batch_size;
+	private final CompletableFuture<Long> result = new CompletableFuture<>();
+
+	/** 出力を排他するオブジェクト（取り消しは発行元の通知と別のスレッドから行われるため） */
+	private final Object lock = new Object();
+
+	private volatile Flow.Subscription subscription;
+	private ExcelPoiGenerator<T>.Session session;
+	private boolean session_closed;
+	private long outstanding;
+
+	/**
+	 * コンストラクタ<br>
+	 * 出力の終了時に出力ストリームには書き込まないため、{@link #getResult()}の完了後に<code>ExcelPoiGenerator</code>で書き込んでください。
+	 * @param generator 出力先
+	 * @param clazz 描画対象のクラス
+	 */
+	public ExcelPoiSubscriber(ExcelPoiGenerator<T> generator, Class<T> clazz)
+	{
+		this(generator, clazz, null, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param generator 出力先
+	 * @param clazz 描画対象のクラス
+	 * @param stream 正常に終了した場合に書き込む出力ストリーム（閉じません。<code>null</code>の場合は書き込まない）
+	 */
+	public ExcelPoiSubscriber(ExcelPoiGenerator<T> generator, Class<T> clazz, OutputStream stream)
+	{
+		this(generator, clazz, stream, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param generator 出力先
+	 * @param clazz 描画対象のクラス
+	 * @param stream 正常に終了した場合に書き込む出力ストリーム（閉じません。<code>null</code>の場合は書き込まない）
+	 * @param batch_size 一度に要求する件数
+	 * @throws IllegalArgumentException 出力先を指定していない場合、件数が1以上でない場合
+	 */
+	public ExcelPoiSubscriber(ExcelPoiGenerator<T> generator, Class<T> clazz, OutputStream stream, int batch_size)
+	{
+		if (generator == null) throw new IllegalArgumentException("出力先を指定してください。");
+		if (batch_size <= 0) throw new IllegalArgumentException("一度に要求する件数は1以上を指定してください。");
+
+		this.generator = generator;
+		this.clazz = clazz;
+		this.stream = stream;
+		this.batch_size = batch_size;
+	}
+
+	/**
+	 * 購読を開始します。出力を開始して最初のデータを要求します。
+	 * @param subscription 購読
+	 */
+	@Override
+	public void onSubscribe(Flow.Subscription subscription)
+	{
+		Objects.requireNonNull(subscription);
+
+		// 購読済み、または終了済みの場合は新しい購読を解除
+		if (this.subscription != null || this.result.isDone())
+		{
+			subscription.cancel();
+			return;
+		}
+		this.subscription = subscription;
+
+		// 取り消された場合は購読を解除して出力を中断
+		this.result.whenComplete((t, e) ->
+		{
+			if (!this.result.isCancelled()) return;
+
+			subscription.cancel();
+			abortSession();
+		});
+
+		synchronized (this.lock)
+		{
+			try
+			{
+				this.session = this.generator.openSession(this.clazz);
+			}
+			catch (RuntimeException e)
+			{
+				subscription.cancel();
+				this.result.completeExceptionally(e);
+				return;
+			}
+
+			// 出力の開始前に取り消された場合
+			if (this.result.isCancelled())
+			{
+				abortSession();
+				return;
+			}
+		}
+
+		// ExcelSheet注釈が付いていない場合は処理対象外
+		if (this.session == null)
+		{
+			subscription.cancel();
+			this.result.complete(0L);
+			return;
+		}
+
+		this.outstanding = this.batch_size;
+		subscription.request(this.batch_size);
+	}
+
+	/**
+	 * データを1行出力し、必要に応じて次のデータを要求します。
+	 * @param item 描画対象のデータ
+	 */
+	@Override
+	public void onNext(T item)
+	{
+		Objects.requireNonNull(item);
+
+		synchronized (this.lock)
+		{
+			// 取り消し、異常終了した後に受け取ったデータは出力しない
+			if (this.session == null || this.result.isDone()) return;
+
+			try
+			{
+				this.session.write(item);
+			}
+			catch (RuntimeException e)
+			{
+				this.subscription.cancel();
+				abortSession();
+				this.result.completeExceptionally(e);
+				return;
+			}
+		}
+
+		// 未出力の要求が半分を下回った場合は補充
+		if (--this.outstanding <= this.batch_size / 2)
+		{
+			this.subscription.request(this.batch_size - this.outstanding);
+			this.outstanding = this.batch_size;
+		}
+	}
+
+	/**
+	 * 発行元の異常終了を受け取ります。出力済みの行を残したまま出力を中断します。
+	 * @param throwable 例外
+	 */
+	@Override
+	public void onError(Throwable throwable)
+	{
+		Objects.requireNonNull(throwable);
+
+		synchronized (this.lock)
+		{
+			if (this.result.isDone()) return;
+
+			abortSession();
+			this.result.completeExceptionally(throwable);
+		}
+	}
+
+	/**
+	 * 発行元の正常終了を受け取ります。出力を終了し、出力ストリームを指定した場合は書き込みます。
+	 */
+	@Override
+	public void onComplete()
+	{
+		synchronized (this.lock)
+		{
+			if (this.result.isDone()) return;
+
+			try
+			{
+				long rows = 0;
+				if (this.session != null && !this.session_closed)
+				{
+					this.session_closed = true;
+					rows = this.session.finish();
+				}
+				if (this.stream != null) this.generator.write(this.stream);
+
+				this.result.complete(rows);
+			}
+			catch (IOException | RuntimeException e)
+			{
+				this.result.completeExceptionally(e);
+			}
+		}
+	}
+
+	/**
+	 * 出力を中断します。出力済みの行は残したまま、計測結果をリスナーに通知します。<br>
+	 * 出力を終了、中断済みの場合は何もしません。
+	 */
+	private void abortSession()
+	{
+		synchronized (this.lock)
+		{
+			if (this.session == null || this.session_closed) return;
+
+			this.session_closed = true;
+			this.session.abort();
+		}
+	}
+
+	/**
+	 * 出力結果を取得します。
+	 * @return 出力した行数（タイトル行を除く）を返却する<code>CompletableFuture</code>
+	 */
+	public CompletableFuture<Long> getResult()
+	{
+		return this.result;
+	}
+
+	/**
+	 * 一度に要求する件数を取得します。
+	 * @return 件数
+	 */
+	public int getBatchSize()
+	{
+		return this.batch_size;
+	}
+}
@@ -0,0 +1,115 @@
+package utility.poi;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+
+/**
+ * 解析済みのテンプレートファイルを保持するクラス<br>
+ * テンプレートファイルの内容をメモリ上に保持し、名前付きセルの参照先を解決済みの状態で保持します。
+ * {@link #newWriter()}で出力ごとに独立した作業用の<code>ExcelPoiTemplateWriter</code>を作成します。<br>
+ * 出力アドレスの解決結果は描画対象のクラス単位に保持し、作成したすべての<code>ExcelPoiTemplateWriter</code>で共有します。
+ * 解決結果は出力前のテンプレート上の位置であり、繰り返し出力による行の移動は<code>ExcelPoiTemplateWriter</code>ごとに反映します。<br>
+ * 作業用の<code>Workbook</code>オブジェクトは出力ごとにテンプレートファイル全体（書き込まないシートを含む）を解析して作成します。
+ * 省略できるのはファイルの読み込み、形式の判定、名前付きセル、出力アドレスの解決のみであり、作成の処理時間、メモリ使用量はテンプレートの大きさに比例します
+ * （<code>benchmark/</code>の<code>TemplateCopyBenchmark</code>で計測できます）。
+ * @author Takeshi
+ *
+ */
+public final class ExcelPoiTemplate
+{
+	private final byte[] image;
+	private final Map<String, String> names;
+	private final Map<String, Map<Integer, String>> defined_names;
+	private final Map<Class<?>, ExcelPoiAddressTable> address_tables = new ConcurrentHashMap<>();
+
+	/**
+	 * コンストラクタ
+	 * @param image テンプレートファイルの内容
+	 * @param names 名前付きセルの参照先（名前をキー）
+	 * @param defined_names シート単位の名前を含む名前付きセルの参照先
+	 */
+	private ExcelPoiTemplate(byte[] image, Map<String, String> names, Map<String, Map<Integer, String>> defined_names)
+	{
+		this.image = image;
+		this.names = Collections.unmodifiableMap(names);
+		this.defined_names = defined_names;
+	}
+
+	/**
+	 * テンプレートファイルを解析します。<br>
+	 * ブック全体を対象とする名前付きセルの参照先を解決します。
+	 * @param image テンプレートファイルの内容
+	 * @return 解析済みのテンプレート
+	 * @throws IOException テンプレートファイルの解析に失敗した場合
+	 */
+	static ExcelPoiTemplate of(byte[] image)
+			throws IOException
+	{
+		Map<String, String> names = new HashMap<>();
+		Map<String, Map<Integer, String>> defined_names;
+		try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(image)))
+		{
+			for (Name name : workbook.getAllNames())
+			{
+				// シート単位の名前、関数名は対象外
+				if (name.getSheetIndex() != -1 || name.isFunctionName()) continue;
+				names.put(name.getNameName(), name.getRefersToFormula());
+			}
+			defined_names = ExcelPoiAddressTable.getDefinedNames(workbook);
+		}
+
+		return new ExcelPoiTemplate(image, names, defined_names);
+	}
+
+	/**
+	 * テンプレートファイルのサイズを取得します。
+	 * @return サイズ（バイト）
+	 */
+	public int getSize()
+	{
+		return this.image.length;
+	}
+
+	/**
+	 * 名前付きセルの参照先を取得します。
+	 * @return 名前付きセルの参照先（名前をキー）
+	 */
+	public Map<String, String> getNames()
+	{
+		return this.names;
+	}
+
+	/**
+	 * テンプレートファイルの内容から作業用の<code>ExcelPoiTemplateWriter</code>を作成します。<br>
+	 * ファイルの読み込み、形式の判定は行わず、メモリ上の内容から<code>Workbook</code>オブジェクトを作成します。
+	 * 書き込むシートに限らずテンプレートファイル全体を解析するため、大きなテンプレートでは作成のたびにその大きさに応じた処理時間がかかります。
+	 * @param <T> 描画対象のクラス
+	 * @return <code>ExcelPoiTemplateWriter</code>オブジェクト
+	 * @throws IOException <code>Workbook</code>オブジェクトの作成に失敗した場合
+	 */
+	public <T> ExcelPoiTemplateWriter<T> newWriter()
+			throws IOException
+	{
+		return new ExcelPoiTemplateWriter<>(WorkbookFactory.create(new ByteArrayInputStream(this.image)), this);
+	}
+
+	/**
+	 * 出力アドレスの解決結果を取得します。<br>
+	 * 描画対象のクラスごとに初回のみ、出力前のテンプレートの名前付きセルの参照先で解決します。
+	 * @param workbook 本テンプレートから作成した<code>Workbook</code>オブジェクト
+	 * @param mapping 描画対象のクラスのマッピング
+	 * @return 出力アドレスの解決結果
+	 */
+	ExcelPoiAddressTable getAddressTable(Workbook workbook, ExcelPoiMapping<?> mapping)
+	{
+		return address_tables.computeIfAbsent(mapping.getEntityClass(), t -> new ExcelPoiAddressTable(workbook, defined_names, mapping));
+	}
+}
@@ -0,0 +1,90 @@
+package utility.poi;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 解析済みのテンプレートを登録するクラス<br>
+ * 同じテンプレートファイルを繰り返し利用する場合、登録時に1回だけ解析し、出力ごとにファイルを読み込まずに作業用の<code>ExcelPoiTemplateWriter</code>を作成できます。
+ * 作業用のブックはテンプレートファイルの内容から毎回作成します（{@link ExcelPoiTemplate}を参照）。
+ * @author Takeshi
+ *
+ */
+public final class ExcelPoiTemplateRegistry
+{
+	/** 登録されたテンプレート（キーをキー） */
+	private static final Map<String, ExcelPoiTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+	private ExcelPoiTemplateRegistry() { }
+
+	/**
+	 * テンプレートを登録します。登録済みのキーの場合は上書きします。<br>
+	 * 入力ストリームは閉じないため、呼び出し元で閉じてください。
+	 * @param key テンプレートのキー
+	 * @param stream テンプレートファイルの入力ストリーム
+	 * @return 解析済みのテンプレート
+	 * @throws IOException テンプレートファイルの読み込み、解析に失敗した場合
+	 */
+	public static ExcelPoiTemplate register(String key, InputStream stream)
+			throws IOException
+	{
+		ExcelPoiTemplate template = ExcelPoiTemplate.of(stream.readAllBytes());
+		TEMPLATES.put(key, template);
+		return template;
+	}
+
+	/**
+	 * テンプレートを登録します。登録済みのキーの場合は上書きします。
+	 * @param key テンプレートのキー
+	 * @param file テンプレートファイル
+	 * @return 解析済みのテンプレート
+	 * @throws IOException テンプレートファイルの読み込み、解析に失敗した場合
+	 */
+	public static ExcelPoiTemplate register(String key, File file)
+			throws IOException
+	{
+		ExcelPoiTemplate template = ExcelPoiTemplate.of(Files.readAllBytes(file.toPath()));
+		TEMPLATES.put(key, template);
+		return template;
+	}
+
+	/**
+	 * テンプレートの登録を解除します。
+	 * @param key テンプレートのキー
+	 */
+	public static void unregister(String key)
+	{
+		TEMPLATES.remove(key);
+	}
+
+	/**
+	 * 登録されたテンプレートを取得します。
+	 * @param key テンプレートのキー
+	 * @return 解析済みのテンプレート（登録されていない場合は<code>null</code>）
+	 */
+	public static ExcelPoiTemplate get(String key)
+	{
+		return TEMPLATES.get(key);
+	}
+
+	/**
+	 * 登録されたテンプレートから作業用の<code>ExcelPoiTemplateWriter</code>を作成します。
+	 * @param <T> 描画対象のクラス
+	 * @param key テンプレートのキー
+	 * @return <code>ExcelPoiTemplateWriter</code>オブジェクト
+	 * @throws IOException <code>Workbook</code>オブジェクトの作成に失敗した場合
+	 * @throws IllegalArgumentException テンプレートが登録されていない場合
+	 */
+	public static <T> ExcelPoiTemplateWriter<T> newWriter(String key)
+			throws IOException
+	{
+		ExcelPoiTemplate template = TEMPLATES.get(key);
+		if (template == null) throw new IllegalArgumentException(String.format("テンプレート「%s」は登録されていません。", key));
+
+		return template.newWriter();
+	}
+}
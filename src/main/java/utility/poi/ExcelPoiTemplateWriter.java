@@ -1,221 +1,397 @@
-package utility.poi;
-
-import java.io.Closeable;
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.Map;
-import java.util.Optional;
-import java.util.OptionalInt;
-import java.util.OptionalLong;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
-import org.apache.poi.EncryptedDocumentException;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Name;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
-import org.apache.poi.ss.util.CellReference;
-
-import utility.poi.annotation.ExcelAddress;
-import utility.poi.annotation.ExcelSheet;
-
-/**
- * テンプレートファイルを利用してExcelを出力します。
- * @author Takeshi
- *
- */
-public class ExcelPoiTemplateWriter<T> implements Closeable, ExcelPoi<T>
-{
-	private Workbook workbook;
-	private boolean closeable = true;
-
-	/**
-	 * コンストラクタ
-	 * @param stream 入力ストリーム
-	 * @throws EncryptedDocumentException
-	 * @throws IOException
-	 */
-	public ExcelPoiTemplateWriter(InputStream stream)
-			throws EncryptedDocumentException, IOException
-	{
-		this.workbook = WorkbookFactory.create(stream);
-	}
-
-	/**
-	 * コンストラクタ
-	 * @param file ファイル
-	 * @throws EncryptedDocumentException
-	 * @throws IOException
-	 */
-	public ExcelPoiTemplateWriter(File file)
-			throws EncryptedDocumentException, IOException
-	{
-		this.workbook = WorkbookFactory.create(file);
-	}
-
-	/**
-	 * コンストラクタ
-	 * @param workbook <code>Workbook</code>オブジェクト
-	 */
-	public ExcelPoiTemplateWriter(Workbook workbook)
-	{
-		this.workbook = workbook;
-	}
-
-	/**
-	 * Excelに出力します。
-	 * @param entity 描画対象のクラスインスタンス
-	 * @param clazz 描画対象のクラス
-	 */
-	public void writetoExcelTemplate(T entity, Class<T> clazz)
-	{
-		// データが存在しない場合は処理しない
-		if (entity == null) return;
-
-		synchronized (workbook)
-		{
-			// ジェネリクス型に指定されている注釈を取得
-			ExcelSheet sheet_info = getClassAnnotation(clazz, ExcelSheet.class);
-			Map<String, ExcelAddress> column_addresses = getFieldAnnotation(clazz, ExcelAddress.class);
-			Map<String, CellReference> column_references = getFieldCellReferences(workbook, clazz);
-			Map<String, Method> column_getters = getFieldGetterMethod(clazz);
-
-			// ExcelSheet注釈が付いていない場合は処理対象外
-			if (sheet_info == null) return;
-
-			// シート取得
-			Sheet sheet = workbook.getSheet(sheet_info.sheet_name());
-
-			// エンティティのフィールド単位にセット
-			for (String field_name : column_getters.keySet())
-			{
-				try
-				{
-					if (column_addresses.containsKey(field_name) && column_references.containsKey(field_name))
-					{
-						setCellValue(workbook, sheet, entity, column_getters.get(field_name)
-								, column_references.get(field_name).getRow()
-								, column_references.get(field_name).getCol()
-								, column_addresses.get(field_name).trim());
-					}
-				}
-				catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e)
-				{
-					e.printStackTrace();
-				}
-			}
-
-			workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
-		}
-	}
-
-	/**
-	 * <code>Workbook</code>オブジェクトを取得します。
-	 * @return <code>Workbook</code>オブジェクト
-	 */
-	public Workbook getWorkbook()
-	{
-		this.closeable = false;
-		return this.workbook;
-	}
-
-	/**
-	 * ストリームに出力します。
-	 * @param stream 出力ストリーム
-	 * @throws IOException
-	 */
-	public void write(OutputStream stream)
-			throws IOException
-	{
-		workbook.write(stream);
-	}
-
-	/**
-	 * 終了処理。<code>Workbook</code>オブジェクトを閉じます。
-	 */
-	@Override
-	public void close()
-			throws IOException
-	{
-		// Springで利用する場合、閉じてしまうと出力できないため
-		if (this.closeable) this.workbook.close();
-	}
-
-	/**
-	 * セル参照を注釈より取得します。
-	 * @param workbook <code>Workbook</code>オブジェクト
-	 * @param entity_class 描画対象のクラス
-	 * @return
-	 */
-	private Map<String, CellReference> getFieldCellReferences(Workbook workbook, Class<T> entity_class)
-	{
-		return Stream.of(entity_class.getDeclaredFields())
-				.collect(Collectors.toMap(t -> t.getName(), t -> createCellReference(workbook, t.getAnnotation(ExcelAddress.class))));
-	}
-
-	/**
-	 * セルアドレスからセル参照を取得します。<br>
-	 * 名前付きセルの場合、アドレス解決を行います。
-	 * @param workbook <code>Workbook</code>オブジェクト
-	 * @param address <code>ExcelAddress</code>注釈
-	 * @return セル参照
-	 */
-	private CellReference createCellReference(Workbook workbook, ExcelAddress address)
-	{
-		if (address == null) return null;
-
-		Name cellname = workbook.getName(address.address());
-		return new CellReference(cellname == null ? address.address() : cellname.getRefersToFormula());
-	}
-
-	/**
-	 * セルに値をセットします。
-	 * @param workbook <code>Workbook</code>オブジェクト
-	 * @param sheet <code>Sheet</code>オブジェクト
-	 * @param entity 描画対象のクラスインスタンス
-	 * @param getter 項目のゲッターメソッド
-	 * @param row 行番号
-	 * @param col 列番号
-	 * @param trim <code>true</code>の場合、前後の空白を除去します
-	 * @throws IllegalAccessException
-	 * @throws IllegalArgumentException
-	 * @throws InvocationTargetException
-	 */
-	private void setCellValue(Workbook workbook, Sheet sheet, T entity, Method getter, int row, int col, boolean trim)
-			throws IllegalAccessException, IllegalArgumentException, InvocationTargetException
-	{
-		Row current_row = sheet.getRow(row);
-		if (current_row == null) current_row = sheet.createRow(row);
-		Cell cell = current_row.getCell(col);
-		if (cell == null) cell = current_row.createCell(col);
-		Object value = getter.invoke(entity, (Object[])null);
-
-		if (value == null)
-		{
-			return;
-		}
-		else if (value.getClass() == Optional.class)
-		{
-			setCellOptionalValue(cell, (Optional<?>)value);
-		}
-		else if (value.getClass() == OptionalInt.class)
-		{
-			setCellOptionalIntValue(cell, (OptionalInt)value);
-		}
-		else if (value.getClass() == OptionalLong.class)
-		{
-			setCellOptionalLongValue(cell, (OptionalLong)value);
-		}
-		else
-		{
-			setCellValue(cell, value, trim);
-		}
-	}
-}
+package utility.poi;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.apache.poi.EncryptedDocumentException;
+import org.apache.poi.ss.usermodel.CellCopyPolicy;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+
+import utility.poi.annotation.ExcelSheet;
+import utility.poi.constant.EnumFormulaEvaluation;
+import utility.poi.constant.EnumPhase;
+
+/**
+ * テンプレートファイルを利用してExcelを出力します。
+ * @author Takeshi
+ *
+ */
+public class ExcelPoiTemplateWriter<T> implements Closeable, ExcelPoi<T>
+{
+	private Workbook workbook;
+	private Object lock;
+	private ExcelPoiFormulaEvaluator formula_evaluator;
+	private ExcelPoiTemplate template;
+	private Map<Class<?>, ExcelPoiAddressTable> address_tables = new HashMap<>();
+	private Map<String, Map<Integer, String>> defined_names;
+	private List<int[]> shifts = new ArrayList<>();
+	private ExcelPoiListener listener = ExcelPoiListener.NONE;
+	private long cell_count;
+	private boolean closeable = true;
+
+	/**
+	 * コンストラクタ
+	 * @param stream 入力ストリーム
+	 * @throws EncryptedDocumentException
+	 * @throws IOException
+	 */
+	public ExcelPoiTemplateWriter(InputStream stream)
+			throws EncryptedDocumentException, IOException
+	{
+		this(WorkbookFactory.create(stream));
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param file ファイル
+	 * @throws EncryptedDocumentException
+	 * @throws IOException
+	 */
+	public ExcelPoiTemplateWriter(File file)
+			throws EncryptedDocumentException, IOException
+	{
+		this(WorkbookFactory.create(file));
+	}
+
+	/**
+	 * コンストラクタ
+	 * @param workbook <code>Workbook</code>オブジェクト
+	 */
+	public ExcelPoiTemplateWriter(Workbook workbook)
+	{
+		this(workbook, null);
+	}
+
+	/**
+	 * コンストラクタ<br>
+	 * 解析済みのテンプレートから作成する場合に利用します。
+	 * @param workbook <code>Workbook</code>オブジェクト
+	 * @param template 解析済みのテンプレート（<code>null</code>の場合は本オブジェクトで出力アドレスを解決）
+	 */
+	ExcelPoiTemplateWriter(Workbook workbook, ExcelPoiTemplate template)
+	{
+		this.workbook = workbook;
+		this.lock = ExcelPoiSheetWriter.getLock(this.workbook);
+		this.formula_evaluator = new ExcelPoiFormulaEvaluator(this.workbook);
+		this.template = template;
+	}
+
+	/**
+	 * Excelに出力します。
+	 * @param entity 描画対象のクラスインスタンス
+	 * @param clazz 描画対象のクラス
+	 */
+	public void writetoExcelTemplate(T entity, Class<T> clazz)
+	{
+		// データが存在しない場合は処理しない
+		if (entity == null) return;
+
+		synchronized (lock)
+		{
+			long start = System.nanoTime();
+
+			// ジェネリクス型のマッピングを取得
+			ExcelPoiMapping<T> mapping = getMapping(clazz);
+			ExcelSheet sheet_info = mapping.getSheet();
+
+			// ExcelSheet注釈が付いていない場合は処理対象外
+			if (sheet_info == null) return;
+
+			// 出力アドレスの解決結果を取得（初回のみ解決）
+			ExcelPoiAddressTable address_table = getAddressTable(mapping);
+			List<ExcelPoiColumn> addresses = mapping.getAddresses();
+			listener.onPhase(EnumPhase.PLAN, clazz, System.nanoTime() - start);
+
+			// エンティティのフィールド単位にセット
+			start = System.nanoTime();
+			cell_count = 0;
+			long row_count = 0;
+			ExcelPoiCellSink sink = new ExcelPoiCellSink();
+			Set<Sheet> sheets = new LinkedHashSet<>();
+			for (int i = 0; i < address_table.size(); i++)
+			{
+				try
+				{
+					if (address_table.getSheetIndex(i) < 0) continue;
+
+					ExcelPoiColumn column = addresses.get(i);
+					int sheet_index = address_table.getSheetIndex(i);
+					Sheet sheet = workbook.getSheetAt(sheet_index);
+					setCellValue(sheet, entity, column, translateRow(sheet_index, address_table.getRow(i)), address_table.getCol(i), column.getAddress().trim(), sink);
+					sheets.add(sheet);
+				}
+				catch (RuntimeException e)
+				{
+					e.printStackTrace();
+					listener.onConversionFailure(clazz, addresses.get(i).getFieldName(), e);
+				}
+			}
+
+			// 繰り返し領域の展開（行の挿入で位置がずれないよう、下の行範囲から展開）
+			List<ExcelPoiColumn> repeats = mapping.getRepeats();
+			Integer[] order = IntStream.range(0, address_table.getRepeatSize()).boxed()
+					.sorted(Comparator.comparingInt((Integer t) -> address_table.getRepeatFirstRow(t)).reversed())
+					.toArray(Integer[]::new);
+			for (int i : order)
+			{
+				int sheet_index = address_table.getRepeatSheetIndex(i);
+				if (sheet_index < 0) continue;
+
+				List<?> items;
+				try
+				{
+					items = (List<?>)repeats.get(i).getValue(entity);
+				}
+				catch (RuntimeException e)
+				{
+					e.printStackTrace();
+					listener.onConversionFailure(clazz, repeats.get(i).getFieldName(), e);
+					continue;
+				}
+
+				// 行範囲の展開の失敗は出力結果が不完全になるため例外とする
+				Sheet sheet = workbook.getSheetAt(sheet_index);
+				expandRepeat(sheet, sheet_index, items, repeats.get(i).getElementType(), address_table.getRepeatFirstRow(i), address_table.getRepeatLastRow(i), address_table.getRepeatTable(i), sink);
+				sheets.add(sheet);
+				if (items != null) row_count += items.size();
+			}
+			listener.onPhase(EnumPhase.ROWS, clazz, System.nanoTime() - start);
+			listener.onRows(clazz, row_count, cell_count);
+
+			// 計算式の再計算
+			start = System.nanoTime();
+			sheets.forEach(formula_evaluator::touch);
+			formula_evaluator.evaluate();
+			listener.onPhase(EnumPhase.FORMULA_EVALUATION, clazz, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * 出力後の計算式の再計算方法を取得します。
+	 * @return 再計算方法
+	 */
+	public EnumFormulaEvaluation getFormulaEvaluation()
+	{
+		return this.formula_evaluator.getEvaluation();
+	}
+
+	/**
+	 * 出力後の計算式の再計算方法を設定します。<br>
+	 * 既定値は{@link EnumFormulaEvaluation#ALL}です。
+	 * @param evaluation 再計算方法
+	 */
+	public void setFormulaEvaluation(EnumFormulaEvaluation evaluation)
+	{
+		this.formula_evaluator.setEvaluation(evaluation);
+	}
+
+	/**
+	 * 計測結果を受け取るリスナーを取得します。
+	 * @return リスナー
+	 */
+	public ExcelPoiListener getListener()
+	{
+		return this.listener;
+	}
+
+	/**
+	 * 計測結果を受け取るリスナーを設定します。<br>
+	 * 工程（出力準備、値の出力、計算式の再計算、ファイルへの書き出し）ごとの処理時間等を通知します。
+	 * @param listener リスナー（<code>null</code>の場合は通知しない）
+	 */
+	public void setListener(ExcelPoiListener listener)
+	{
+		this.listener = listener == null ? ExcelPoiListener.NONE : listener;
+	}
+
+	/**
+	 * <code>Workbook</code>オブジェクトを取得します。
+	 * @return <code>Workbook</code>オブジェクト
+	 */
+	public Workbook getWorkbook()
+	{
+		this.closeable = false;
+		return this.workbook;
+	}
+
+	/**
+	 * ストリームに出力します。
+	 * @param stream 出力ストリーム
+	 * @throws IOException
+	 */
+	public void write(OutputStream stream)
+			throws IOException
+	{
+		long start = System.nanoTime();
+		ExcelPoiCountingStream counting_stream = new ExcelPoiCountingStream(stream);
+		workbook.write(counting_stream);
+
+		listener.onPhase(EnumPhase.SERIALIZATION, null, System.nanoTime() - start);
+		listener.onWritten(counting_stream.getCount(), workbook.getNumCellStyles());
+	}
+
+	/**
+	 * 終了処理。<code>Workbook</code>オブジェクトを閉じます。
+	 */
+	@Override
+	public void close()
+			throws IOException
+	{
+		// Springで利用する場合、閉じてしまうと出力できないため
+		if (this.closeable) this.workbook.close();
+	}
+
+	/**
+	 * 出力アドレスの解決結果を取得します。<br>
+	 * 解析済みのテンプレートから作成した場合はテンプレートで共有する解決結果を利用します。
+	 * @param mapping 描画対象のクラスのマッピング
+	 * @return 出力アドレスの解決結果
+	 */
+	private ExcelPoiAddressTable getAddressTable(ExcelPoiMapping<T> mapping)
+	{
+		if (template != null) return template.getAddressTable(workbook, mapping);
+
+		// 名前付きセルの参照先は初回の解決時（行の移動前）の内容を利用
+		if (defined_names == null) defined_names = ExcelPoiAddressTable.getDefinedNames(workbook);
+		return address_tables.computeIfAbsent(mapping.getEntityClass(), t -> new ExcelPoiAddressTable(workbook, defined_names, mapping));
+	}
+
+	/**
+	 * テンプレート上の行番号を、繰り返し出力による行の移動を反映した出力先の行番号に変換します。
+	 * @param sheet_index シート番号
+	 * @param row テンプレート上の行番号
+	 * @return 出力先の行番号
+	 */
+	private int translateRow(int sheet_index, int row)
+	{
+		for (int[] shift : shifts)
+		{
+			if (shift[0] == sheet_index && row >= shift[1]) row += shift[2];
+		}
+
+		return row;
+	}
+
+	/**
+	 * 行範囲を要素の数だけ複写し、要素の値をセットします。<br>
+	 * 行範囲より下の行は要素の数に応じて1回だけ移動し、移動量を以降の出力で行番号の変換に利用します。要素が存在しない場合は行範囲を削除します。
+	 * テンプレートの行範囲に行が存在しない場合は空の行を作成してから複写します。
+	 * @param sheet <code>Sheet</code>オブジェクト
+	 * @param sheet_index シート番号
+	 * @param items 要素のリスト
+	 * @param element_type 要素のクラス
+	 * @param template_first_row テンプレート上の行範囲の開始行
+	 * @param template_last_row テンプレート上の行範囲の終了行
+	 * @param element_table 要素のクラスの出力アドレスの解決結果
+	 * @param sink セルの出力先
+	 * @throws UnsupportedOperationException <code>XSSF</code>形式以外のシートの場合
+	 */
+	private void expandRepeat(Sheet sheet, int sheet_index, List<?> items, Class<?> element_type, int template_first_row, int template_last_row, ExcelPoiAddressTable element_table, ExcelPoiCellSink sink)
+	{
+		if (!(sheet instanceof XSSFSheet)) throw new UnsupportedOperationException("繰り返し出力はXSSF形式のテンプレートのみ対応しています。");
+
+		int height = template_last_row - template_first_row + 1;
+		int first_row = translateRow(sheet_index, template_first_row);
+		int last_row = first_row + height - 1;
+		int size = items == null ? 0 : items.size();
+
+		// 要素が存在しない場合は行範囲を削除
+		if (size == 0)
+		{
+			for (int i = sheet.getNumMergedRegions() - 1; i >= 0; i--)
+			{
+				CellRangeAddress region = sheet.getMergedRegion(i);
+				if (region.getFirstRow() >= first_row && region.getLastRow() <= last_row) sheet.removeMergedRegion(i);
+			}
+			for (int row = first_row; row <= last_row; row++)
+			{
+				Row current_row = sheet.getRow(row);
+				if (current_row != null) sheet.removeRow(current_row);
+			}
+			if (last_row < sheet.getLastRowNum()) sheet.shiftRows(last_row + 1, sheet.getLastRowNum(), -height, true, false);
+			shifts.add(new int[] { sheet_index, last_row + 1, -height });
+			return;
+		}
+
+		// 下の行を一括で移動し、行範囲を複写（スタイル、結合セル、計算式の参照を含む）
+		if (size > 1)
+		{
+			if (last_row < sheet.getLastRowNum()) sheet.shiftRows(last_row + 1, sheet.getLastRowNum(), (size - 1) * height, true, false);
+			shifts.add(new int[] { sheet_index, last_row + 1, (size - 1) * height });
+
+			// 複写元の行が存在しない場合は複写できないため、空の行を作成
+			for (int row = first_row; row <= last_row; row++)
+			{
+				if (sheet.getRow(row) == null) sheet.createRow(row);
+			}
+
+			CellCopyPolicy policy = new CellCopyPolicy();
+			for (int i = 1; i < size; i++)
+			{
+				((XSSFSheet)sheet).copyRows(first_row, last_row, first_row + i * height, policy);
+			}
+		}
+
+		// 要素単位に値をセット
+		List<ExcelPoiColumn> addresses = ExcelPoiMapping.of(element_type).getAddresses();
+		for (int i = 0; i < size; i++)
+		{
+			Object item = items.get(i);
+			if (item == null) continue;
+
+			for (int j = 0; j < element_table.size(); j++)
+			{
+				try
+				{
+					if (element_table.getSheetIndex(j) < 0) continue;
+
+					ExcelPoiColumn column = addresses.get(j);
+					setCellValue(sheet, item, column, element_table.getRow(j) - template_first_row + first_row + i * height, element_table.getCol(j), column.getAddress().trim(), sink);
+				}
+				catch (RuntimeException e)
+				{
+					e.printStackTrace();
+					listener.onConversionFailure(element_type, addresses.get(j).getFieldName(), e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * セルに値をセットします。
+	 * @param sheet <code>Sheet</code>オブジェクト
+	 * @param entity 描画対象のクラスインスタンス
+	 * @param column 項目
+	 * @param row 行番号
+	 * @param col 列番号
+	 * @param trim <code>true</code>の場合、前後の空白を除去します
+	 * @param sink セルの出力先
+	 */
+	private void setCellValue(Sheet sheet, Object entity, ExcelPoiColumn column, int row, int col, boolean trim, ExcelPoiCellSink sink)
+	{
+		Row current_row = sheet.getRow(row);
+		if (current_row == null) current_row = sheet.createRow(row);
+		Cell cell = current_row.getCell(col);
+		if (cell == null) cell = current_row.createCell(col);
+
+		column.getWriter(trim).write(entity, sink.setCell(cell));
+		cell_count++;
+	}
+}
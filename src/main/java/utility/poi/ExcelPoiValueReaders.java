@@ -0,0 +1,213 @@
+package utility.poi;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.function.Function;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+
+/**
+ * セルから読み込んだ値をフィールドの型に変換する処理を選択するクラス<br>
+ * セルの値は<code>String</code>、<code>Double</code>、<code>Boolean</code>、<code>LocalDateTime</code>（日付の表示形式の数値）のいずれかです。
+ * @author Takeshi
+ *
+ */
+final class ExcelPoiValueReaders
+{
+	private ExcelPoiValueReaders() { }
+
+	/**
+	 * フィールドの型に応じた変換処理を取得します。<br>
+	 * 変換処理はセルが空の場合に<code>null</code>（<code>Optional</code>型の場合は空の<code>Optional</code>）を返却します。
+	 * @param type フィールドの型（総称型の場合は<code>Optional</code>の要素型も考慮します）
+	 * @return 変換処理（対応していない型の場合は<code>null</code>）
+	 */
+	static Function<Object, Object> getValueReader(Type type)
+	{
+		// Optional型の場合は要素型の変換処理で変換
+		if (getRawType(type) == Optional.class)
+		{
+			Type element_type = (type instanceof ParameterizedType) ? ((ParameterizedType)type).getActualTypeArguments()[0] : Object.class;
+			Function<Object, Object> element = getValueReader(element_type);
+			if (element == null) return null;
+			return v -> Optional.ofNullable(element.apply(v));
+		}
+
+		Function<Object, Object> reader = getBuiltinReader(getRawType(type));
+		if (reader == null) return null;
+		return v -> (v == null || "".equals(v)) ? getEmptyValue(type) : reader.apply(v);
+	}
+
+	/**
+	 * セルが空の場合の値を取得します。
+	 * @param type フィールドの型
+	 * @return 空の値（該当しない型の場合は<code>null</code>）
+	 */
+	private static Object getEmptyValue(Type type)
+	{
+		if (type == OptionalInt.class) return OptionalInt.empty();
+		if (type == OptionalLong.class) return OptionalLong.empty();
+		if (type == OptionalDouble.class) return OptionalDouble.empty();
+		return null;
+	}
+
+	/**
+	 * 標準で対応している型の変換処理を取得します。
+	 * @param type フィールドの型
+	 * @return 変換処理（対応していない型の場合は<code>null</code>）
+	 */
+	private static Function<Object, Object> getBuiltinReader(Class<?> type)
+	{
+		// 文字列型の場合
+		if (type == String.class || type == Object.class)
+		{
+			return ExcelPoiValueReaders::toText;
+		}
+
+		// 数値型の場合
+		else if (type == BigDecimal.class)
+		{
+			return v -> new BigDecimal(toText(v).trim());
+		}
+		else if (type == BigInteger.class)
+		{
+			return v -> (v instanceof Double) ? BigDecimal.valueOf((Double)v).toBigInteger() : new BigInteger(toText(v));
+		}
+		else if (type == Integer.class || type == int.class)
+		{
+			return v -> (int)toNumber(v);
+		}
+		else if (type == Long.class || type == long.class)
+		{
+			return v -> (long)toNumber(v);
+		}
+		else if (type == Short.class || type == short.class)
+		{
+			return v -> (short)toNumber(v);
+		}
+		else if (type == Byte.class || type == byte.class)
+		{
+			return v -> (byte)toNumber(v);
+		}
+		else if (type == Float.class || type == float.class)
+		{
+			return v -> (float)toNumber(v);
+		}
+		else if (type == Double.class || type == double.class)
+		{
+			return v -> toNumber(v);
+		}
+		else if (type == OptionalInt.class)
+		{
+			return v -> OptionalInt.of((int)toNumber(v));
+		}
+		else if (type == OptionalLong.class)
+		{
+			return v -> OptionalLong.of((long)toNumber(v));
+		}
+		else if (type == OptionalDouble.class)
+		{
+			return v -> OptionalDouble.of(toNumber(v));
+		}
+
+		// boolean型の場合
+		else if (type == Boolean.class || type == boolean.class)
+		{
+			return v -> (v instanceof Boolean) ? (Boolean)v : (v instanceof Double) ? (Double)v != 0 : Boolean.valueOf(toText(v).trim());
+		}
+
+		// 日付型の場合
+		else if (type == LocalDateTime.class)
+		{
+			return ExcelPoiValueReaders::toLocalDateTime;
+		}
+		else if (type == LocalDate.class)
+		{
+			return v -> toLocalDateTime(v).toLocalDate();
+		}
+		else if (type == Date.class)
+		{
+			return v -> Date.from(toLocalDateTime(v).atZone(ZoneId.systemDefault()).toInstant());
+		}
+		else if (type == Calendar.class)
+		{
+			return v ->
+			{
+				Calendar calendar = Calendar.getInstance();
+				calendar.setTime(Date.from(toLocalDateTime(v).atZone(ZoneId.systemDefault()).toInstant()));
+				return calendar;
+			};
+		}
+
+		return null;
+	}
+
+	/**
+	 * セルの値を文字列に変換します。<br>
+	 * 整数の数値は小数点以下を付与しません。
+	 * @param value セルの値
+	 * @return 文字列
+	 */
+	private static String toText(Object value)
+	{
+		if (value instanceof Double)
+		{
+			double number = (Double)value;
+			return (number == Math.rint(number) && !Double.isInfinite(number)) ? BigDecimal.valueOf(number).toBigInteger().toString() : value.toString();
+		}
+
+		return value.toString();
+	}
+
+	/**
+	 * セルの値を数値に変換します。
+	 * @param value セルの値
+	 * @return 数値
+	 * @throws NumberFormatException 数値に変換できない場合
+	 */
+	private static double toNumber(Object value)
+	{
+		if (value instanceof Double) return (Double)value;
+		if (value instanceof Boolean) return ((Boolean)value) ? 1 : 0;
+		if (value instanceof LocalDateTime) return DateUtil.getExcelDate((LocalDateTime)value);
+		return Double.parseDouble(toText(value).trim().replace(",", ""));
+	}
+
+	/**
+	 * セルの値を日時に変換します。<br>
+	 * 文字列の場合はISO-8601形式（日付のみも可）として解析します。
+	 * @param value セルの値
+	 * @return 日時
+	 */
+	private static LocalDateTime toLocalDateTime(Object value)
+	{
+		if (value instanceof LocalDateTime) return (LocalDateTime)value;
+		if (value instanceof Double) return DateUtil.getLocalDateTime((Double)value);
+
+		String text = toText(value).trim();
+		return (text.indexOf('T') < 0) ? LocalDate.parse(text).atStartOfDay() : LocalDateTime.parse(text);
+	}
+
+	/**
+	 * 型の<code>Class</code>オブジェクトを取得します。
+	 * @param type 型
+	 * @return <code>Class</code>オブジェクト（判別できない場合は<code>Object</code>）
+	 */
+	private static Class<?> getRawType(Type type)
+	{
+		if (type instanceof Class) return (Class<?>)type;
+		if (type instanceof ParameterizedType) return getRawType(((ParameterizedType)type).getRawType());
+		return Object.class;
+	}
+}
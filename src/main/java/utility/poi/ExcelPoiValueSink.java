@@ -0,0 +1,77 @@
+package utility.poi;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * 型ごとに変換済みの値を受け取る出力先のインターフェース<br>
+ * セル、テキスト等の出力形式ごとに実装します。値が存在しない（<code>null</code>）場合は呼び出されません。
+ * @author Takeshi
+ *
+ */
+public interface ExcelPoiValueSink
+{
+	/**
+	 * 文字列の値を出力します。
+	 * @param value 値
+	 */
+	void setString(String value);
+
+	/**
+	 * 数値の値を出力します。
+	 * @param value 値
+	 */
+	void setNumber(double value);
+
+	/**
+	 * 10進数の値を出力します。<br>
+	 * 既定では<code>double</code>に変換して{@link #setNumber(double)}で出力します。桁を保持できる出力先では実装を置き換えます。
+	 * @param value 値
+	 */
+	default void setDecimal(BigDecimal value)
+	{
+		setNumber(value.doubleValue());
+	}
+
+	/**
+	 * 真偽値を出力します。
+	 * @param value 値
+	 */
+	void setBoolean(boolean value);
+
+	/**
+	 * 日付の値を出力します。
+	 * @param value 値
+	 */
+	void setDate(Date value);
+
+	/**
+	 * 日付の値を出力します。
+	 * @param value 値
+	 */
+	void setCalendar(Calendar value);
+
+	/**
+	 * 日付の値を出力します。
+	 * @param value 値
+	 */
+	void setLocalDate(LocalDate value);
+
+	/**
+	 * 日時の値を出力します。
+	 * @param value 値
+	 */
+	void setLocalDateTime(LocalDateTime value);
+
+	/**
+	 * 計算式を出力します。<br>
+	 * 行番号は出力先の行から取得して埋め込みます。既定では出力しません。計算式を保持できる出力先では実装を置き換えます。
+	 * @param formula 計算式
+	 */
+	default void setFormula(ExcelPoiFormula formula)
+	{
+	}
+}
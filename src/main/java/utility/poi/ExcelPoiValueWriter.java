@@ -0,0 +1,18 @@
+package utility.poi;
+
+/**
+ * 値を取り出して出力先に書き込む関数インターフェース<br>
+ * 項目単位に型に応じた実装をマッピング作成時に一度だけ選択し、セル単位の型判定を不要にします。
+ * @author Takeshi
+ *
+ */
+@FunctionalInterface
+public interface ExcelPoiValueWriter
+{
+	/**
+	 * 値を出力先に書き込みます。
+	 * @param source 値（項目単位の場合はエンティティ）
+	 * @param sink 出力先
+	 */
+	void write(Object source, ExcelPoiValueSink sink);
+}
@@ -0,0 +1,345 @@
+package utility.poi;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.Date;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+
+/**
+ * 値をSpreadsheetMLのセル要素（<code>&lt;c&gt;</code>）として直接書き込む出力先<br>
+ * 数値、行番号は作業用の文字配列で文字列に変換し、セル1件ごとのオブジェクトの生成を抑えます。文字列はセル内に直接保持（<code>inlineStr</code>）します。
+ * @author Takeshi
+ *
+ */
+final class ExcelPoiXmlSink implements ExcelPoiValueSink
+{
+	/** 整数として出力する数値の上限（有効桁数15桁） */
+	private static final double MAX_INTEGER = 1e15;
+
+	private final Writer writer;
+	private final char[] digits = new char[20];
+	private char[] head;
+	private char[] style;
+	private int row;
+	private boolean written;
+
+	/**
+	 * コンストラクタ
+	 * @param writer 出力先
+	 */
+	ExcelPoiXmlSink(Writer writer)
+	{
+		this.writer = writer;
+	}
+
+	/**
+	 * セルの開始タグの先頭部分（<code>&lt;c r="B</code>）を作成します。
+	 * @param col 列番号
+	 * @return 開始タグの先頭部分
+	 */
+	static char[] createHead(int col)
+	{
+		StringBuilder builder = new StringBuilder();
+		for (int value = col + 1; value > 0; value = (value - 1) / 26)
+		{
+			builder.insert(0, (char)('A' + (value - 1) % 26));
+		}
+
+		return ("<c r=\"" + builder).toCharArray();
+	}
+
+	/**
+	 * セルの開始タグのスタイル部分（<code>" s="3"</code>）を作成します。
+	 * @param style_index セルスタイルの番号
+	 * @return 開始タグのスタイル部分
+	 */
+	static char[] createStyle(int style_index)
+	{
+		return (style_index == 0 ? "\"" : "\" s=\"" + style_index + "\"").toCharArray();
+	}
+
+	/**
+	 * 行を開始します。
+	 * @param row 行番号（0始まり）
+	 * @throws IOException 出力に失敗した場合
+	 */
+	void startRow(int row)
+			throws IOException
+	{
+		this.row = row + 1;
+		writer.write("<row r=\"");
+		writeLong(this.row);
+		writer.write("\">");
+	}
+
+	/**
+	 * 行を終了します。
+	 * @throws IOException 出力に失敗した場合
+	 */
+	void endRow()
+			throws IOException
+	{
+		writer.write("</row>");
+	}
+
+	/**
+	 * 出力対象のセルを設定します。
+	 * @param head セルの開始タグの先頭部分
+	 * @param style セルの開始タグのスタイル部分
+	 * @return 本オブジェクト
+	 */
+	ExcelPoiXmlSink setCell(char[] head, char[] style)
+	{
+		this.head = head;
+		this.style = style;
+		this.written = false;
+		return this;
+	}
+
+	/**
+	 * セルを終了します。<br>
+	 * 値が出力されず、スタイルが指定されている場合は値のないセルを出力します。
+	 * 値の変換に失敗した場合も呼び出すことで、セルの書式を保持します。
+	 * @throws IOException 出力に失敗した場合
+	 */
+	void endCell()
+			throws IOException
+	{
+		if (this.written || this.style.length == 1) return;
+
+		startCell(null);
+		writer.write("/>");
+	}
+
+	@Override
+	public void setString(String value)
+	{
+		try
+		{
+			String open = needsPreserve(value) ? "><is><t xml:space=\"preserve\">" : "><is><t>";
+			startCell("inlineStr");
+			writer.write(open);
+			escape(writer, value);
+			writer.write("</t></is></c>");
+		}
+		catch (IOException exp)
+		{
+			throw new UncheckedIOException(exp);
+		}
+	}
+
+	@Override
+	public void setNumber(double value)
+	{
+		try
+		{
+			// 非数、無限大はエラー値として出力
+			if (Double.isNaN(value) || Double.isInfinite(value))
+			{
+				startCell("e");
+				writer.write("><v>#NUM!</v></c>");
+				return;
+			}
+
+			startCell(null);
+			writer.write("><v>");
+			if (value == Math.rint(value) && Math.abs(value) < MAX_INTEGER) writeLong((long)value);
+			else writer.write(Double.toString(value));
+			writer.write("</v></c>");
+		}
+		catch (IOException exp)
+		{
+			throw new UncheckedIOException(exp);
+		}
+	}
+
+	@Override
+	public void setBoolean(boolean value)
+	{
+		try
+		{
+			startCell("b");
+			writer.write(value ? "><v>1</v></c>" : "><v>0</v></c>");
+		}
+		catch (IOException exp)
+		{
+			throw new UncheckedIOException(exp);
+		}
+	}
+
+	@Override
+	public void setDate(Date value)
+	{
+		setNumber(DateUtil.getExcelDate(value));
+	}
+
+	@Override
+	public void setCalendar(Calendar value)
+	{
+		setNumber(DateUtil.getExcelDate(value, false));
+	}
+
+	@Override
+	public void setLocalDate(LocalDate value)
+	{
+		setNumber(DateUtil.getExcelDate(value.atStartOfDay()));
+	}
+
+	@Override
+	public void setLocalDateTime(LocalDateTime value)
+	{
+		setNumber(DateUtil.getExcelDate(value));
+	}
+
+	@Override
+	public void setFormula(ExcelPoiFormula formula)
+	{
+		try
+		{
+			// 計算結果は出力しないため、Excelでファイルを開いた際に再計算させる
+			String text = formula.format(row);
+			startCell(null);
+			writer.write("><f>");
+			escape(writer, text);
+			writer.write("</f></c>");
+		}
+		catch (IOException exp)
+		{
+			throw new UncheckedIOException(exp);
+		}
+	}
+
+	/**
+	 * 文字列をXMLの文字データとしてエスケープします。<br>
+	 * XMLで利用できない制御文字は取り除きます。
+	 * @param value 文字列
+	 * @return エスケープした文字列
+	 */
+	static String escape(String value)
+	{
+		StringBuilder builder = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++)
+		{
+			char c = value.charAt(i);
+			switch (c)
+			{
+				case '&':	builder.append("&amp;"); break;
+				case '<':	builder.append("&lt;"); break;
+				case '>':	builder.append("&gt;"); break;
+				case '"':	builder.append("&quot;"); break;
+				default:	if (isValid(c)) builder.append(c);
+			}
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * セルの開始タグを閉じ括弧の手前まで出力します。<br>
+	 * 開始タグを出力した後は例外が発生しないように、値の変換はすべて呼び出し元で開始タグの出力前に行います。
+	 * @param type セルの型（数値の場合は<code>null</code>）
+	 * @throws IOException 出力に失敗した場合
+	 * @throws IllegalStateException セルに値を出力済みの場合
+	 */
+	private void startCell(String type)
+			throws IOException
+	{
+		if (this.written) throw new IllegalStateException("セルの値は既に出力されています。");
+
+		writer.write(head);
+		writeLong(row);
+		writer.write(style);
+		if (type != null)
+		{
+			writer.write(" t=\"");
+			writer.write(type);
+			writer.write('"');
+		}
+		this.written = true;
+	}
+
+	/**
+	 * 整数を出力します。
+	 * @param value 整数
+	 * @throws IOException 出力に失敗した場合
+	 */
+	private void writeLong(long value)
+			throws IOException
+	{
+		if (value == Long.MIN_VALUE)
+		{
+			writer.write(Long.toString(value));
+			return;
+		}
+
+		boolean negative = value < 0;
+		long current = Math.abs(value);
+		int position = digits.length;
+		do
+		{
+			digits[--position] = (char)('0' + current % 10);
+			current /= 10;
+		}
+		while (current > 0);
+		if (negative) digits[--position] = '-';
+
+		writer.write(digits, position, digits.length - position);
+	}
+
+	/**
+	 * 文字列をXMLの文字データとしてエスケープして出力します。
+	 * @param writer 出力先
+	 * @param value 文字列
+	 * @throws IOException 出力に失敗した場合
+	 */
+	private static void escape(Writer writer, String value)
+			throws IOException
+	{
+		int start = 0;
+		for (int i = 0; i < value.length(); i++)
+		{
+			char c = value.charAt(i);
+			String replacement;
+			switch (c)
+			{
+				case '&':	replacement = "&amp;"; break;
+				case '<':	replacement = "&lt;"; break;
+				case '>':	replacement = "&gt;"; break;
+				default:	replacement = isValid(c) ? null : "";
+			}
+			if (replacement == null) continue;
+
+			writer.write(value, start, i - start);
+			writer.write(replacement);
+			start = i + 1;
+		}
+
+		writer.write(value, start, value.length() - start);
+	}
+
+	/**
+	 * XMLで利用できる文字か否かを取得します。
+	 * @param c 文字
+	 * @return 利用できる場合<code>true</code>
+	 */
+	private static boolean isValid(char c)
+	{
+		return c >= 0x20 ? c < 0xFFFE : (c == '\t' || c == '\n' || c == '\r');
+	}
+
+	/**
+	 * 前後の空白、改行を保持する指定が必要か否かを取得します。
+	 * @param value 文字列
+	 * @return 必要な場合<code>true</code>
+	 */
+	private static boolean needsPreserve(String value)
+	{
+		if (value.isEmpty()) return false;
+		return Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(value.length() - 1)) || value.indexOf('\n') >= 0;
+	}
+}
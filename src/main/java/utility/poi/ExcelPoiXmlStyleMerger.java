@@ -0,0 +1,213 @@
+package utility.poi;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * 既存のスタイル定義（<code>styles.xml</code>）に<code>ExcelPoiStyle</code>のスタイルを追加するクラス<br>
+ * フォント、塗りつぶし、枠線、表示形式、セルスタイルは、既存の定義に同じ内容の要素があれば再利用し、ない場合のみ末尾に追加します。
+ * 同じクラスで繰り返し追記しても、2回目以降はスタイル定義が増えません。
+ * @author Takeshi
+ *
+ */
+final class ExcelPoiXmlStyleMerger
+{
+	/** SpreadsheetMLの名前空間 */
+	static final String NAMESPACE = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+	/** ユーザー定義の表示形式の番号の開始値 */
+	private static final int CUSTOM_FORMAT_START = 164;
+
+	private final Document document;
+	private final Map<ExcelPoiStyle, Integer> styles = new HashMap<>();
+
+	/**
+	 * コンストラクタ
+	 * @param document 既存のスタイル定義
+	 */
+	ExcelPoiXmlStyleMerger(Document document)
+	{
+		this.document = document;
+	}
+
+	/**
+	 * セルスタイルの番号を取得します。<br>
+	 * 既存の定義に同じ内容のセルスタイルがない場合は追加します。
+	 * @param style セルスタイルの設定値
+	 * @return セルスタイルの番号（設定値が<code>null</code>の場合は既定のスタイルの<code>0</code>）
+	 * @throws IOException スタイル定義の形式に対応していない場合
+	 */
+	int getStyleIndex(ExcelPoiStyle style)
+			throws IOException
+	{
+		if (style == null) return 0;
+
+		Integer index = styles.get(style);
+		if (index != null) return index;
+
+		StringWriter writer = new StringWriter();
+
+		// フォント
+		ExcelPoiXmlStyles.writeFont(writer, style);
+		int font_id = findOrAppend("fonts", pop(writer));
+
+		// 塗りつぶし
+		int fill_id = 0;
+		if (style.getBackgroundcolor() != IndexedColors.AUTOMATIC)
+		{
+			ExcelPoiXmlStyles.writeFill(writer, style.getBackgroundcolor());
+			fill_id = findOrAppend("fills", pop(writer));
+		}
+
+		// 枠線
+		List<Object> border = ExcelPoiXmlStyles.getBorderKey(style);
+		ExcelPoiXmlStyles.writeBorder(writer, border);
+		int border_id = findOrAppend("borders", pop(writer));
+
+		// 表示形式
+		int format_id = ExcelPoiXmlStyles.getBuiltinFormatId(style);
+		if (format_id < 0) format_id = findOrAppendFormat(style.getFormat());
+
+		// セルスタイル
+		ExcelPoiXmlStyles.writeCellXf(writer, style, format_id, font_id, fill_id, border_id);
+		index = findOrAppend("cellXfs", pop(writer));
+
+		styles.put(style, index);
+		return index;
+	}
+
+	/**
+	 * スタイル定義を取得します。
+	 * @return 追加したスタイルを含むスタイル定義
+	 */
+	Document getDocument()
+	{
+		return this.document;
+	}
+
+	/**
+	 * 同じ内容の要素の番号を取得します。存在しない場合は末尾に追加して件数を更新します。
+	 * @param section 親要素の名前
+	 * @param fragment 要素のXML
+	 * @return 要素の番号（0始まり）
+	 * @throws IOException スタイル定義の形式に対応していない場合
+	 */
+	private int findOrAppend(String section, String fragment)
+			throws IOException
+	{
+		Element parent = getSection(section, false);
+		Node node = document.importNode(parseFragment(fragment), true);
+
+		int index = 0;
+		for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling())
+		{
+			if (child.getNodeType() != Node.ELEMENT_NODE) continue;
+			if (child.isEqualNode(node)) return index;
+			index++;
+		}
+
+		parent.appendChild(node);
+		parent.setAttribute("count", String.valueOf(index + 1));
+		return index;
+	}
+
+	/**
+	 * 同じ書式のユーザー定義の表示形式の番号を取得します。存在しない場合は未使用の番号で追加します。
+	 * @param format 表示形式
+	 * @return 表示形式の番号
+	 * @throws IOException スタイル定義の形式に対応していない場合
+	 */
+	private int findOrAppendFormat(String format)
+			throws IOException
+	{
+		Element parent = getSection("numFmts", true);
+
+		int count = 0;
+		int next_id = CUSTOM_FORMAT_START;
+		for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling())
+		{
+			if (child.getNodeType() != Node.ELEMENT_NODE) continue;
+
+			Element element = (Element)child;
+			int id = Integer.parseInt(element.getAttribute("numFmtId"));
+			if (format.equals(element.getAttribute("formatCode"))) return id;
+
+			next_id = Math.max(next_id, id + 1);
+			count++;
+		}
+
+		Element element = document.createElementNS(NAMESPACE, "numFmt");
+		element.setAttribute("numFmtId", String.valueOf(next_id));
+		element.setAttribute("formatCode", format);
+		parent.appendChild(element);
+		parent.setAttribute("count", String.valueOf(count + 1));
+		return next_id;
+	}
+
+	/**
+	 * スタイル定義の直下の要素を取得します。
+	 * @param name 要素名
+	 * @param create 存在しない場合に先頭に作成する場合<code>true</code>（<code>numFmts</code>のみ）
+	 * @return 要素
+	 * @throws IOException 要素が存在しない場合
+	 */
+	private Element getSection(String name, boolean create)
+			throws IOException
+	{
+		Element root = document.getDocumentElement();
+		for (Node child = root.getFirstChild(); child != null; child = child.getNextSibling())
+		{
+			if (child.getNodeType() == Node.ELEMENT_NODE && name.equals(child.getLocalName()) && NAMESPACE.equals(child.getNamespaceURI())) return (Element)child;
+		}
+		if (!create) throw new IOException(String.format("スタイル定義に %s が存在しません。", name));
+
+		Element element = document.createElementNS(NAMESPACE, name);
+		root.insertBefore(element, root.getFirstChild());
+		return element;
+	}
+
+	/**
+	 * 作成した要素のXMLを取り出し、作業用の出力先を空にします。
+	 * @param writer 作業用の出力先
+	 * @return 要素のXML
+	 */
+	private static String pop(StringWriter writer)
+	{
+		String fragment = writer.toString();
+		writer.getBuffer().setLength(0);
+		return fragment;
+	}
+
+	/**
+	 * 要素のXMLをSpreadsheetMLの名前空間の要素として解析します。
+	 * @param fragment 要素のXML
+	 * @return 要素
+	 * @throws IOException 解析に失敗した場合
+	 */
+	private static Element parseFragment(String fragment)
+			throws IOException
+	{
+		try
+		{
+			Document wrapper = ExcelPoiAppender.newDocumentBuilder().parse(new InputSource(new StringReader("<styleSheet xmlns=\"" + NAMESPACE + "\">" + fragment + "</styleSheet>")));
+			return (Element)wrapper.getDocumentElement().getFirstChild();
+		}
+		catch (ParserConfigurationException | SAXException exp)
+		{
+			throw new IOException(exp);
+		}
+	}
+}
@@ -0,0 +1,306 @@
+package utility.poi;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.IndexedColors;
+
+/**
+ * <code>ExcelPoiStyle</code>からSpreadsheetMLのスタイル定義（<code>styles.xml</code>）を作成するクラス<br>
+ * 同じ設定値のスタイル、フォント、塗りつぶし、枠線、表示形式は1件にまとめます。
+ * @author Takeshi
+ *
+ */
+final class ExcelPoiXmlStyles
+{
+	/** ユーザー定義の表示形式の番号の開始値 */
+	private static final int CUSTOM_FORMAT_START = 164;
+
+	private final Map<ExcelPoiStyle, Integer> styles = new HashMap<>();
+	private final List<ExcelPoiStyle> style_list = new ArrayList<>();
+	private final Map<List<Object>, Integer> fonts = new LinkedHashMap<>();
+	private final Map<IndexedColors, Integer> fills = new LinkedHashMap<>();
+	private final Map<List<Object>, Integer> borders = new LinkedHashMap<>();
+	private final Map<String, Integer> formats = new LinkedHashMap<>();
+
+	/**
+	 * コンストラクタ
+	 */
+	ExcelPoiXmlStyles()
+	{
+		// 既定の枠線（なし）
+		borders.put(Arrays.asList(BorderStyle.NONE, BorderStyle.NONE, BorderStyle.NONE, BorderStyle.NONE, IndexedColors.BLACK), 0);
+	}
+
+	/**
+	 * セルスタイルの番号を取得します。<br>
+	 * 未登録の設定値の場合は登録します。
+	 * @param style セルスタイルの設定値
+	 * @return セルスタイルの番号（設定値が<code>null</code>の場合は既定のスタイルの<code>0</code>）
+	 */
+	int getStyleIndex(ExcelPoiStyle style)
+	{
+		if (style == null) return 0;
+
+		return styles.computeIfAbsent(style, k ->
+		{
+			fonts.computeIfAbsent(k.getFontKey(), t -> fonts.size() + 1);
+			if (k.getBackgroundcolor() != IndexedColors.AUTOMATIC) fills.computeIfAbsent(k.getBackgroundcolor(), t -> fills.size() + 2);
+			borders.computeIfAbsent(getBorderKey(k), t -> borders.size());
+			if (getBuiltinFormatId(k) < 0) formats.computeIfAbsent(k.getFormat(), t -> CUSTOM_FORMAT_START + formats.size());
+
+			style_list.add(k);
+			return style_list.size();
+		});
+	}
+
+	/**
+	 * スタイル定義を出力します。
+	 * @param writer 出力先
+	 * @throws IOException 出力に失敗した場合
+	 */
+	void write(Writer writer)
+			throws IOException
+	{
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+		writer.write("<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">");
+
+		// 表示形式
+		if (!formats.isEmpty())
+		{
+			writer.write("<numFmts count=\"" + formats.size() + "\">");
+			for (Map.Entry<String, Integer> format : formats.entrySet())
+			{
+				writer.write("<numFmt numFmtId=\"" + format.getValue() + "\" formatCode=\"" + ExcelPoiXmlSink.escape(format.getKey()) + "\"/>");
+			}
+			writer.write("</numFmts>");
+		}
+
+		// フォント（先頭は既定のフォント）
+		writer.write("<fonts count=\"" + (fonts.size() + 1) + "\"><font><sz val=\"11\"/><name val=\"Calibri\"/><family val=\"2\"/></font>");
+		for (ExcelPoiStyle style : getDistinct(fonts.size(), t -> fonts.get(t.getFontKey()) - 1))
+		{
+			writeFont(writer, style);
+		}
+		writer.write("</fonts>");
+
+		// 塗りつぶし（先頭の2件は既定の塗りつぶし）
+		writer.write("<fills count=\"" + (fills.size() + 2) + "\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill>");
+		for (IndexedColors color : fills.keySet())
+		{
+			writeFill(writer, color);
+		}
+		writer.write("</fills>");
+
+		// 枠線
+		writer.write("<borders count=\"" + borders.size() + "\">");
+		for (List<Object> border : borders.keySet())
+		{
+			writeBorder(writer, border);
+		}
+		writer.write("</borders>");
+
+		writer.write("<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>");
+
+		// セルスタイル（先頭は既定のスタイル）
+		writer.write("<cellXfs count=\"" + (style_list.size() + 1) + "\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>");
+		for (ExcelPoiStyle style : style_list)
+		{
+			int format_id = getBuiltinFormatId(style);
+			if (format_id < 0) format_id = formats.get(style.getFormat());
+			int fill_id = style.getBackgroundcolor() == IndexedColors.AUTOMATIC ? 0 : fills.get(style.getBackgroundcolor());
+
+			writeCellXf(writer, style, format_id, fonts.get(style.getFontKey()), fill_id, borders.get(getBorderKey(style)));
+		}
+		writer.write("</cellXfs>");
+
+		writer.write("<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>");
+		writer.write("</styleSheet>");
+	}
+
+	/**
+	 * フォント（<code>&lt;font&gt;</code>）を出力します。
+	 * @param writer 出力先
+	 * @param style セルスタイルの設定値
+	 * @throws IOException 出力に失敗した場合
+	 */
+	static void writeFont(Writer writer, ExcelPoiStyle style)
+			throws IOException
+	{
+		writer.write("<font>");
+		if (style.isBold()) writer.write("<b/>");
+		if (style.isItalic()) writer.write("<i/>");
+		if (style.isStrikeout()) writer.write("<strike/>");
+		if (style.getUnderline().getUnderline() != 0) writer.write("<u val=\"" + getUnderlineName(style.getUnderline().getUnderline()) + "\"/>");
+		writer.write("<sz val=\"" + style.getSize() + "\"/>");
+		writer.write("<color indexed=\"" + style.getForecolor().getIndex() + "\"/>");
+		writer.write("<name val=\"" + ExcelPoiXmlSink.escape(style.getFont().getFontname()) + "\"/>");
+		writer.write("</font>");
+	}
+
+	/**
+	 * 塗りつぶし（<code>&lt;fill&gt;</code>）を出力します。
+	 * @param writer 出力先
+	 * @param color 背景色
+	 * @throws IOException 出力に失敗した場合
+	 */
+	static void writeFill(Writer writer, IndexedColors color)
+			throws IOException
+	{
+		writer.write("<fill><patternFill patternType=\"solid\"><fgColor indexed=\"" + color.getIndex() + "\"/><bgColor indexed=\"64\"/></patternFill></fill>");
+	}
+
+	/**
+	 * 枠線（<code>&lt;border&gt;</code>）を出力します。
+	 * @param writer 出力先
+	 * @param border 枠線のキー（{@link #getBorderKey(ExcelPoiStyle)}）
+	 * @throws IOException 出力に失敗した場合
+	 */
+	static void writeBorder(Writer writer, List<Object> border)
+			throws IOException
+	{
+		writer.write("<border>");
+		writeBorder(writer, "left", (BorderStyle)border.get(2), (IndexedColors)border.get(4));
+		writeBorder(writer, "right", (BorderStyle)border.get(3), (IndexedColors)border.get(4));
+		writeBorder(writer, "top", (BorderStyle)border.get(0), (IndexedColors)border.get(4));
+		writeBorder(writer, "bottom", (BorderStyle)border.get(1), (IndexedColors)border.get(4));
+		writer.write("<diagonal/></border>");
+	}
+
+	/**
+	 * セルスタイル（<code>&lt;xf&gt;</code>）を出力します。
+	 * @param writer 出力先
+	 * @param style セルスタイルの設定値
+	 * @param format_id 表示形式の番号
+	 * @param font_id フォントの番号
+	 * @param fill_id 塗りつぶしの番号
+	 * @param border_id 枠線の番号
+	 * @throws IOException 出力に失敗した場合
+	 */
+	static void writeCellXf(Writer writer, ExcelPoiStyle style, int format_id, int font_id, int fill_id, int border_id)
+			throws IOException
+	{
+		writer.write("<xf numFmtId=\"" + format_id + "\" fontId=\"" + font_id + "\" fillId=\"" + fill_id
+				+ "\" borderId=\"" + border_id + "\" xfId=\"0\" applyNumberFormat=\"1\" applyFont=\"1\" applyFill=\"1\" applyBorder=\"1\" applyAlignment=\"1\">");
+		writer.write("<alignment horizontal=\"" + getAlignmentName(style.getHorizontalAlignment().name()) + "\" vertical=\"" + getAlignmentName(style.getVerticalAlignment().name()) + "\"");
+		if (style.isWraptext()) writer.write(" wrapText=\"1\"");
+		writer.write("/></xf>");
+	}
+
+	/**
+	 * 組み込みの表示形式の番号を取得します。
+	 * @param style セルスタイルの設定値
+	 * @return 表示形式の番号（表示形式の指定がない場合は<code>0</code>、ユーザー定義の表示形式の場合は<code>-1</code>）
+	 */
+	static int getBuiltinFormatId(ExcelPoiStyle style)
+	{
+		return style.getFormat().equals("") ? 0 : BuiltinFormats.getBuiltinFormat(style.getFormat());
+	}
+
+	/**
+	 * 番号順に並べた設定値を取得します。
+	 * @param size 件数
+	 * @param index 設定値から番号を取得する関数
+	 * @return 番号順の設定値（各番号で最初に登録した設定値）
+	 */
+	private List<ExcelPoiStyle> getDistinct(int size, ToIntFunction<ExcelPoiStyle> index)
+	{
+		ExcelPoiStyle[] distinct = new ExcelPoiStyle[size];
+		for (ExcelPoiStyle style : style_list)
+		{
+			int i = index.applyAsInt(style);
+			if (distinct[i] == null) distinct[i] = style;
+		}
+
+		return Arrays.asList(distinct);
+	}
+
+	/**
+	 * 枠線の1辺を出力します。
+	 * @param writer 出力先
+	 * @param side 辺の要素名
+	 * @param style 枠線のスタイル
+	 * @param color 枠線の色
+	 * @throws IOException 出力に失敗した場合
+	 */
+	private static void writeBorder(Writer writer, String side, BorderStyle style, IndexedColors color)
+			throws IOException
+	{
+		if (style == BorderStyle.NONE)
+		{
+			writer.write("<" + side + "/>");
+			return;
+		}
+
+		writer.write("<" + side + " style=\"" + getBorderName(style) + "\"><color indexed=\"" + color.getIndex() + "\"/></" + side + ">");
+	}
+
+	/**
+	 * 枠線に関する設定値のみのキーを取得します。
+	 * @param style セルスタイルの設定値
+	 * @return 枠線のキー（上、下、左、右、色）
+	 */
+	static List<Object> getBorderKey(ExcelPoiStyle style)
+	{
+		boolean none = style.getTop() == BorderStyle.NONE && style.getBottom() == BorderStyle.NONE
+				&& style.getLeft() == BorderStyle.NONE && style.getRight() == BorderStyle.NONE;
+		return Arrays.asList(style.getTop(), style.getBottom(), style.getLeft(), style.getRight(), none ? IndexedColors.BLACK : style.getBordercolor());
+	}
+
+	/**
+	 * 枠線のスタイルのSpreadsheetMLでの名前を取得します。
+	 * @param style 枠線のスタイル
+	 * @return 名前（<code>MEDIUM_DASH_DOT</code>の場合は<code>mediumDashDot</code>）
+	 */
+	private static String getBorderName(BorderStyle style)
+	{
+		if (style == BorderStyle.SLANTED_DASH_DOT) return "slantDashDot";
+		return getAlignmentName(style.name());
+	}
+
+	/**
+	 * 列挙子の名前をSpreadsheetMLでの名前に変換します。
+	 * @param name 列挙子の名前
+	 * @return 名前（<code>CENTER_SELECTION</code>の場合は<code>centerContinuous</code>）
+	 */
+	private static String getAlignmentName(String name)
+	{
+		if (name.equals("CENTER_SELECTION")) return "centerContinuous";
+
+		StringBuilder builder = new StringBuilder();
+		boolean upper = false;
+		for (char c : name.toCharArray())
+		{
+			if (c == '_') { upper = true; continue; }
+			builder.append(upper ? c : Character.toLowerCase(c));
+			upper = false;
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * 下線のSpreadsheetMLでの名前を取得します。
+	 * @param underline 下線の種類
+	 * @return 名前
+	 */
+	private static String getUnderlineName(byte underline)
+	{
+		switch (underline)
+		{
+			case 2:		return "double";
+			case 0x21:	return "singleAccounting";
+			case 0x22:	return "doubleAccounting";
+			default:	return "single";
+		}
+	}
+}
@@ -0,0 +1,375 @@
+package utility.poi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 既存のZIPファイルのエントリーを、圧縮済みのまま1バイトも変えずに別のZIPファイルへ複製するクラス<br>
+ * エントリーのデータ（ローカルヘッダー、圧縮データ）は<code>FileChannel.transferTo</code>で転送し、展開、再圧縮しません。
+ * 置き換えるエントリーのみ新たに圧縮して書き込み、最後に中央ディレクトリを作成し直します。
+ * ZIP64形式のファイルには対応していません。
+ * @author Takeshi
+ *
+ */
+final class ExcelPoiZipCopier
+{
+	/** ローカルヘッダーの署名 */
+	private static final int LOCAL_HEADER = 0x04034b50;
+
+	/** 中央ディレクトリのヘッダーの署名 */
+	private static final int CENTRAL_HEADER = 0x02014b50;
+
+	/** 中央ディレクトリの終端レコードの署名 */
+	private static final int END_OF_CENTRAL = 0x06054b50;
+
+	/** データ記述子の署名 */
+	private static final int DATA_DESCRIPTOR = 0x08074b50;
+
+	/** 中央ディレクトリの終端レコードの長さ（コメントを除く） */
+	private static final int END_OF_CENTRAL_LENGTH = 22;
+
+	/** 中央ディレクトリのヘッダーの長さ（可変長部分を除く） */
+	private static final int CENTRAL_HEADER_LENGTH = 46;
+
+	/** 32ビットで表現できない値（ZIP64形式） */
+	private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+	/** 圧縮用のバッファのサイズ */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final FileChannel source;
+	private final WritableByteChannel target;
+	private final Map<String, Entry> entries = new LinkedHashMap<>();
+	private final ByteArrayOutputStream central = new ByteArrayOutputStream();
+	private long position = 0;
+	private int count = 0;
+
+	/**
+	 * コンストラクタ<br>
+	 * 複製元の中央ディレクトリを読み込みます。
+	 * @param source 複製元のZIPファイル
+	 * @param target 複製先
+	 * @throws IOException 読み込みに失敗した場合、ZIP64形式の場合
+	 */
+	ExcelPoiZipCopier(FileChannel source, WritableByteChannel target)
+			throws IOException
+	{
+		this.source = source;
+		this.target = target;
+
+		// 中央ディレクトリの終端レコードを末尾から検索
+		long size = source.size();
+		int tail_length = (int)Math.min(size, END_OF_CENTRAL_LENGTH + 0xFFFF);
+		ByteBuffer tail = read(size - tail_length, tail_length);
+		int end = -1;
+		for (int i = tail_length - END_OF_CENTRAL_LENGTH; i >= 0; i--)
+		{
+			if (tail.getInt(i) == END_OF_CENTRAL) { end = i; break; }
+		}
+		if (end < 0) throw new IOException("ZIPファイルの中央ディレクトリが見つかりません。");
+
+		int entry_count = Short.toUnsignedInt(tail.getShort(end + 10));
+		long central_size = Integer.toUnsignedLong(tail.getInt(end + 12));
+		long central_offset = Integer.toUnsignedLong(tail.getInt(end + 16));
+		if (entry_count == 0xFFFF || central_offset == ZIP64_MAGIC) throw new IOException("ZIP64形式のファイルには対応していません。");
+
+		// 中央ディレクトリのヘッダーを読み込み
+		ByteBuffer directory = read(central_offset, (int)central_size);
+		List<Entry> ordered = new ArrayList<>();
+		for (int offset = 0, i = 0; i < entry_count; i++)
+		{
+			if (directory.getInt(offset) != CENTRAL_HEADER) throw new IOException("ZIPファイルの中央ディレクトリが不正です。");
+
+			int name_length = Short.toUnsignedInt(directory.getShort(offset + 28));
+			int extra_length = Short.toUnsignedInt(directory.getShort(offset + 30));
+			int comment_length = Short.toUnsignedInt(directory.getShort(offset + 32));
+			int length = CENTRAL_HEADER_LENGTH + name_length + extra_length + comment_length;
+			if (Integer.toUnsignedLong(directory.getInt(offset + 20)) == ZIP64_MAGIC || Integer.toUnsignedLong(directory.getInt(offset + 24)) == ZIP64_MAGIC
+					|| Integer.toUnsignedLong(directory.getInt(offset + 42)) == ZIP64_MAGIC)
+			{
+				throw new IOException("ZIP64形式のファイルには対応していません。");
+			}
+
+			byte[] header = new byte[length];
+			directory.position(offset);
+			directory.get(header);
+			byte[] name = new byte[name_length];
+			System.arraycopy(header, CENTRAL_HEADER_LENGTH, name, 0, name_length);
+
+			Entry entry = new Entry(header, name, Integer.toUnsignedLong(directory.getInt(offset + 42)));
+			entries.put(new String(name, StandardCharsets.UTF_8), entry);
+			ordered.add(entry);
+			offset += length;
+		}
+
+		// エントリーのデータの範囲は次のエントリー（最後は中央ディレクトリ）の開始位置まで（データ記述子を含む）
+		ordered.sort(Comparator.comparingLong(t -> t.offset));
+		for (int i = 0; i < ordered.size(); i++)
+		{
+			ordered.get(i).end = (i + 1 < ordered.size()) ? ordered.get(i + 1).offset : central_offset;
+		}
+	}
+
+	/**
+	 * エントリー名を格納順に取得します。
+	 * @return エントリー名のリスト
+	 */
+	List<String> getNames()
+	{
+		return Collections.unmodifiableList(new ArrayList<>(entries.keySet()));
+	}
+
+	/**
+	 * エントリーを圧縮済みのまま複製します。
+	 * @param name エントリー名
+	 * @throws IOException 複製に失敗した場合
+	 */
+	void copy(String name)
+			throws IOException
+	{
+		Entry entry = getEntry(name);
+
+		long start = this.position;
+		for (long offset = entry.offset; offset < entry.end; )
+		{
+			long transferred = source.transferTo(offset, entry.end - offset, target);
+			if (transferred <= 0) throw new IOException("ZIPファイルのエントリーを複製できません。");
+			offset += transferred;
+		}
+		this.position += entry.end - entry.offset;
+
+		// 中央ディレクトリのヘッダーはローカルヘッダーの位置のみ変更
+		byte[] header = entry.header.clone();
+		ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN).putInt(42, (int)checkOffset(start));
+		central.write(header);
+		count++;
+	}
+
+	/**
+	 * エントリーを置き換えます。<br>
+	 * 返却した出力ストリームに展開後のデータを書き込み、閉じた時点でエントリーを終了します。
+	 * @param name エントリー名
+	 * @return エントリーの出力ストリーム
+	 * @throws IOException 出力に失敗した場合
+	 */
+	OutputStream replace(String name)
+			throws IOException
+	{
+		return new EntryStream(getEntry(name));
+	}
+
+	/**
+	 * 中央ディレクトリと終端レコードを出力します。
+	 * @throws IOException 出力に失敗した場合
+	 */
+	void finish()
+			throws IOException
+	{
+		long central_offset = this.position;
+		write(ByteBuffer.wrap(central.toByteArray()));
+
+		ByteBuffer end = ByteBuffer.allocate(END_OF_CENTRAL_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+		end.putInt(END_OF_CENTRAL).putShort((short)0).putShort((short)0)
+			.putShort((short)count).putShort((short)count)
+			.putInt(central.size()).putInt((int)checkOffset(central_offset)).putShort((short)0);
+		end.flip();
+		write(end);
+	}
+
+	/**
+	 * エントリーを取得します。
+	 * @param name エントリー名
+	 * @return エントリー
+	 * @throws IOException エントリーが存在しない場合
+	 */
+	private Entry getEntry(String name)
+			throws IOException
+	{
+		Entry entry = entries.get(name);
+		if (entry == null) throw new IOException(String.format("ZIPファイルにエントリー %s が存在しません。", name));
+		return entry;
+	}
+
+	/**
+	 * 複製元から読み込みます。
+	 * @param offset 開始位置
+	 * @param length 長さ
+	 * @return 読み込んだデータ（リトルエンディアン）
+	 * @throws IOException 読み込みに失敗した場合
+	 */
+	private ByteBuffer read(long offset, int length)
+			throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining())
+		{
+			if (source.read(buffer, offset + buffer.position()) < 0) throw new IOException("ZIPファイルが途中で終了しています。");
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * 複製先に書き込みます。
+	 * @param buffer データ
+	 * @throws IOException 書き込みに失敗した場合
+	 */
+	private void write(ByteBuffer buffer)
+			throws IOException
+	{
+		this.position += buffer.remaining();
+		while (buffer.hasRemaining()) target.write(buffer);
+	}
+
+	/**
+	 * ZIP64形式でなければ表現できない位置、サイズでないことを確認します。
+	 * @param value 位置、サイズ
+	 * @return 値
+	 * @throws IOException 32ビットで表現できない場合
+	 */
+	private static long checkOffset(long value)
+			throws IOException
+	{
+		if (value >= ZIP64_MAGIC) throw new IOException("ZIP64形式が必要なサイズのファイルには対応していません。");
+		return value;
+	}
+
+	/**
+	 * 複製元のエントリー
+	 */
+	private static final class Entry
+	{
+		private final byte[] header;
+		private final byte[] name;
+		private final long offset;
+		private long end;
+
+		/**
+		 * コンストラクタ
+		 * @param header 中央ディレクトリのヘッダー
+		 * @param name エントリー名
+		 * @param offset ローカルヘッダーの位置
+		 */
+		Entry(byte[] header, byte[] name, long offset)
+		{
+			this.header = header;
+			this.name = name;
+			this.offset = offset;
+		}
+	}
+
+	/**
+	 * 置き換えるエントリーのデータを圧縮して書き込む出力ストリーム<br>
+	 * サイズ、CRCは書き込み後に確定するため、データ記述子に出力します。
+	 */
+	private final class EntryStream extends OutputStream
+	{
+		private final Entry entry;
+		private final int flags;
+		private final int time;
+		private final long start;
+		private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		private final CRC32 crc = new CRC32();
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		private long size = 0;
+		private boolean closed = false;
+
+		/**
+		 * コンストラクタ<br>
+		 * ローカルヘッダーを出力します。
+		 * @param entry 置き換えるエントリー
+		 * @throws IOException 出力に失敗した場合
+		 */
+		EntryStream(Entry entry)
+				throws IOException
+		{
+			ByteBuffer original = ByteBuffer.wrap(entry.header).order(ByteOrder.LITTLE_ENDIAN);
+			this.entry = entry;
+			this.flags = 0x0008 | (original.getShort(8) & 0x0800);
+			this.time = original.getInt(12);
+			this.start = position;
+
+			ByteBuffer header = ByteBuffer.allocate(30 + entry.name.length).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(LOCAL_HEADER).putShort((short)20).putShort((short)flags).putShort((short)Deflater.DEFLATED).putInt(time)
+				.putInt(0).putInt(0).putInt(0).putShort((short)entry.name.length).putShort((short)0).put(entry.name);
+			header.flip();
+			ExcelPoiZipCopier.this.write(header);
+		}
+
+		@Override
+		public void write(int b)
+				throws IOException
+		{
+			write(new byte[] { (byte)b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len)
+				throws IOException
+		{
+			crc.update(b, off, len);
+			size += len;
+			deflater.setInput(b, off, len);
+			while (!deflater.needsInput()) deflate();
+		}
+
+		@Override
+		public void close()
+				throws IOException
+		{
+			if (closed) return;
+			closed = true;
+
+			try
+			{
+				deflater.finish();
+				while (!deflater.finished()) deflate();
+
+				// データ記述子
+				long compressed = deflater.getBytesWritten();
+				ByteBuffer descriptor = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+				descriptor.putInt(DATA_DESCRIPTOR).putInt((int)crc.getValue()).putInt((int)checkOffset(compressed)).putInt((int)checkOffset(size));
+				descriptor.flip();
+				ExcelPoiZipCopier.this.write(descriptor);
+
+				// 中央ディレクトリのヘッダー
+				ByteBuffer header = ByteBuffer.allocate(CENTRAL_HEADER_LENGTH + entry.name.length).order(ByteOrder.LITTLE_ENDIAN);
+				header.putInt(CENTRAL_HEADER).putShort((short)20).putShort((short)20).putShort((short)flags).putShort((short)Deflater.DEFLATED).putInt(time)
+					.putInt((int)crc.getValue()).putInt((int)compressed).putInt((int)size)
+					.putShort((short)entry.name.length).putShort((short)0).putShort((short)0).putShort((short)0).putShort((short)0).putInt(0)
+					.putInt((int)checkOffset(start)).put(entry.name);
+				central.write(header.array());
+				count++;
+			}
+			finally
+			{
+				deflater.end();
+			}
+		}
+
+		/**
+		 * 圧縮済みのデータを出力します。
+		 * @throws IOException 出力に失敗した場合
+		 */
+		private void deflate()
+				throws IOException
+		{
+			int length = deflater.deflate(buffer, 0, buffer.length);
+			if (length > 0) ExcelPoiZipCopier.this.write(ByteBuffer.wrap(buffer, 0, length));
+		}
+	}
+}
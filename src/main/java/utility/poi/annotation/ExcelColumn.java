@@ -1,43 +1,51 @@
-package utility.poi.annotation;
-
-import java.lang.annotation.ElementType;
-import java.lang.annotation.Retention;
-import java.lang.annotation.RetentionPolicy;
-import java.lang.annotation.Target;
-
-import org.apache.poi.ss.usermodel.CellType;
-
-/**
- * Excel出力時の項目を指定する注釈
- * @author Takeshi
- *
- */
-@Retention(RetentionPolicy.RUNTIME)
-@Target(ElementType.FIELD)
-public @interface ExcelColumn
-{
-	/** 項目のタイトル */
-	String name();
-
-	/** 項目のデータ型 */
-	CellType type() default CellType.BLANK;
-
-	/**
-	 * 項目の幅
-	 * 表示する文字数で指定します。
-	 */
-	int width() default -1;
-
-	/**
-	 * 計算式
-	 * 先頭の<code>=</code>を除いて指定します。
-	 * 計算式が設定された場合、<code>Entity</code>の値は無視されます。
-	 */
-	String formula() default"";
-
-	/**
-	 * 値の出力時に前後の空白を除去するか否かを指定します。<br>
-	 * 文字列型の値を持つ場合のみ有効です。
-	 */
-	boolean trim() default true;
-}
+package utility.poi.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.apache.poi.ss.usermodel.CellType;
+
+/**
+ * Excel出力時の項目を指定する注釈
+ * @author Takeshi
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface ExcelColumn
+{
+	/** 項目のタイトル */
+	String name();
+
+	/** 項目のデータ型 */
+	CellType type() default CellType.BLANK;
+
+	/**
+	 * 項目の幅
+	 * 表示する文字数で指定します。
+	 */
+	int width() default -1;
+
+	/**
+	 * 項目の幅を出力した値から自動で設定するか否かを指定します。<br>
+	 * 出力中に表示幅の最大値を記録し、出力の終了時に一度だけ設定します。<code>width</code>を指定した場合は最小の幅になります。
+	 */
+	boolean auto_width() default false;
+
+	/**
+	 * 計算式
+	 * 先頭の<code>=</code>を除いて指定します。
+	 * 計算式が設定された場合、<code>Entity</code>の値は無視されます（ゲッターメソッドは不要です）。<br>
+	 * 出力する行の行番号は<code>{row}</code>、前後の行の行番号は<code>{row-1}</code>、<code>{row+1}</code>で指定します（例：<code>C{row}*D{row}</code>）。
+	 * 計算式はマッピング作成時に一度だけ分割し、行ごとに行番号を埋め込んで出力します。
+	 */
+	String formula() default"";
+
+	/**
+	 * 値の出力時に前後の空白を除去するか否かを指定します。<br>
+	 * 文字列型の値を持つ場合のみ有効です。
+	 */
+	boolean trim() default true;
+}
@@ -0,0 +1,21 @@
+package utility.poi.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * テンプレートの行範囲を要素の数だけ繰り返して出力する注釈<br>
+ * <code>List</code>型のフィールドに指定します。行範囲を要素ごとに複写し、要素のクラスの<code>ExcelAddress</code>注釈のアドレスに出力します。<br>
+ * 要素のクラスのアドレスは行範囲内の1件目の位置を指定します。2件目以降は行範囲の行数ずつ下の位置に出力します。
+ * @author Takeshi
+ *
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface ExcelRepeat
+{
+	/** 繰り返す行範囲を指定（A1形式の範囲か名前を指定） */
+	String address();
+}
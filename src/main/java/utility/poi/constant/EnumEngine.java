@@ -0,0 +1,18 @@
+package utility.poi.constant;
+
+/**
+ * Excelの出力方式を指定する列挙体
+ * @author Takeshi
+ *
+ */
+public enum EnumEngine
+{
+	/** <code>XSSF</code>形式（すべての行をメモリ上に保持し、出力後に計算式を再計算できます） */
+	XSSF,
+
+	/** <code>SXSSF</code>形式（直近の行のみをメモリ上に保持し、それ以前の行は一時ファイルに書き出します） */
+	SXSSF,
+
+	/** <code>ExcelPoiDirectGenerator</code>による直接出力（行を保持せず、出力ストリームに直接書き込みます） */
+	DIRECT;
+}
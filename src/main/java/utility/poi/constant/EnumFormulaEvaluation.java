@@ -0,0 +1,18 @@
+package utility.poi.constant;
+
+/**
+ * 出力後の計算式の再計算方法を指定する列挙体
+ * @author Takeshi
+ *
+ */
+public enum EnumFormulaEvaluation
+{
+	/** 再計算しない（Excelでファイルを開いた際に再計算させます） */
+	NONE,
+
+	/** 出力したシートの計算式のみ再計算する（その他のシートはExcelでファイルを開いた際に再計算させます） */
+	ONLY_TOUCHED,
+
+	/** すべての計算式を再計算する */
+	ALL;
+}
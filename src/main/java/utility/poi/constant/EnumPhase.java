@@ -0,0 +1,24 @@
+package utility.poi.constant;
+
+/**
+ * 出力処理の工程を表す列挙体
+ * @author Takeshi
+ *
+ */
+public enum EnumPhase
+{
+	/** 出力準備（マッピング、出力処理、セルスタイル、出力アドレスの解決） */
+	PLAN,
+
+	/** シートの作成、タイトル行の描画 */
+	TITLE,
+
+	/** データ行（テンプレートの場合は値、繰り返し領域）の出力 */
+	ROWS,
+
+	/** 計算式の再計算 */
+	FORMULA_EVALUATION,
+
+	/** ファイルへの書き出し */
+	SERIALIZATION;
+}
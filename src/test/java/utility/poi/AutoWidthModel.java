@@ -0,0 +1,32 @@
+package utility.poi;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+import utility.poi.annotation.ExcelCellStyle;
+import utility.poi.annotation.ExcelColumn;
+import utility.poi.annotation.ExcelSheet;
+import utility.poi.constant.EnumFontType;
+
+@ExcelSheet(sheet_name = "AutoWidth", auto_width = true, auto_width_rows = 3, style = @ExcelCellStyle(bold = true))
+@Data
+public class AutoWidthModel
+{
+	@ExcelColumn(name = "Code")
+	@ExcelCellStyle
+	String code;
+
+	@ExcelColumn(name = "Name")
+	@ExcelCellStyle(font = EnumFontType.MS_Gothic)
+	String name;
+
+	@ExcelColumn(name = "Amount")
+	@ExcelCellStyle(format = "#,##0")
+	BigDecimal amount;
+
+	@ExcelColumn(name = "Fixed", width = 20)
+	String fixed;
+
+	@ExcelColumn(name = "Minimum", width = 15, auto_width = true)
+	String minimum;
+}
@@ -0,0 +1,22 @@
+package utility.poi;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+import utility.poi.annotation.ExcelAddress;
+import utility.poi.annotation.ExcelCellStyle;
+import utility.poi.annotation.ExcelSheet;
+
+@ExcelSheet(sheet_name = "Sheet1", style = @ExcelCellStyle())
+@Data
+public class CrossSheetModel
+{
+	@ExcelAddress(address = "TITLE")
+	String title;
+
+	@ExcelAddress(address = "TOTAL")
+	BigDecimal total;
+
+	@ExcelAddress(address = "Sheet2!C5")
+	String note;
+}
@@ -0,0 +1,26 @@
+package utility.poi;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import utility.poi.annotation.ExcelCellStyle;
+import utility.poi.annotation.ExcelColumn;
+import utility.poi.annotation.ExcelSheet;
+
+@ExcelSheet(sheet_name = "Diff", draw_title = false, style = @ExcelCellStyle)
+@Data
+public class DiffModel
+{
+	@ExcelColumn(name = "Code")
+	String code;
+
+	@ExcelColumn(name = "Value")
+	int value;
+
+	@ExcelColumn(name = "Diff", formula = "B{row}-B{row-1}")
+	@ExcelCellStyle(bold = true)
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	Object diff;
+}
@@ -1,80 +1,1401 @@
-package utility.poi;
-
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.math.BigDecimal;
-import java.time.LocalDate;
-import java.util.Arrays;
-import java.util.List;
-import java.util.OptionalInt;
-
-import org.junit.Test;
-
-public class ExcelTest
-{
-	@Test
-	public void generateExcel()
-	{
-		Model[] array_data = {
-				new Model() {{ setCode("1");  setName("Name_1\nGGG"); setQuantity(OptionalInt.of(1000)); setAmount(new BigDecimal(199));    setModified(LocalDate.now()); }},
-				new Model() {{ setCode("2");  setName("Name_2");      setQuantity(OptionalInt.of(1100)); setAmount(new BigDecimal(20100));  setModified(LocalDate.now()); }},
-				new Model() {{ setCode("3");  setName("Name_3");      setQuantity(OptionalInt.of(1020)); setAmount(new BigDecimal(1512));   setModified(LocalDate.now()); }},
-				new Model() {{ setCode("4");  setName("Name_4");      setQuantity(OptionalInt.of(1003)); setAmount(new BigDecimal(54651));  setModified(LocalDate.now()); }},
-				new Model() {{ setCode("5");  setName("Name_5");      setQuantity(OptionalInt.of(4000)); setAmount(new BigDecimal(661515)); setModified(LocalDate.now()); }},
-				new Model() {{ setCode("6");  setName("Name_6");      setQuantity(OptionalInt.of(1500)); setAmount(new BigDecimal(5432));   setModified(LocalDate.now()); }},
-				new Model() {{ setCode("7");  setName("Name_7");      setQuantity(OptionalInt.of(1060)); setAmount(new BigDecimal(9136));   setModified(LocalDate.now()); }},
-				new Model() {{ setCode("8");  setName("Name_8");      setQuantity(OptionalInt.of(1007)); setAmount(new BigDecimal(51135));  setModified(LocalDate.now()); }},
-				new Model() {{ setCode("9");  setName("Name_9");      setQuantity(OptionalInt.of(8000)); setAmount(new BigDecimal(216));    setModified(LocalDate.now()); }},
-				new Model() {{ setCode("10"); setName(null);          setQuantity(OptionalInt.empty());  setAmount(null);                   setModified(null); }},
-		};
-		List<Model> data = Arrays.asList(array_data);
-
-		try (
-				OutputStream stream = new FileOutputStream(String.format("%s\\generate_test.xlsx", getResourceFolder()));
-				ExcelPoiGenerator<Model> writer = new ExcelPoiGenerator<>();
-			)
-		{
-			writer.writetoExcel(data, Model.class);
-			writer.write(stream);
-		}
-		catch (IOException e)
-		{
-			e.printStackTrace();
-		}
-	}
-
-	@Test
-	public void templateExcel()
-	{
-		TemplateModel data = new TemplateModel()
-		{{
-			setIssue_date(LocalDate.now());
-			setName("日本 太郎");
-			setAmount(new BigDecimal(14000));
-		}};
-
-		try (
-				InputStream stream = ExcelTest.class.getClassLoader().getResourceAsStream("template.xlsx");
-				ExcelPoiTemplateWriter<TemplateModel> writer = new ExcelPoiTemplateWriter<>(stream);
-				OutputStream outstream = new FileOutputStream(String.format("%s\\template_test.xlsx", getResourceFolder()));
-			)
-		{
-			writer.writetoExcelTemplate(data, TemplateModel.class);
-			writer.write(outstream);
-			outstream.flush();
-		}
-		catch (IOException e)
-		{
-			e.printStackTrace();
-		}
-	}
-
-	private String getResourceFolder()
-	{
-		File file = new File(ExcelTest.class.getClassLoader().getResource("template.xlsx").getPath());
-		return file.getParent();
-	}
-}
+package utility.poi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+import utility.poi.constant.EnumEngine;
+import utility.poi.constant.EnumFormulaEvaluation;
+import utility.poi.constant.EnumPhase;
+
+public class ExcelTest
+{
+	@Test
+	public void generateExcel()
+	{
+		Model[] array_data = {
+				new Model() {{ setCode("1");  setName("Name_1\nGGG"); setQuantity(OptionalInt.of(1000)); setAmount(new BigDecimal(199));    setModified(LocalDate.now()); }},
+				new Model() {{ setCode("2");  setName("Name_2");      setQuantity(OptionalInt.of(1100)); setAmount(new BigDecimal(20100));  setModified(LocalDate.now()); }},
+				new Model() {{ setCode("3");  setName("Name_3");      setQuantity(OptionalInt.of(1020)); setAmount(new BigDecimal(1512));   setModified(LocalDate.now()); }},
+				new Model() {{ setCode("4");  setName("Name_4");      setQuantity(OptionalInt.of(1003)); setAmount(new BigDecimal(54651));  setModified(LocalDate.now()); }},
+				new Model() {{ setCode("5");  setName("Name_5");      setQuantity(OptionalInt.of(4000)); setAmount(new BigDecimal(661515)); setModified(LocalDate.now()); }},
+				new Model() {{ setCode("6");  setName("Name_6");      setQuantity(OptionalInt.of(1500)); setAmount(new BigDecimal(5432));   setModified(LocalDate.now()); }},
+				new Model() {{ setCode("7");  setName("Name_7");      setQuantity(OptionalInt.of(1060)); setAmount(new BigDecimal(9136));   setModified(LocalDate.now()); }},
+				new Model() {{ setCode("8");  setName("Name_8");      setQuantity(OptionalInt.of(1007)); setAmount(new BigDecimal(51135));  setModified(LocalDate.now()); }},
+				new Model() {{ setCode("9");  setName("Name_9");      setQuantity(OptionalInt.of(8000)); setAmount(new BigDecimal(216));    setModified(LocalDate.now()); }},
+				new Model() {{ setCode("10"); setName(null);          setQuantity(OptionalInt.empty());  setAmount(null);                   setModified(null); }},
+		};
+		List<Model> data = Arrays.asList(array_data);
+
+		try (
+				OutputStream stream = new FileOutputStream(String.format("%s\\generate_test.xlsx", getResourceFolder()));
+				ExcelPoiGenerator<Model> writer = new ExcelPoiGenerator<>();
+			)
+		{
+			writer.writetoExcel(data, Model.class);
+			writer.write(stream);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	@Test
+	public void generateStreamingExcel()
+			throws IOException
+	{
+		List<Model> data = createModels(100);
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+		try (ExcelPoiGenerator<Model> writer = new ExcelPoiGenerator<>(10, true))
+		{
+			writer.writetoExcel(data, Model.class);
+			writer.write(stream);
+		}
+
+		try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(stream.toByteArray())))
+		{
+			Sheet sheet = workbook.getSheet("テスト");
+			assertEquals(100, sheet.getLastRowNum());
+			assertEquals("Code", sheet.getRow(0).getCell(0).getStringCellValue());
+			assertEquals("100", sheet.getRow(100).getCell(0).getStringCellValue());
+			assertEquals(100.0, sheet.getRow(100).getCell(3).getNumericCellValue(), 0);
+		}
+
+		// 取得したWorkbookオブジェクトは終了処理後も出力できる
+		Workbook streaming;
+		try (ExcelPoiGenerator<Model> writer = new ExcelPoiGenerator<>(10, true))
+		{
+			writer.writetoExcel(data, Model.class);
+			streaming = writer.getWorkbook();
+		}
+		stream.reset();
+		streaming.write(stream);
+		((SXSSFWorkbook)streaming).dispose();
+		streaming.close();
+
+		try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(stream.toByteArray())))
+		{
+			assertEquals("100", workbook.getSheet("テスト").getRow(100).getCell(0).getStringCellValue());
+		}
+	}
+
+	@Test
+	public void generateFromStream()
+			throws IOException
+	{
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+		try (ExcelPoiGenerator<Model> writer = new ExcelPoiGenerator<>(10, false))
+		{
+			assertEquals(0, writer.writetoExcel(Stream.empty(), Model.class));
+			assertEquals(50, writer.writetoExcel(createModels(50).stream(), Model.class));
+			writer.write(stream);
+		}
+
+		try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(stream.toByteArray())))
+		{
+			assertEquals(1, workbook.getNumberOfSheets());
+			assertEquals(50, workbook.getSheet("テスト").getLastRowNum());
+		}
+	}
+
+	@Test
+	public void generateSheetRollover()
+			throws IOException
+	{
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+		try (ExcelPoiGenerator<Model> writer = new ExcelPoiGenerator<>(10, false))
+		{
+			writer.setSheetRollover(true);
+			writer.setSheetRowLimit(21);
+			assertEquals(50, writer.writetoExcel(createModels(50).iterator(), Model.class));
+			writer.write(stream);
+		}
+
+		try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(stream.toByteArray())))
+		{
+			assertEquals(3, workbook.getNumberOfSheets());
+			assertEquals("テスト (2)", workbook.getSheetName(1));
+			assertEquals("テスト (3)", workbook.getSheetName(2));
+			assertEquals("Code", workbook.getSheetAt(2).getRow(0).getCell(0).getStringCellValue());
+			assertEquals("41", workbook.getSheetAt(2).getRow(1).getCell(0).getStringCellValue());
+			assertEquals(10, workbook.getSheetAt(2).getLastRowNum());
+			assertEquals(1, workbook.getSheetAt(2).getPaneInformation().getHorizontalSplitPosition());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void generateDuplicateSheet()
+			throws IOException
+	{
+		// ロールオーバー以外で同名のシートは作成しない
+		try (ExcelPoiGenerator<Model> writer = new ExcelPoiGenerator<>())
+		{
+			writer.setSheetRollover(true);
+			writer.writetoExcel(createModels(10), Model.class);
+			writer.writetoExcel(createModels(10), Model.class);
+		}
+	}
+
+	@Test
+	public void generateDirectDuplicateSheet()
+			throws IOException
+	{
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (ExcelPoiDirectGenerator<Model> writer = new ExcelPoiDirectGenerator<>(stream))
+		{
+			writer.setSheetRollover(true);
+			writer.setSheetRowLimit(11);
+			assertEquals(15, writer.writetoExcel(createModels(15), Model.class));
+			try
+			{
+				writer.writetoExcel(createModels(10), Model.class);
+				fail();
+			}
+			catch (IllegalArgumentException e)
+			{
+				// ロールオーバー以外で同名のシートは作成しない
+			}
+		}
+
+		try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(stream.toByteArray())))
+		{
+			assertEquals(2, workbook.getNumberOfSheets());
+			assertEquals("テスト (2)", workbook.getSheetName(1));
+		}
+	}
+
+	@Test
+	public void generateDirectSheetName()
+			throws IOException
+	{
+		List<LongSheetNameModel> data = Arrays.asList(new LongSheetNameModel(), new LongSheetNameModel());
+
+		// 31文字を超えるシート名はExcelPoiGeneratorと同様に切り詰める
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		try (ExcelPoiGenerator<LongSheetNameModel> writer = new ExcelPoiGenerator<>())
+		{
+			writer.setSheetRollover(true);
+			writer.setSheetRowLimit(2);
+			writer.writetoExcel(data, LongSheetNameModel.class);
+			writer.write(expected);
+		}
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (ExcelPoiDirectGenerator<LongSheetNameModel> writer = new ExcelPoiDirectGenerator<>(stream))
+		{
+			writer.setSheetRollover(true);
+			writer.setSheetRowLimit(2);
+			writer.writetoExcel(data, LongSheetNameModel.class);
+		}
+
+		try (Workbook expected_workbook = WorkbookFactory.create(new ByteArrayInputStream(expected.toByteArray()));
+				Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(stream.toByteArray())))
+		{
+			assertEquals(2, workbook.getNumberOfSheets());
+			assertEquals("2024年度上期売上明細一覧（全営業所・全担当者・全商品区分・", workbook.getSheetName(0));
+			assertEquals(expected_workbook.getSheetName(0), workbook.getSheetName(0));
+			assertEquals(expected_workbook.getSheetName(1), workbook.getSheetName(1));
+		}
+
+		// 切り詰めた結果が同名となるシートは作成しない
+		try (ExcelPoiDirectGenerator<LongSheetNameModel> writer = new ExcelPoiDirectGenerator<>(new ByteArrayOutputStream()))
+		{
+			writer.writetoExcel(data, LongSheetNameModel.class);
+			writer.writetoExcel(data, LongSheetNameModel.class);
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			// 同名のシート
+		}
+
+		// シート名に使用できない文字を含む場合は作成しない
+		try (ExcelPoiDirectGenerator<InvalidSheetNameModel> writer = new ExcelPoiDirectGenerator<>(new ByteArrayOutputStream()))
+		{
+			writer.writetoExcel(Arrays.asList(new InvalidSheetNameModel()), InvalidSheetNameModel.class);
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			// 不正なシート名
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void generateSheetOverflow()
+			throws IOException
+	{
+		try (ExcelPoiGenerator<Model> writer = new ExcelPoiGenerator<>())
+		{
+			writer.setSheetRowLimit(21);
+			writer.writetoExcel(createModels(50), Model.class);
+		}
+	}
+
+	@Test
+	public void generateParallel()
+			throws IOException
+	{
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		List<PrimitiveModel> primitives = IntStream.rangeClosed(1, 40)
+				.mapToObj(i -> new PrimitiveModel() {{ setInt_value(i); setLong_value(i * 10L); setDouble_value(i / 4.0); setBoolean_value(i % 2 == 0); }})
+				.collect(Collectors.toList());
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+
+		try (ExcelPoiParallelGenerator writer = new ExcelPoiParallelGenerator(10, false))
+		{
+			writer.setExecutor(executor);
+			writer.setSheetRollover(true);
+			writer.setSheetRowLimit(31);
+			writer.addSheet(createModels(50), Model.class)
+					.addSheet(primitives.stream(), PrimitiveModel.class);
+			assertEquals(90, writer.writetoExcel());
+			writer.write(stream);
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(stream.toByteArray())))
+		{
+			assertEquals(4, workbook.getNumberOfSheets());
+			assertEquals("テスト", workbook.getSheetName(0));
+			assertEquals("テスト (2)", workbook.getSheetName(1));
+			assertEquals("Primitive", workbook.getSheetName(2));
+			assertEquals("Primitive (2)", workbook.getSheetName(3));
+			assertEquals(30, workbook.getSheetAt(0).getLastRowNum());
+			assertEquals("50", workbook.getSheetAt(1).getRow(20).getCell(0).getStringCellValue());
+			assertEquals(10, workbook.getSheetAt(3).getLastRowNum());
+			assertEquals(40.0, workbook.getSheetAt(3).getRow(10).getCell(0).getNumericCellValue(), 0);
+		}
+	}
+
+	@Test
+	public void sharedWorkbookLock()
+			throws IOException
+	{
+		// 同じブックに出力する処理（ストリーミング形式を含む）は同じ排他オブジェクトを利用すること
+		try (XSSFWorkbook workbook = new XSSFWorkbook();
+				XSSFWorkbook other = new XSSFWorkbook())
+		{
+			SXSSFWorkbook streaming = new SXSSFWorkbook(workbook);
+			assertSame(ExcelPoiSheetWriter.getLock(workbook), ExcelPoiSheetWriter.getLock(streaming));
+			assertNotSame(ExcelPoiSheetWriter.getLock(workbook), ExcelPoiSheetWriter.getLock(other));
+			streaming.dispose();
+		}
+	}
+
+	@Test
+	public void generateParallelFilter()
+			throws IOException
+	{
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		List<FilterModel> filters = IntStream.rangeClosed(1, 200)
+				.mapToObj(i -> new FilterModel() {{ setCode(String.valueOf(i)); setValue(i); }})
+				.collect(Collectors.toList());
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+
+		try (ExcelPoiParallelGenerator writer = new ExcelPoiParallelGenerator(10, false))
+		{
+			// ロールオーバーで追加するシートのフィルター（名前定義）を並列に作成
+			writer.setExecutor(executor);
+			writer.setSheetRollover(true);
+			writer.setSheetRowLimit(2);
+			writer.addSheet(createModels(200), Model.class)
+					.addSheet(filters, FilterModel.class);
+			assertEquals(400, writer.writetoExcel());
+			writer.write(stream);
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(stream.toByteArray())))
+		{
+			assertEquals(400, workbook.getNumberOfSheets());
+			List<? extends Name> names = workbook.getAllNames().stream().filter(t -> "_xlnm._FilterDatabase".equals(t.getNameName())).collect(Collectors.toList());
+			assertEquals(400, names.size());
+			for (Name name : names)
+			{
+				String formula = name.getRefersToFormula();
+				assertEquals(workbook.getSheetName(name.getSheetIndex()), formula.substring(0, formula.lastIndexOf('!')).replace("'", ""));
+			}
+		}
+	}
+
+	@Test
+	public void generateDirect()
+			throws IOException
+	{
+		List<Model> data = createModels(50);
+		data.get(0).setName("<Name>\n& \"1\"");
+		data.get(49).setQuantity(OptionalInt.empty());
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+		try (ExcelPoiDirectGenerator<Model> writer = new ExcelPoiDirectGenerator<>(stream))
+		{
+			writer.setSheetRollover(true);
+			writer.setSheetRowLimit(31);
+			assertEquals(50, writer.writetoExcel(data, Model.class));
+		}
+
+		try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(stream.toByteArray())))
+		{
+			assertEquals(2, workbook.getNumberOfSheets());
+			assertEquals("テスト (2)", workbook.getSheetName(1));
+			Sheet sheet = workbook.getSheetAt(0);
+			assertEquals(30, sheet.getLastRowNum());
+			assertEquals("Code", sheet.getRow(0).getCell(0).getStringCellValue());
+			assertEquals("<Name>\n& \"1\"", sheet.getRow(1).getCell(1).getStringCellValue());
+			assertEquals(20 * 256, sheet.getColumnWidth(0));
+			assertEquals(1, sheet.getPaneInformation().getHorizontalSplitPosition());
+			assertEquals("#,##0_", sheet.getRow(1).getCell(2).getCellStyle().getDataFormatString());
+			assertEquals("yyyy-mm-dd", sheet.getRow(1).getCell(4).getCellStyle().getDataFormatString());
+			assertEquals(BorderStyle.THIN, sheet.getRow(1).getCell(0).getCellStyle().getBorderTop());
+			assertEquals(IndexedColors.GREY_25_PERCENT.getIndex(), sheet.getRow(0).getCell(0).getCellStyle().getFillForegroundColor());
+			assertEquals("50", workbook.getSheetAt(1).getRow(20).getCell(0).getStringCellValue());
+		}
+
+		try (ExcelPoiReader<Model> reader = new ExcelPoiReader<>(Model.class, new ByteArrayInputStream(stream.toByteArray())))
+		{
+			List<Model> result;
+			try (Stream<Model> rows = reader.stream())
+			{
+				result = rows.collect(Collectors.toList());
+			}
+
+			assertEquals(30, result.size());
+			assertEquals(data.get(0), result.get(0));
+			assertEquals(data.get(29), result.get(29));
+		}
+	}
+
+	@Test
+	public void generateDirectFlush()
+			throws IOException
+	{
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		int[] sizes = new int[2];
+
+		try (ExcelPoiDirectGenerator<Model> writer = new ExcelPoiDirectGenerator<>(stream))
+		{
+			writer.setFlushInterval(100);
+			assertEquals(1000, writer.writetoExcel(createModels(1000).stream().peek(t ->
+			{
+				if (t.getCode().equals("2")) sizes[0] = stream.size();
+				if (t.getCode().equals("1000")) sizes[1] = stream.size();
+			}), Model.class));
+		}
+
+		// 生成中に出力ストリームへ送出済み
+		assertTrue(sizes[0] > 0);
+		assertTrue(sizes[1] > sizes[0]);
+		assertTrue(stream.size() > sizes[1]);
+
+		try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(stream.toByteArray())))
+		{
+			assertEquals(1000, workbook.getSheet("テスト").getLastRowNum());
+			assertEquals("1000", workbook.getSheet("テスト").getRow(1000).getCell(0).getStringCellValue());
+		}
+	}
+
+	@Test
+	public void generateCsv()
+			throws IOException
+	{
+		List<Model> data = createModels(3);
+		data.get(0).setName(" \"A\",B ");
+		data.get(1).setAmount(new BigDecimal("1234567890.123456789"));
+		data.get(2).setQuantity(OptionalInt.empty());
+		String today = LocalDate.now().toString();
+		StringWriter text = new StringWriter();
+
+		try (ExcelPoiCsvGenerator<Model> writer = new ExcelPoiCsvGenerator<>(text))
+		{
+			assertEquals(3, writer.writetoCsv(data, Model.class));
+			assertEquals(1, writer.writetoCsv(createModels(1), Model.class));
+		}
+
+		assertEquals("Code,Name,Q'ty,Amount,Modify\r\n"
+				+ "1,\"\"\"A\"\",B\",1,1," + today + "\r\n"
+				+ "2,Name_2,2,1234567890.123456789," + today + "\r\n"
+				+ "3,Name_3,,3," + today + "\r\n"
+				+ "1,Name_1,1,1," + today + "\r\n", text.toString());
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (ExcelPoiCsvGenerator<PrimitiveModel> writer = new ExcelPoiCsvGenerator<>(Channels.newChannel(stream), StandardCharsets.UTF_8, ExcelPoiCsvGenerator.TSV))
+		{
+			writer.writetoCsv(Arrays.asList(new PrimitiveModel() {{ setInt_value(-5); setLong_value(10L); setDouble_value(0.25); setBoolean_value(true); }}), PrimitiveModel.class);
+		}
+
+		assertEquals("-5\t10\t0.25\tTRUE", new String(stream.toByteArray(), StandardCharsets.UTF_8).split("\r\n")[1]);
+	}
+
+	@Test
+	public void generateListener()
+			throws IOException
+	{
+		ExcelPoiStatistics statistics = new ExcelPoiStatistics();
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		ExcelPoiConverters.register(LocalDate.class, String.class, t ->
+		{
+			if (t.getYear() > 0) throw new IllegalArgumentException("conversion failure");
+			return t.toString();
+		});
+
+		try (ExcelPoiGenerator<Model> writer = new ExcelPoiGenerator<>(10, false))
+		{
+			writer.setListener(statistics);
+			writer.writetoExcel(createModels(50), Model.class);
+			writer.write(stream);
+		}
+		finally
+		{
+			ExcelPoiConverters.unregister(LocalDate.class);
+		}
+
+		assertEquals(1, statistics.getCount(EnumPhase.PLAN));
+		assertEquals(1, statistics.getCount(EnumPhase.ROWS));
+		assertEquals(1, statistics.getCount(EnumPhase.SERIALIZATION));
+		assertEquals(50, statistics.getRows());
+		assertEquals(200, statistics.getCells());
+		assertEquals(50, statistics.getFailures());
+		assertEquals(stream.size(), statistics.getBytes());
+		assertTrue(statistics.getStyleCount() > 1);
+	}
+
+	@Test
+	public void subscribe()
+			throws Exception
+	{
+		// 要求された件数のみ発行し、未発行の要求の最大値を記録する発行元
+		List<Model> models = createModels(500);
+		AtomicLong max_demand = new AtomicLong();
+		Flow.Publisher<Model> publisher = s -> s.onSubscribe(new Flow.Subscription()
+		{
+			private int index = 0;
+			private long demand = 0;
+			private boolean emitting = false;
+
+			@Override
+			public void request(long n)
+			{
+				demand += n;
+				max_demand.accumulateAndGet(demand, Math::max);
+				if (emitting) return;
+
+				emitting = true;
+				while (demand > 0 && index < models.size())
+				{
+					demand--;
+					s.onNext(models.get(index++));
+				}
+				emitting = false;
+				if (index == models.size() && index++ > 0) s.onComplete();
+			}
+
+			@Override
+			public void cancel() { }
+		});
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (ExcelPoiGenerator<Model> writer = new ExcelPoiGenerator<>(20, false))
+		{
+			ExcelPoiSubscriber<Model> subscriber = new ExcelPoiSubscriber<>(writer, Model.class, stream, 50);
+			publisher.subscribe(subscriber);
+			assertEquals(500, (long)subscriber.getResult().get(10, TimeUnit.SECONDS));
+		}
+		assertTrue(max_demand.get() <= 50);
+
+		try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(stream.toByteArray())))
+		{
+			Sheet sheet = workbook.getSheet("テスト");
+			assertEquals(500, sheet.getLastRowNum());
+			assertEquals("500", sheet.getRow(500).getCell(0).getStringCellValue());
+		}
+
+		// 発行元の異常終了
+		try (ExcelPoiGenerator<Model> writer = new ExcelPoiGenerator<>(20, false);
+				SubmissionPublisher<Model> failing = new SubmissionPublisher<>())
+		{
+			ExcelPoiSubscriber<Model> subscriber = new ExcelPoiSubscriber<>(writer, Model.class);
+			failing.subscribe(subscriber);
+			createModels(30).forEach(failing::submit);
+			failing.closeExceptionally(new IllegalStateException("failed"));
+			try
+			{
+				subscriber.getResult().get(10, TimeUnit.SECONDS);
+				fail();
+			}
+			catch (ExecutionException e)
+			{
+				assertEquals("failed", e.getCause().getMessage());
+			}
+		}
+
+		// 取り消した場合は購読を解除し、出力を中断して計測結果を通知
+		AtomicLong reported_rows = new AtomicLong(-1);
+		AtomicInteger cancelled = new AtomicInteger();
+		Flow.Publisher<Model> partial = s -> s.onSubscribe(new Flow.Subscription()
+		{
+			private boolean emitted = false;
+
+			@Override
+			public void request(long n)
+			{
+				if (emitted) return;
+				emitted = true;
+				createModels(5).forEach(s::onNext);
+			}
+
+			@Override
+			public void cancel()
+			{
+				cancelled.incrementAndGet();
+			}
+		});
+		try (ExcelPoiGenerator<Model> writer = new ExcelPoiGenerator<>(20, false))
+		{
+			writer.setListener(new ExcelPoiListener()
+			{
+				@Override
+				public void onRows(Class<?> entity_class, long rows, long cells)
+				{
+					reported_rows.set(rows);
+				}
+			});
+			ExcelPoiSubscriber<Model> subscriber = new ExcelPoiSubscriber<>(writer, Model.class);
+			partial.subscribe(subscriber);
+			subscriber.getResult().cancel(false);
+
+			assertEquals(1, cancelled.get());
+			assertEquals(5, reported_rows.get());
+		}
+	}
+
+	@Test
+	public void exportAsync()
+			throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		CountDownLatch latch = new CountDownLatch(1);
+		Iterator<Model> rows = createModels(50).iterator();
+		Iterator<Model> blocked = new Iterator<Model>()
+		{
+			@Override
+			public boolean hasNext()
+			{
+				try
+				{
+					latch.await();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+				return rows.hasNext();
+			}
+
+			@Override
+			public Model next()
+			{
+				return rows.next();
+			}
+		};
+
+		try (ExcelPoiAsyncExporter exporter = new ExcelPoiAsyncExporter(executor, 1))
+		{
+			// 推定メモリ使用量の上限により1件ずつ実行
+			ByteArrayOutputStream first_stream = new ByteArrayOutputStream();
+			CompletableFuture<Long> first = exporter.export(blocked, Model.class, first_stream);
+			CompletableFuture<Long> second = exporter.export(createModels(30).stream(), Model.class, new ByteArrayOutputStream());
+			AtomicInteger third_closed = new AtomicInteger();
+			CompletableFuture<Long> third = exporter.export(createModels(30).stream().onClose(third_closed::incrementAndGet), Model.class, new ByteArrayOutputStream());
+			assertEquals(1, exporter.getRunningCount());
+			assertEquals(2, exporter.getQueuedCount());
+
+			// 待機中の出力の取り消し
+			third.cancel(false);
+			assertEquals(1, exporter.getQueuedCount());
+			assertEquals(1, third_closed.get());
+
+			latch.countDown();
+			assertEquals(50, (long)first.get(10, TimeUnit.SECONDS));
+			assertEquals(30, (long)second.get(10, TimeUnit.SECONDS));
+			assertTrue(third.isCancelled());
+
+			try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(first_stream.toByteArray())))
+			{
+				assertEquals(50, workbook.getSheet("テスト").getLastRowNum());
+			}
+
+			// 実行中の出力の取り消し（行の取得を中止）
+			AtomicInteger produced = new AtomicInteger();
+			File file = File.createTempFile("export", ".xlsx");
+			List<Thread> closed_by = new CopyOnWriteArrayList<>();
+			CompletableFuture<File> endless = exporter.exportToFile(Stream.generate(() -> createModels(1).get(0)).peek(t -> produced.incrementAndGet()).onClose(() -> closed_by.add(Thread.currentThread())), Model.class, file);
+			while (produced.get() < 100) Thread.sleep(1);
+			endless.cancel(true);
+			while (exporter.getRunningCount() > 0) Thread.sleep(1);
+			int stopped = produced.get();
+			Thread.sleep(50);
+			assertEquals(stopped, produced.get());
+			assertTrue(!file.exists());
+
+			// データのストリームは反復していた出力スレッドで閉じる
+			assertEquals(1, closed_by.size());
+			assertTrue(closed_by.get(0) != Thread.currentThread());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		// 呼び出し元のスレッドで実行するExecutorでも、実行中の出力は他の受付を妨げない
+		try (ExcelPoiAsyncExporter exporter = new ExcelPoiAsyncExporter(Runnable::run, ExcelPoiAsyncExporter.DEFAULT_MEMORY_BUDGET))
+		{
+			CompletableFuture<Long> nested = new CompletableFuture<>();
+			CompletableFuture<Long> outer = exporter.export(createModels(10).stream().peek(t ->
+			{
+				if (!nested.isDone()) exporter.export(createModels(5).iterator(), Model.class, new ByteArrayOutputStream()).whenComplete((r, e) -> nested.complete(r));
+			}), Model.class, new ByteArrayOutputStream());
+
+			assertEquals(10, (long)outer.get(10, TimeUnit.SECONDS));
+			assertEquals(5, (long)nested.get(10, TimeUnit.SECONDS));
+			assertEquals(0, exporter.getRunningCount());
+		}
+	}
+
+	@Test
+	public void generateDirectInvalidCell()
+			throws IOException
+	{
+		List<DiffModel> data = IntStream.rangeClosed(1, 3).mapToObj(i ->
+		{
+			DiffModel model = new DiffModel();
+			model.setCode(String.valueOf(i));
+			model.setValue(i * 10);
+			return model;
+		}).collect(Collectors.toList());
+
+		// 1行目の計算式は行番号が範囲外となるが、書式のみのセルとして出力を継続
+		ByteArrayOutputStream direct = new ByteArrayOutputStream();
+		try (ExcelPoiDirectGenerator<DiffModel> writer = new ExcelPoiDirectGenerator<>(direct))
+		{
+			assertEquals(3, writer.writetoExcel(data, DiffModel.class));
+		}
+
+		try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(direct.toByteArray())))
+		{
+			Sheet sheet = workbook.getSheet("Diff");
+			Cell invalid = sheet.getRow(0).getCell(2);
+			assertEquals(CellType.BLANK, invalid.getCellType());
+			assertTrue(workbook.getFontAt(invalid.getCellStyle().getFontIndexAsInt()).getBold());
+			assertEquals("B2-B1", sheet.getRow(1).getCell(2).getCellFormula());
+			assertEquals("B3-B2", sheet.getRow(2).getCell(2).getCellFormula());
+		}
+	}
+
+	@Test
+	public void generateFormula()
+			throws IOException
+	{
+		List<FormulaModel> data = IntStream.rangeClosed(1, 200).mapToObj(i ->
+		{
+			FormulaModel model = new FormulaModel();
+			model.setCode(String.valueOf(i));
+			model.setQuantity(i);
+			model.setPrice(10);
+			return model;
+		}).collect(Collectors.toList());
+
+		// XSSF形式（出力後に再計算）
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (ExcelPoiGenerator<FormulaModel> writer = new ExcelPoiGenerator<>())
+		{
+			writer.writetoExcel(data, FormulaModel.class);
+			writer.write(stream);
+		}
+		// 直接出力
+		ByteArrayOutputStream direct = new ByteArrayOutputStream();
+		try (ExcelPoiDirectGenerator<FormulaModel> writer = new ExcelPoiDirectGenerator<>(direct))
+		{
+			writer.writetoExcel(data, FormulaModel.class);
+		}
+
+		try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(stream.toByteArray()));
+				Workbook direct_workbook = WorkbookFactory.create(new ByteArrayInputStream(direct.toByteArray())))
+		{
+			Sheet sheet = workbook.getSheet("Formula");
+			assertEquals("B2*C2", sheet.getRow(1).getCell(3).getCellFormula());
+			assertEquals("B201*C201", sheet.getRow(200).getCell(3).getCellFormula());
+			assertEquals("SUM(D$2:D201)", sheet.getRow(200).getCell(4).getCellFormula());
+			assertEquals(2000, sheet.getRow(200).getCell(3).getNumericCellValue(), 0);
+			assertEquals(201000, sheet.getRow(200).getCell(4).getNumericCellValue(), 0);
+
+			Sheet direct_sheet = direct_workbook.getSheet("Formula");
+			assertEquals("B201*C201", direct_sheet.getRow(200).getCell(3).getCellFormula());
+			assertEquals("SUM(D$2:D201)", direct_sheet.getRow(200).getCell(4).getCellFormula());
+			assertTrue(direct_workbook.getForceFormulaRecalculation());
+		}
+
+		// CSV形式（ファイルの行番号を埋め込む）
+		StringWriter text = new StringWriter();
+		try (ExcelPoiCsvGenerator<FormulaModel> writer = new ExcelPoiCsvGenerator<>(text))
+		{
+			writer.writetoCsv(data.subList(0, 2), FormulaModel.class);
+		}
+		assertEquals("Code,Quantity,Price,Amount,Total\r\n"
+				+ "1,1,10,=B2*C2,=SUM(D$2:D2)\r\n"
+				+ "2,2,10,=B3*C3,=SUM(D$2:D3)\r\n", text.toString());
+
+		ExcelPoiFormula formula = ExcelPoiFormula.of("= A{row-1}+A{row}+A{row+2}");
+		assertEquals("A1+A2+A4", formula.format(2));
+		try
+		{
+			formula.format(1);
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+		}
+		try
+		{
+			formula.format(1048575);
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+		}
+	}
+
+	@Test
+	public void appendExcel()
+			throws IOException
+	{
+		File source = File.createTempFile("append", ".xlsx");
+		File first = File.createTempFile("append", ".xlsx");
+		File second = File.createTempFile("append", ".xlsx");
+		try
+		{
+			try (ExcelPoiGenerator<Model> writer = new ExcelPoiGenerator<>();
+					OutputStream stream = new FileOutputStream(source))
+			{
+				writer.writetoExcel(createModels(10), Model.class);
+				writer.write(stream);
+			}
+
+			// 1回目はファイル間で転送、2回目は出力ストリームに書き込み
+			assertEquals(5, new ExcelPoiAppender<Model>(source.toPath()).appendtoExcel(createModels(5).iterator(), Model.class, first.toPath()));
+			try (OutputStream stream = new FileOutputStream(second))
+			{
+				assertEquals(5, new ExcelPoiAppender<Model>(first.toPath()).appendtoExcel(createModels(5), Model.class, stream));
+			}
+
+			try (Workbook first_workbook = WorkbookFactory.create(first);
+					Workbook second_workbook = WorkbookFactory.create(second))
+			{
+				Sheet sheet = first_workbook.getSheet("テスト");
+				assertEquals(15, sheet.getLastRowNum());
+				assertEquals("10", sheet.getRow(10).getCell(0).getStringCellValue());
+				assertEquals("1", sheet.getRow(11).getCell(0).getStringCellValue());
+				assertEquals("5", sheet.getRow(15).getCell(0).getStringCellValue());
+				assertEquals(sheet.getRow(10).getCell(3).getCellStyle().getDataFormatString(), sheet.getRow(15).getCell(3).getCellStyle().getDataFormatString());
+
+				// 同じクラスの追記ではスタイル定義が増えない
+				assertEquals(20, second_workbook.getSheet("テスト").getLastRowNum());
+				assertEquals(first_workbook.getNumCellStyles(), second_workbook.getNumCellStyles());
+			}
+
+			// 追記先以外のエントリーは圧縮済みのまま複製
+			try (ZipFile source_zip = new ZipFile(source);
+					ZipFile first_zip = new ZipFile(first))
+			{
+				ZipEntry original = source_zip.getEntry("xl/workbook.xml");
+				ZipEntry copied = first_zip.getEntry("xl/workbook.xml");
+				assertEquals(original.getCrc(), copied.getCrc());
+				assertEquals(original.getCompressedSize(), copied.getCompressedSize());
+				assertEquals(source_zip.size(), first_zip.size());
+			}
+
+			// 計算式の項目は追記した行の行番号で出力し、ファイルを開いた際に再計算
+			try (ExcelPoiGenerator<FormulaModel> writer = new ExcelPoiGenerator<>();
+					OutputStream stream = new FileOutputStream(source))
+			{
+				writer.writetoExcel(Arrays.<FormulaModel>asList(new FormulaModel() {{ setCode("1"); setQuantity(2); setPrice(10); }}), FormulaModel.class);
+				writer.write(stream);
+			}
+			new ExcelPoiAppender<FormulaModel>(source.toPath()).appendtoExcel(Arrays.<FormulaModel>asList(new FormulaModel() {{ setCode("2"); setQuantity(3); setPrice(10); }}).iterator(), FormulaModel.class, first.toPath());
+			try (Workbook workbook = WorkbookFactory.create(first))
+			{
+				Sheet sheet = workbook.getSheet("Formula");
+				assertEquals("B3*C3", sheet.getRow(2).getCell(3).getCellFormula());
+				assertEquals("SUM(D$2:D3)", sheet.getRow(2).getCell(4).getCellFormula());
+				assertTrue(workbook.getForceFormulaRecalculation());
+			}
+
+			try
+			{
+				new ExcelPoiAppender<Model>(source.toPath()).appendtoExcel(createModels(1).iterator(), Model.class, source.toPath());
+				fail();
+			}
+			catch (IllegalArgumentException e)
+			{
+				// 追記元と同じファイルには出力できない
+			}
+		}
+		finally
+		{
+			source.delete();
+			first.delete();
+			second.delete();
+		}
+	}
+
+	@Test
+	public void generateAutoWidth()
+			throws IOException
+	{
+		List<AutoWidthModel> data = IntStream.range(0, 5).mapToObj(i ->
+		{
+			AutoWidthModel model = new AutoWidthModel();
+			model.setCode("ABCDEFGHIJ");
+			model.setName("日本語の名称です");
+			model.setAmount(new BigDecimal("1234567"));
+			model.setFixed("Fixed");
+			model.setMinimum("x");
+			return model;
+		}).collect(Collectors.toList());
+
+		// 計測する行数（3行）を超えた行の値は幅に影響しないこと
+		data.get(4).setCode("ABCDEFGHIJABCDEFGHIJABCDEFGHIJ");
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (ExcelPoiGenerator<AutoWidthModel> writer = new ExcelPoiGenerator<>(ExcelPoiGenerator.DEFAULT_ROW_ACCESS_WINDOW, false))
+		{
+			writer.writetoExcel(data, AutoWidthModel.class);
+			writer.write(stream);
+		}
+		ByteArrayOutputStream direct = new ByteArrayOutputStream();
+		try (ExcelPoiDirectGenerator<AutoWidthModel> writer = new ExcelPoiDirectGenerator<>(direct))
+		{
+			writer.writetoExcel(data, AutoWidthModel.class);
+		}
+
+		try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(stream.toByteArray()));
+				Workbook direct_workbook = WorkbookFactory.create(new ByteArrayInputStream(direct.toByteArray())))
+		{
+			Sheet sheet = workbook.getSheetAt(0);
+			int code = sheet.getColumnWidth(0) / 256;
+			int name = sheet.getColumnWidth(1) / 256;
+			int amount = sheet.getColumnWidth(2) / 256;
+
+			// 英大文字10文字、全角8文字（16文字分）、桁区切りを含む9文字、余白1文字分
+			assertTrue(String.valueOf(code), code >= 12 && code <= 15);
+			assertEquals(17, name);
+			assertTrue(String.valueOf(amount), amount >= 9 && amount <= 11);
+			assertEquals(20 * 256, sheet.getColumnWidth(3));
+			assertEquals(15 * 256, sheet.getColumnWidth(4));
+
+			// 直接出力も同じ幅
+			Sheet direct_sheet = direct_workbook.getSheetAt(0);
+			for (int i = 0; i < 5; i++) assertEquals(sheet.getColumnWidth(i), direct_sheet.getColumnWidth(i));
+		}
+	}
+
+	@Test
+	public void engineSelector()
+			throws IOException
+	{
+		ExcelPoiEngineSelector selector = new ExcelPoiEngineSelector(64L << 20);
+		assertEquals(EnumEngine.XSSF, selector.select(Model.class, 1000));
+		assertEquals(EnumEngine.DIRECT, selector.select(Model.class, 1000000));
+		assertEquals(EnumEngine.XSSF, selector.select(Model.class, -1));
+		assertTrue(selector.estimateMemory(Model.class, 1000000, EnumEngine.SXSSF) < selector.estimateMemory(Model.class, 1000000, EnumEngine.XSSF));
+
+		// 推定メモリ使用量が上限を超えた時点でストリーミング形式に切り替え、出力済みの行も保持すること
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		try (ExcelPoiGenerator<Model> writer = new ExcelPoiGenerator<>(true))
+		{
+			writer.setMemoryBudget(selector.estimateMemory(Model.class, 100, EnumEngine.XSSF), 10);
+			writer.setSheetRollover(true);
+			writer.setSheetRowLimit(301);
+			assertEquals(500, writer.writetoExcel(createModels(500), Model.class));
+			assertTrue(writer.isStreaming());
+			writer.write(stream);
+		}
+
+		// 呼び出し元が指定したブックは切り替えない
+		try (Workbook workbook = new XSSFWorkbook();
+				ExcelPoiGenerator<Model> writer = new ExcelPoiGenerator<>(workbook))
+		{
+			writer.setMemoryBudget(0, 10);
+			writer.setMemoryBudget(1, 10);
+			fail();
+		}
+		catch (IllegalStateException e)
+		{
+		}
+
+		try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(stream.toByteArray())))
+		{
+			assertEquals(2, workbook.getNumberOfSheets());
+			Sheet sheet = workbook.getSheetAt(0);
+			assertEquals(300, sheet.getLastRowNum());
+			assertEquals("Code", sheet.getRow(0).getCell(0).getStringCellValue());
+			assertEquals("50", sheet.getRow(50).getCell(0).getStringCellValue());
+			assertEquals("250", sheet.getRow(250).getCell(0).getStringCellValue());
+			assertEquals("500", workbook.getSheetAt(1).getRow(200).getCell(0).getStringCellValue());
+			assertEquals(1, sheet.getPaneInformation().getHorizontalSplitPosition());
+		}
+
+		// 選択した出力方式で出力されること
+		ByteArrayOutputStream direct = new ByteArrayOutputStream();
+		assertEquals(50, new ExcelPoiEngineSelector(1).export(createModels(50), Model.class, direct));
+		try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(direct.toByteArray())))
+		{
+			assertEquals(50, workbook.getSheetAt(0).getLastRowNum());
+		}
+	}
+
+	@Test
+	public void readExcel()
+			throws IOException
+	{
+		List<Model> data = createModels(30);
+		data.get(29).setQuantity(OptionalInt.empty());
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+		try (ExcelPoiGenerator<Model> writer = new ExcelPoiGenerator<>(10, true))
+		{
+			writer.writetoExcel(data, Model.class);
+			writer.write(stream);
+		}
+
+		try (ExcelPoiReader<Model> reader = new ExcelPoiReader<>(Model.class, new ByteArrayInputStream(stream.toByteArray())))
+		{
+			List<Model> result;
+			try (Stream<Model> rows = reader.stream())
+			{
+				result = rows.collect(Collectors.toList());
+			}
+
+			assertEquals(30, result.size());
+			assertEquals(data.get(0), result.get(0));
+			assertEquals(data.get(28), result.get(28));
+			assertEquals(OptionalInt.empty(), result.get(29).getQuantity());
+			assertEquals(30, reader.read(t -> { }));
+		}
+	}
+
+	@Test
+	public void mappingCache()
+	{
+		ExcelPoiMapping<Model> mapping = ExcelPoiMapping.of(Model.class);
+
+		assertSame(mapping, ExcelPoiMapping.of(Model.class));
+		assertEquals("テスト", mapping.getSheet().sheet_name());
+		assertEquals(Arrays.asList("code", "name", "quantity", "amount", "modified")
+				, mapping.getColumns().stream().map(ExcelPoiColumn::getFieldName).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void generatePrimitiveExcel()
+			throws IOException
+	{
+		PrimitiveModel model = new PrimitiveModel();
+		model.setInt_value(12);
+		model.setLong_value(3_000_000_000L);
+		model.setDouble_value(1.5);
+		model.setBoolean_value(true);
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+		try (ExcelPoiGenerator<PrimitiveModel> writer = new ExcelPoiGenerator<>())
+		{
+			writer.writetoExcel(Arrays.asList(model), PrimitiveModel.class);
+			writer.write(stream);
+		}
+
+		try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(stream.toByteArray())))
+		{
+			Sheet sheet = workbook.getSheet("Primitive");
+			assertEquals(12.0, sheet.getRow(1).getCell(0).getNumericCellValue(), 0);
+			assertEquals(3_000_000_000.0, sheet.getRow(1).getCell(1).getNumericCellValue(), 0);
+			assertEquals(1.5, sheet.getRow(1).getCell(2).getNumericCellValue(), 0);
+			assertEquals(true, sheet.getRow(1).getCell(3).getBooleanCellValue());
+		}
+	}
+
+	@Test
+	public void stylePool()
+			throws IOException
+	{
+		try (ExcelPoiGenerator<Model> writer = new ExcelPoiGenerator<>())
+		{
+			writer.writetoExcel(createModels(10), Model.class);
+
+			// タイトル、Code、Name、Q'ty・Amount（同一設定）、Modify
+			assertEquals(5, writer.getStylePool().getMissCount());
+			assertEquals(1, writer.getStylePool().getHitCount());
+			assertEquals(2, writer.getStylePool().getFontCount());
+			assertSame(writer.getStylePool(), ExcelPoiStylePool.of(writer.getWorkbook()));
+		}
+
+		// 同じWorkbookを別の出力処理で利用してもセルスタイルは増えない
+		try (Workbook workbook = WorkbookFactory.create(true))
+		{
+			new ExcelPoiGenerator<Model>(workbook).writetoExcel(createModels(10), Model.class);
+			int style_count = workbook.getNumCellStyles();
+			System.gc();
+
+			workbook.removeSheetAt(0);
+			new ExcelPoiGenerator<Model>(workbook).writetoExcel(createModels(10), Model.class);
+			assertEquals(style_count, workbook.getNumCellStyles());
+		}
+	}
+
+	@Test
+	public void registerConverter()
+			throws IOException
+	{
+		ExcelPoiConverters.register(Currency.class, String.class, Currency::getCurrencyCode);
+
+		try (ExcelPoiGenerator<Model> writer = new ExcelPoiGenerator<>())
+		{
+			Cell cell = writer.getWorkbook().createSheet().createRow(0).createCell(0);
+			writer.setCellValue(cell, Currency.getInstance("JPY"));
+			assertEquals("JPY", cell.getStringCellValue());
+
+			writer.setCellValue(cell, Optional.of(" text "), true);
+			assertEquals("text", cell.getStringCellValue());
+
+			// 登録した型のサブクラスにも適用
+			ExcelPoiConverters.register(Date.class, String.class, t -> "date");
+			writer.setCellValue(cell, new Timestamp(0));
+			assertEquals("date", cell.getStringCellValue());
+		}
+		finally
+		{
+			ExcelPoiConverters.unregister(Currency.class);
+			ExcelPoiConverters.unregister(Date.class);
+		}
+	}
+
+	@Test
+	public void templateExcel()
+	{
+		TemplateModel data = new TemplateModel()
+		{{
+			setIssue_date(LocalDate.now());
+			setName("日本 太郎");
+			setAmount(new BigDecimal(14000));
+		}};
+
+		try (
+				InputStream stream = ExcelTest.class.getClassLoader().getResourceAsStream("template.xlsx");
+				ExcelPoiTemplateWriter<TemplateModel> writer = new ExcelPoiTemplateWriter<>(stream);
+				OutputStream outstream = new FileOutputStream(String.format("%s\\template_test.xlsx", getResourceFolder()));
+			)
+		{
+			writer.writetoExcelTemplate(data, TemplateModel.class);
+			writer.write(outstream);
+			outstream.flush();
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	@Test
+	public void templateFormulaEvaluation()
+			throws IOException
+	{
+		TemplateModel data = new TemplateModel();
+		data.setAmount(new BigDecimal(14000));
+
+		try (
+				InputStream stream = ExcelTest.class.getClassLoader().getResourceAsStream("template.xlsx");
+				ExcelPoiTemplateWriter<TemplateModel> writer = new ExcelPoiTemplateWriter<>(stream);
+			)
+		{
+			writer.setFormulaEvaluation(EnumFormulaEvaluation.ONLY_TOUCHED);
+			writer.writetoExcelTemplate(data, TemplateModel.class);
+
+			Sheet sheet = writer.getWorkbook().getSheet("Sheet1");
+			assertEquals(1400.0, sheet.getRow(11).getCell(3).getNumericCellValue(), 0.001);
+			assertEquals(15400.0, sheet.getRow(12).getCell(3).getNumericCellValue(), 0.001);
+			assertEquals(true, writer.getWorkbook().getForceFormulaRecalculation());
+		}
+	}
+
+	@Test
+	public void templateRegistry()
+			throws IOException
+	{
+		try (InputStream stream = ExcelTest.class.getClassLoader().getResourceAsStream("template.xlsx"))
+		{
+			ExcelPoiTemplate template = ExcelPoiTemplateRegistry.register("invoice", stream);
+			assertEquals("Sheet1!$D$11", template.getNames().get("AMOUNT"));
+		}
+
+		for (int amount : new int[] { 1000, 2000 })
+		{
+			TemplateModel data = new TemplateModel();
+			data.setAmount(new BigDecimal(amount));
+
+			try (ExcelPoiTemplateWriter<TemplateModel> writer = ExcelPoiTemplateRegistry.newWriter("invoice"))
+			{
+				writer.setFormulaEvaluation(EnumFormulaEvaluation.ONLY_TOUCHED);
+				writer.writetoExcelTemplate(data, TemplateModel.class);
+
+				Sheet sheet = writer.getWorkbook().getSheet("Sheet1");
+				assertEquals(amount, sheet.getRow(10).getCell(3).getNumericCellValue(), 0);
+				assertEquals(amount * 1.1, sheet.getRow(12).getCell(3).getNumericCellValue(), 0.001);
+			}
+		}
+
+		ExcelPoiTemplateRegistry.unregister("invoice");
+	}
+
+	@Test
+	public void templateCrossSheetAddress()
+			throws IOException
+	{
+		Workbook workbook = WorkbookFactory.create(true);
+		workbook.createSheet("Sheet1");
+		workbook.createSheet("Sheet2");
+		Name title = workbook.createName();
+		title.setNameName("TITLE");
+		title.setRefersToFormula("Sheet1!$A$1");
+		Name total = workbook.createName();
+		total.setNameName("TOTAL");
+		total.setRefersToFormula("Sheet2!$B$3");
+
+		CrossSheetModel data = new CrossSheetModel();
+		data.setTitle("Title");
+		data.setTotal(new BigDecimal(500));
+		data.setNote("Note");
+
+		try (ExcelPoiTemplateWriter<CrossSheetModel> writer = new ExcelPoiTemplateWriter<>(workbook))
+		{
+			writer.setFormulaEvaluation(EnumFormulaEvaluation.NONE);
+			writer.writetoExcelTemplate(data, CrossSheetModel.class);
+			writer.writetoExcelTemplate(data, CrossSheetModel.class);
+
+			assertEquals("Title", workbook.getSheet("Sheet1").getRow(0).getCell(0).getStringCellValue());
+			assertEquals(500.0, workbook.getSheet("Sheet2").getRow(2).getCell(1).getNumericCellValue(), 0);
+			assertEquals("Note", workbook.getSheet("Sheet2").getRow(4).getCell(2).getStringCellValue());
+		}
+	}
+
+	@Test
+	public void templateRepeat()
+			throws IOException
+	{
+		Workbook workbook = WorkbookFactory.create(true);
+		Sheet template = workbook.createSheet("Invoice");
+		template.createRow(1).createCell(2).setCellFormula("B2*10");
+		template.addMergedRegion(new CellRangeAddress(1, 1, 3, 4));
+		template.createRow(2).createCell(0).setCellValue("Footer");
+		template.getRow(2).createCell(2).setCellFormula("SUM(C2:C2)");
+		Name title = workbook.createName();
+		title.setNameName("TITLE");
+		title.setRefersToFormula("Invoice!$A$1");
+		Name items = workbook.createName();
+		items.setNameName("ITEMS");
+		items.setRefersToFormula("Invoice!$A$2:$E$2");
+
+		InvoiceModel data = new InvoiceModel();
+		data.setTitle("Invoice");
+		data.setNote("Note");
+		data.setItems(IntStream.rangeClosed(1, 3)
+				.mapToObj(i -> new InvoiceItem() {{ setName("Item_" + i); setQuantity(i); }})
+				.collect(Collectors.toList()));
+
+		try (ExcelPoiTemplateWriter<InvoiceModel> writer = new ExcelPoiTemplateWriter<>(workbook))
+		{
+			writer.writetoExcelTemplate(data, InvoiceModel.class);
+
+			Sheet sheet = workbook.getSheet("Invoice");
+			assertEquals("Invoice", sheet.getRow(0).getCell(0).getStringCellValue());
+			assertEquals("Item_3", sheet.getRow(3).getCell(0).getStringCellValue());
+			assertEquals(3.0, sheet.getRow(3).getCell(1).getNumericCellValue(), 0);
+			assertEquals("B4*10", sheet.getRow(3).getCell(2).getCellFormula());
+			assertEquals(30.0, sheet.getRow(3).getCell(2).getNumericCellValue(), 0);
+			assertEquals(3, sheet.getNumMergedRegions());
+			assertEquals("Footer", sheet.getRow(4).getCell(0).getStringCellValue());
+			assertEquals("Note", sheet.getRow(5).getCell(0).getStringCellValue());
+		}
+	}
+
+	@Test
+	public void templateRepeatRegistry()
+			throws IOException
+	{
+		ByteArrayOutputStream image = new ByteArrayOutputStream();
+		try (Workbook workbook = WorkbookFactory.create(true))
+		{
+			Sheet template = workbook.createSheet("Invoice");
+			template.createRow(1).createCell(2).setCellFormula("B2*10");
+			template.createRow(9).createCell(0).setCellValue("Total");
+			Name title = workbook.createName();
+			title.setNameName("TITLE");
+			title.setRefersToFormula("Invoice!$A$1");
+			Name items = workbook.createName();
+			items.setNameName("ITEMS");
+			items.setRefersToFormula("Invoice!$A$2:$E$2");
+			Name total = workbook.createName();
+			total.setNameName("TOTAL");
+			total.setRefersToFormula("Invoice!$B$10");
+			workbook.write(image);
+		}
+		ExcelPoiTemplateRegistry.register("repeat", new ByteArrayInputStream(image.toByteArray()));
+
+		try
+		{
+			// 作業用のブックごとに、展開した行数に応じた位置に出力
+			for (int size : new int[] { 5, 1 })
+			{
+				InvoiceModel data = new InvoiceModel();
+				data.setTitle("Invoice");
+				data.setItems(IntStream.rangeClosed(1, size)
+						.mapToObj(i -> new InvoiceItem() {{ setName("Item_" + i); setQuantity(i); }})
+						.collect(Collectors.toList()));
+				InvoiceFooter footer = new InvoiceFooter();
+				footer.setTotal(new BigDecimal(size * 100));
+
+				try (ExcelPoiTemplateWriter<Object> writer = ExcelPoiTemplateRegistry.newWriter("repeat"))
+				{
+					writer.setFormulaEvaluation(EnumFormulaEvaluation.NONE);
+					writeTemplate(writer, data, InvoiceModel.class);
+					writeTemplate(writer, footer, InvoiceFooter.class);
+					writeTemplate(writer, footer, InvoiceFooter.class);
+
+					Sheet sheet = writer.getWorkbook().getSheet("Invoice");
+					int total_row = 9 + size - 1;
+					assertEquals("Item_" + size, sheet.getRow(size).getCell(0).getStringCellValue());
+					assertEquals("Total", sheet.getRow(total_row).getCell(0).getStringCellValue());
+					assertEquals(size * 100, sheet.getRow(total_row).getCell(1).getNumericCellValue(), 0);
+					assertEquals(total_row + 1, sheet.getLastRowNum() + 1);
+				}
+			}
+		}
+		finally
+		{
+			ExcelPoiTemplateRegistry.unregister("repeat");
+		}
+	}
+
+	@Test
+	public void templateRepeatEmptyRow()
+			throws IOException
+	{
+		// 繰り返す行範囲に行が存在しないテンプレート
+		Workbook workbook = WorkbookFactory.create(true);
+		workbook.createSheet("Invoice").createRow(0);
+		Name title = workbook.createName();
+		title.setNameName("TITLE");
+		title.setRefersToFormula("Invoice!$A$1");
+		Name items = workbook.createName();
+		items.setNameName("ITEMS");
+		items.setRefersToFormula("Invoice!$A$2:$E$2");
+
+		InvoiceModel data = new InvoiceModel();
+		data.setTitle("Invoice");
+		data.setNote("Note");
+		data.setItems(IntStream.rangeClosed(1, 3)
+				.mapToObj(i -> new InvoiceItem() {{ setName("Item_" + i); setQuantity(i); }})
+				.collect(Collectors.toList()));
+
+		try (ExcelPoiTemplateWriter<InvoiceModel> writer = new ExcelPoiTemplateWriter<>(workbook))
+		{
+			writer.setFormulaEvaluation(EnumFormulaEvaluation.NONE);
+			writer.writetoExcelTemplate(data, InvoiceModel.class);
+
+			Sheet sheet = workbook.getSheet("Invoice");
+			for (int i = 1; i <= 3; i++)
+			{
+				assertEquals("Item_" + i, sheet.getRow(i).getCell(0).getStringCellValue());
+				assertEquals(i, sheet.getRow(i).getCell(1).getNumericCellValue(), 0);
+			}
+			assertEquals("Note", sheet.getRow(5).getCell(0).getStringCellValue());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> void writeTemplate(ExcelPoiTemplateWriter<Object> writer, T entity, Class<T> clazz)
+	{
+		((ExcelPoiTemplateWriter<T>)(ExcelPoiTemplateWriter<?>)writer).writetoExcelTemplate(entity, clazz);
+	}
+
+	private List<Model> createModels(int size)
+	{
+		return IntStream.rangeClosed(1, size)
+				.mapToObj(i -> new Model() {{ setCode(String.valueOf(i)); setName("Name_" + i); setQuantity(OptionalInt.of(i)); setAmount(new BigDecimal(i)); setModified(LocalDate.now()); }})
+				.collect(Collectors.toList());
+	}
+
+	private String getResourceFolder()
+	{
+		File file = new File(ExcelTest.class.getClassLoader().getResource("template.xlsx").getPath());
+		return file.getParent();
+	}
+}
@@ -0,0 +1,17 @@
+package utility.poi;
+
+import lombok.Data;
+import utility.poi.annotation.ExcelCellStyle;
+import utility.poi.annotation.ExcelColumn;
+import utility.poi.annotation.ExcelSheet;
+
+@ExcelSheet(sheet_name = "Filter", auto_filter = true, style = @ExcelCellStyle(bold = true))
+@Data
+public class FilterModel
+{
+	@ExcelColumn(name = "Code")
+	String code;
+
+	@ExcelColumn(name = "Value")
+	int value;
+}
@@ -0,0 +1,33 @@
+package utility.poi;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import utility.poi.annotation.ExcelCellStyle;
+import utility.poi.annotation.ExcelColumn;
+import utility.poi.annotation.ExcelSheet;
+
+@ExcelSheet(sheet_name = "Formula", style = @ExcelCellStyle)
+@Data
+public class FormulaModel
+{
+	@ExcelColumn(name = "Code")
+	String code;
+
+	@ExcelColumn(name = "Quantity")
+	int quantity;
+
+	@ExcelColumn(name = "Price")
+	int price;
+
+	@ExcelColumn(name = "Amount", formula = "B{row}*C{row}")
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	Object amount;
+
+	@ExcelColumn(name = "Total", formula = "=SUM(D$2:D{row})")
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	Object total;
+}
@@ -0,0 +1,14 @@
+package utility.poi;
+
+import lombok.Data;
+import utility.poi.annotation.ExcelCellStyle;
+import utility.poi.annotation.ExcelColumn;
+import utility.poi.annotation.ExcelSheet;
+
+@ExcelSheet(sheet_name = "売上[2024/04]", style = @ExcelCellStyle())
+@Data
+public class InvalidSheetNameModel
+{
+	@ExcelColumn(name = "Code")
+	String code;
+}
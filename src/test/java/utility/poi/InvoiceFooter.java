@@ -0,0 +1,16 @@
+package utility.poi;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+import utility.poi.annotation.ExcelAddress;
+import utility.poi.annotation.ExcelCellStyle;
+import utility.poi.annotation.ExcelSheet;
+
+@ExcelSheet(sheet_name = "Invoice", style = @ExcelCellStyle())
+@Data
+public class InvoiceFooter
+{
+	@ExcelAddress(address = "TOTAL")
+	BigDecimal total;
+}
@@ -0,0 +1,14 @@
+package utility.poi;
+
+import lombok.Data;
+import utility.poi.annotation.ExcelAddress;
+
+@Data
+public class InvoiceItem
+{
+	@ExcelAddress(address = "A2")
+	String name;
+
+	@ExcelAddress(address = "B2")
+	int quantity;
+}
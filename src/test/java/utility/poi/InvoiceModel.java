@@ -0,0 +1,23 @@
+package utility.poi;
+
+import java.util.List;
+
+import lombok.Data;
+import utility.poi.annotation.ExcelAddress;
+import utility.poi.annotation.ExcelCellStyle;
+import utility.poi.annotation.ExcelRepeat;
+import utility.poi.annotation.ExcelSheet;
+
+@ExcelSheet(sheet_name = "Invoice", style = @ExcelCellStyle())
+@Data
+public class InvoiceModel
+{
+	@ExcelAddress(address = "TITLE")
+	String title;
+
+	@ExcelRepeat(address = "ITEMS")
+	List<InvoiceItem> items;
+
+	@ExcelAddress(address = "A4")
+	String note;
+}
@@ -0,0 +1,14 @@
+package utility.poi;
+
+import lombok.Data;
+import utility.poi.annotation.ExcelCellStyle;
+import utility.poi.annotation.ExcelColumn;
+import utility.poi.annotation.ExcelSheet;
+
+@ExcelSheet(sheet_name = "2024年度上期売上明細一覧（全営業所・全担当者・全商品区分・全得意先）", style = @ExcelCellStyle())
+@Data
+public class LongSheetNameModel
+{
+	@ExcelColumn(name = "Code")
+	String code;
+}
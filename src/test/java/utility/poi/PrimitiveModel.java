@@ -0,0 +1,23 @@
+package utility.poi;
+
+import lombok.Data;
+import utility.poi.annotation.ExcelCellStyle;
+import utility.poi.annotation.ExcelColumn;
+import utility.poi.annotation.ExcelSheet;
+
+@ExcelSheet(sheet_name = "Primitive", style = @ExcelCellStyle(bold = true))
+@Data
+public class PrimitiveModel
+{
+	@ExcelColumn(name = "Int")
+	int int_value;
+
+	@ExcelColumn(name = "Long")
+	long long_value;
+
+	@ExcelColumn(name = "Double")
+	double double_value;
+
+	@ExcelColumn(name = "Boolean")
+	boolean boolean_value;
+}